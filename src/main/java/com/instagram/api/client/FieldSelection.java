@@ -0,0 +1,151 @@
+package com.instagram.api.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which entities a data fetch includes and which Graph fields it requests for each.
+ * <p>
+ * Field names are checked against {@link GraphApiClient#PROFILE_FIELDS} and
+ * {@link GraphApiClient#MEDIA_FIELDS}, always include {@code id} (and media {@code timestamp},
+ * which stored media rows are partitioned by), and are kept in allow-list
+ * order so that equal selections produce the same Graph request. An empty list means the
+ * entity is not fetched at all. Nested fields such as {@code children} are selected by name and
+ * expanded to their full Graph expression in the field list.
+ */
+public record FieldSelection(List<String> profileFields, List<String> mediaFields) {
+
+    public static final String PROFILE = "profile";
+    public static final String MEDIA = "media";
+
+    private static final Map<String, String> PROFILE_EXPRESSIONS = expressions(GraphApiClient.PROFILE_FIELDS);
+    private static final Map<String, String> MEDIA_EXPRESSIONS = expressions(GraphApiClient.MEDIA_FIELDS);
+    private static final List<String> PROFILE_ALLOWED = List.copyOf(PROFILE_EXPRESSIONS.keySet());
+    private static final List<String> MEDIA_ALLOWED = List.copyOf(MEDIA_EXPRESSIONS.keySet());
+
+    public static final FieldSelection ALL = new FieldSelection(PROFILE_ALLOWED, MEDIA_ALLOWED);
+
+    public FieldSelection {
+        profileFields = List.copyOf(profileFields);
+        mediaFields = List.copyOf(mediaFields);
+    }
+
+    /**
+     * @param include       comma-separated {@code profile} and/or {@code media}; blank for both
+     * @param profileFields comma-separated profile fields; blank for all
+     * @param mediaFields   comma-separated media fields; blank for all
+     * @throws IllegalArgumentException for unknown entities or fields, or fields of an entity
+     *                                  that is not included
+     */
+    public static FieldSelection parse(String include, String profileFields, String mediaFields) {
+        Set<String> entities = split(include);
+        for (String entity : entities) {
+            if (!entity.equals(PROFILE) && !entity.equals(MEDIA)) {
+                throw new IllegalArgumentException("Unknown include value '" + entity
+                        + "'; allowed: " + PROFILE + ", " + MEDIA);
+            }
+        }
+        boolean withProfile = entities.isEmpty() || entities.contains(PROFILE);
+        boolean withMedia = entities.isEmpty() || entities.contains(MEDIA);
+
+        return new FieldSelection(
+                fields(PROFILE, withProfile, profileFields, PROFILE_ALLOWED),
+                fields(MEDIA, withMedia, mediaFields, MEDIA_ALLOWED));
+    }
+
+    public boolean includesProfile() {
+        return !profileFields.isEmpty();
+    }
+
+    public boolean includesMedia() {
+        return !mediaFields.isEmpty();
+    }
+
+    public boolean hasProfileField(String field) {
+        return profileFields.contains(field);
+    }
+
+    public boolean hasMediaField(String field) {
+        return mediaFields.contains(field);
+    }
+
+    /**
+     * Value for the Graph {@code fields} parameter of the profile request.
+     */
+    public String profileFieldList() {
+        return String.join(",", profileFields.stream().map(PROFILE_EXPRESSIONS::get).toList());
+    }
+
+    public String mediaFieldList() {
+        return String.join(",", mediaFields.stream().map(MEDIA_EXPRESSIONS::get).toList());
+    }
+
+    private static List<String> fields(String entity, boolean included, String requested, List<String> allowed) {
+        Set<String> names = split(requested);
+        if (!included) {
+            if (!names.isEmpty()) {
+                throw new IllegalArgumentException(entity + "Fields requires include=" + entity);
+            }
+            return List.of();
+        }
+        if (names.isEmpty()) {
+            return allowed;
+        }
+        for (String name : names) {
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Unknown " + entity + " field '" + name + "'; allowed: "
+                        + String.join(", ", allowed));
+            }
+        }
+        return allowed.stream()
+                .filter(name -> name.equals("id") || (entity.equals(MEDIA) && name.equals("timestamp"))
+                        || names.contains(name))
+                .toList();
+    }
+
+    /**
+     * Maps each top-level field name of a Graph field list to its expression, e.g.
+     * {@code children} to {@code children{id,media_type}}.
+     */
+    private static Map<String, String> expressions(String fieldList) {
+        Map<String, String> expressions = new LinkedHashMap<>();
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < fieldList.length(); i++) {
+            char c = fieldList.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(fieldList.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(fieldList.substring(start));
+        for (String part : parts) {
+            int brace = part.indexOf('{');
+            expressions.put(brace < 0 ? part : part.substring(0, brace), part);
+        }
+        return expressions;
+    }
+
+    private static Set<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        Set<String> parts = new LinkedHashSet<>();
+        Arrays.stream(value.split(","))
+                .map(part -> part.trim().toLowerCase(Locale.ROOT))
+                .filter(part -> !part.isEmpty())
+                .forEach(parts::add);
+        return parts;
+    }
+}
@@ -0,0 +1,318 @@
+package com.instagram.api.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.config.InstagramConfig;
+import com.instagram.api.config.RequestDeadline;
+import com.instagram.api.dto.InstagramProfileDTO;
+import com.instagram.api.dto.InstagramTokenResponse;
+import com.instagram.api.exception.GraphApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Typed client for the Graph API endpoints this service uses.
+ * <p>
+ * Request URIs are compiled once from {@link InstagramConfig} (hosts and API version), with
+ * the field lists pre-encoded, so each call only encodes its IDs and token. Narrower
+ * {@link FieldSelection}s get their own templates, compiled on first use. Every response
+ * goes through one decoding path: a 2xx body becomes the requested type, and anything else
+ * becomes a {@link GraphApiException} carrying Meta's error code.
+ */
+@Component
+public class GraphApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphApiClient.class);
+
+    public static final String PROFILE_FIELDS = "id,username,name,profile_picture_url,biography,website,followers_count,follows_count,media_count,account_type";
+    /**
+     * Carousel album items, expanded inline so an album page needs no call per album.
+     */
+    public static final String CHILD_FIELDS = "id,media_type,media_url,thumbnail_url";
+    public static final String MEDIA_FIELDS = "id,media_type,media_url,thumbnail_url,permalink,caption,timestamp,like_count,comments_count,children{" + CHILD_FIELDS + "}";
+    public static final String REPLY_FIELDS = "id,text,username,timestamp,like_count";
+    /**
+     * Top-level comments with their replies expanded inline, so a thread costs no extra call.
+     */
+    public static final String COMMENT_FIELDS = REPLY_FIELDS + ",replies{" + REPLY_FIELDS + "}";
+
+    private static final Pattern VERSIONED_URL = Pattern.compile(".*/v\\d+\\.\\d+/?$");
+
+    /**
+     * Graph error codes that signal throttling at app, user or business-use-case level.
+     */
+    private static final Set<Integer> RATE_LIMIT_CODES = Set.of(4, 17, 32, 613, 80001, 80002, 80003, 80004,
+            80005, 80006, 80008, 80009, 80014);
+    private static final int INVALID_TOKEN = 190;
+    private static final int INVALID_PARAMETER = 100;
+    private static final int OBJECT_NOT_FOUND_SUBCODE = 33;
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final String graph;
+
+    private final GraphRequestTemplate pagesTemplate;
+    // Keyed by field list; bounded by the allow-lists in FieldSelection
+    private final Map<String, GraphRequestTemplate> profileTemplates = new ConcurrentHashMap<>();
+    private final Map<String, GraphRequestTemplate> mediaListTemplates = new ConcurrentHashMap<>();
+    private final GraphRequestTemplate mediaTemplate;
+    private final GraphRequestTemplate commentsTemplate;
+    private final GraphRequestTemplate commentsAfterTemplate;
+    private final GraphRequestTemplate longLivedTokenTemplate;
+    private final GraphRequestTemplate refreshTokenTemplate;
+    private final GraphRequestTemplate containerTemplate;
+    private final GraphRequestTemplate containerStatusTemplate;
+    private final GraphRequestTemplate publishTemplate;
+    private final URI codeExchangeUri;
+    private final String authorizationDialogUrl;
+    private final Duration responseTimeout;
+
+    public GraphApiClient(WebClient webClient, ObjectMapper objectMapper, InstagramConfig config) {
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.responseTimeout = config.getResponseTimeout();
+
+        this.graph = graphRoot(config);
+        String instagram = stripTrailingSlash(config.getBaseUrl());
+
+        this.pagesTemplate = GraphRequestTemplate.compile(graph
+                + "/me/accounts?fields=instagram_business_account&access_token={token}");
+        // Full field lists are what every sync uses, so compile them up front
+        profileTemplate(PROFILE_FIELDS);
+        mediaListTemplate(MEDIA_FIELDS);
+        this.mediaTemplate = GraphRequestTemplate.compile(graph
+                + "/{id}?fields=" + encode(MEDIA_FIELDS) + "&access_token={token}");
+        this.commentsTemplate = GraphRequestTemplate.compile(graph
+                + "/{id}/comments?fields=" + encode(COMMENT_FIELDS) + "&limit={limit}&access_token={token}");
+        this.commentsAfterTemplate = GraphRequestTemplate.compile(graph
+                + "/{id}/comments?fields=" + encode(COMMENT_FIELDS) + "&limit={limit}&after={after}&access_token={token}");
+        this.longLivedTokenTemplate = GraphRequestTemplate.compile(graph
+                + "/oauth/access_token?grant_type=fb_exchange_token&client_id={clientId}"
+                + "&client_secret={clientSecret}&fb_exchange_token={token}");
+        this.refreshTokenTemplate = GraphRequestTemplate.compile(instagram
+                + "/refresh_access_token?grant_type=ig_refresh_token&access_token={token}");
+        this.containerTemplate = GraphRequestTemplate.compile(graph + "/{id}/media");
+        this.containerStatusTemplate = GraphRequestTemplate.compile(graph
+                + "/?ids={ids}&fields=status_code,status&access_token={token}");
+        this.publishTemplate = GraphRequestTemplate.compile(graph
+                + "/{id}/media_publish?creation_id={containerId}&access_token={token}");
+        this.codeExchangeUri = URI.create(graph + "/oauth/access_token");
+        this.authorizationDialogUrl = stripTrailingSlash(config.getFacebookDialogUrl()) + "/"
+                + config.getGraphApiVersion() + "/dialog/oauth";
+
+        logger.info("Graph API client targeting {} and {}", graph, instagram);
+    }
+
+    /**
+     * Facebook pages of the token's user, each with its linked Instagram business account.
+     */
+    public JsonNode getPages(String accessToken) {
+        return get(pagesTemplate.expand(accessToken), JsonNode.class, "me/accounts");
+    }
+
+    public InstagramProfileDTO getProfile(String instagramBusinessAccountId, String accessToken) {
+        return getProfile(instagramBusinessAccountId, accessToken, PROFILE_FIELDS);
+    }
+
+    /**
+     * @param fields comma-separated Graph field names, normally {@link FieldSelection#profileFieldList()}
+     */
+    public InstagramProfileDTO getProfile(String instagramBusinessAccountId, String accessToken, String fields) {
+        return get(profileTemplate(fields).expand(instagramBusinessAccountId, accessToken),
+                InstagramProfileDTO.class, "profile");
+    }
+
+    /**
+     * First page of the account's media, newest first.
+     */
+    public JsonNode getMediaPage(String instagramBusinessAccountId, String accessToken, int limit) {
+        return getMediaPage(instagramBusinessAccountId, accessToken, limit, MEDIA_FIELDS);
+    }
+
+    public JsonNode getMediaPage(String instagramBusinessAccountId, String accessToken, int limit, String fields) {
+        return get(mediaListTemplate(fields).expand(instagramBusinessAccountId, limit, accessToken),
+                JsonNode.class, "media list");
+    }
+
+    public JsonNode getMedia(String mediaId, String accessToken) {
+        return get(mediaTemplate.expand(mediaId, accessToken), JsonNode.class, "media");
+    }
+
+    /**
+     * One page of a media item's comments, newest first.
+     *
+     * @param after {@code paging.cursors.after} of the previous page, or null for the first page
+     */
+    public JsonNode getCommentsPage(String mediaId, String accessToken, int limit, String after) {
+        URI uri = after == null
+                ? commentsTemplate.expand(mediaId, limit, accessToken)
+                : commentsAfterTemplate.expand(mediaId, limit, after, accessToken);
+        return get(uri, JsonNode.class, "comments");
+    }
+
+    /**
+     * Creates a media container for {@code accountId} from the form fields of a publish request,
+     * e.g. {@code image_url} or {@code media_type=REELS} with {@code video_url}, and
+     * {@code access_token}.
+     */
+    public JsonNode createMediaContainer(String accountId, MultiValueMap<String, String> formData) {
+        return execute(webClient.post()
+                .uri(containerTemplate.expand(accountId))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData(formData)), JsonNode.class, "media container");
+    }
+
+    /**
+     * {@code status_code} of several containers in one call, keyed by container ID.
+     */
+    public JsonNode getContainerStatuses(Collection<String> containerIds, String accessToken) {
+        return get(containerStatusTemplate.expand(String.join(",", containerIds), accessToken),
+                JsonNode.class, "container status");
+    }
+
+    /**
+     * Publishes a container whose status is {@code FINISHED}.
+     */
+    public JsonNode publishMediaContainer(String accountId, String containerId, String accessToken) {
+        return execute(webClient.post().uri(publishTemplate.expand(accountId, containerId, accessToken)),
+                JsonNode.class, "media publish");
+    }
+
+    public InstagramTokenResponse exchangeCode(MultiValueMap<String, String> formData) {
+        return execute(webClient.post()
+                .uri(codeExchangeUri)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData(formData)), InstagramTokenResponse.class, "code exchange");
+    }
+
+    public InstagramTokenResponse exchangeLongLivedToken(String clientId, String clientSecret, String shortLivedToken) {
+        return get(longLivedTokenTemplate.expand(clientId, clientSecret, shortLivedToken),
+                InstagramTokenResponse.class, "long-lived token exchange");
+    }
+
+    public InstagramTokenResponse refreshToken(String accessToken) {
+        return get(refreshTokenTemplate.expand(accessToken), InstagramTokenResponse.class, "token refresh");
+    }
+
+    /**
+     * Versioned OAuth dialog URL, without query parameters.
+     */
+    public String getAuthorizationDialogUrl() {
+        return authorizationDialogUrl;
+    }
+
+    private GraphRequestTemplate profileTemplate(String fields) {
+        return profileTemplates.computeIfAbsent(fields, key -> GraphRequestTemplate.compile(graph
+                + "/{id}?fields=" + encode(key) + "&access_token={token}"));
+    }
+
+    private GraphRequestTemplate mediaListTemplate(String fields) {
+        return mediaListTemplates.computeIfAbsent(fields, key -> GraphRequestTemplate.compile(graph
+                + "/{id}/media?fields=" + encode(key) + "&limit={limit}&access_token={token}"));
+    }
+
+    private <T> T get(URI uri, Class<T> type, String operation) {
+        return execute(webClient.get().uri(uri), type, operation);
+    }
+
+    /**
+     * Sends the request, bounded by the remaining time of the current {@link RequestDeadline} and
+     * by {@code response-timeout}, whichever ends first.
+     */
+    private <T> T execute(WebClient.RequestHeadersSpec<?> request, Class<T> type, String operation) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            deadline.check("graph " + operation);
+        }
+        try {
+            Mono<T> call = request.exchangeToMono(response -> {
+                if (response.statusCode().is2xxSuccessful()) {
+                    return response.bodyToMono(type);
+                }
+                return response.bodyToMono(String.class)
+                        .defaultIfEmpty("")
+                        .flatMap(body -> Mono.error(decodeError(response.statusCode(), body, operation)));
+            });
+            if (deadline != null && deadline.remaining().compareTo(responseTimeout) < 0) {
+                call = call.timeout(deadline.remaining(),
+                        Mono.error(() -> deadline.exceeded("graph " + operation)));
+            } else {
+                call = call.timeout(responseTimeout, Mono.error(() -> new GraphApiException(
+                        "Instagram API did not respond within " + responseTimeout,
+                        new TimeoutException(operation))));
+            }
+            return call.block();
+        } catch (GraphApiException e) {
+            throw e;
+        } catch (WebClientRequestException e) {
+            logger.error("Graph API {} request failed: {}", operation, e.getMessage());
+            throw new GraphApiException("Instagram API is unreachable", e);
+        }
+    }
+
+    GraphApiException decodeError(HttpStatusCode status, String body, String operation) {
+        JsonNode error = parse(body).path("error");
+        String message = error.path("message").asText("Graph API returned " + status.value());
+        int code = error.path("code").asInt(0);
+        int subcode = error.path("error_subcode").asInt(0);
+        boolean transientError = error.path("is_transient").asBoolean(status.is5xxServerError());
+
+        logger.warn("Graph API {} failed: status={}, code={}, subcode={}, message={}",
+                operation, status.value(), code, subcode, message);
+
+        if (RATE_LIMIT_CODES.contains(code) || status.value() == 429) {
+            return new GraphApiException("Instagram API rate limit reached: " + message,
+                    "GRAPH_RATE_LIMITED", 429, code, subcode, true);
+        }
+        if (code == INVALID_TOKEN) {
+            return new GraphApiException("Instagram access token is invalid or expired: " + message,
+                    "GRAPH_INVALID_TOKEN", 401, code, subcode, false);
+        }
+        if (status.value() == 404 || (code == INVALID_PARAMETER && subcode == OBJECT_NOT_FOUND_SUBCODE)) {
+            return new GraphApiException("Instagram object not found: " + message,
+                    "GRAPH_NOT_FOUND", 404, code, subcode, false);
+        }
+        return new GraphApiException("Instagram API error: " + message,
+                transientError ? "GRAPH_UNAVAILABLE" : "GRAPH_ERROR", 502, code, subcode, transientError);
+    }
+
+    private JsonNode parse(String body) {
+        try {
+            return objectMapper.readTree(body.isEmpty() ? "{}" : body);
+        } catch (Exception e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private static String graphRoot(InstagramConfig config) {
+        String url = stripTrailingSlash(config.getFacebookGraphUrl());
+        return VERSIONED_URL.matcher(url).matches() ? url : url + "/" + config.getGraphApiVersion();
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static String encode(String value) {
+        return UriUtils.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+package com.instagram.api.client;
+
+import org.springframework.web.util.UriUtils;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * URI template parsed once at startup into literal and {@code {variable}} segments. Expansion
+ * appends the pre-encoded literals and the encoded values into one buffer, with no per-call
+ * template parsing or builder objects.
+ */
+final class GraphRequestTemplate {
+
+    private final String template;
+    private final String[] literals;
+    private final int variableCount;
+    private final int literalLength;
+
+    private GraphRequestTemplate(String template, String[] literals) {
+        this.template = template;
+        this.literals = literals;
+        this.variableCount = literals.length - 1;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @param template URI whose literal parts are already encoded, with {@code {name}}
+     *                 placeholders for per-call values
+     */
+    static GraphRequestTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = template.indexOf('{', position);
+            if (open < 0) {
+                literals.add(template.substring(position));
+                break;
+            }
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed variable in URI template: " + template);
+            }
+            literals.add(template.substring(position, open));
+            position = close + 1;
+        }
+        return new GraphRequestTemplate(template, literals.toArray(String[]::new));
+    }
+
+    /**
+     * Expands the placeholders in order. Values are encoded so that they are safe both as path
+     * segments and as query parameter values.
+     */
+    URI expand(Object... values) {
+        if (values.length != variableCount) {
+            throw new IllegalArgumentException("Expected " + variableCount + " values for " + template
+                    + " but got " + values.length);
+        }
+        StringBuilder uri = new StringBuilder(literalLength + 64 * variableCount);
+        uri.append(literals[0]);
+        for (int i = 0; i < variableCount; i++) {
+            uri.append(UriUtils.encode(String.valueOf(values[i]), StandardCharsets.UTF_8));
+            uri.append(literals[i + 1]);
+        }
+        return URI.create(uri.toString());
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
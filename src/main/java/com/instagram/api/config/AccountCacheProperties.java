@@ -0,0 +1,31 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.account-cache")
+public class AccountCacheProperties {
+
+    /**
+     * Serves active account lookups by user ID from memory.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum cached accounts; the least recently used entry is dropped beyond that.
+     */
+    private int maxSize = 10_000;
+
+    /**
+     * Longest time an entry is served. Link and unlink evict the entry on every node that has an
+     * AccountChangeBroadcaster; profile and token updates made on another node only show up here
+     * once the entry expires, so this bounds how stale a node can be.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,36 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.comments")
+public class CommentProperties {
+
+    /**
+     * Media items whose comments are fetched in parallel, shared by all accounts syncing at once.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Comments requested per Graph page.
+     */
+    private int pageSize = 50;
+
+    /**
+     * Pages one media item may fetch per sync. A post with more comments than that continues
+     * where it stopped on the next sync, so a viral post cannot hold a worker indefinitely.
+     */
+    private int maxPagesPerMedia = 10;
+
+    private int defaultLimit = 20;
+    private int maxLimit = 100;
+
+    /**
+     * Also syncs comments after each account's background profile and media sync.
+     */
+    private boolean syncInBackground = false;
+}
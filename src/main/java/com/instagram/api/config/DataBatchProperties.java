@@ -0,0 +1,24 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.data-batch")
+public class DataBatchProperties {
+
+    /**
+     * Users of one batch fetched at the same time.
+     */
+    private int parallelism = 8;
+
+    /**
+     * Users fetched at the same time by all batches on this instance together, which caps their
+     * share of the {@code instagram.data-fallback.concurrency} live-fetch slots. A batch that
+     * finds every worker busy fetches its users one by one on the request thread.
+     */
+    private int concurrency = 32;
+}
@@ -0,0 +1,41 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.data-fallback")
+public class DataFallbackProperties {
+
+    /**
+     * Answers {@code /data} from stored rows when the live fetch is slow or fails.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long {@code /data} waits for the live fetch before answering from storage; the fetch
+     * itself keeps running and updates storage when it completes.
+     */
+    private Duration latencyBudget = Duration.ofSeconds(2);
+
+    /**
+     * Deadline of a live fetch from when it starts, independent of the requests waiting for it.
+     */
+    private Duration fetchTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Live fetches running at once on this instance, including those that outlived their budget.
+     */
+    private int concurrency = 64;
+
+    /**
+     * Live fetches waiting for a free slot; when full, requests are answered from storage right
+     * away.
+     */
+    private int queueCapacity = 128;
+}
@@ -0,0 +1,61 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.datasource")
+public class DataSourceRoutingProperties {
+
+    /**
+     * Read replicas for read-only transactions. Empty routes everything to the primary.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Replicas lagging further behind the primary than this are skipped until they catch up.
+     */
+    private Duration maxReplicaLag = Duration.ofSeconds(5);
+
+    private Duration lagCheckInterval = Duration.ofSeconds(2);
+
+    /**
+     * Returns the replica's lag in seconds. The default reports 0 while the replica has replayed
+     * everything it received, since the last replay time does not advance on an idle primary.
+     */
+    private String lagQuery = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+            + " else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+    /**
+     * How long reads for a user go to the primary after the user linked or unlinked an account.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(10);
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        /**
+         * Defaults to {@code spring.datasource.username}.
+         */
+        private String username;
+
+        /**
+         * Defaults to {@code spring.datasource.password}.
+         */
+        private String password;
+
+        /**
+         * Defaults to the primary pool's {@code maximum-pool-size}.
+         */
+        private Integer maximumPoolSize;
+    }
+}
@@ -0,0 +1,48 @@
+package com.instagram.api.config;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * JPA transaction manager that fits transactions into the current {@link RequestDeadline}: no
+ * transaction begins once it has passed, and one that begins gets at most the remaining time as
+ * its timeout, which Hibernate applies to every statement. Transactions outside a request, such
+ * as background syncs, are unaffected.
+ */
+public class DeadlineAwareTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            deadline.check(stageOf(definition));
+        }
+        super.doBegin(transaction, definition);
+    }
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return timeout;
+        }
+        // Whole seconds, rounded up so a transaction never gets a zero timeout
+        int remaining = (int) Math.max(1, (deadline.remaining().toMillis() + 999) / 1000);
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remaining : Math.min(timeout, remaining);
+    }
+
+    /**
+     * {@code db} plus the class and method that started the transaction, e.g.
+     * {@code db InstagramDataService.persistMedia}.
+     */
+    private static String stageOf(TransactionDefinition definition) {
+        String name = definition.getName();
+        if (name == null) {
+            return "db";
+        }
+        int method = name.lastIndexOf('.');
+        int type = method > 0 ? name.lastIndexOf('.', method - 1) : -1;
+        return "db " + name.substring(type + 1);
+    }
+}
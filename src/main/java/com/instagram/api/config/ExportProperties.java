@@ -0,0 +1,21 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.export")
+public class ExportProperties {
+
+    /**
+     * Longest a single export may stream. Each running export holds a pooled connection for its
+     * cursor, so a slow client pins one connection for at most this long before the export is
+     * aborted.
+     */
+    private Duration maxDuration = Duration.ofMinutes(10);
+}
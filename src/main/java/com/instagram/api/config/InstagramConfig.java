@@ -5,6 +5,8 @@ import org.springframework.context.annotation.Configuration;
 
 import lombok.Data;
 
+import java.time.Duration;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "instagram.api")
@@ -12,5 +14,23 @@ public class InstagramConfig {
 
     private String baseUrl = "https://graph.instagram.com";
     private String oauthUrl = "https://api.instagram.com/oauth";
-    private String facebookGraphUrl = "https://graph.facebook.com/v18.0";
+
+    /**
+     * Graph API root without a version; a trailing {@code /vNN.N} is still accepted and then
+     * takes precedence over {@link #graphApiVersion}.
+     */
+    private String facebookGraphUrl = "https://graph.facebook.com";
+    private String graphApiVersion = "v18.0";
+
+    /**
+     * Host serving the OAuth login dialog.
+     */
+    private String facebookDialogUrl = "https://www.facebook.com";
+
+    /**
+     * Longest wait for a Graph API response. Requests with a deadline wait no longer than the
+     * deadline; background work such as sync and publishing relies on this alone, so keep it
+     * well below {@code instagram.publish.lease-duration}.
+     */
+    private Duration responseTimeout = Duration.ofSeconds(30);
 }
@@ -0,0 +1,20 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.link-status-cache")
+public class LinkStatusCacheProperties {
+
+    /**
+     * How often the set of linked users is reloaded from the database. Links and unlinks made on
+     * another node without an AccountChangeBroadcaster show up here after at most this long.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+}
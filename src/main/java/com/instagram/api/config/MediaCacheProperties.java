@@ -0,0 +1,26 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.media-cache")
+public class MediaCacheProperties {
+
+    private String directory = System.getProperty("java.io.tmpdir") + "/instagram-media-cache";
+    private long maxSizeBytes = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * How long an evicted object stays on disk. Sendfile reopens the file by name after the
+     * request has returned, so it must outlive that gap; disk use may exceed {@code max-size-bytes}
+     * by the objects evicted within it.
+     */
+    private Duration evictionGrace = Duration.ofMinutes(1);
+    private Duration downloadTimeout = Duration.ofSeconds(30);
+    private Duration clientMaxAge = Duration.ofDays(365);
+}
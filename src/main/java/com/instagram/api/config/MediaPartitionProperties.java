@@ -0,0 +1,28 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.media-partitions")
+public class MediaPartitionProperties {
+
+    /**
+     * Monthly {@code instagram_media} partitions kept created ahead of the current month
+     * (PostgreSQL only).
+     */
+    private int monthsAhead = 3;
+
+    /**
+     * Partitions whose whole range is older than this are detached and dropped together with
+     * their tags, children and comments. Unset keeps all media.
+     */
+    private Duration retention;
+
+    private Duration checkInterval = Duration.ofHours(12);
+}
@@ -0,0 +1,47 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.outbox")
+public class OutboxProperties {
+
+    /**
+     * Writes change events of accounts and media to the outbox and relays them.
+     */
+    private boolean enabled = true;
+
+    /**
+     * {@code local} appends events to {@code file}, or logs them if no file is set. Any other
+     * value expects an {@link com.instagram.api.event.OutboxSink} bean.
+     */
+    private String sink = "local";
+
+    /**
+     * NDJSON file the local sink appends to.
+     */
+    private Path file;
+
+    /**
+     * Events handed to the sink at once, in one transaction.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Wait between two drains of the outbox, once it has been emptied.
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long the relay lease lasts without a relayed batch; this is how long relaying pauses
+     * when the relaying instance dies.
+     */
+    private Duration leaseDuration = Duration.ofSeconds(30);
+}
@@ -0,0 +1,58 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.publish")
+public class PublishProperties {
+
+    /**
+     * Accepts publish requests and runs the publish poller on this instance.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Wait between two polls for due jobs.
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Jobs claimed per poll.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Containers whose status is read in one Graph API call; Graph accepts at most 50 IDs.
+     */
+    private int statusBatchSize = 50;
+
+    /**
+     * Delay before the first status check of a new container. Later checks back off
+     * exponentially up to {@code max-check-delay}.
+     */
+    private Duration firstCheckDelay = Duration.ofSeconds(5);
+
+    private Duration maxCheckDelay = Duration.ofMinutes(1);
+
+    /**
+     * Jobs whose media is still processing after this long fail.
+     */
+    private Duration processingTimeout = Duration.ofHours(1);
+
+    /**
+     * Attempts per job that may fail with a transient Graph API error before the job fails.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * How long a claimed job stays reserved; this is how long jobs of a dead instance wait before
+     * another instance takes them over.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(2);
+}
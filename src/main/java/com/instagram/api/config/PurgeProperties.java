@@ -0,0 +1,25 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.purge")
+public class PurgeProperties {
+
+    /**
+     * Media items deleted per transaction, together with their tags, carousel children and
+     * comments. Bounds both the rows locked at once and the work lost if a chunk fails.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * How long the status of a finished purge stays available.
+     */
+    private Duration statusRetention = Duration.ofHours(1);
+}
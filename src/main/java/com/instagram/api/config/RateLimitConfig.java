@@ -0,0 +1,28 @@
+package com.instagram.api.config;
+
+import com.instagram.api.service.RequestRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Applies {@link RateLimitInterceptor} to the API. Set {@code instagram.rate-limit.enabled=false}
+ * to turn it off.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "instagram.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    WebMvcConfigurer rateLimitConfigurer(RequestRateLimiter limiter, RateLimitProperties properties) {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(limiter, properties);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/api/instagram/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.instagram.api.config;
+
+import com.instagram.api.exception.RateLimitExceededException;
+import com.instagram.api.service.RequestRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Checks each API request against the limit of its endpoint before the controller runs, so a
+ * rejected request never reaches the Graph API. Rejections surface as
+ * {@link RateLimitExceededException}, answered with 429 and {@code Retry-After}.
+ * <p>
+ * Endpoints are identified by their request mapping rather than the raw path, so path variables
+ * such as media IDs do not give every URL a bucket of its own.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RequestRateLimiter limiter;
+    private final RateLimitProperties.Limit defaultLimit;
+    private final Map<String, RateLimitProperties.Limit> endpoints;
+
+    public RateLimitInterceptor(RequestRateLimiter limiter, RateLimitProperties properties) {
+        this.limiter = limiter;
+        this.defaultLimit = properties.getDefaultLimit();
+        this.endpoints = properties.getEndpoints().stream()
+                .collect(Collectors.toMap(RateLimitProperties.Endpoint::getPath, endpoint -> endpoint));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        String endpoint = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        RateLimitProperties.Limit limit = endpoints.getOrDefault(endpoint, defaultLimit);
+        String key = limit.getKey() == RateLimitProperties.Key.CLIENT_IP
+                ? request.getRemoteAddr()
+                : request.getParameter("userId");
+        if (key == null || key.isBlank()) {
+            return true;
+        }
+
+        Duration retryAfter = limiter.tryAcquire(endpoint, key, limit);
+        if (!retryAfter.isZero()) {
+            throw new RateLimitExceededException(String.format(
+                    "Too many requests: at most %d per %ds for %s", limit.getCapacity(),
+                    limit.getPeriod().toSeconds(), endpoint), retryAfter);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Limit of every {@code /api/instagram} endpoint without its own entry in {@code endpoints},
+     * per endpoint and {@code userId}. Requests without a {@code userId} are not limited.
+     */
+    private Limit defaultLimit = new Limit();
+
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    /**
+     * Most buckets kept in memory. Beyond that, buckets that have refilled completely are dropped
+     * first, since a new bucket starts out full as well.
+     */
+    private int maxBuckets = 100_000;
+
+    /**
+     * @return the limit configured for the request mapping {@code path}, or the default limit
+     */
+    public Limit limitOf(String path) {
+        return endpoints.stream()
+                .filter(endpoint -> path.equals(endpoint.getPath()))
+                .<Limit>map(endpoint -> endpoint)
+                .findFirst()
+                .orElse(defaultLimit);
+    }
+
+    public enum Key {
+        USER_ID,
+        CLIENT_IP
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Requests allowed in a burst.
+         */
+        private int capacity = 60;
+
+        /**
+         * Time in which an empty bucket refills to {@code capacity}.
+         */
+        private Duration period = Duration.ofMinutes(1);
+
+        /**
+         * What requests are counted by: the {@code userId} parameter, or the client address for
+         * endpoints whose caller cannot be trusted to name itself.
+         */
+        private Key key = Key.USER_ID;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class Endpoint extends Limit {
+
+        /**
+         * Request mapping of the endpoint, e.g. {@code /api/instagram/data}.
+         */
+        private String path;
+    }
+}
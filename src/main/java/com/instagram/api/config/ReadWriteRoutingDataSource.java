@@ -0,0 +1,226 @@
+package com.instagram.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections of read-only transactions to the replicas, round robin, and everything else
+ * to the primary. Only work declared {@code @Transactional(readOnly = true)}, including Spring
+ * Data's inherited finders, counts as read-only; derived query methods called without a
+ * surrounding transaction stay on the primary.
+ * <p>
+ * A replica only gets reads while its lag, probed every {@code lag-check-interval} with
+ * {@code lag-query}, is within {@code max-replica-lag}; replicas that lag or cannot be reached
+ * are skipped, and with none left reads fall back to the primary. Work that must see its own
+ * writes can be pinned to the primary with {@link #runOnPrimary} or {@link #callOnPrimary}.
+ * <p>
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * a transaction's read-only flag is only set after it has begun, so the target is chosen when
+ * the first statement runs rather than when the transaction asks for a connection.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final String lagQuery;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LongAdder primaryConnections = new LongAdder();
+    private final ScheduledExecutorService monitor;
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, HikariDataSource> replicas,
+                                      DataSourceRoutingProperties properties) {
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.maxLag = properties.getMaxReplicaLag();
+        this.checkInterval = properties.getLagCheckInterval();
+        this.lagQuery = properties.getLagQuery();
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.monitor = this.replicas.isEmpty() ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts probing replica lag. Until the first probe of a replica completes, it gets no reads.
+     */
+    public void start() {
+        if (monitor != null) {
+            monitor.scheduleWithFixedDelay(this::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    /**
+     * Sends all connections the current thread opens to the primary until the returned pin is
+     * closed.
+     */
+    public static PrimaryPin pinToPrimary() {
+        Boolean previous = pinnedToPrimary.get();
+        pinnedToPrimary.set(Boolean.TRUE);
+        return () -> {
+            if (previous == null) {
+                pinnedToPrimary.remove();
+            }
+        };
+    }
+
+    static boolean isPinnedToPrimary() {
+        return pinnedToPrimary.get() != null;
+    }
+
+    public static void runOnPrimary(Runnable work) {
+        try (PrimaryPin pin = pinToPrimary()) {
+            work.run();
+        }
+    }
+
+    public static <T> T callOnPrimary(Supplier<T> work) {
+        try (PrimaryPin pin = pinToPrimary()) {
+            return work.get();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // Also covers queries that run outside a transaction, which the transaction manager never sees
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            deadline.check("db connection");
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && pinnedToPrimary.get() == null) {
+            int start = nextReplica.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+                if (replica.available) {
+                    replica.connections.increment();
+                    return replica.name;
+                }
+            }
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * Probes every replica once and updates which of them get reads.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.available;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout((int) Math.max(1, maxLag.toSeconds()));
+                try (ResultSet result = statement.executeQuery(lagQuery)) {
+                    result.next();
+                    replica.lagSeconds = result.getDouble(1);
+                }
+                replica.available = replica.lagSeconds * 1000 <= maxLag.toMillis();
+                if (wasAvailable && !replica.available) {
+                    logger.warn("Replica {} is {}s behind the primary, reading from other replicas or the primary",
+                            replica.name, replica.lagSeconds);
+                }
+            } catch (Exception e) {
+                replica.available = false;
+                replica.lagSeconds = Double.NaN;
+                if (wasAvailable) {
+                    logger.warn("Replica {} is unreachable, reading from other replicas or the primary: {}",
+                            replica.name, e.getMessage());
+                }
+            }
+            if (!wasAvailable && replica.available) {
+                logger.info("Replica {} is serving reads ({}s behind the primary)", replica.name, replica.lagSeconds);
+            }
+        }
+    }
+
+    public boolean isReplicaAvailable(String name) {
+        return replicas.stream().anyMatch(replica -> replica.name.equals(name) && replica.available);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("datasource.routed.connections", primaryConnections, LongAdder::sum)
+                .description("Connections handed out, by target database")
+                .tag("target", PRIMARY)
+                .register(registry);
+        for (Replica replica : replicas) {
+            FunctionCounter.builder("datasource.routed.connections", replica.connections, LongAdder::sum)
+                    .description("Connections handed out, by target database")
+                    .tag("target", replica.name)
+                    .register(registry);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication lag seen by the last probe; NaN if the replica was unreachable")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("Whether the replica currently serves reads")
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+    }
+
+    public interface PrimaryPin extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final class Replica {
+
+        final String name;
+        final HikariDataSource dataSource;
+        final LongAdder connections = new LongAdder();
+        volatile boolean available;
+        volatile double lagSeconds = Double.NaN;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.instagram.api.config;
+
+import com.instagram.api.event.InstagramAccountChangedEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes after a link or unlink: for {@code read-your-writes-window} afterwards, GET
+ * requests with that user's {@code userId} read from the primary, so a replica that has not
+ * caught up yet cannot answer with the state from before the change. Registered by
+ * {@link DataSourceConfig}.
+ * <p>
+ * The node that made the change remembers it by user. The response of the changing request also
+ * carries a {@value #COOKIE} cookie holding the end of the window, so the client's next reads
+ * go to the primary on whichever node serves them. The cookie can only ever move reads to the
+ * primary, and is not honoured beyond one window from now.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "ig_read_primary_until";
+    private static final String COOKIE_PATH = "/api/instagram";
+
+    private final DataSourceRoutingProperties properties;
+    // userId -> System.nanoTime() until which its reads go to the primary
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesFilter(DataSourceRoutingProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Runs when the event is published, before the change commits, so no read can slip in
+     * between the commit and the start of the window.
+     */
+    @EventListener
+    public void onAccountChanged(InstagramAccountChangedEvent event) {
+        if (properties.getReplicas().isEmpty()) {
+            return;
+        }
+        Duration window = properties.getReadYourWritesWindow();
+        long now = System.nanoTime();
+        recentWrites.values().removeIf(until -> until - now < 0);
+        recentWrites.put(event.getUserId(), now + window.toNanos());
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!event.isRemote() && attributes instanceof ServletRequestAttributes servlet
+                && servlet.getResponse() != null && !servlet.getResponse().isCommitted()) {
+            servlet.getResponse().addHeader(HttpHeaders.SET_COOKIE, ResponseCookie
+                    .from(COOKIE, String.valueOf(System.currentTimeMillis() + window.toMillis()))
+                    .path(COOKIE_PATH)
+                    .maxAge(window.plusSeconds(1))
+                    .httpOnly(true)
+                    .secure(servlet.getRequest().isSecure())
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+        }
+    }
+
+    public boolean isReadingFromPrimary(String userId) {
+        Long until = recentWrites.get(userId);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    /**
+     * Whether the request carries an unexpired cookie from a link or unlink on any node.
+     */
+    boolean hasRecentWriteCookie(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long latest = now + properties.getReadYourWritesWindow().toMillis();
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    long until = Long.parseLong(cookie.getValue());
+                    return until > now && until <= latest;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return properties.getReplicas().isEmpty() || !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String userId = request.getParameter("userId");
+        boolean primary = (userId != null && isReadingFromPrimary(userId)) || hasRecentWriteCookie(request);
+        if (!primary) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try (ReadWriteRoutingDataSource.PrimaryPin pin = ReadWriteRoutingDataSource.pinToPrimary()) {
+            chain.doFilter(request, response);
+        }
+    }
+}
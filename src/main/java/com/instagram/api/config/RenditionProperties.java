@@ -0,0 +1,48 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.renditions")
+public class RenditionProperties {
+
+    private boolean enabled = true;
+    private String directory = System.getProperty("java.io.tmpdir") + "/instagram-renditions";
+
+    /**
+     * Disk space for renditions; the media rendered least recently served are deleted beyond it.
+     */
+    private long maxSizeBytes = 512L * 1024 * 1024;
+
+    /**
+     * How long evicted renditions stay on disk, as for the media cache's {@code eviction-grace}.
+     */
+    private Duration evictionGrace = Duration.ofMinutes(1);
+
+    private List<Integer> sizes = List.of(150, 320, 640);
+    private float jpegQuality = 0.85f;
+
+    /**
+     * Worker count for the rendition pool. Zero means one per available core.
+     */
+    private int parallelism = 0;
+
+    /**
+     * Threads downloading source images. Downloads block on the CDN, so they run apart from the
+     * rendition pool, which only decodes and resizes.
+     */
+    private int fetchConcurrency = 8;
+
+    /**
+     * Largest source image, in pixels, that is decoded. Checked against the image header so that
+     * an oversized source is rejected before its pixels are allocated.
+     */
+    private long maxSourcePixels = 25_000_000;
+}
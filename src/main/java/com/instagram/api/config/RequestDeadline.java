@@ -0,0 +1,102 @@
+package com.instagram.api.config;
+
+import com.instagram.api.exception.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which the current request must be answered, bound to the thread that works
+ * on it. Set by {@link RequestDeadlineFilter}; every Graph call and every new transaction gets
+ * only the time that is left, and none is started once it has passed. Work handed to another
+ * thread carries the deadline along through {@link #propagate}.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> current = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+    private final Consumer<String> onExceeded;
+
+    public RequestDeadline(Duration timeout, Consumer<String> onExceeded) {
+        this.expiresAtNanos = System.nanoTime() + timeout.toNanos();
+        this.onExceeded = onExceeded;
+    }
+
+    /**
+     * @return the deadline of the work running on this thread, or null if it has none
+     */
+    public static RequestDeadline current() {
+        return current.get();
+    }
+
+    /**
+     * Makes {@code deadline} the current one until the returned scope is closed.
+     */
+    public static Scope attach(RequestDeadline deadline) {
+        RequestDeadline previous = current.get();
+        current.set(deadline);
+        return () -> {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps {@code work} so that it runs under the calling thread's deadline, wherever it runs.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        RequestDeadline deadline = current.get();
+        if (deadline == null) {
+            return work;
+        }
+        return () -> {
+            try (Scope scope = attach(deadline)) {
+                return work.get();
+            }
+        };
+    }
+
+    public static Runnable propagate(Runnable work) {
+        Supplier<Void> wrapped = propagate(() -> {
+            work.run();
+            return null;
+        });
+        return wrapped::get;
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @throws DeadlineExceededException if the deadline has passed, so {@code stage} must not start
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            throw exceeded(stage);
+        }
+    }
+
+    /**
+     * Records that the deadline ran out at {@code stage}.
+     */
+    public DeadlineExceededException exceeded(String stage) {
+        onExceeded.accept(stage);
+        return new DeadlineExceededException(stage);
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,28 @@
+package com.instagram.api.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The deadline filter and the transaction manager that enforces deadlines on database work,
+ * see {@link RequestDeadline}. The transaction manager replaces the one Spring Boot would
+ * otherwise create.
+ */
+@Configuration
+public class RequestDeadlineConfig {
+
+    @Bean
+    RequestDeadlineFilter requestDeadlineFilter(RequestDeadlineProperties properties) {
+        return new RequestDeadlineFilter(properties);
+    }
+
+    @Bean
+    PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers) {
+        DeadlineAwareTransactionManager transactionManager = new DeadlineAwareTransactionManager();
+        customizers.ifAvailable(configured -> configured.customize(transactionManager));
+        return transactionManager;
+    }
+}
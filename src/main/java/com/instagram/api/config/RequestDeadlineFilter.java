@@ -0,0 +1,84 @@
+package com.instagram.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Starts the {@link RequestDeadline} of each API request: the duration in the
+ * {@code instagram.deadline.header} header, capped at {@code max-timeout}, or
+ * {@code default-timeout} without one. Exceeded deadlines are counted in
+ * {@code request.deadline.exceeded}, tagged with the stage that could not run. Registered by
+ * {@link RequestDeadlineConfig}.
+ */
+public class RequestDeadlineFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineFilter.class);
+
+    private final RequestDeadlineProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private volatile MeterRegistry registry;
+
+    public RequestDeadlineFilter(RequestDeadlineProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getExcludedPaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestDeadline deadline = new RequestDeadline(timeoutOf(request), this::recordExceeded);
+        try (RequestDeadline.Scope scope = RequestDeadline.attach(deadline)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    Duration timeoutOf(HttpServletRequest request) {
+        String value = request.getHeader(properties.getHeader());
+        if (value == null || value.isBlank()) {
+            return properties.getDefaultTimeout();
+        }
+        try {
+            Duration timeout = DurationStyle.detectAndParse(value.trim());
+            if (timeout.isNegative()) {
+                timeout = Duration.ZERO;
+            }
+            return timeout.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : timeout;
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring invalid {} header: {}", properties.getHeader(), value);
+            return properties.getDefaultTimeout();
+        }
+    }
+
+    private void recordExceeded(String stage) {
+        logger.debug("Request deadline exceeded at {}", stage);
+        MeterRegistry meters = registry;
+        if (meters != null) {
+            meters.counter("request.deadline.exceeded", "stage", stage).increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+}
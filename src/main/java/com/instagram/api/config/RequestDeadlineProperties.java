@@ -0,0 +1,42 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.deadline")
+public class RequestDeadlineProperties {
+
+    /**
+     * Gives every API request a deadline that bounds its Graph calls and database steps.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Request header with the time the caller will wait, e.g. {@code 1500} (milliseconds) or
+     * {@code 3s}. Set it to the gateway timeout minus the gateway's own overhead.
+     */
+    private String header = "X-Request-Timeout";
+
+    /**
+     * Deadline of requests without the header.
+     */
+    private Duration defaultTimeout = Duration.ofSeconds(15);
+
+    /**
+     * Upper bound for the header value.
+     */
+    private Duration maxTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Ant-style paths that get no deadline, such as long-running streams.
+     */
+    private List<String> excludedPaths = new ArrayList<>(List.of("/api/instagram/export/**"));
+}
@@ -0,0 +1,14 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduled tasks only run on instances that opt in to background sync.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "instagram.sync", name = "enabled", havingValue = "true")
+public class SchedulingConfig {
+}
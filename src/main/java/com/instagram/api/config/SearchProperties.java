@@ -0,0 +1,28 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.search")
+public class SearchProperties {
+
+    /**
+     * PostgreSQL text search configuration. {@code simple} lower-cases without stemming, which
+     * suits multilingual captions. The GIN index is built with the same configuration by the
+     * V7 migration; changing it later needs the index to be recreated.
+     */
+    private String textSearchConfig = "simple";
+
+    private int defaultLimit = 20;
+    private int maxLimit = 100;
+
+    /**
+     * Rebuilds the hashtag/mention index from every stored caption at startup. Only needed once
+     * for media persisted before the index existed.
+     */
+    private boolean reindexOnStartup = false;
+}
@@ -0,0 +1,56 @@
+package com.instagram.api.config;
+
+import com.instagram.api.service.AccountSyncScheduler;
+import com.instagram.api.service.MediaPartitionMaintenance;
+import com.instagram.api.service.OutboxEventCapture;
+import com.instagram.api.service.OutboxRelay;
+import com.instagram.api.service.PublishPoller;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import jakarta.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+
+/**
+ * Beans that stay eager when {@code spring.main.lazy-initialization} is on (startup profile).
+ * <p>
+ * The entity manager factory is built during startup so the first request does not pay for the
+ * Hibernate bootstrap, and the sync scheduler must exist for its {@code @Scheduled} methods to be
+ * registered. The outbox capture must hook into Hibernate before the first write, and the outbox
+ * relay, publish poller and partition maintenance start their own timers. Everything else,
+ * including springdoc, is created on first use.
+ * <p>
+ * The CDS training run of {@code mvn -Pstartup package} refreshes the context without a database
+ * ({@code spring.context.exit=onRefresh}), so Flyway migrations are skipped in that run only.
+ * <p>
+ * Process-wide library settings are applied here too, once, before any request is served.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                AbstractEntityManagerFactoryBean.class, AccountSyncScheduler.class, MediaPartitionMaintenance.class,
+                OutboxEventCapture.class, OutboxRelay.class, PublishPoller.class);
+    }
+
+    @PostConstruct
+    void configureImageIo() {
+        // Renditions decode and encode in memory; ImageIO's default temp-file cache only adds disk I/O
+        ImageIO.setUseCache(false);
+    }
+
+    @Bean
+    FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (!"onRefresh".equals(environment.getProperty("spring.context.exit"))) {
+                flyway.migrate();
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.instagram.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.sync")
+public class SyncProperties {
+
+    /**
+     * Runs the background sync scheduler on this instance.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Lease owner name; defaults to the host name plus a random suffix, so it must only be set
+     * when it is unique per running instance.
+     */
+    private String instanceId;
+
+    /**
+     * Time between two syncs of the same account when {@code adaptive} is off.
+     */
+    private Duration interval = Duration.ofHours(1);
+
+    /**
+     * Derives each account's sync interval from its recent posting activity instead of using
+     * {@code interval} for all of them.
+     */
+    private boolean adaptive = true;
+
+    /**
+     * Shortest adaptive interval, used while the newest post is still gathering engagement.
+     */
+    private Duration minInterval = Duration.ofMinutes(15);
+
+    /**
+     * Longest adaptive interval, used for accounts without posts in {@code activity-window}.
+     */
+    private Duration maxInterval = Duration.ofDays(1);
+
+    /**
+     * How far back posts are counted to estimate how often an account posts.
+     */
+    private Duration activityWindow = Duration.ofDays(30);
+
+    /**
+     * Age up to which a post's like and comment counts are expected to keep changing.
+     */
+    private Duration engagementWindow = Duration.ofDays(2);
+
+    /**
+     * Syncs per expected time between two posts; higher values find new posts sooner at the
+     * cost of more Graph API calls.
+     */
+    private int syncsPerPost = 4;
+
+    /**
+     * Delay before retrying an account whose sync failed.
+     */
+    private Duration retryBackoff = Duration.ofMinutes(5);
+
+    private Duration pollInterval = Duration.ofSeconds(10);
+
+    /**
+     * How long a claimed account stays reserved without a heartbeat; this is how long work of a
+     * dead instance waits before another instance takes it over.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(2);
+
+    private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+    /**
+     * Maximum accounts claimed per poll.
+     */
+    private int batchSize = 20;
+
+    /**
+     * Accounts synced in parallel by this instance.
+     */
+    private int concurrency = 4;
+
+    private int mediaLimit = 25;
+}
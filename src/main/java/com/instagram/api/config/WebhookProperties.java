@@ -0,0 +1,47 @@
+package com.instagram.api.config;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "instagram.webhook")
+public class WebhookProperties implements InitializingBean {
+
+    /**
+     * Serves the webhook endpoints. Off by default; when on, the verify token and app secret must be set.
+     */
+    private boolean enabled;
+
+    /**
+     * Token configured in the Meta app dashboard, echoed back during the subscription handshake.
+     */
+    private String verifyToken;
+
+    /**
+     * App secret used by Meta to sign payloads in the X-Hub-Signature-256 header.
+     */
+    private String appSecret;
+
+    private int queueCapacity = 10_000;
+    private int batchSize = 200;
+    private Duration batchWindow = Duration.ofMillis(500);
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        if (verifyToken == null || verifyToken.isBlank()) {
+            throw new IllegalStateException("instagram.webhook.verify-token must be set when webhooks are enabled");
+        }
+        if (appSecret == null || appSecret.isBlank()) {
+            throw new IllegalStateException("instagram.webhook.app-secret must be set when webhooks are enabled");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.instagram.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.config.RequestDeadline;
+import com.instagram.api.dto.ApiResponse;
+import com.instagram.api.dto.DataBatchRequest;
+import com.instagram.api.dto.DataBatchResult;
+import com.instagram.api.service.DataBatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/instagram/data")
+@Tag(name = "Instagram API", description = "Endpoints for Instagram Graph API integration - OAuth linking, data fetching, and token management")
+public class DataBatchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataBatchController.class);
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final DataBatchService batchService;
+    private final ObjectMapper objectMapper;
+
+    public DataBatchController(DataBatchService batchService, ObjectMapper objectMapper) {
+        this.batchService = batchService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Operation(
+            summary = "Fetch Instagram Data (Batch)",
+            description = "Fetches /data for up to 200 users in one call, with the same mediaLimit and field " +
+                    "selection for all of them. Users are fetched in parallel and each result carries its own " +
+                    "status, so users that are not linked or fail do not fail the batch. With " +
+                    "Accept: application/x-ndjson, each result is streamed as one JSON line as soon as it is ready."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Results retrieved; see the status of each user"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Missing or too many userIds, or unknown include value or field"
+            )
+    })
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<List<DataBatchResult>>> fetchBatch(@Valid @RequestBody DataBatchRequest request) {
+        FieldSelection selection = selectionOf(request);
+        logger.info("Fetching Instagram data for a batch of {} users", request.getUserIds().size());
+
+        List<DataBatchResult> results = batchService.fetchData(request.getUserIds(), request.getMediaLimit(), selection);
+
+        long succeeded = results.stream().filter(DataBatchResult::isSuccess).count();
+        return ResponseEntity.ok(ApiResponse.success(
+                "Instagram data fetched for " + succeeded + " of " + results.size() + " users",
+                results));
+    }
+
+    @PostMapping(value = "/batch", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBatch(@Valid @RequestBody DataBatchRequest request) {
+        FieldSelection selection = selectionOf(request);
+        logger.info("Streaming Instagram data for a batch of {} users", request.getUserIds().size());
+
+        // The body is written on another thread, which must stop at this request's deadline too
+        RequestDeadline deadline = RequestDeadline.current();
+        StreamingResponseBody body = out -> {
+            try (RequestDeadline.Scope scope = deadline != null ? RequestDeadline.attach(deadline) : null) {
+                batchService.fetchData(request.getUserIds(), request.getMediaLimit(), selection,
+                        result -> writeLine(out, result));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON + ";charset=UTF-8"))
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
+    private static FieldSelection selectionOf(DataBatchRequest request) {
+        return FieldSelection.parse(request.getInclude(), request.getProfileFields(), request.getMediaFields());
+    }
+
+    private void writeLine(OutputStream out, DataBatchResult result) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
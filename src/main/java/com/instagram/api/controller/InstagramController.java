@@ -1,13 +1,16 @@
 package com.instagram.api.controller;
 
+import com.instagram.api.client.FieldSelection;
 import com.instagram.api.dto.*;
 import com.instagram.api.service.InstagramAccountService;
+import com.instagram.api.service.InstagramDataFallback;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +18,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/instagram")
 @Validated
@@ -24,9 +29,11 @@ public class InstagramController {
     private static final Logger logger = LoggerFactory.getLogger(InstagramController.class);
 
     private final InstagramAccountService accountService;
+    private final InstagramDataFallback dataFallback;
 
-    public InstagramController(InstagramAccountService accountService) {
+    public InstagramController(InstagramAccountService accountService, InstagramDataFallback dataFallback) {
         this.accountService = accountService;
+        this.dataFallback = dataFallback;
     }
 
     @Operation(
@@ -39,6 +46,10 @@ public class InstagramController {
                     responseCode = "200",
                     description = "Authorization URL generated successfully",
                     content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "429",
+                    description = "Too many requests; retry after the seconds in Retry-After"
             )
     })
     @GetMapping("/link")
@@ -67,6 +78,10 @@ public class InstagramController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "400",
                     description = "Invalid or expired state parameter"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "429",
+                    description = "Too many requests; retry after the seconds in Retry-After"
             )
     })
     @GetMapping("/callback")
@@ -87,16 +102,28 @@ public class InstagramController {
     @Operation(
             summary = "Fetch Instagram Data",
             description = "Retrieves the user's Instagram profile details and recent media (posts/reels). " +
-                    "Data is automatically persisted to the database. Returns profile info, followers/following count, and media list."
+                    "Data is automatically persisted to the database. Returns profile info, followers/following count, and media list. " +
+                    "Use include and profileFields/mediaFields to fetch only what you need; narrower selections " +
+                    "make smaller, faster Instagram requests and only update the selected columns. " +
+                    "If Instagram is slow or unavailable, the stored data is returned with stale=true and " +
+                    "lastSyncedAt, and the live fetch completes in the background."
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "200",
                     description = "Data fetched successfully"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown include value or field"
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "404",
                     description = "No linked Instagram account found"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "429",
+                    description = "Too many requests; retry after the seconds in Retry-After"
             )
     })
     @GetMapping("/data")
@@ -104,13 +131,22 @@ public class InstagramController {
             @Parameter(description = "Your application's unique user identifier", required = true)
             @RequestParam @NotBlank String userId,
             @Parameter(description = "Number of media items to fetch (default: 25, max: 100)")
-            @RequestParam(required = false, defaultValue = "25") Integer mediaLimit) {
+            @RequestParam(required = false, defaultValue = "25") Integer mediaLimit,
+            @Parameter(description = "Entities to fetch: profile, media or both (default: both)")
+            @RequestParam(required = false) String include,
+            @Parameter(description = "Profile fields, e.g. followers_count,media_count (default: all)")
+            @RequestParam(required = false) String profileFields,
+            @Parameter(description = "Media fields, e.g. permalink,timestamp (default: all)")
+            @RequestParam(required = false) String mediaFields) {
         logger.info("Fetching Instagram data for user: {}, mediaLimit: {}", userId, mediaLimit);
 
-        InstagramDataResponse response = accountService.fetchData(userId, mediaLimit);
+        FieldSelection selection = FieldSelection.parse(include, profileFields, mediaFields);
+        InstagramDataResponse response = dataFallback.fetchData(userId, mediaLimit, selection);
 
         return ResponseEntity.ok(ApiResponse.success(
-                "Instagram data fetched and stored successfully",
+                response.isStale()
+                        ? "Instagram is slow or unavailable; returning stored data"
+                        : "Instagram data fetched and stored successfully",
                 response));
     }
 
@@ -127,6 +163,10 @@ public class InstagramController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "404",
                     description = "No linked Instagram account found"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "429",
+                    description = "Too many requests; retry after the seconds in Retry-After"
             )
     })
     @PostMapping("/refresh")
@@ -145,25 +185,38 @@ public class InstagramController {
     @Operation(
             summary = "Unlink Instagram Account",
             description = "Revokes Instagram access and optionally deletes all stored data. " +
-                    "Set deleteData=true to permanently remove all account and media data."
+                    "Set deleteData=true to permanently remove all account and media data; it is deleted in chunks. " +
+                    "With async=true as well, the call returns 202 with a purge job to poll instead of waiting."
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "200",
                     description = "Account unlinked successfully"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "202",
+                    description = "Account unlinked, stored data is being deleted in the background"
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "404",
                     description = "No Instagram account found"
             )
     })
     @DeleteMapping("/unlink")
-    public ResponseEntity<ApiResponse<Void>> unlinkAccount(
+    public ResponseEntity<ApiResponse<AccountPurgeResponse>> unlinkAccount(
             @Parameter(description = "Your application's unique user identifier", required = true)
             @RequestParam @NotBlank String userId,
             @Parameter(description = "If true, permanently deletes all stored data")
-            @RequestParam(required = false, defaultValue = "false") boolean deleteData) {
-        logger.info("Unlinking Instagram account for user: {}, deleteData: {}", userId, deleteData);
+            @RequestParam(required = false, defaultValue = "false") boolean deleteData,
+            @Parameter(description = "With deleteData, return at once and delete the data in the background")
+            @RequestParam(required = false, defaultValue = "false") boolean async) {
+        logger.info("Unlinking Instagram account for user: {}, deleteData: {}, async: {}", userId, deleteData, async);
+
+        if (deleteData && async) {
+            AccountPurgeResponse purge = accountService.unlinkAccountAndPurgeAsync(userId);
+            return ResponseEntity.accepted().body(ApiResponse.success(
+                    "Instagram account unlinked; stored data is being deleted", purge));
+        }
 
         accountService.unlinkAccount(userId, deleteData);
 
@@ -174,6 +227,29 @@ public class InstagramController {
         return ResponseEntity.ok(ApiResponse.success(message, null));
     }
 
+    @Operation(
+            summary = "Data Deletion Status",
+            description = "Progress of a background data deletion started with DELETE /unlink?deleteData=true&async=true. " +
+                    "Statuses are kept for an hour after the deletion finishes."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Status retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Unknown or expired job"
+            )
+    })
+    @GetMapping("/unlink/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<AccountPurgeResponse>> getPurgeStatus(
+            @Parameter(description = "Job ID returned by the unlink call", required = true)
+            @PathVariable String jobId) {
+        AccountPurgeResponse status = accountService.getPurgeStatus(jobId);
+        return ResponseEntity.ok(ApiResponse.success("Data deletion status retrieved", status));
+    }
+
     @Operation(
             summary = "Check Link Status",
             description = "Checks if an Instagram account is linked for the specified user."
@@ -196,4 +272,29 @@ public class InstagramController {
                 isLinked ? "Instagram account is linked" : "No Instagram account linked",
                 isLinked));
     }
+
+    @Operation(
+            summary = "Check Link Status (Bulk)",
+            description = "Checks link status for up to 1000 users in a single call. " +
+                    "Returns a map of userId to link status."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Statuses retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Missing or too many userIds"
+            )
+    })
+    @PostMapping("/status/bulk")
+    public ResponseEntity<ApiResponse<Map<String, Boolean>>> checkStatusBulk(
+            @Valid @RequestBody BulkStatusRequest request) {
+        logger.info("Checking Instagram link status for {} users", request.getUserIds().size());
+
+        Map<String, Boolean> statuses = accountService.getLinkStatuses(request.getUserIds());
+
+        return ResponseEntity.ok(ApiResponse.success("Link statuses retrieved", statuses));
+    }
 }
@@ -0,0 +1,75 @@
+package com.instagram.api.controller;
+
+import com.instagram.api.dto.ApiResponse;
+import com.instagram.api.dto.CommentPageResponse;
+import com.instagram.api.dto.CommentSyncResponse;
+import com.instagram.api.service.MediaCommentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotBlank;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/instagram")
+@Validated
+@Tag(name = "Instagram Comments", description = "Comment and reply sync for moderation")
+public class MediaCommentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaCommentController.class);
+
+    private final MediaCommentService commentService;
+
+    public MediaCommentController(MediaCommentService commentService) {
+        this.commentService = commentService;
+    }
+
+    @Operation(
+            summary = "Sync Comments",
+            description = "Fetches new comments and replies of every stored media item of the user from Instagram. " +
+                    "Only comments newer than the newest stored one are requested, and media whose comments are " +
+                    "all stored are skipped. Posts with more comments than one sync may fetch continue on the next sync."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Comments synced"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "No linked Instagram account found")
+    })
+    @PostMapping("/comments/sync")
+    public ResponseEntity<ApiResponse<CommentSyncResponse>> syncComments(
+            @Parameter(description = "Your application's unique user identifier", required = true)
+            @RequestParam @NotBlank String userId) {
+        logger.info("Syncing comments for user: {}", userId);
+
+        CommentSyncResponse response = commentService.syncComments(userId);
+
+        return ResponseEntity.ok(ApiResponse.success("Stored " + response.getCommentsStored() + " new comments", response));
+    }
+
+    @Operation(
+            summary = "List Comments",
+            description = "Lists stored top-level comments of a media item, newest first, each with its replies. " +
+                    "Paginated with the returned nextCursor."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Comments page"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Bad limit or cursor"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Media not found")
+    })
+    @GetMapping("/media/{mediaId}/comments")
+    public ResponseEntity<ApiResponse<CommentPageResponse>> getComments(
+            @Parameter(description = "Instagram media ID", required = true)
+            @PathVariable String mediaId,
+            @Parameter(description = "Page size (default 20, max 100)")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "nextCursor from the previous page")
+            @RequestParam(required = false) String cursor) {
+        CommentPageResponse response = commentService.getComments(mediaId, limit, cursor);
+
+        return ResponseEntity.ok(ApiResponse.success("Found " + response.getComments().size() + " comments", response));
+    }
+}
@@ -0,0 +1,112 @@
+package com.instagram.api.controller;
+
+import com.instagram.api.service.MediaExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/instagram/export")
+@Tag(name = "Instagram Media Export", description = "Bulk export of stored media for reporting")
+public class MediaExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaExportController.class);
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final MediaExportService exportService;
+
+    public MediaExportController(MediaExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @Operation(
+            summary = "Export Stored Media",
+            description = "Streams every stored media item for the given users, or for all accounts, as NDJSON " +
+                    "(one JSON object per line) or CSV. Rows are read from a database cursor and written as they " +
+                    "arrive, so exports of any size run in constant memory. Set gzip=true to download a gzip file " +
+                    "compressed on the fly. Exports are aborted after instagram.export.max-duration."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Export streamed"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid parameters"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Unknown user")
+    })
+    @GetMapping("/media")
+    public ResponseEntity<StreamingResponseBody> exportMedia(
+            @Parameter(description = "Users to export (repeat or comma-separate)")
+            @RequestParam(required = false) List<String> userIds,
+            @Parameter(description = "Export every account instead of a user list")
+            @RequestParam(required = false, defaultValue = "false") boolean all,
+            @Parameter(description = "ndjson (default) or csv")
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @Parameter(description = "Gzip-compress the response body")
+            @RequestParam(required = false, defaultValue = "false") boolean gzip) {
+        List<String> users = userIds == null ? List.of()
+                : userIds.stream().map(String::trim).filter(id -> !id.isEmpty()).distinct().toList();
+        if (all == !users.isEmpty()) {
+            throw new IllegalArgumentException("Specify either userIds or all=true");
+        }
+
+        MediaExportService.Format exportFormat = MediaExportService.Format.from(format);
+        Map<Long, String> accounts = exportService.resolveAccounts(users);
+        logger.info("Exporting media for {} accounts as {}{}", accounts.size(), exportFormat, gzip ? " (gzip)" : "");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(nonClosing(out), GZIP_BUFFER_SIZE)) {
+                    exportService.export(accounts, all, exportFormat, compressed);
+                }
+            } else {
+                exportService.export(accounts, all, exportFormat, out);
+            }
+        };
+
+        // A gzip file rather than Content-Encoding, so clients save the .gz they were named instead of
+        // transparently decompressing it under that name
+        String filename = "instagram-media." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? GZIP
+                : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .cacheControl(CacheControl.noStore())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    /**
+     * The container owns the response stream; finishing the gzip trailer must not close it.
+     */
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.instagram.api.controller;
+
+import com.instagram.api.config.MediaCacheProperties;
+import com.instagram.api.service.MediaBinaryCache;
+import com.instagram.api.service.MediaProxyService;
+import com.instagram.api.service.MediaRenditionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.NotBlank;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/instagram")
+@Validated
+@Tag(name = "Instagram Media Proxy", description = "Serves cached media and profile-picture binaries so clients never depend on expiring CDN URLs")
+public class MediaProxyController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaProxyController.class);
+
+    private static final Duration PROFILE_PICTURE_MAX_AGE = Duration.ofHours(1);
+
+    private final MediaProxyService mediaProxyService;
+    private final MediaRenditionService renditionService;
+    private final MediaCacheProperties cacheProperties;
+
+    public MediaProxyController(MediaProxyService mediaProxyService,
+                                MediaRenditionService renditionService,
+                                MediaCacheProperties cacheProperties) {
+        this.mediaProxyService = mediaProxyService;
+        this.renditionService = renditionService;
+        this.cacheProperties = cacheProperties;
+    }
+
+    @Operation(
+            summary = "Get Media Binary",
+            description = "Streams the image or video for a stored media item from the local cache, downloading it " +
+                    "from Instagram once on first access. Supports HTTP range requests and conditional requests."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Media streamed"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "206", description = "Partial content"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Media not found")
+    })
+    @GetMapping("/media/{mediaId}/content")
+    public void getMediaContent(
+            @Parameter(description = "Instagram media ID", required = true)
+            @PathVariable String mediaId,
+            @Parameter(description = "media (default) or thumbnail")
+            @RequestParam(required = false, defaultValue = "media") String variant,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        logger.debug("Serving media {} ({})", mediaId, variant);
+
+        try (MediaBinaryCache.CachedBinary binary =
+                     mediaProxyService.getMediaBinary(mediaId, MediaProxyService.Variant.from(variant))) {
+            // A media ID always refers to the same bytes
+            BinaryResponseWriter.write(binary,
+                    CacheControl.maxAge(cacheProperties.getClientMaxAge()).cachePublic().immutable(),
+                    request, response);
+        }
+    }
+
+    @Operation(
+            summary = "Get Media Rendition",
+            description = "Streams a downscaled JPEG of a stored media item. The size is the longest edge in pixels " +
+                    "and must be one of the configured rendition sizes (default 150, 320, 640). Videos use their cover frame."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Rendition streamed"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Unsupported size"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Media not found")
+    })
+    @GetMapping("/media/{mediaId}/renditions/{size}")
+    public void getMediaRendition(
+            @Parameter(description = "Instagram media ID", required = true)
+            @PathVariable String mediaId,
+            @Parameter(description = "Longest edge in pixels", required = true)
+            @PathVariable int size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        logger.debug("Serving {}px rendition of media {}", size, mediaId);
+
+        try (MediaBinaryCache.CachedBinary rendition = renditionService.getRendition(mediaId, size)) {
+            BinaryResponseWriter.write(rendition,
+                    CacheControl.maxAge(cacheProperties.getClientMaxAge()).cachePublic().immutable(),
+                    request, response);
+        }
+    }
+
+    @Operation(
+            summary = "Get Profile Picture",
+            description = "Streams the linked account's profile picture from the local cache."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Picture streamed"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "No linked account or picture")
+    })
+    @GetMapping("/profile-picture")
+    public void getProfilePicture(
+            @Parameter(description = "Your application's unique user identifier", required = true)
+            @RequestParam @NotBlank String userId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        logger.debug("Serving profile picture for user: {}", userId);
+
+        try (MediaBinaryCache.CachedBinary binary = mediaProxyService.getProfilePicture(userId)) {
+            // The URL is stable across picture changes, so clients revalidate via ETag
+            BinaryResponseWriter.write(binary,
+                    CacheControl.maxAge(PROFILE_PICTURE_MAX_AGE).cachePublic(),
+                    request, response);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.instagram.api.controller;
+
+import com.instagram.api.dto.ApiResponse;
+import com.instagram.api.dto.MediaSearchResponse;
+import com.instagram.api.service.MediaSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/instagram/media")
+@Tag(name = "Instagram Media Search", description = "Keyword, hashtag and mention search over stored media")
+public class MediaSearchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaSearchController.class);
+
+    private final MediaSearchService searchService;
+
+    public MediaSearchController(MediaSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @Operation(
+            summary = "Search Media",
+            description = "Searches captions of stored media across all linked accounts. Plain words are matched " +
+                    "with full-text search; #hashtag and @mention tokens are matched exactly against the tag index. " +
+                    "All parts must match. Results are ranked by relevance (or by engagement for tag-only queries) " +
+                    "and paginated with the returned nextCursor."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Search results"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Empty query, bad limit or cursor")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<MediaSearchResponse>> searchMedia(
+            @Parameter(description = "Keywords, #hashtags and @mentions", required = true)
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Restrict results to one user")
+            @RequestParam(required = false) String userId,
+            @Parameter(description = "Page size (default 20, max 100)")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "nextCursor from the previous page")
+            @RequestParam(required = false) String cursor) {
+        logger.debug("Searching media: q='{}', userId={}", q, userId);
+
+        MediaSearchResponse response = searchService.search(q, userId, limit, cursor);
+
+        return ResponseEntity.ok(ApiResponse.success("Found " + response.getResults().size() + " media items", response));
+    }
+}
@@ -0,0 +1,77 @@
+package com.instagram.api.controller;
+
+import com.instagram.api.dto.ApiResponse;
+import com.instagram.api.dto.PublishJobResponse;
+import com.instagram.api.dto.PublishRequest;
+import com.instagram.api.service.PublishService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/instagram")
+@Validated
+@Tag(name = "Instagram Publishing", description = "Queued publishing of images and reels")
+public class PublishController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishController.class);
+
+    private final PublishService publishService;
+
+    public PublishController(PublishService publishService) {
+        this.publishService = publishService;
+    }
+
+    @Operation(
+            summary = "Publish Media",
+            description = "Queues an image or reel for publishing to the user's Instagram account and returns the " +
+                    "job at once. Instagram downloads the media from mediaUrl, which must be publicly reachable. " +
+                    "Poll the job until its status is PUBLISHED or FAILED; reels can take minutes to process."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Publish job queued"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid media type, URL or caption"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "No linked Instagram account found")
+    })
+    @PostMapping("/publish")
+    public ResponseEntity<ApiResponse<PublishJobResponse>> publish(
+            @Parameter(description = "Your application's unique user identifier", required = true)
+            @RequestParam @NotBlank String userId,
+            @Valid @RequestBody PublishRequest request) {
+        logger.info("Publish request for user: {}", userId);
+
+        PublishJobResponse response = publishService.submit(userId, request);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Publish job queued", response));
+    }
+
+    @Operation(
+            summary = "Get Publish Job",
+            description = "Returns the status of a publish job: QUEUED, PROCESSING, PUBLISHED with the media ID, " +
+                    "or FAILED with the reason."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Publish job found"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "No such job for this user")
+    })
+    @GetMapping("/publish/{jobId}")
+    public ResponseEntity<ApiResponse<PublishJobResponse>> getJob(
+            @Parameter(description = "Job ID returned when the media was queued", required = true)
+            @PathVariable Long jobId,
+            @Parameter(description = "Your application's unique user identifier", required = true)
+            @RequestParam @NotBlank String userId) {
+        PublishJobResponse response = publishService.getJob(userId, jobId);
+
+        return ResponseEntity.ok(ApiResponse.success("Publish job " + response.getStatus(), response));
+    }
+}
@@ -0,0 +1,99 @@
+package com.instagram.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.config.WebhookProperties;
+import com.instagram.api.dto.ApiResponse;
+import com.instagram.api.exception.InstagramApiException;
+import com.instagram.api.service.WebhookEventProcessor;
+import com.instagram.api.service.WebhookSignatureVerifier;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@ConditionalOnProperty(prefix = "instagram.webhook", name = "enabled", havingValue = "true")
+@RequestMapping("/api/instagram/webhook")
+@Tag(name = "Instagram Webhooks", description = "Receives Instagram change notifications and refreshes the affected media")
+public class WebhookController {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookController.class);
+
+    private final WebhookProperties properties;
+    private final WebhookSignatureVerifier signatureVerifier;
+    private final WebhookEventProcessor eventProcessor;
+    private final ObjectMapper objectMapper;
+
+    public WebhookController(WebhookProperties properties,
+                             WebhookSignatureVerifier signatureVerifier,
+                             WebhookEventProcessor eventProcessor,
+                             ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.signatureVerifier = signatureVerifier;
+        this.eventProcessor = eventProcessor;
+        this.objectMapper = objectMapper;
+    }
+
+    @Operation(
+            summary = "Webhook Subscription Handshake",
+            description = "Called by Meta when the webhook subscription is created. Echoes hub.challenge " +
+                    "if hub.verify_token matches the configured verify token."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Challenge echoed"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Verify token mismatch")
+    })
+    @GetMapping(produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> verifySubscription(
+            @Parameter(description = "Always 'subscribe'") @RequestParam("hub.mode") String mode,
+            @Parameter(description = "Token configured in the Meta app dashboard") @RequestParam("hub.verify_token") String verifyToken,
+            @Parameter(description = "Value to echo back") @RequestParam("hub.challenge") String challenge) {
+        if ("subscribe".equals(mode) && verifyToken.equals(properties.getVerifyToken())) {
+            logger.info("Webhook subscription verified");
+            return ResponseEntity.ok(challenge);
+        }
+        logger.warn("Rejected webhook subscription handshake (mode: {})", mode);
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Verification failed");
+    }
+
+    @Operation(
+            summary = "Receive Webhook Notification",
+            description = "Receives a signed change notification. The payload is validated against X-Hub-Signature-256, " +
+                    "queued, and processed asynchronously in batches."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Notification accepted"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Invalid signature"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Queue full, redeliver later")
+    })
+    @PostMapping
+    public ResponseEntity<ApiResponse<Integer>> receiveNotification(
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestBody byte[] body) {
+        if (!signatureVerifier.isValid(body, signature)) {
+            throw new InstagramApiException("Invalid webhook signature", "INVALID_SIGNATURE", 403);
+        }
+
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed webhook payload");
+        }
+
+        int queued = eventProcessor.enqueue(payload);
+        logger.debug("Queued {} webhook changes", queued);
+
+        return ResponseEntity.ok(ApiResponse.success("Notification received", queued));
+    }
+}
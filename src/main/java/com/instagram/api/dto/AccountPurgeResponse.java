@@ -0,0 +1,39 @@
+package com.instagram.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountPurgeResponse {
+
+    public enum State {
+        PENDING, RUNNING, COMPLETED,
+        /**
+         * The account was linked again before its data was gone; what remains is kept.
+         */
+        CANCELLED,
+        FAILED
+    }
+
+    private String jobId;
+    private String userId;
+    private State state;
+
+    /**
+     * Media items stored for the account when the purge started.
+     */
+    private long mediaTotal;
+
+    private long mediaDeleted;
+    private int chunksCompleted;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.instagram.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentPageResponse {
+
+    private String mediaId;
+    private List<InstagramCommentDTO> comments;
+    private InstagramDataResponse.PagingInfo paging;
+}
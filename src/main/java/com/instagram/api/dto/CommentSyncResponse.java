@@ -0,0 +1,35 @@
+package com.instagram.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentSyncResponse {
+
+    private String userId;
+
+    /**
+     * Media items whose comments were fetched.
+     */
+    private int mediaSynced;
+
+    /**
+     * Media items skipped because every comment Instagram counts is already stored.
+     */
+    private int mediaSkipped;
+
+    private int mediaFailed;
+
+    /**
+     * Media items that ran out of page budget and continue on the next sync.
+     */
+    private int mediaPending;
+
+    private int pagesFetched;
+    private int commentsStored;
+}
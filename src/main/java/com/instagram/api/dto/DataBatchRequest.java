@@ -0,0 +1,37 @@
+package com.instagram.api.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataBatchRequest {
+
+    @NotEmpty
+    @Size(max = 200)
+    private List<@NotBlank String> userIds;
+
+    @Min(1)
+    @Max(100)
+    @Builder.Default
+    private Integer mediaLimit = 25;
+
+    /**
+     * Same as the {@code include}, {@code profileFields} and {@code mediaFields} parameters of
+     * {@code /data}, applied to every user.
+     */
+    private String include;
+    private String profileFields;
+    private String mediaFields;
+}
@@ -0,0 +1,31 @@
+package com.instagram.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome for one user of a batch data request: {@code data} on success, otherwise the status,
+ * code and message the user would have got from {@code /data}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DataBatchResult {
+
+    private String userId;
+    private boolean success;
+    private int status;
+    private InstagramDataResponse data;
+    private String errorCode;
+    private String error;
+
+    /**
+     * Seconds until the user's {@code /data} rate limit has room again, for {@code 429} results.
+     */
+    private Long retryAfter;
+}
@@ -0,0 +1,29 @@
+package com.instagram.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstagramCommentDTO {
+
+    private String id;
+    private String username;
+    private String text;
+    private Integer likeCount;
+    private LocalDateTime timestamp;
+
+    /**
+     * Replies oldest first; absent on replies themselves.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<InstagramCommentDTO> replies;
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -17,6 +18,16 @@ public class InstagramDataResponse {
     private List<InstagramMediaDTO> media;
     private PagingInfo paging;
 
+    /**
+     * True when Instagram did not answer in time and the data was read from storage instead.
+     */
+    private boolean stale;
+
+    /**
+     * When the returned data was last fetched from Instagram.
+     */
+    private LocalDateTime lastSyncedAt;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -0,0 +1,28 @@
+package com.instagram.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Image or video inside a carousel album.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstagramMediaChildDTO {
+
+    private String id;
+
+    @JsonAlias("media_type")
+    private String mediaType;
+
+    @JsonAlias("media_url")
+    private String mediaUrl;
+
+    @JsonAlias("thumbnail_url")
+    private String thumbnailUrl;
+}
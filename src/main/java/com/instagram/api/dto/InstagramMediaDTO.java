@@ -1,12 +1,14 @@
 package com.instagram.api.dto;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -16,22 +18,28 @@ public class InstagramMediaDTO {
 
     private String id;
 
-    @JsonProperty("media_type")
+    @JsonAlias("media_type")
     private String mediaType;
 
-    @JsonProperty("media_url")
+    @JsonAlias("media_url")
     private String mediaUrl;
 
-    @JsonProperty("thumbnail_url")
+    @JsonAlias("thumbnail_url")
     private String thumbnailUrl;
 
     private String permalink;
     private String caption;
     private String timestamp;
 
-    @JsonProperty("like_count")
+    @JsonAlias("like_count")
     private Integer likeCount;
 
-    @JsonProperty("comments_count")
+    @JsonAlias("comments_count")
     private Integer commentsCount;
+
+    /**
+     * Album items in display order; only present for {@code CAROUSEL_ALBUM} media.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<InstagramMediaChildDTO> children;
 }
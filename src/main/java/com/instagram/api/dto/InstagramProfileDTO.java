@@ -1,6 +1,6 @@
 package com.instagram.api.dto;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,21 +16,21 @@ public class InstagramProfileDTO {
     private String username;
     private String name;
 
-    @JsonProperty("profile_picture_url")
+    @JsonAlias("profile_picture_url")
     private String profilePictureUrl;
 
     private String biography;
     private String website;
 
-    @JsonProperty("followers_count")
+    @JsonAlias("followers_count")
     private Integer followersCount;
 
-    @JsonProperty("follows_count")
+    @JsonAlias("follows_count")
     private Integer followingCount;
 
-    @JsonProperty("media_count")
+    @JsonAlias("media_count")
     private Integer mediaCount;
 
-    @JsonProperty("account_type")
+    @JsonAlias("account_type")
     private String accountType;
 }
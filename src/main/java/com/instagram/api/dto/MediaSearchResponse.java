@@ -0,0 +1,29 @@
+package com.instagram.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaSearchResponse {
+
+    private String query;
+    private List<Hit> results;
+    private InstagramDataResponse.PagingInfo paging;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private String userId;
+        private InstagramMediaDTO media;
+        private double score;
+    }
+}
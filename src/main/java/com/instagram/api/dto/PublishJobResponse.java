@@ -0,0 +1,39 @@
+package com.instagram.api.dto;
+
+import com.instagram.api.entity.PublishJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublishJobResponse {
+
+    private Long jobId;
+    private String userId;
+    private PublishJob.MediaType mediaType;
+    private PublishJob.Status status;
+
+    /**
+     * Instagram media container, once created.
+     */
+    private String containerId;
+
+    /**
+     * ID of the published media, once {@code status} is {@code PUBLISHED}.
+     */
+    private String mediaId;
+
+    /**
+     * Why the job failed, once {@code status} is {@code FAILED}.
+     */
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
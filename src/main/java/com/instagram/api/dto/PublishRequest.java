@@ -0,0 +1,31 @@
+package com.instagram.api.dto;
+
+import com.instagram.api.entity.PublishJob;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublishRequest {
+
+    @NotNull
+    private PublishJob.MediaType mediaType;
+
+    /**
+     * Public URL Instagram downloads the image (JPEG) or video from.
+     */
+    @NotNull
+    @Pattern(regexp = "https?://\\S+")
+    @Size(max = 2048)
+    private String mediaUrl;
+
+    @Size(max = 2200)
+    private String caption;
+}
@@ -1,5 +1,6 @@
 package com.instagram.api.entity;
 
+import com.instagram.api.service.AccountCacheInvalidator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,9 +10,12 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "instagram_accounts")
+@Table(name = "instagram_accounts", indexes = {
+        @Index(name = "idx_accounts_sync_due", columnList = "is_active, next_sync_at, id")
+})
+@EntityListeners(AccountCacheInvalidator.class)
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class InstagramAccount {
@@ -65,6 +69,22 @@ public class InstagramAccount {
     @Column(name = "is_active")
     private Boolean isActive;
 
+    /*
+     * Background sync bookkeeping. Written only by the bulk updates in AccountSyncLeases, so a
+     * profile save during a sync never overwrites a lease that a heartbeat has just extended.
+     */
+    @Column(name = "sync_lease_owner", length = 100, insertable = false, updatable = false)
+    private String syncLeaseOwner;
+
+    @Column(name = "sync_lease_expires_at", insertable = false, updatable = false)
+    private LocalDateTime syncLeaseExpiresAt;
+
+    @Column(name = "next_sync_at", insertable = false, updatable = false)
+    private LocalDateTime nextSyncAt;
+
+    @Column(name = "last_synced_at", insertable = false, updatable = false)
+    private LocalDateTime lastSyncedAt;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -0,0 +1,61 @@
+package com.instagram.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Comment or reply on a media item. Replies carry the Instagram ID of their top-level comment
+ * in {@code parentCommentId}.
+ * <p>
+ * The {@code (media_id, parent_comment_id, timestamp, id)} index serves both the keyset-paginated
+ * thread listing and the newest-comment lookup of incremental sync.
+ */
+@Entity
+@Table(name = "instagram_comments",
+        indexes = @Index(name = "idx_comments_media_thread", columnList = "media_id, parent_comment_id, timestamp, id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstagramComment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "instagram_comments_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "comment_id", unique = true, nullable = false)
+    private String commentId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "media_id", nullable = false)
+    private InstagramMedia media;
+
+    @Column(name = "parent_comment_id")
+    private String parentCommentId;
+
+    @Column(name = "username")
+    private String username;
+
+    @Column(name = "text", length = 2200)
+    private String text;
+
+    @Column(name = "like_count")
+    private Integer likeCount;
+
+    @Column(name = "timestamp", nullable = false)
+    private LocalDateTime timestamp;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -8,8 +8,18 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
+/**
+ * Media item of a linked account.
+ * <p>
+ * On PostgreSQL the table is range-partitioned by {@code timestamp} (see the Flyway migrations),
+ * so {@code media_id} is unique only together with {@code timestamp} there and tags, children
+ * and comments reference media rows without foreign keys.
+ */
 @Entity
-@Table(name = "instagram_media")
+@Table(name = "instagram_media", indexes = {
+        @Index(name = "idx_media_account", columnList = "account_id, id"),
+        @Index(name = "idx_media_account_timestamp", columnList = "account_id, timestamp desc, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,7 +30,7 @@ public class InstagramMedia {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "media_id", unique = true, nullable = false)
+    @Column(name = "media_id", nullable = false)
     private String mediaId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -42,7 +52,10 @@ public class InstagramMedia {
     @Column(name = "caption", length = 5000)
     private String caption;
 
-    @Column(name = "timestamp")
+    /**
+     * Publish time and partition key; media stored without one get their creation time.
+     */
+    @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
 
     @Column(name = "like_count")
@@ -51,6 +64,13 @@ public class InstagramMedia {
     @Column(name = "comments_count")
     private Integer commentsCount;
 
+    /**
+     * Graph cursor where the last comment sync ran out of page budget before the oldest comment.
+     * Only the comment sync writes it, so media upserts never reset it.
+     */
+    @Column(name = "comments_backfill_cursor", length = 500, insertable = false, updatable = false)
+    private String commentsBackfillCursor;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -61,6 +81,9 @@ public class InstagramMedia {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (timestamp == null) {
+            timestamp = createdAt;
+        }
     }
 
     @PreUpdate
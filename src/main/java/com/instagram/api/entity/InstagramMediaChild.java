@@ -0,0 +1,48 @@
+package com.instagram.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Image or video of a carousel album, in display order.
+ * <p>
+ * IDs come from a sequence with a block size matching {@code hibernate.jdbc.batch_size}, so a
+ * page of albums is inserted in a few JDBC batches rather than one round trip per row, which
+ * {@code IDENTITY} would force.
+ */
+@Entity
+@Table(name = "instagram_media_children",
+        uniqueConstraints = @UniqueConstraint(name = "uk_media_child", columnNames = {"media_id", "child_media_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstagramMediaChild {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "media_child_seq")
+    @SequenceGenerator(name = "media_child_seq", sequenceName = "instagram_media_children_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "media_id", nullable = false)
+    private InstagramMedia media;
+
+    @Column(name = "child_media_id", nullable = false)
+    private String childMediaId;
+
+    @Column(name = "position", nullable = false)
+    private int position;
+
+    @Column(name = "media_type")
+    private String mediaType;
+
+    @Column(name = "media_url", length = 2000)
+    private String mediaUrl;
+
+    @Column(name = "thumbnail_url", length = 2000)
+    private String thumbnailUrl;
+}
@@ -0,0 +1,41 @@
+package com.instagram.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hashtag or mention extracted from a media caption, stored lower-cased without the leading
+ * {@code #}/{@code @} so lookups are exact index matches.
+ */
+@Entity
+@Table(name = "instagram_media_tags",
+        uniqueConstraints = @UniqueConstraint(name = "uk_media_tag", columnNames = {"media_id", "tag_type", "tag"}),
+        indexes = @Index(name = "idx_media_tags_lookup", columnList = "tag_type, tag, media_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstagramMediaTag {
+
+    public enum TagType {
+        HASHTAG, MENTION
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "media_id", nullable = false)
+    private InstagramMedia media;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tag_type", nullable = false, length = 16)
+    private TagType tagType;
+
+    @Column(name = "tag", nullable = false, length = 150)
+    private String tag;
+}
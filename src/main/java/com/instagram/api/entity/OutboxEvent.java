@@ -0,0 +1,66 @@
+package com.instagram.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change of an account or media item, written to the outbox in the transaction that made the
+ * change and removed once relayed.
+ * <p>
+ * {@code accountSequence} numbers the events of one account without gaps, in commit order;
+ * consumers can use it to order and deduplicate per account. {@code payload} is a JSON object
+ * whose content depends on {@code type}.
+ */
+@Entity
+@Table(name = "instagram_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    public enum Type {
+        ACCOUNT_LINKED,
+        ACCOUNT_UNLINKED,
+        PROFILE_CHANGED,
+        MEDIA_CREATED,
+        MEDIA_ENGAGEMENT_CHANGED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "account_sequence", nullable = false)
+    private Long accountSequence;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private Type type;
+
+    /**
+     * Instagram media ID for media events.
+     */
+    @Column(name = "media_id")
+    private String mediaId;
+
+    @Column(name = "payload", nullable = false, length = 16000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,43 @@
+package com.instagram.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far the outbox relay has got, and which instance currently holds the relay lease.
+ */
+@Entity
+@Table(name = "instagram_outbox_relay")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxRelayCheckpoint {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    /**
+     * ID of the last event handed to the sink.
+     */
+    @Column(name = "last_event_id")
+    private Long lastEventId;
+
+    @Column(name = "relayed_count", nullable = false)
+    private long relayedCount;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,112 @@
+package com.instagram.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * A post to publish to an account, tracked through Instagram's two-step flow: a media container
+ * is created from {@code mediaUrl}, and published once Instagram has finished processing it.
+ * <p>
+ * {@code nextAttemptAt} is when the publish poller next works on the job, and while a poller
+ * holds it ({@code leaseOwner}), when that lease expires. It is null once the job is
+ * {@link Status#PUBLISHED} or {@link Status#FAILED}.
+ */
+@Entity
+@Table(name = "instagram_publish_jobs", indexes = {
+        @Index(name = "idx_publish_jobs_due", columnList = "next_attempt_at, id"),
+        @Index(name = "idx_publish_jobs_account", columnList = "account_id, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublishJob {
+
+    public enum MediaType {
+        IMAGE,
+        REELS
+    }
+
+    public enum Status {
+        /**
+         * Waiting for its media container to be created.
+         */
+        QUEUED,
+        /**
+         * Container created; Instagram is still processing the media.
+         */
+        PROCESSING,
+        PUBLISHED,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "media_type", nullable = false, length = 16)
+    private MediaType mediaType;
+
+    @Column(name = "media_url", nullable = false, length = 2048)
+    private String mediaUrl;
+
+    @Column(name = "caption", length = 2200)
+    private String caption;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "container_id")
+    private String containerId;
+
+    @Column(name = "published_media_id")
+    private String publishedMediaId;
+
+    /**
+     * Container status checks so far; sets the backoff until the next one.
+     */
+    @Column(name = "status_checks", nullable = false)
+    private int statusChecks;
+
+    /**
+     * Consecutive attempts that failed with a transient error.
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public boolean isFinished() {
+        return status == Status.PUBLISHED || status == Status.FAILED;
+    }
+}
@@ -0,0 +1,14 @@
+package com.instagram.api.event;
+
+/**
+ * Multi-node invalidation hook. Register a bean implementing this interface to fan account
+ * changes out to other instances (Redis pub/sub, Postgres LISTEN/NOTIFY, a message broker, ...).
+ * <p>
+ * Implementations receiving a change from another node must republish it locally with
+ * {@code applicationEventPublisher.publishEvent(event.asRemote())} so it is applied to the
+ * node-local caches without being broadcast again.
+ */
+public interface AccountChangeBroadcaster {
+
+    void broadcast(InstagramAccountChangedEvent event);
+}
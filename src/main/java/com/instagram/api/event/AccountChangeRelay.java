@@ -0,0 +1,33 @@
+package com.instagram.api.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class AccountChangeRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountChangeRelay.class);
+
+    private final ObjectProvider<AccountChangeBroadcaster> broadcasters;
+
+    public AccountChangeRelay(ObjectProvider<AccountChangeBroadcaster> broadcasters) {
+        this.broadcasters = broadcasters;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(InstagramAccountChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        broadcasters.orderedStream().forEach(broadcaster -> {
+            try {
+                broadcaster.broadcast(event);
+            } catch (Exception e) {
+                logger.warn("Failed to broadcast account change for user: {}", event.getUserId(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package com.instagram.api.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Published whenever an Instagram account is linked, updated or unlinked.
+ * Listeners keep node-local caches in step with the database.
+ */
+@Value
+@AllArgsConstructor
+public class InstagramAccountChangedEvent {
+
+    String userId;
+
+    /**
+     * Whether the user has an active linked account after the change.
+     */
+    boolean linked;
+
+    /**
+     * True when the event was received from another node through an {@link AccountChangeBroadcaster}.
+     */
+    boolean remote;
+
+    public static InstagramAccountChangedEvent linked(String userId) {
+        return new InstagramAccountChangedEvent(userId, true, false);
+    }
+
+    public static InstagramAccountChangedEvent unlinked(String userId) {
+        return new InstagramAccountChangedEvent(userId, false, false);
+    }
+
+    public InstagramAccountChangedEvent asRemote() {
+        return new InstagramAccountChangedEvent(userId, linked, true);
+    }
+}
@@ -0,0 +1,78 @@
+package com.instagram.api.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.instagram.api.config.OutboxProperties;
+import com.instagram.api.entity.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends relayed events to {@code instagram.outbox.file} as one JSON object per line, forcing
+ * each batch to disk before returning; without a file they are only logged.
+ */
+@Component
+@ConditionalOnProperty(prefix = "instagram.outbox", name = "sink", havingValue = "local", matchIfMissing = true)
+public class LocalOutboxSink implements OutboxSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalOutboxSink.class);
+
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public LocalOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        Path file = properties.getFile();
+        if (file == null) {
+            for (OutboxEvent event : events) {
+                logger.info("Outbox event: {}", toJson(event));
+            }
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (OutboxEvent event : events) {
+            lines.append(toJson(event)).append('\n');
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private String toJson(OutboxEvent event) throws IOException {
+        ObjectNode line = objectMapper.createObjectNode();
+        line.put("id", event.getId());
+        line.put("type", event.getType().name());
+        line.put("userId", event.getUserId());
+        line.put("accountId", event.getAccountId());
+        line.put("sequence", event.getAccountSequence());
+        line.put("mediaId", event.getMediaId());
+        line.put("occurredAt", event.getCreatedAt().toString());
+        line.set("data", objectMapper.readTree(event.getPayload()));
+        return objectMapper.writeValueAsString(line);
+    }
+}
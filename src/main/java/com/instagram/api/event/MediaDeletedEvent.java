@@ -0,0 +1,18 @@
+package com.instagram.api.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published when stored media of an account are deleted, with their Instagram media IDs, so
+ * files derived from them can be removed once the deletion commits.
+ */
+@Value
+@AllArgsConstructor
+public class MediaDeletedEvent {
+
+    Long accountId;
+    List<String> mediaIds;
+}
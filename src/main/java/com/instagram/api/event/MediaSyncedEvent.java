@@ -0,0 +1,17 @@
+package com.instagram.api.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published after a batch of media has been persisted for an account.
+ */
+@Value
+@AllArgsConstructor
+public class MediaSyncedEvent {
+
+    String userId;
+    List<String> mediaIds;
+}
@@ -0,0 +1,23 @@
+package com.instagram.api.event;
+
+import com.instagram.api.entity.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the outbox relay. The built-in {@link LocalOutboxSink} is used while
+ * {@code instagram.outbox.sink} is {@code local}; set it to anything else and register a bean
+ * implementing this interface to publish to a broker instead.
+ * <p>
+ * Delivery is at least once: a batch that was published but whose checkpoint failed to commit
+ * is published again, so consumers must deduplicate by event ID or by account sequence.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes events in ID order, which is commit order per account. Returning normally means
+     * the whole batch is durably accepted; throwing makes the relay retry it later.
+     */
+    void publish(List<OutboxEvent> events) throws IOException;
+}
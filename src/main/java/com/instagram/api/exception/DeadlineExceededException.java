@@ -0,0 +1,19 @@
+package com.instagram.api.exception;
+
+/**
+ * The request's deadline passed before or during {@code stage}; no further upstream work is
+ * started for it.
+ */
+public class DeadlineExceededException extends InstagramApiException {
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage) {
+        super("Request deadline exceeded at " + stage, "DEADLINE_EXCEEDED", 504);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
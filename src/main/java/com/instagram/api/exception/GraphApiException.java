@@ -0,0 +1,49 @@
+package com.instagram.api.exception;
+
+/**
+ * Error response from the Graph API, carrying Meta's error code, subcode and transient flag so
+ * callers can tell expired tokens and throttling apart from other failures.
+ */
+public class GraphApiException extends InstagramApiException {
+
+    private static final int INVALID_TOKEN = 190;
+
+    private final int graphErrorCode;
+    private final int graphErrorSubcode;
+    private final boolean transientError;
+
+    public GraphApiException(String message, String errorCode, int statusCode,
+                             int graphErrorCode, int graphErrorSubcode, boolean transientError) {
+        super(message, errorCode, statusCode);
+        this.graphErrorCode = graphErrorCode;
+        this.graphErrorSubcode = graphErrorSubcode;
+        this.transientError = transientError;
+    }
+
+    public GraphApiException(String message, Throwable cause) {
+        super(message, "GRAPH_UNAVAILABLE", 502, cause);
+        this.graphErrorCode = 0;
+        this.graphErrorSubcode = 0;
+        this.transientError = true;
+    }
+
+    public int getGraphErrorCode() {
+        return graphErrorCode;
+    }
+
+    public int getGraphErrorSubcode() {
+        return graphErrorSubcode;
+    }
+
+    public boolean isTransient() {
+        return transientError;
+    }
+
+    public boolean isRateLimited() {
+        return getStatusCode() == 429;
+    }
+
+    public boolean isInvalidToken() {
+        return graphErrorCode == INVALID_TOKEN;
+    }
+}
@@ -23,6 +23,12 @@ public class InstagramApiException extends RuntimeException {
         this.statusCode = statusCode;
     }
 
+    public InstagramApiException(String message, String errorCode, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.errorCode = errorCode;
+        this.statusCode = statusCode;
+    }
+
     public InstagramApiException(String message, Throwable cause) {
         super(message, cause);
         this.errorCode = "INSTAGRAM_API_ERROR";
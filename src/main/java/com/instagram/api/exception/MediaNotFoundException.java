@@ -0,0 +1,12 @@
+package com.instagram.api.exception;
+
+public class MediaNotFoundException extends RuntimeException {
+
+    public MediaNotFoundException(String message) {
+        super(message);
+    }
+
+    public MediaNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
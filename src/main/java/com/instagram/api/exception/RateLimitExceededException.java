@@ -0,0 +1,25 @@
+package com.instagram.api.exception;
+
+import java.time.Duration;
+
+public class RateLimitExceededException extends InstagramApiException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message, "RATE_LIMITED", 429);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Whole seconds for the {@code Retry-After} header, rounded up so a client that waits exactly
+     * this long finds a token.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -1,9 +1,18 @@
 package com.instagram.api.repository;
 
 import com.instagram.api.entity.InstagramAccount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,7 +24,84 @@ public interface InstagramAccountRepository extends JpaRepository<InstagramAccou
 
     Optional<InstagramAccount> findByUserIdAndIsActiveTrue(String userId);
 
+    List<InstagramAccount> findByUserIdInAndIsActiveTrue(Collection<String> userIds);
+
     boolean existsByUserIdAndIsActiveTrue(String userId);
 
     void deleteByUserId(String userId);
+
+    boolean existsByIdAndIsActiveTrue(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from InstagramAccount a where a.id = :id and a.isActive = true")
+    Optional<InstagramAccount> findActiveByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Deletes the account row unless it was linked again in the meantime.
+     */
+    @Modifying
+    @Query("delete from InstagramAccount a where a.id = :id and a.isActive = false")
+    int deleteInactiveById(@Param("id") Long id);
+
+    @Query("select a.id, a.userId from InstagramAccount a")
+    List<Object[]> findAllIdsAndUserIds();
+
+    @Query("select a.id, a.userId from InstagramAccount a where a.userId in :userIds")
+    List<Object[]> findIdsAndUserIdsByUserIdIn(@Param("userIds") Collection<String> userIds);
+
+    @Query("select a.userId from InstagramAccount a where a.isActive = true")
+    List<String> findActiveUserIds();
+
+    @Query("select a.userId from InstagramAccount a where a.isActive = true and a.userId in :userIds")
+    List<String> findActiveUserIdsIn(@Param("userIds") Collection<String> userIds);
+
+    @Query("select a.id from InstagramAccount a where a.isActive = true"
+            + " and (a.nextSyncAt is null or a.nextSyncAt <= :now)"
+            + " and (a.syncLeaseExpiresAt is null or a.syncLeaseExpiresAt < :now)"
+            + " order by a.nextSyncAt asc nulls first, a.id asc")
+    List<Long> findSyncCandidates(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Takes the sync lease on whichever of {@code ids} are still due and unleased; rows another
+     * instance claimed in the meantime are left alone.
+     */
+    @Modifying
+    @Query("update InstagramAccount a set a.syncLeaseOwner = :owner, a.syncLeaseExpiresAt = :expiresAt"
+            + " where a.id in :ids and a.isActive = true"
+            + " and (a.nextSyncAt is null or a.nextSyncAt <= :now)"
+            + " and (a.syncLeaseExpiresAt is null or a.syncLeaseExpiresAt < :now)")
+    int claimSyncLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+                        @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Query("select a.id from InstagramAccount a where a.syncLeaseOwner = :owner and a.syncLeaseExpiresAt = :expiresAt")
+    List<Long> findIdsBySyncLease(@Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update InstagramAccount a set a.syncLeaseExpiresAt = :expiresAt"
+            + " where a.id in :ids and a.syncLeaseOwner = :owner")
+    int renewSyncLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+                        @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update InstagramAccount a set a.syncLeaseOwner = null, a.syncLeaseExpiresAt = null,"
+            + " a.nextSyncAt = :nextSyncAt, a.lastSyncedAt = :syncedAt"
+            + " where a.id = :id and a.syncLeaseOwner = :owner")
+    int completeSyncLease(@Param("id") Long id, @Param("owner") String owner,
+                          @Param("nextSyncAt") LocalDateTime nextSyncAt, @Param("syncedAt") LocalDateTime syncedAt);
+
+    @Modifying
+    @Query("update InstagramAccount a set a.lastSyncedAt = :syncedAt where a.id = :id"
+            + " and (a.lastSyncedAt is null or a.lastSyncedAt < :syncedAt)")
+    int markSynced(@Param("id") Long id, @Param("syncedAt") LocalDateTime syncedAt);
+
+    @Modifying
+    @Query("update InstagramAccount a set a.syncLeaseOwner = null, a.syncLeaseExpiresAt = null,"
+            + " a.nextSyncAt = :nextSyncAt where a.id = :id and a.syncLeaseOwner = :owner")
+    int releaseSyncLease(@Param("id") Long id, @Param("owner") String owner,
+                         @Param("nextSyncAt") LocalDateTime nextSyncAt);
+
+    @Modifying
+    @Query("update InstagramAccount a set a.syncLeaseOwner = null, a.syncLeaseExpiresAt = null"
+            + " where a.syncLeaseOwner = :owner")
+    int releaseSyncLeases(@Param("owner") String owner);
 }
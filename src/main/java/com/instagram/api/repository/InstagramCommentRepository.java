@@ -0,0 +1,54 @@
+package com.instagram.api.repository;
+
+import com.instagram.api.entity.InstagramComment;
+import com.instagram.api.entity.InstagramMedia;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InstagramCommentRepository extends JpaRepository<InstagramComment, Long> {
+
+    List<InstagramComment> findByCommentIdIn(Collection<String> commentIds);
+
+    /**
+     * Newest stored top-level comment of a media item; incremental sync stops once it reaches it.
+     */
+    @Query("select max(c.timestamp) from InstagramComment c where c.media.id = :mediaId and c.parentCommentId is null")
+    LocalDateTime findLatestTimestamp(@Param("mediaId") Long mediaId);
+
+    /**
+     * Stored comments and replies per media item, as {@code [mediaId, count]} rows.
+     */
+    @Query("select c.media.id, count(c) from InstagramComment c where c.media.id in :mediaIds group by c.media.id")
+    List<Object[]> countByMediaIdIn(@Param("mediaIds") Collection<Long> mediaIds);
+
+    @Query("select c from InstagramComment c where c.media = :media and c.parentCommentId is null"
+            + " order by c.timestamp desc, c.id desc")
+    List<InstagramComment> findThreads(@Param("media") InstagramMedia media, Pageable pageable);
+
+    @Query("select c from InstagramComment c where c.media = :media and c.parentCommentId is null"
+            + " and (c.timestamp < :timestamp or (c.timestamp = :timestamp and c.id < :id))"
+            + " order by c.timestamp desc, c.id desc")
+    List<InstagramComment> findThreadsBefore(@Param("media") InstagramMedia media,
+                                             @Param("timestamp") LocalDateTime timestamp,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    List<InstagramComment> findByMediaAndParentCommentIdInOrderByTimestampAscIdAsc(InstagramMedia media,
+                                                                                   Collection<String> parentCommentIds);
+
+    /**
+     * Removes comments and replies of the given media items.
+     */
+    @Modifying
+    @Query("delete from InstagramComment c where c.media.id in :mediaIds")
+    int deleteByMediaIdIn(@Param("mediaIds") Collection<Long> mediaIds);
+}
@@ -0,0 +1,24 @@
+package com.instagram.api.repository;
+
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.InstagramMediaChild;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InstagramMediaChildRepository extends JpaRepository<InstagramMediaChild, Long> {
+
+    List<InstagramMediaChild> findByMediaIn(Collection<InstagramMedia> media);
+
+    List<InstagramMediaChild> findByMediaOrderByPositionAsc(InstagramMedia media);
+
+    @Modifying
+    @Query("delete from InstagramMediaChild c where c.media.id in :mediaIds")
+    int deleteByMediaIdIn(@Param("mediaIds") Collection<Long> mediaIds);
+}
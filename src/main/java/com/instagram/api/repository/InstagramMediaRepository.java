@@ -2,24 +2,88 @@ package com.instagram.api.repository;
 
 import com.instagram.api.entity.InstagramAccount;
 import com.instagram.api.entity.InstagramMedia;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface InstagramMediaRepository extends JpaRepository<InstagramMedia, Long> {
 
+    String EXPORT_FETCH_SIZE = "500";
+
     List<InstagramMedia> findByAccount(InstagramAccount account);
 
     Page<InstagramMedia> findByAccount(InstagramAccount account, Pageable pageable);
 
     Optional<InstagramMedia> findByMediaId(String mediaId);
 
-    void deleteByAccount(InstagramAccount account);
+    @Query("select m from InstagramMedia m where m.account.id = :accountId and m.mediaId in :mediaIds")
+    List<InstagramMedia> findByAccountIdAndMediaIdIn(@Param("accountId") Long accountId,
+                                                      @Param("mediaIds") Collection<String> mediaIds);
+
+    /**
+     * Newest media of an account first, as the Graph media edge returns them.
+     */
+    @Query("select m from InstagramMedia m where m.account.id = :accountId order by m.timestamp desc, m.id desc")
+    List<InstagramMedia> findLatestByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query("select m.timestamp from InstagramMedia m where m.account.id = :accountId and m.timestamp >= :since"
+            + " order by m.timestamp desc")
+    List<LocalDateTime> findTimestampsSince(@Param("accountId") Long accountId, @Param("since") LocalDateTime since,
+                                            Pageable pageable);
+
+    @Query("select count(m) from InstagramMedia m where m.account.id = :accountId")
+    long countByAccountId(@Param("accountId") Long accountId);
+
+    /**
+     * A chunk of an account's media IDs, for the purge and comment sync, served by {@code idx_media_account}.
+     */
+    @Query("select m.id from InstagramMedia m where m.account.id = :accountId order by m.id")
+    List<Long> findIdsByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query("select m.mediaId from InstagramMedia m where m.id in :ids")
+    List<String> findMediaIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from InstagramMedia m where m.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 
     boolean existsByMediaId(String mediaId);
+
+    @Modifying
+    @Query("update InstagramMedia m set m.commentsBackfillCursor = :cursor where m.id = :id")
+    int updateCommentsBackfillCursor(@Param("id") Long id, @Param("cursor") String cursor);
+
+    /**
+     * Cursor-backed stream for exports. Must be consumed inside a read-only transaction and
+     * closed; rows are fetched from the driver {@code EXPORT_FETCH_SIZE} at a time.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select m from InstagramMedia m where m.account.id in :accountIds order by m.id")
+    Stream<InstagramMedia> streamByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select m from InstagramMedia m order by m.id")
+    Stream<InstagramMedia> streamAll();
 }
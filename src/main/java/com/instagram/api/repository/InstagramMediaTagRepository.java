@@ -0,0 +1,22 @@
+package com.instagram.api.repository;
+
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.InstagramMediaTag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InstagramMediaTagRepository extends JpaRepository<InstagramMediaTag, Long> {
+
+    List<InstagramMediaTag> findByMedia(InstagramMedia media);
+
+    @Modifying
+    @Query("delete from InstagramMediaTag t where t.media.id in :mediaIds")
+    int deleteByMediaIdIn(@Param("mediaIds") Collection<Long> mediaIds);
+}
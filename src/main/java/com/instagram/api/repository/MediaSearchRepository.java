@@ -0,0 +1,192 @@
+package com.instagram.api.repository;
+
+import com.instagram.api.config.SearchProperties;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.dto.MediaSearchResponse;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Ranked, keyset-paginated caption and tag search.
+ * <p>
+ * On PostgreSQL, keywords match through the GIN expression index on the caption's
+ * {@code tsvector} created by the V7 migration, and are ranked with {@code ts_rank_cd}. Other databases (H2 in tests) fall
+ * back to substring matching ranked by term frequency. Hashtags and mentions always resolve
+ * through the {@code instagram_media_tags} index. Queries without keywords are ranked by
+ * engagement (likes plus comments).
+ */
+@Repository
+public class MediaSearchRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaSearchRepository.class);
+
+    private static final Pattern TEXT_SEARCH_CONFIG = Pattern.compile("[a-z_]+");
+
+    private static final RowMapper<Match> MATCH_MAPPER = (rs, rowNum) -> {
+        Timestamp timestamp = rs.getTimestamp("timestamp");
+        return new Match(rs.getLong("id"), MediaSearchResponse.Hit.builder()
+                .userId(rs.getString("user_id"))
+                .score(rs.getDouble("score"))
+                .media(InstagramMediaDTO.builder()
+                        .id(rs.getString("media_id"))
+                        .mediaType(rs.getString("media_type"))
+                        .mediaUrl(rs.getString("media_url"))
+                        .thumbnailUrl(rs.getString("thumbnail_url"))
+                        .permalink(rs.getString("permalink"))
+                        .caption(rs.getString("caption"))
+                        .timestamp(timestamp != null ? timestamp.toLocalDateTime().toString() : null)
+                        .likeCount((Integer) rs.getObject("like_count"))
+                        .commentsCount((Integer) rs.getObject("comments_count"))
+                        .build())
+                .build());
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final String textSearchConfig;
+
+    private boolean postgres;
+
+    public MediaSearchRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource,
+                                 SearchProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        if (!TEXT_SEARCH_CONFIG.matcher(properties.getTextSearchConfig()).matches()) {
+            throw new IllegalArgumentException("Invalid text search config: " + properties.getTextSearchConfig());
+        }
+        // Inlined rather than bound so the planner can match the expression index
+        this.textSearchConfig = "'" + properties.getTextSearchConfig() + "'";
+    }
+
+    @PostConstruct
+    void init() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            postgres = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        }
+        if (!postgres) {
+            logger.info("Caption search is using the substring fallback (database is not PostgreSQL)");
+        }
+    }
+
+    /**
+     * @param terms     lower-cased keywords, all of which must match
+     * @param hashtags  normalized hashtags, all of which must be present
+     * @param mentions  normalized usernames, all of which must be mentioned
+     * @param userId    restricts results to one linked user, or {@code null} for all
+     * @param after     keyset position {score, id} of the last row already returned, or {@code null}
+     * @param limit     maximum rows to return
+     */
+    public List<Match> search(List<String> terms, List<String> hashtags, List<String> mentions,
+                                                String userId, Keyset after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String score = terms.isEmpty() ? engagementScore() : textScore(terms, params);
+
+        StringBuilder sql = new StringBuilder()
+                .append("select * from (select m.id, a.user_id, m.media_id, m.media_type, m.media_url, ")
+                .append("m.thumbnail_url, m.permalink, m.caption, m.timestamp, m.like_count, m.comments_count, ")
+                .append(score).append(" as score ")
+                .append("from instagram_media m join instagram_accounts a on a.id = m.account_id ")
+                .append("where a.is_active = true");
+
+        if (!terms.isEmpty()) {
+            sql.append(" and ").append(textMatch(terms, params));
+        }
+        appendTagFilters(sql, params, "HASHTAG", "hashtag", hashtags);
+        appendTagFilters(sql, params, "MENTION", "mention", mentions);
+        if (userId != null) {
+            sql.append(" and a.user_id = :userId");
+            params.addValue("userId", userId);
+        }
+        sql.append(") hits");
+        if (after != null) {
+            sql.append(" where (hits.score < :afterScore or (hits.score = :afterScore and hits.id < :afterId))");
+            params.addValue("afterScore", after.score());
+            params.addValue("afterId", after.id());
+        }
+        sql.append(" order by hits.score desc, hits.id desc limit :limit");
+        params.addValue("limit", limit);
+
+        return jdbcTemplate.query(sql.toString(), params, MATCH_MAPPER);
+    }
+
+    private String textMatch(List<String> terms, MapSqlParameterSource params) {
+        if (postgres) {
+            return "to_tsvector(" + textSearchConfig + ", coalesce(m.caption, '')) @@ plainto_tsquery("
+                    + textSearchConfig + ", :text)";
+        }
+        StringBuilder match = new StringBuilder("(");
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                match.append(" and ");
+            }
+            match.append("lower(m.caption) like :termLike").append(i).append(" escape '\\'");
+            params.addValue("termLike" + i, "%" + escapeLike(terms.get(i)) + "%");
+        }
+        return match.append(")").toString();
+    }
+
+    private String textScore(List<String> terms, MapSqlParameterSource params) {
+        if (postgres) {
+            params.addValue("text", String.join(" ", terms));
+            return "cast(ts_rank_cd(to_tsvector(" + textSearchConfig + ", coalesce(m.caption, '')), plainto_tsquery("
+                    + textSearchConfig + ", :text)) as double precision)";
+        }
+        // Occurrences of each term, summed
+        StringBuilder score = new StringBuilder("cast((");
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                score.append(" + ");
+            }
+            score.append("(length(lower(coalesce(m.caption, ''))) - length(replace(lower(coalesce(m.caption, '')), :term")
+                    .append(i).append(", ''))) / length(:term").append(i).append(")");
+            params.addValue("term" + i, terms.get(i));
+        }
+        return score.append(") as double precision)").toString();
+    }
+
+    private static String engagementScore() {
+        return "cast(coalesce(m.like_count, 0) + coalesce(m.comments_count, 0) as double precision)";
+    }
+
+    private static void appendTagFilters(StringBuilder sql, MapSqlParameterSource params,
+                                         String tagType, String prefix, List<String> tags) {
+        for (int i = 0; i < tags.size(); i++) {
+            String name = prefix + i;
+            sql.append(" and exists (select 1 from instagram_media_tags t where t.media_id = m.id and t.tag_type = '")
+                    .append(tagType).append("' and t.tag = :").append(name).append(")");
+            params.addValue(name, tags.get(i));
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public boolean isFullTextEnabled() {
+        return postgres;
+    }
+
+    /**
+     * A search hit together with its media primary key, which is the keyset tie-breaker.
+     */
+    public record Match(long id, MediaSearchResponse.Hit hit) {
+    }
+
+    /**
+     * Position after the last returned row: its score and media primary key.
+     */
+    public record Keyset(double score, long id) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.instagram.api.repository;
+
+import com.instagram.api.entity.OutboxRelayCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OutboxRelayCheckpointRepository extends JpaRepository<OutboxRelayCheckpoint, String> {
+
+    /**
+     * Takes or extends the relay lease, unless another instance holds an unexpired one.
+     */
+    @Modifying
+    @Query("update OutboxRelayCheckpoint c set c.leaseOwner = :owner, c.leaseExpiresAt = :expiresAt"
+            + " where c.name = :name"
+            + " and (c.leaseOwner = :owner or c.leaseExpiresAt is null or c.leaseExpiresAt < :now)")
+    int claimLease(@Param("name") String name, @Param("owner") String owner,
+                   @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Records a relayed batch and extends the lease, if this instance still holds it.
+     */
+    @Modifying
+    @Query("update OutboxRelayCheckpoint c set c.lastEventId = :lastEventId,"
+            + " c.relayedCount = c.relayedCount + :count, c.leaseExpiresAt = :expiresAt, c.updatedAt = :now"
+            + " where c.name = :name and c.leaseOwner = :owner")
+    int advance(@Param("name") String name, @Param("owner") String owner, @Param("lastEventId") Long lastEventId,
+                @Param("count") long count, @Param("expiresAt") LocalDateTime expiresAt,
+                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update OutboxRelayCheckpoint c set c.leaseOwner = null, c.leaseExpiresAt = null"
+            + " where c.name = :name and c.leaseOwner = :owner")
+    int releaseLease(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,70 @@
+package com.instagram.api.repository;
+
+import com.instagram.api.entity.PublishJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PublishJobRepository extends JpaRepository<PublishJob, Long> {
+
+    Optional<PublishJob> findByIdAndUserId(Long id, String userId);
+
+    @Query("select j.id from PublishJob j where j.nextAttemptAt <= :now order by j.nextAttemptAt asc, j.id asc")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Leases whichever of {@code ids} are still due; jobs another poller claimed in the meantime
+     * are left alone.
+     */
+    @Modifying
+    @Query("update PublishJob j set j.leaseOwner = :owner, j.nextAttemptAt = :expiresAt"
+            + " where j.id in :ids and j.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+              @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Query("select j from PublishJob j where j.leaseOwner = :owner and j.nextAttemptAt = :expiresAt order by j.id")
+    List<PublishJob> findByLease(@Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Extends the lease on a job, if this poller still holds it.
+     */
+    @Modifying
+    @Query("update PublishJob j set j.nextAttemptAt = :expiresAt where j.id = :id and j.leaseOwner = :owner")
+    int renew(@Param("id") Long id, @Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Writes the outcome of working on a job and releases its lease, if this poller still holds it.
+     */
+    @Modifying
+    @Query("update PublishJob j set j.status = :status, j.containerId = :containerId,"
+            + " j.publishedMediaId = :publishedMediaId, j.statusChecks = :statusChecks, j.attempts = :attempts,"
+            + " j.errorMessage = :errorMessage, j.nextAttemptAt = :nextAttemptAt, j.updatedAt = :now,"
+            + " j.leaseOwner = null"
+            + " where j.id = :id and j.leaseOwner = :owner")
+    int release(@Param("id") Long id, @Param("owner") String owner, @Param("status") PublishJob.Status status,
+                @Param("containerId") String containerId, @Param("publishedMediaId") String publishedMediaId,
+                @Param("statusChecks") int statusChecks, @Param("attempts") int attempts,
+                @Param("errorMessage") String errorMessage, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                @Param("now") LocalDateTime now);
+
+    /**
+     * Makes the unfinished jobs leased by {@code owner} due again at once.
+     */
+    @Modifying
+    @Query("update PublishJob j set j.leaseOwner = null, j.nextAttemptAt = :now"
+            + " where j.leaseOwner = :owner and j.nextAttemptAt is not null")
+    int releaseAll(@Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from PublishJob j where j.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
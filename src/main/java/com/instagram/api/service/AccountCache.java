@@ -0,0 +1,221 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.AccountCacheProperties;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.event.InstagramAccountChangedEvent;
+import com.instagram.api.repository.InstagramAccountRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, node-local cache of active {@link InstagramAccount}s keyed by user ID, in front of
+ * {@code findByUserIdAndIsActiveTrue}.
+ * <p>
+ * Entries are snapshots and every lookup gets its own copy, so callers may modify it freely.
+ * A snapshot can be up to {@code ttl} old and must never be saved as a whole; writes go through
+ * {@link AccountStore}. JPA writes to an account evict its entry when flushed and again
+ * after commit ({@link AccountCacheInvalidator}); link and unlink events received from other
+ * nodes evict it as well. Entries expire after {@code ttl} minus up to 10% jitter, so entries
+ * loaded together (e.g. right after a deploy) do not all expire in the same instant.
+ * <p>
+ * Hit, miss and eviction counts are published as the {@code cache.*} meters with tag
+ * {@code cache=instagramAccounts}, see {@code /actuator/metrics/cache.gets}.
+ */
+@Component
+public class AccountCache implements MeterBinder {
+
+    static final String CACHE_NAME = "instagramAccounts";
+
+    private final InstagramAccountRepository accountRepository;
+    private final AccountCacheProperties properties;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > properties.getMaxSize()) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Bumped by every eviction, so a load that raced with a write never caches what it read
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AccountCache(InstagramAccountRepository accountRepository, AccountCacheProperties properties) {
+        this.accountRepository = accountRepository;
+        this.properties = properties;
+    }
+
+    public Optional<InstagramAccount> findActive(String userId) {
+        if (!properties.isEnabled()) {
+            return accountRepository.findByUserIdAndIsActiveTrue(userId);
+        }
+
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null && entry.expiresAt() - now > 0) {
+                hits.increment();
+                return Optional.of(entry.account().toBuilder().build());
+            }
+            if (entry != null) {
+                entries.remove(userId);
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        Optional<InstagramAccount> account = accountRepository.findByUserIdAndIsActiveTrue(userId);
+        account.ifPresent(loaded -> {
+            Entry entry = new Entry(loaded.toBuilder().build(), now + expiryNanos());
+            synchronized (entries) {
+                if (generation == loadGeneration) {
+                    entries.put(userId, entry);
+                    puts.increment();
+                }
+            }
+        });
+        return account;
+    }
+
+    /**
+     * Looks up many users at once: cached accounts are answered from memory and the rest are
+     * loaded with a single query.
+     *
+     * @return the active accounts among {@code userIds}, by user ID
+     */
+    public Map<String, InstagramAccount> findActive(Collection<String> userIds) {
+        Map<String, InstagramAccount> found = new HashMap<>();
+        if (!properties.isEnabled()) {
+            accountRepository.findByUserIdInAndIsActiveTrue(userIds)
+                    .forEach(account -> found.put(account.getUserId(), account));
+            return found;
+        }
+
+        long now = System.nanoTime();
+        Set<String> missing = new LinkedHashSet<>();
+        long loadGeneration;
+        synchronized (entries) {
+            for (String userId : userIds) {
+                Entry entry = entries.get(userId);
+                if (entry != null && entry.expiresAt() - now > 0) {
+                    found.put(userId, entry.account().toBuilder().build());
+                } else {
+                    if (entry != null) {
+                        entries.remove(userId);
+                    }
+                    missing.add(userId);
+                }
+            }
+            loadGeneration = generation;
+        }
+        hits.add(found.size());
+        misses.add(missing.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        List<InstagramAccount> loaded = accountRepository.findByUserIdInAndIsActiveTrue(missing);
+        synchronized (entries) {
+            for (InstagramAccount account : loaded) {
+                if (generation == loadGeneration) {
+                    entries.put(account.getUserId(), new Entry(account.toBuilder().build(), now + expiryNanos()));
+                    puts.increment();
+                }
+                found.put(account.getUserId(), account);
+            }
+        }
+        return found;
+    }
+
+    public void evict(String userId) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(userId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(InstagramAccountChangedEvent event) {
+        evict(event.getUserId());
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Share of lookups since startup answered from memory, or 0 before the first lookup.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", CACHE_NAME, "result", "hit")
+                .description("Account lookups answered from memory")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", CACHE_NAME, "result", "miss")
+                .description("Account lookups that went to the database")
+                .register(registry);
+        FunctionCounter.builder("cache.puts", puts, LongAdder::sum)
+                .tags("cache", CACHE_NAME)
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tags("cache", CACHE_NAME)
+                .description("Entries dropped because the cache was full")
+                .register(registry);
+        Gauge.builder("cache.size", this, AccountCache::size)
+                .tags("cache", CACHE_NAME)
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", this, AccountCache::getHitRatio)
+                .tags("cache", CACHE_NAME)
+                .register(registry);
+    }
+
+    private long expiryNanos() {
+        long ttl = properties.getTtl().toNanos();
+        return ttl - (long) (ttl * 0.1 * ThreadLocalRandom.current().nextDouble());
+    }
+
+    private record Entry(InstagramAccount account, long expiresAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.instagram.api.service;
+
+import com.instagram.api.entity.InstagramAccount;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that keeps {@link AccountCache} in step with every account write.
+ * <p>
+ * The entry is evicted when the write is flushed and once more after the transaction ends, so
+ * a concurrent lookup that read the old row before the commit cannot leave it cached. The cache
+ * is looked up lazily because Hibernate creates this listener while the entity manager factory,
+ * which the cache depends on, is still being built.
+ */
+@Component
+public class AccountCacheInvalidator {
+
+    private final ObjectProvider<AccountCache> accountCache;
+
+    public AccountCacheInvalidator(ObjectProvider<AccountCache> accountCache) {
+        this.accountCache = accountCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onWrite(InstagramAccount account) {
+        AccountCache cache = accountCache.getIfAvailable();
+        String userId = account.getUserId();
+        if (cache == null || userId == null) {
+            return;
+        }
+        cache.evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(userId);
+                }
+            });
+        }
+    }
+}
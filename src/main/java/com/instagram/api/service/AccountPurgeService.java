@@ -0,0 +1,188 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.PurgeProperties;
+import com.instagram.api.dto.AccountPurgeResponse;
+import com.instagram.api.dto.AccountPurgeResponse.State;
+import com.instagram.api.exception.InstagramApiException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes all stored data of an unlinked account in chunks of {@code instagram.purge.chunk-size}
+ * media items, each in its own transaction, so neither the heap nor row locks grow with the
+ * size of the account.
+ * <p>
+ * Purges run either in the calling thread or on a single background worker; progress of both is
+ * kept in memory for {@code status-retention} after they finish. A purge interrupted by a
+ * restart is resumed by unlinking with {@code deleteData=true} again, since the deactivated
+ * account row is only removed after its last media item. If the user links again while a purge
+ * runs, it stops before the next chunk and keeps the account.
+ */
+@Service
+public class AccountPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountPurgeService.class);
+
+    private final AccountPurgeStore purgeStore;
+    private final PurgeProperties properties;
+    private final ExecutorService worker;
+    private final Map<String, PurgeJob> jobs = new ConcurrentHashMap<>();
+
+    public AccountPurgeService(AccountPurgeStore purgeStore, PurgeProperties properties) {
+        this.purgeStore = purgeStore;
+        this.properties = properties;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Purges in the calling thread and returns the final status; failures are rethrown. If a
+     * purge of the account is already pending or running, its current status is returned.
+     */
+    public AccountPurgeResponse purge(Long accountId, String userId) {
+        PurgeJob job = register(accountId, userId);
+        if (claim(job)) {
+            run(job);
+        }
+        return job.toResponse();
+    }
+
+    /**
+     * Queues the purge on the background worker and returns its status right away. If a purge
+     * of the account is already pending or running, that one is returned instead.
+     */
+    public AccountPurgeResponse submit(Long accountId, String userId) {
+        PurgeJob job = register(accountId, userId);
+        if (claim(job)) {
+            worker.execute(() -> {
+                try {
+                    run(job);
+                } catch (RuntimeException e) {
+                    // Recorded on the job and logged by run()
+                }
+            });
+        }
+        return job.toResponse();
+    }
+
+    public AccountPurgeResponse getStatus(String jobId) {
+        PurgeJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new InstagramApiException("No purge job found with id: " + jobId, "PURGE_JOB_NOT_FOUND", 404);
+        }
+        return job.toResponse();
+    }
+
+    private synchronized PurgeJob register(Long accountId, String userId) {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(properties.getStatusRetention());
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(expiredBefore));
+
+        for (PurgeJob job : jobs.values()) {
+            if (job.accountId.equals(accountId) && job.finishedAt == null) {
+                return job;
+            }
+        }
+        PurgeJob job = new PurgeJob(UUID.randomUUID().toString(), accountId, userId);
+        jobs.put(job.jobId, job);
+        return job;
+    }
+
+    private synchronized boolean claim(PurgeJob job) {
+        if (job.claimed) {
+            return false;
+        }
+        job.claimed = true;
+        return true;
+    }
+
+    private void run(PurgeJob job) {
+        job.startedAt = LocalDateTime.now();
+        job.state = State.RUNNING;
+        try {
+            job.mediaTotal = purgeStore.countMedia(job.accountId);
+            logger.info("Purging {} media items of user: {} (job {})", job.mediaTotal, job.userId, job.jobId);
+
+            int deleted;
+            while ((deleted = purgeStore.deleteMediaChunk(job.accountId, properties.getChunkSize())) > 0) {
+                job.mediaDeleted += deleted;
+                job.chunksCompleted++;
+                logger.debug("Purge {}: {}/{} media items deleted", job.jobId, job.mediaDeleted, job.mediaTotal);
+            }
+
+            if (deleted == AccountPurgeStore.ACCOUNT_RELINKED || !purgeStore.deleteAccount(job.accountId)) {
+                logger.info("User {} linked again, purge {} stopped after {} media items",
+                        job.userId, job.jobId, job.mediaDeleted);
+                job.finish(State.CANCELLED);
+                return;
+            }
+            logger.info("Deleted all data for user: {} ({} media items in {} chunks)",
+                    job.userId, job.mediaDeleted, job.chunksCompleted);
+            job.finish(State.COMPLETED);
+        } catch (RuntimeException e) {
+            logger.error("Purge {} for user {} failed after {} media items", job.jobId, job.userId, job.mediaDeleted, e);
+            job.error = e.getMessage();
+            job.finish(State.FAILED);
+            throw e;
+        }
+    }
+
+    /**
+     * Progress is written only by the thread running the purge and read by status requests.
+     */
+    private static final class PurgeJob {
+
+        final String jobId;
+        final Long accountId;
+        final String userId;
+        boolean claimed;
+        volatile State state = State.PENDING;
+        volatile long mediaTotal;
+        volatile long mediaDeleted;
+        volatile int chunksCompleted;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        PurgeJob(String jobId, Long accountId, String userId) {
+            this.jobId = jobId;
+            this.accountId = accountId;
+            this.userId = userId;
+        }
+
+        void finish(State finalState) {
+            state = finalState;
+            finishedAt = LocalDateTime.now();
+        }
+
+        AccountPurgeResponse toResponse() {
+            return AccountPurgeResponse.builder()
+                    .jobId(jobId)
+                    .userId(userId)
+                    .state(state)
+                    .mediaTotal(mediaTotal)
+                    .mediaDeleted(mediaDeleted)
+                    .chunksCompleted(chunksCompleted)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.instagram.api.service;
+
+import com.instagram.api.event.MediaDeletedEvent;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramCommentRepository;
+import com.instagram.api.repository.InstagramMediaChildRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import com.instagram.api.repository.InstagramMediaTagRepository;
+import com.instagram.api.repository.PublishJobRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Set-based deletes for {@link AccountPurgeService}, one short transaction per chunk. Nothing is
+ * loaded into the persistence context; every statement is a bulk {@code DELETE ... WHERE id IN}.
+ */
+@Component
+public class AccountPurgeStore {
+
+    /**
+     * Returned by {@link #deleteMediaChunk} when the account is active again.
+     */
+    public static final int ACCOUNT_RELINKED = -1;
+
+    private final InstagramAccountRepository accountRepository;
+    private final InstagramMediaRepository mediaRepository;
+    private final InstagramMediaTagRepository tagRepository;
+    private final InstagramMediaChildRepository childRepository;
+    private final InstagramCommentRepository commentRepository;
+    private final PublishJobRepository publishJobRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AccountPurgeStore(InstagramAccountRepository accountRepository,
+                             InstagramMediaRepository mediaRepository,
+                             InstagramMediaTagRepository tagRepository,
+                             InstagramMediaChildRepository childRepository,
+                             InstagramCommentRepository commentRepository,
+                             PublishJobRepository publishJobRepository,
+                             ApplicationEventPublisher eventPublisher) {
+        this.accountRepository = accountRepository;
+        this.mediaRepository = mediaRepository;
+        this.tagRepository = tagRepository;
+        this.childRepository = childRepository;
+        this.commentRepository = commentRepository;
+        this.publishJobRepository = publishJobRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(readOnly = true)
+    public long countMedia(Long accountId) {
+        return mediaRepository.countByAccountId(accountId);
+    }
+
+    /**
+     * Deletes the account's next {@code chunkSize} media items and the rows that reference them,
+     * and announces them in a {@link MediaDeletedEvent}.
+     *
+     * @return media items deleted, 0 once none are left, or {@link #ACCOUNT_RELINKED}
+     */
+    @Transactional
+    public int deleteMediaChunk(Long accountId, int chunkSize) {
+        if (accountRepository.existsByIdAndIsActiveTrue(accountId)) {
+            return ACCOUNT_RELINKED;
+        }
+        List<Long> mediaIds = mediaRepository.findIdsByAccountId(accountId, PageRequest.of(0, chunkSize));
+        if (mediaIds.isEmpty()) {
+            return 0;
+        }
+        eventPublisher.publishEvent(new MediaDeletedEvent(accountId, mediaRepository.findMediaIdsByIdIn(mediaIds)));
+        tagRepository.deleteByMediaIdIn(mediaIds);
+        childRepository.deleteByMediaIdIn(mediaIds);
+        commentRepository.deleteByMediaIdIn(mediaIds);
+        return mediaRepository.deleteByIdIn(mediaIds);
+    }
+
+    /**
+     * @return false if the account was linked again and therefore kept
+     */
+    @Transactional
+    public boolean deleteAccount(Long accountId) {
+        if (accountRepository.deleteInactiveById(accountId) == 0) {
+            return false;
+        }
+        publishJobRepository.deleteByAccountId(accountId);
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.dto.InstagramProfileDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.repository.InstagramAccountRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Short write transactions for token and profile changes made after a Graph call.
+ * <p>
+ * Callers work on {@link AccountCache} snapshots, which may be out of date. Saving one would
+ * write every column back, so an unlink that happened in the meantime could be undone. Instead,
+ * each write reloads the account with a row lock and changes only the fields it is about, and
+ * only while the account is still active.
+ */
+@Component
+public class AccountStore {
+
+    private final InstagramAccountRepository accountRepository;
+
+    public AccountStore(InstagramAccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * @return false if the account was unlinked in the meantime, in which case nothing is written
+     */
+    @Transactional
+    public boolean updateToken(Long accountId, String accessToken, LocalDateTime expiresAt) {
+        Optional<InstagramAccount> account = accountRepository.findActiveByIdForUpdate(accountId);
+        account.ifPresent(managed -> {
+            managed.setAccessToken(accessToken);
+            managed.setTokenExpiresAt(expiresAt);
+        });
+        return account.isPresent();
+    }
+
+    /**
+     * Writes the selected profile fields; the others keep their stored values.
+     *
+     * @return false if the account was unlinked in the meantime, in which case nothing is written
+     */
+    @Transactional
+    public boolean updateProfile(Long accountId, InstagramProfileDTO profile, FieldSelection selection) {
+        Optional<InstagramAccount> account = accountRepository.findActiveByIdForUpdate(accountId);
+        account.ifPresent(managed -> applyProfile(managed, profile, selection));
+        return account.isPresent();
+    }
+
+    static void applyProfile(InstagramAccount account, InstagramProfileDTO profile, FieldSelection selection) {
+        if (selection.hasProfileField("username")) {
+            account.setUsername(profile.getUsername());
+        }
+        if (selection.hasProfileField("name")) {
+            account.setName(profile.getName());
+        }
+        if (selection.hasProfileField("profile_picture_url")) {
+            account.setProfilePictureUrl(profile.getProfilePictureUrl());
+        }
+        if (selection.hasProfileField("biography")) {
+            account.setBiography(profile.getBiography());
+        }
+        if (selection.hasProfileField("website")) {
+            account.setWebsite(profile.getWebsite());
+        }
+        if (selection.hasProfileField("followers_count")) {
+            account.setFollowersCount(profile.getFollowersCount());
+        }
+        if (selection.hasProfileField("follows_count")) {
+            account.setFollowingCount(profile.getFollowingCount());
+        }
+        if (selection.hasProfileField("media_count")) {
+            account.setMediaCount(profile.getMediaCount());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.SyncProperties;
+import com.instagram.api.repository.InstagramAccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Row leases that divide background sync work between instances.
+ * <p>
+ * An instance claims due accounts with a conditional UPDATE that only matches rows nobody
+ * holds an unexpired lease on, then reads back the rows it actually won. Leases are extended
+ * by heartbeat while a sync runs; when an instance dies its leases simply expire and the
+ * accounts are claimed by whichever instance polls next. Lease columns are used rather than
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED} so that no row lock or connection is held for the
+ * length of the Graph API calls.
+ * <p>
+ * Expiry is compared against each instance's clock, so clock skew between instances must stay
+ * well below {@code lease-duration}.
+ */
+@Component
+public class AccountSyncLeases {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountSyncLeases.class);
+
+    /**
+     * Instances read a window this many times larger than they claim and pick from it at random,
+     * so that concurrent pollers mostly go after different rows instead of racing for the same head.
+     */
+    private static final int CANDIDATE_SPREAD = 4;
+
+    private final InstagramAccountRepository accountRepository;
+    private final SyncIntervalPolicy intervalPolicy;
+    private final SyncProperties properties;
+    private final String instanceId;
+
+    public AccountSyncLeases(InstagramAccountRepository accountRepository, SyncIntervalPolicy intervalPolicy,
+                             SyncProperties properties) {
+        this.accountRepository = accountRepository;
+        this.intervalPolicy = intervalPolicy;
+        this.properties = properties;
+        this.instanceId = properties.getInstanceId() != null && !properties.getInstanceId().isBlank()
+                ? properties.getInstanceId()
+                : defaultInstanceId();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * @return IDs of the accounts this instance now holds the lease on, at most {@code limit}
+     */
+    @Transactional
+    public List<Long> claim(int limit) {
+        LocalDateTime now = now();
+        List<Long> candidates = new ArrayList<>(accountRepository.findSyncCandidates(now,
+                PageRequest.of(0, limit * CANDIDATE_SPREAD)));
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        if (candidates.size() > limit) {
+            Collections.shuffle(candidates);
+            candidates = candidates.subList(0, limit);
+        }
+
+        LocalDateTime expiresAt = now.plus(properties.getLeaseDuration());
+        int claimed = accountRepository.claimSyncLeases(candidates, instanceId, expiresAt, now);
+        if (claimed == 0) {
+            return List.of();
+        }
+        return accountRepository.findIdsBySyncLease(instanceId, expiresAt);
+    }
+
+    /**
+     * Extends the leases on accounts still being synced.
+     *
+     * @return how many of them this instance still owned
+     */
+    @Transactional
+    public int renew(Collection<Long> accountIds) {
+        if (accountIds.isEmpty()) {
+            return 0;
+        }
+        return accountRepository.renewSyncLeases(accountIds, instanceId, now().plus(properties.getLeaseDuration()));
+    }
+
+    /**
+     * Releases the lease and schedules the next sync, after the interval chosen by
+     * {@link SyncIntervalPolicy} on success or the retry backoff on failure.
+     *
+     * @return false if the lease had already been lost to another instance
+     */
+    @Transactional
+    public boolean complete(Long accountId, boolean synced) {
+        LocalDateTime now = now();
+        int updated = synced
+                ? accountRepository.completeSyncLease(accountId, instanceId,
+                        now.plus(intervalPolicy.nextInterval(accountId, now)), now)
+                : accountRepository.releaseSyncLease(accountId, instanceId, now.plus(properties.getRetryBackoff()));
+        return updated == 1;
+    }
+
+    /**
+     * Hands every lease held by this instance back, so other instances need not wait for expiry.
+     */
+    @Transactional
+    public int releaseAll() {
+        return accountRepository.releaseSyncLeases(instanceId);
+    }
+
+    /**
+     * In UTC like the stored media timestamps {@link SyncIntervalPolicy} measures from, and at
+     * millisecond precision, so a lease written and read back compares equal on every database.
+     */
+    static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            logger.debug("Could not resolve host name for sync instance ID: {}", e.getMessage());
+            host = "instance";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
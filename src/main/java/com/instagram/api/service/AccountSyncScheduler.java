@@ -0,0 +1,190 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.CommentProperties;
+import com.instagram.api.config.ReadWriteRoutingDataSource;
+import com.instagram.api.config.SyncProperties;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.repository.InstagramAccountRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically syncs profile and media of every active account, sharded across instances.
+ * How often each account is synced follows its posting activity, see {@link SyncIntervalPolicy}.
+ * <p>
+ * Each poll claims as many due accounts as there are free workers through
+ * {@link AccountSyncLeases}, so every instance only ever works on rows it holds the lease for
+ * and adding instances adds sync capacity without duplicate Graph API calls. A heartbeat keeps
+ * the leases of running syncs alive; on shutdown unfinished leases are released.
+ */
+@Service
+@ConditionalOnProperty(prefix = "instagram.sync", name = "enabled", havingValue = "true")
+public class AccountSyncScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountSyncScheduler.class);
+
+    private final AccountSyncLeases leases;
+    private final InstagramAccountService accountService;
+    private final InstagramAccountRepository accountRepository;
+    private final SyncProperties properties;
+    private final MediaCommentService commentService;
+    private final CommentProperties commentProperties;
+    private final ExecutorService workers;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong synced = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong leasesLost = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public AccountSyncScheduler(AccountSyncLeases leases,
+                                InstagramAccountService accountService,
+                                InstagramAccountRepository accountRepository,
+                                SyncProperties properties,
+                                MediaCommentService commentService,
+                                CommentProperties commentProperties) {
+        this.leases = leases;
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.properties = properties;
+        this.commentService = commentService;
+        this.commentProperties = commentProperties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "account-sync-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Background sync enabled on instance {} (concurrency {}, interval {})",
+                leases.getInstanceId(), properties.getConcurrency(), properties.isAdaptive()
+                        ? properties.getMinInterval() + " to " + properties.getMaxInterval()
+                        : properties.getInterval());
+    }
+
+    @Scheduled(fixedDelayString = "${instagram.sync.poll-interval:10s}")
+    public void poll() {
+        int capacity = Math.min(properties.getConcurrency() - inFlight.size(), properties.getBatchSize());
+        if (!running || capacity <= 0) {
+            return;
+        }
+
+        List<Long> claimed;
+        try {
+            claimed = leases.claim(capacity);
+        } catch (Exception e) {
+            // Typically a lock conflict with another instance claiming the same rows
+            logger.warn("Sync claim failed, retrying next poll: {}", e.getMessage());
+            return;
+        }
+
+        for (Long accountId : claimed) {
+            inFlight.add(accountId);
+            // Sync reads the account and media it is about to update, so replicas must not serve them
+            workers.execute(() -> ReadWriteRoutingDataSource.runOnPrimary(() -> sync(accountId)));
+        }
+        if (!claimed.isEmpty()) {
+            logger.debug("Claimed {} accounts for sync", claimed.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${instagram.sync.heartbeat-interval:30s}")
+    public void heartbeat() {
+        Set<Long> held = Set.copyOf(inFlight);
+        if (held.isEmpty()) {
+            return;
+        }
+        try {
+            int renewed = leases.renew(held);
+            // Syncs that finished since the snapshot released their lease themselves
+            long lost = held.size() - renewed - held.stream().filter(id -> !inFlight.contains(id)).count();
+            if (lost > 0) {
+                leasesLost.addAndGet(lost);
+                logger.warn("Lost {} of {} sync leases; their accounts may be synced twice", lost, held.size());
+            }
+        } catch (Exception e) {
+            logger.warn("Sync lease heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        int released = leases.releaseAll();
+        if (released > 0) {
+            logger.info("Released {} unfinished sync leases", released);
+        }
+    }
+
+    public long getSyncedCount() {
+        return synced.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getLeasesLostCount() {
+        return leasesLost.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private void syncComments(String userId) {
+        try {
+            commentService.syncComments(userId);
+        } catch (Exception e) {
+            // Comments are secondary; the account still counts as synced
+            logger.warn("Background comment sync for user {} failed: {}", userId, e.getMessage());
+        }
+    }
+
+    private void sync(Long accountId) {
+        boolean success = false;
+        try {
+            Optional<String> userId = accountRepository.findById(accountId).map(InstagramAccount::getUserId);
+            if (userId.isPresent()) {
+                accountService.fetchData(userId.get(), properties.getMediaLimit());
+                success = true;
+                synced.incrementAndGet();
+                if (commentProperties.isSyncInBackground()) {
+                    syncComments(userId.get());
+                }
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.warn("Background sync of account {} failed: {}", accountId, e.getMessage());
+        } finally {
+            // Leave the heartbeat's set first, so it never sees a released lease as still held
+            inFlight.remove(accountId);
+            try {
+                if (!leases.complete(accountId, success)) {
+                    leasesLost.incrementAndGet();
+                    logger.warn("Sync lease on account {} expired before the sync finished", accountId);
+                }
+            } catch (Exception e) {
+                logger.warn("Could not release sync lease on account {}: {}", accountId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.instagram.api.service;
+
+import com.instagram.api.entity.InstagramMediaTag.TagType;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts hashtags and mentions from caption text using Instagram's rules: hashtags are
+ * letters, digits and underscores in any script; usernames are up to 30 ASCII letters, digits,
+ * periods and underscores. Values are normalized to lower case without the prefix.
+ */
+final class CaptionTags {
+
+    static final int MAX_TAG_LENGTH = 150;
+
+    private static final Pattern HASHTAG = Pattern.compile("(?<![\\p{L}\\p{N}_&])#([\\p{L}\\p{N}_]+)");
+    private static final Pattern MENTION = Pattern.compile("(?<![\\p{L}\\p{N}_.])@([A-Za-z0-9._]{1,30})");
+
+    private CaptionTags() {
+    }
+
+    record Tag(TagType type, String value) {
+    }
+
+    static Set<Tag> extract(String text) {
+        Set<Tag> tags = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return tags;
+        }
+        collect(HASHTAG.matcher(text), TagType.HASHTAG, tags);
+        collect(MENTION.matcher(text), TagType.MENTION, tags);
+        return tags;
+    }
+
+    static String normalize(String value) {
+        String normalized = value.toLowerCase(Locale.ROOT);
+        // A sentence-ending period is not part of the username
+        while (normalized.endsWith(".")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    private static void collect(Matcher matcher, TagType type, Set<Tag> tags) {
+        while (matcher.find()) {
+            String value = normalize(matcher.group(1));
+            if (!value.isEmpty() && value.length() <= MAX_TAG_LENGTH) {
+                tags.add(new Tag(type, value));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.instagram.api.service;
+
+import com.instagram.api.entity.InstagramComment;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.repository.InstagramCommentRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Short write transactions for comment sync, one per fetched page, so no connection is held
+ * while the next page is requested from Graph.
+ */
+@Component
+public class CommentStore {
+
+    private final InstagramCommentRepository commentRepository;
+    private final InstagramMediaRepository mediaRepository;
+
+    public CommentStore(InstagramCommentRepository commentRepository, InstagramMediaRepository mediaRepository) {
+        this.commentRepository = commentRepository;
+        this.mediaRepository = mediaRepository;
+    }
+
+    /**
+     * Inserts the comments not stored yet and refreshes text and likes of the others, looking
+     * all of them up with one query. New rows take sequence IDs and are written in JDBC batches.
+     *
+     * @return number of comments inserted
+     */
+    @Transactional
+    public int store(Long mediaId, List<InstagramComment> comments) {
+        if (comments.isEmpty()) {
+            return 0;
+        }
+        Map<String, InstagramComment> existing = commentRepository
+                .findByCommentIdIn(comments.stream().map(InstagramComment::getCommentId).toList())
+                .stream()
+                .collect(Collectors.toMap(InstagramComment::getCommentId, Function.identity()));
+        InstagramMedia media = mediaRepository.getReferenceById(mediaId);
+
+        List<InstagramComment> inserted = new ArrayList<>();
+        for (InstagramComment comment : comments) {
+            InstagramComment stored = existing.get(comment.getCommentId());
+            if (stored == null) {
+                comment.setMedia(media);
+                inserted.add(comment);
+            } else if (!Objects.equals(stored.getText(), comment.getText())
+                    || !Objects.equals(stored.getLikeCount(), comment.getLikeCount())) {
+                // Dirty checking flushes the update on commit
+                stored.setText(comment.getText());
+                stored.setLikeCount(comment.getLikeCount());
+            }
+        }
+        commentRepository.saveAll(inserted);
+        return inserted.size();
+    }
+
+    @Transactional
+    public void setBackfillCursor(Long mediaId, String cursor) {
+        mediaRepository.updateCommentsBackfillCursor(mediaId, cursor);
+    }
+}
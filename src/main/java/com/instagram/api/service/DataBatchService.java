@@ -0,0 +1,243 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.config.DataBatchProperties;
+import com.instagram.api.config.RateLimitProperties;
+import com.instagram.api.config.RequestDeadline;
+import com.instagram.api.dto.DataBatchResult;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.exception.AccountNotFoundException;
+import com.instagram.api.exception.InstagramApiException;
+import com.instagram.api.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Fetches {@code /data} for many users in one request.
+ * <p>
+ * The accounts are looked up together, then at most {@code parallelism} users of the batch are
+ * fetched at a time through {@link InstagramDataFallback}, so each of them gets the same latency
+ * budget and stored-data fallback as a single {@code /data} call. Workers come from a pool of
+ * {@code concurrency} threads shared by all batches; when it is busy, the request thread fetches
+ * its users itself. A user that fails gets an error result and the rest of the batch carries on.
+ * <p>
+ * Fetches run under the deadline of the batch request. Users not fetched by then fail with
+ * {@code DEADLINE_EXCEEDED}.
+ * <p>
+ * Every user of a batch takes a token from that user's {@code /data} rate-limit bucket, so a
+ * batch is no way around the per-user limit; users whose bucket is empty get a {@code 429}
+ * result.
+ */
+@Service
+public class DataBatchService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataBatchService.class);
+
+    // Request mapping whose per-user rate limit every user of a batch is charged against
+    private static final String DATA_ENDPOINT = "/api/instagram/data";
+
+    private final InstagramAccountService accountService;
+    private final InstagramDataFallback dataFallback;
+    private final DataBatchProperties properties;
+    private final RequestRateLimiter rateLimiter;
+    private final RateLimitProperties rateLimitProperties;
+    private final ThreadPoolExecutor workers;
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public DataBatchService(InstagramAccountService accountService, InstagramDataFallback dataFallback,
+                            DataBatchProperties properties, RequestRateLimiter rateLimiter,
+                            RateLimitProperties rateLimitProperties) {
+        this.accountService = accountService;
+        this.dataFallback = dataFallback;
+        this.properties = properties;
+        this.rateLimiter = rateLimiter;
+        this.rateLimitProperties = rateLimitProperties;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(0, properties.getConcurrency(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "data-batch-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * @return one result per distinct user ID, in request order
+     */
+    public List<DataBatchResult> fetchData(List<String> userIds, Integer mediaLimit, FieldSelection selection) {
+        Map<String, DataBatchResult> byUser = new HashMap<>();
+        fetchData(userIds, mediaLimit, selection, result -> byUser.put(result.getUserId(), result));
+        List<DataBatchResult> results = new ArrayList<>(byUser.size());
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            results.add(byUser.get(userId));
+        }
+        return results;
+    }
+
+    /**
+     * Hands each user's result to {@code sink} as soon as it is ready, on the calling thread.
+     * Rate-limited users and users without an active account come first.
+     */
+    public void fetchData(List<String> userIds, Integer mediaLimit, FieldSelection selection,
+                          Consumer<DataBatchResult> sink) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            RateLimitExceededException limited = charge(userId);
+            if (limited != null) {
+                sink.accept(record(failure(userId, limited)));
+            } else {
+                distinct.add(userId);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return;
+        }
+        Map<String, InstagramAccount> accounts = accountService.getAccounts(distinct);
+        logger.info("Fetching Instagram data for {} users ({} linked)", distinct.size(), accounts.size());
+
+        Queue<InstagramAccount> pending = new ConcurrentLinkedQueue<>();
+        for (String userId : distinct) {
+            InstagramAccount account = accounts.get(userId);
+            if (account != null) {
+                pending.add(account);
+            } else {
+                sink.accept(record(failure(userId,
+                        new AccountNotFoundException("No active Instagram account found for user: " + userId))));
+            }
+        }
+
+        BlockingQueue<DataBatchResult> done = new LinkedBlockingQueue<>();
+        Runnable worker = RequestDeadline.propagate(() -> {
+            InstagramAccount account;
+            while ((account = pending.poll()) != null) {
+                done.add(fetch(account, mediaLimit, selection));
+            }
+        });
+        int started = 0;
+        int wanted = Math.min(properties.getParallelism(), pending.size());
+        for (int i = 0; i < wanted; i++) {
+            try {
+                workers.execute(worker);
+                started++;
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        if (started == 0) {
+            worker.run();
+        }
+
+        try {
+            for (int remaining = accounts.size(); remaining > 0; remaining--) {
+                sink.accept(record(done.take()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InstagramApiException("Interrupted while fetching Instagram data", e);
+        } finally {
+            // The caller is gone if the sink failed; users not started yet are not fetched
+            pending.clear();
+        }
+    }
+
+    /**
+     * Takes a token from the {@code /data} bucket of {@code userId}.
+     *
+     * @return the rejection if the bucket is empty, otherwise null
+     */
+    private RateLimitExceededException charge(String userId) {
+        if (!rateLimitProperties.isEnabled()) {
+            return null;
+        }
+        RateLimitProperties.Limit limit = rateLimitProperties.limitOf(DATA_ENDPOINT);
+        Duration retryAfter = rateLimiter.tryAcquire(DATA_ENDPOINT, userId, limit);
+        if (retryAfter.isZero()) {
+            return null;
+        }
+        return new RateLimitExceededException(String.format("Too many requests: at most %d per %ds for %s",
+                limit.getCapacity(), limit.getPeriod().toSeconds(), DATA_ENDPOINT), retryAfter);
+    }
+
+    private DataBatchResult fetch(InstagramAccount account, Integer mediaLimit, FieldSelection selection) {
+        try {
+            return DataBatchResult.builder()
+                    .userId(account.getUserId())
+                    .success(true)
+                    .status(200)
+                    .data(dataFallback.fetchData(account, mediaLimit, selection))
+                    .build();
+        } catch (RuntimeException e) {
+            return failure(account.getUserId(), e);
+        }
+    }
+
+    /**
+     * The status, code and message {@code /data} would answer with for {@code e}.
+     */
+    static DataBatchResult failure(String userId, RuntimeException e) {
+        DataBatchResult.DataBatchResultBuilder result = DataBatchResult.builder().userId(userId).success(false);
+        if (e instanceof AccountNotFoundException) {
+            return result.status(404).errorCode("ACCOUNT_NOT_FOUND").error(e.getMessage()).build();
+        }
+        if (e instanceof RateLimitExceededException limited) {
+            return result.status(429).errorCode(limited.getErrorCode()).error(e.getMessage())
+                    .retryAfter(limited.getRetryAfterSeconds()).build();
+        }
+        if (e instanceof InstagramApiException apiException) {
+            return result.status(apiException.getStatusCode()).errorCode(apiException.getErrorCode())
+                    .error(e.getMessage()).build();
+        }
+        if (e instanceof IllegalArgumentException) {
+            return result.status(400).errorCode("BAD_REQUEST").error(e.getMessage()).build();
+        }
+        logger.error("Unexpected error fetching Instagram data for user: {}", userId, e);
+        return result.status(500).errorCode("INTERNAL_ERROR").error("An unexpected error occurred").build();
+    }
+
+    private DataBatchResult record(DataBatchResult result) {
+        (result.isSuccess() ? succeeded : failed).increment();
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("data.batch.users", succeeded, LongAdder::sum)
+                .description("Users fetched through batch data requests")
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("data.batch.users", failed, LongAdder::sum)
+                .description("Users fetched through batch data requests")
+                .tag("result", "error")
+                .register(registry);
+    }
+}
@@ -0,0 +1,152 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.RenditionProperties;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Produces downscaled JPEG renditions with the JDK image APIs. Stateless and thread-safe,
+ * so many images can be rendered in parallel.
+ */
+@Component
+public class ImageRenditionRenderer {
+
+    private final long maxSourcePixels;
+
+    public ImageRenditionRenderer(RenditionProperties properties) {
+        this.maxSourcePixels = properties.getMaxSourcePixels();
+    }
+
+    /**
+     * Decodes {@code source} once and writes one JPEG per requested size into
+     * {@code targetDirectory} as {@code <size>.jpg}. Each size bounds the longest edge, and
+     * images are never upscaled. Sources larger than {@code max-source-pixels} are rejected.
+     */
+    public void render(Path source, List<Integer> sizes, Path targetDirectory, float quality) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            render(in, sizes, targetDirectory, quality);
+        }
+    }
+
+    /**
+     * Same as {@link #render(Path, List, Path, float)}, decoding from {@code source}, which is
+     * left open.
+     */
+    public void render(InputStream source, List<Integer> sizes, Path targetDirectory, float quality) throws IOException {
+        BufferedImage original = decode(source);
+        Files.createDirectories(targetDirectory);
+        BufferedImage current = toRgb(original);
+
+        // Largest first, so each step scales down from the closest larger rendition
+        List<Integer> descending = sizes.stream().sorted((a, b) -> b - a).toList();
+        for (int size : descending) {
+            current = scaleToFit(current, size);
+            writeJpeg(current, targetDirectory.resolve(size + ".jpg"), quality);
+        }
+    }
+
+    /**
+     * Reads the dimensions from the header first, so that an oversized image fails before its
+     * pixels are allocated.
+     */
+    private BufferedImage decode(InputStream source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("Image of " + width + "x" + height + " exceeds " + maxSourcePixels
+                            + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scaleToFit(BufferedImage image, int maxEdge) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (Math.max(width, height) <= maxEdge) {
+            return image;
+        }
+
+        double scale = (double) maxEdge / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Halve repeatedly before the final bilinear pass to avoid aliasing on big reductions
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return resize(current, targetWidth, targetHeight);
+    }
+
+    private BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        return resize(image, image.getWidth(), image.getHeight());
+    }
+
+    private void writeJpeg(BufferedImage image, Path target, float quality) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp" + Thread.currentThread().getId());
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (OutputStream file = Files.newOutputStream(tmp);
+             ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
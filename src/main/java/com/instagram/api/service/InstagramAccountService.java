@@ -1,18 +1,23 @@
 package com.instagram.api.service;
 
+import com.instagram.api.client.FieldSelection;
 import com.instagram.api.dto.*;
 import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.event.InstagramAccountChangedEvent;
+import com.instagram.api.event.MediaSyncedEvent;
 import com.instagram.api.exception.AccountNotFoundException;
+import com.instagram.api.exception.DeadlineExceededException;
 import com.instagram.api.exception.InstagramApiException;
 import com.instagram.api.repository.InstagramAccountRepository;
-import com.instagram.api.repository.InstagramMediaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class InstagramAccountService {
@@ -20,18 +25,30 @@ public class InstagramAccountService {
     private static final Logger logger = LoggerFactory.getLogger(InstagramAccountService.class);
 
     private final InstagramAccountRepository accountRepository;
-    private final InstagramMediaRepository mediaRepository;
     private final InstagramOAuthService oAuthService;
     private final InstagramDataService dataService;
+    private final LinkStatusCache linkStatusCache;
+    private final AccountCache accountCache;
+    private final AccountStore accountStore;
+    private final AccountPurgeService purgeService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public InstagramAccountService(InstagramAccountRepository accountRepository,
-                                    InstagramMediaRepository mediaRepository,
                                     InstagramOAuthService oAuthService,
-                                    InstagramDataService dataService) {
+                                    InstagramDataService dataService,
+                                    LinkStatusCache linkStatusCache,
+                                    AccountCache accountCache,
+                                    AccountStore accountStore,
+                                    AccountPurgeService purgeService,
+                                    ApplicationEventPublisher eventPublisher) {
         this.accountRepository = accountRepository;
-        this.mediaRepository = mediaRepository;
         this.oAuthService = oAuthService;
         this.dataService = dataService;
+        this.linkStatusCache = linkStatusCache;
+        this.accountCache = accountCache;
+        this.accountStore = accountStore;
+        this.purgeService = purgeService;
+        this.eventPublisher = eventPublisher;
     }
 
     public OAuthUrlResponse initiateOAuth(String userId) {
@@ -39,7 +56,10 @@ public class InstagramAccountService {
         return oAuthService.generateAuthorizationUrl(userId);
     }
 
-    @Transactional
+    /**
+     * Not transactional on purpose: the four Graph API calls below run without holding a
+     * pooled connection, and the account upsert at the end is its own short write.
+     */
     public LinkAccountResponse handleOAuthCallback(String code, String state) {
         logger.info("Handling OAuth callback with state: {}", state);
 
@@ -82,6 +102,7 @@ public class InstagramAccountService {
         account.setIsActive(true);
 
         accountRepository.save(account);
+        eventPublisher.publishEvent(InstagramAccountChangedEvent.linked(userId));
 
         logger.info("Successfully linked Instagram account: {} for user: {}", profile.getUsername(), userId);
 
@@ -98,10 +119,24 @@ public class InstagramAccountService {
     }
 
     public InstagramDataResponse fetchData(String userId, Integer mediaLimit) {
-        logger.info("Fetching Instagram data for user: {}", userId);
+        return fetchData(userId, mediaLimit, FieldSelection.ALL);
+    }
 
-        InstagramAccount account = accountRepository.findByUserIdAndIsActiveTrue(userId)
-                .orElseThrow(() -> new AccountNotFoundException("No active Instagram account found for user: " + userId));
+    /**
+     * Fetches and stores the selected entities and fields; columns outside the selection keep
+     * their stored values.
+     */
+    public InstagramDataResponse fetchData(String userId, Integer mediaLimit, FieldSelection selection) {
+        return fetchData(getAccount(userId), mediaLimit, selection);
+    }
+
+    /**
+     * Same as {@link #fetchData(String, Integer, FieldSelection)} for an account the caller has
+     * already looked up, e.g. with {@link #getAccounts}.
+     */
+    public InstagramDataResponse fetchData(InstagramAccount account, Integer mediaLimit, FieldSelection selection) {
+        String userId = account.getUserId();
+        logger.info("Fetching Instagram data for user: {}", userId);
 
         // Check if token is expired or about to expire
         if (account.getTokenExpiresAt() != null &&
@@ -113,22 +148,28 @@ public class InstagramAccountService {
         InstagramDataResponse data = dataService.fetchAllData(
                 account.getAccessToken(),
                 account.getInstagramBusinessAccountId(),
-                mediaLimit);
+                mediaLimit,
+                selection);
 
         // Update account with latest profile data
-        updateAccountFromProfile(account, data.getProfile());
+        if (data.getProfile() != null) {
+            updateAccountFromProfile(account, data.getProfile(), selection);
+        }
 
         // Persist media to database
-        dataService.persistMedia(account, data.getMedia());
+        if (data.getMedia() != null) {
+            dataService.persistMedia(account, data.getMedia(), selection);
+            eventPublisher.publishEvent(new MediaSyncedEvent(userId,
+                    data.getMedia().stream().map(InstagramMediaDTO::getId).toList()));
+        }
 
         return data;
     }
 
-    @Transactional
     public LinkAccountResponse refreshToken(String userId) {
         logger.info("Refreshing token for user: {}", userId);
 
-        InstagramAccount account = accountRepository.findByUserIdAndIsActiveTrue(userId)
+        InstagramAccount account = accountCache.findActive(userId)
                 .orElseThrow(() -> new AccountNotFoundException("No active Instagram account found for user: " + userId));
 
         refreshAccountToken(account);
@@ -145,32 +186,64 @@ public class InstagramAccountService {
                 .build();
     }
 
-    @Transactional
+    /**
+     * Deactivates the account right away. With {@code deleteData}, its stored data is then
+     * purged in chunks in this thread, see {@link AccountPurgeService}.
+     */
     public void unlinkAccount(String userId, boolean deleteData) {
-        logger.info("Unlinking Instagram account for user: {}, deleteData: {}", userId, deleteData);
-
-        InstagramAccount account = accountRepository.findByUserId(userId)
-                .orElseThrow(() -> new AccountNotFoundException("No Instagram account found for user: " + userId));
-
+        InstagramAccount account = deactivate(userId, deleteData);
         if (deleteData) {
-            mediaRepository.deleteByAccount(account);
-            accountRepository.delete(account);
-            logger.info("Deleted all data for user: {}", userId);
-        } else {
-            account.setIsActive(false);
-            account.setAccessToken(null);
-            accountRepository.save(account);
-            logger.info("Deactivated account for user: {}", userId);
+            purgeService.purge(account.getId(), userId);
         }
     }
 
+    /**
+     * Deactivates the account and starts purging its stored data in the background.
+     *
+     * @return the purge status to poll with {@link AccountPurgeService#getStatus}
+     */
+    public AccountPurgeResponse unlinkAccountAndPurgeAsync(String userId) {
+        InstagramAccount account = deactivate(userId, true);
+        return purgeService.submit(account.getId(), userId);
+    }
+
+    public AccountPurgeResponse getPurgeStatus(String jobId) {
+        return purgeService.getStatus(jobId);
+    }
+
     public InstagramAccount getAccount(String userId) {
-        return accountRepository.findByUserIdAndIsActiveTrue(userId)
+        return accountCache.findActive(userId)
                 .orElseThrow(() -> new AccountNotFoundException("No active Instagram account found for user: " + userId));
     }
 
+    /**
+     * @return the active accounts among {@code userIds}, by user ID, looked up together
+     */
+    public Map<String, InstagramAccount> getAccounts(Collection<String> userIds) {
+        return accountCache.findActive(userIds);
+    }
+
     public boolean isAccountLinked(String userId) {
-        return accountRepository.existsByUserIdAndIsActiveTrue(userId);
+        return linkStatusCache.isLinked(userId);
+    }
+
+    public Map<String, Boolean> getLinkStatuses(List<String> userIds) {
+        return linkStatusCache.areLinked(userIds);
+    }
+
+    private InstagramAccount deactivate(String userId, boolean deleteData) {
+        logger.info("Unlinking Instagram account for user: {}, deleteData: {}", userId, deleteData);
+
+        InstagramAccount account = accountRepository.findByUserId(userId)
+                .orElseThrow(() -> new AccountNotFoundException("No Instagram account found for user: " + userId));
+
+        account.setIsActive(false);
+        account.setAccessToken(null);
+        accountRepository.save(account);
+        logger.info("Deactivated account for user: {}", userId);
+
+        eventPublisher.publishEvent(InstagramAccountChangedEvent.unlinked(userId));
+        return account;
     }
 
     private void refreshAccountToken(InstagramAccount account) {
@@ -181,23 +254,23 @@ public class InstagramAccountService {
             account.setTokenExpiresAt(LocalDateTime.now().plusSeconds(
                     refreshedToken.getExpiresIn() != null ? refreshedToken.getExpiresIn() : 5184000L));
 
-            accountRepository.save(account);
+            if (!accountStore.updateToken(account.getId(), account.getAccessToken(), account.getTokenExpiresAt())) {
+                throw new AccountNotFoundException("No active Instagram account found for user: " + account.getUserId());
+            }
             logger.info("Token refreshed successfully for account: {}", account.getUsername());
+        } catch (DeadlineExceededException | AccountNotFoundException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to refresh token for account: {}", account.getUsername(), e);
             throw new InstagramApiException("Failed to refresh token. User may need to re-authenticate.", e);
         }
     }
 
-    private void updateAccountFromProfile(InstagramAccount account, InstagramProfileDTO profile) {
-        account.setUsername(profile.getUsername());
-        account.setName(profile.getName());
-        account.setProfilePictureUrl(profile.getProfilePictureUrl());
-        account.setBiography(profile.getBiography());
-        account.setWebsite(profile.getWebsite());
-        account.setFollowersCount(profile.getFollowersCount());
-        account.setFollowingCount(profile.getFollowingCount());
-        account.setMediaCount(profile.getMediaCount());
-        accountRepository.save(account);
+    private void updateAccountFromProfile(InstagramAccount account, InstagramProfileDTO profile,
+                                          FieldSelection selection) {
+        AccountStore.applyProfile(account, profile, selection);
+        if (!accountStore.updateProfile(account.getId(), profile, selection)) {
+            logger.info("Account of user {} was unlinked during the fetch; profile not stored", account.getUserId());
+        }
     }
 }
@@ -0,0 +1,217 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.config.DataFallbackProperties;
+import com.instagram.api.config.RequestDeadline;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.exception.InstagramApiException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps {@code /data} answering when Instagram is slow or down.
+ * <p>
+ * The live fetch runs on a bounded pool and the request waits for it at most
+ * {@code latency-budget}. If it takes longer, fails with a server-side or throttling error, or
+ * the pool is saturated, the response is built from the stored profile and media and marked
+ * stale with the time of the last successful fetch. A fetch that outlives its budget keeps
+ * running and updates storage when it completes. Identical fetches of one user share a single
+ * live call, so retries during an outage do not pile up on the pool.
+ * <p>
+ * Client errors such as an invalid token are still returned to the caller, and an account that
+ * was never fetched has nothing to fall back to, so its requests wait for the live fetch.
+ * <p>
+ * The live fetch is shared by requests with different deadlines, so it runs under a
+ * {@link RequestDeadline} of its own, {@code fetch-timeout} from when it starts, and finishes in
+ * the background even after the request that started it has given up. Only the wait is bounded
+ * by each request's deadline.
+ */
+@Service
+public class InstagramDataFallback implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstagramDataFallback.class);
+
+    private final InstagramAccountService accountService;
+    private final StoredDataReader storedData;
+    private final DataFallbackProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Map<FetchKey, CompletableFuture<InstagramDataResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> fallbacks = new ConcurrentHashMap<>();
+
+    public InstagramDataFallback(InstagramAccountService accountService, StoredDataReader storedData,
+                                 DataFallbackProperties properties) {
+        this.accountService = accountService;
+        this.storedData = storedData;
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getConcurrency(), properties.getConcurrency(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "data-fetch-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        for (String reason : new String[]{"timeout", "error", "saturated"}) {
+            fallbacks.put(reason, new LongAdder());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Same as {@link InstagramAccountService#fetchData(String, Integer, FieldSelection)}, but
+     * answered from storage when the live fetch does not complete within the latency budget.
+     */
+    public InstagramDataResponse fetchData(String userId, Integer mediaLimit, FieldSelection selection) {
+        return fetchData(accountService.getAccount(userId), mediaLimit, selection);
+    }
+
+    /**
+     * Same as {@link #fetchData(String, Integer, FieldSelection)} for an account the caller has
+     * already looked up.
+     */
+    public InstagramDataResponse fetchData(InstagramAccount account, Integer mediaLimit, FieldSelection selection) {
+        if (!properties.isEnabled()) {
+            return live(account, mediaLimit, selection);
+        }
+
+        FetchKey key = new FetchKey(account.getUserId(), mediaLimit, selection);
+        CompletableFuture<InstagramDataResponse> created = new CompletableFuture<>();
+        CompletableFuture<InstagramDataResponse> fetch = inFlight.putIfAbsent(key, created);
+        if (fetch == null) {
+            fetch = created;
+            try {
+                executor.execute(() -> {
+                    RequestDeadline deadline = new RequestDeadline(properties.getFetchTimeout(), stage ->
+                            logger.warn("Live data fetch for user {} ran out of time at {}", account.getUserId(), stage));
+                    try (RequestDeadline.Scope scope = RequestDeadline.attach(deadline)) {
+                        created.complete(live(account, mediaLimit, selection));
+                    } catch (Throwable e) {
+                        created.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(key, created);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, created);
+                created.completeExceptionally(e);
+                return stored(account, mediaLimit, selection, "saturated", null)
+                        .orElseGet(() -> live(account, mediaLimit, selection));
+            }
+        }
+
+        try {
+            return await(fetch, budgetMillis());
+        } catch (TimeoutException e) {
+            CompletableFuture<InstagramDataResponse> pending = fetch;
+            return stored(account, mediaLimit, selection, "timeout", null)
+                    .orElseGet(() -> awaitWithoutBudget(pending));
+        } catch (RuntimeException e) {
+            if (e instanceof InstagramApiException apiException
+                    && apiException.getStatusCode() < 500 && apiException.getStatusCode() != 429) {
+                throw e;
+            }
+            return stored(account, mediaLimit, selection, "error", e).orElseThrow(() -> e);
+        }
+    }
+
+    private InstagramDataResponse live(InstagramAccount account, Integer mediaLimit, FieldSelection selection) {
+        // In UTC, like the sync leases that also record last_synced_at
+        LocalDateTime startedAt = AccountSyncLeases.now();
+        InstagramDataResponse data = accountService.fetchData(account, mediaLimit, selection);
+        try {
+            storedData.markSynced(account.getId(), startedAt);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to record sync time for user: {}", account.getUserId(), e);
+        }
+        data.setLastSyncedAt(startedAt);
+        return data;
+    }
+
+    /**
+     * The latency budget, shortened to what is left of the request deadline.
+     */
+    private long budgetMillis() {
+        long budget = properties.getLatencyBudget().toMillis();
+        RequestDeadline deadline = RequestDeadline.current();
+        return deadline != null ? Math.min(budget, deadline.remaining().toMillis()) : budget;
+    }
+
+    /**
+     * Waits for the fetch until the request deadline, if there is one.
+     */
+    private static InstagramDataResponse awaitWithoutBudget(CompletableFuture<InstagramDataResponse> fetch) {
+        RequestDeadline deadline = RequestDeadline.current();
+        try {
+            return await(fetch, deadline != null ? deadline.remaining().toMillis() : Long.MAX_VALUE);
+        } catch (TimeoutException e) {
+            if (deadline != null) {
+                throw deadline.exceeded("data fetch");
+            }
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Waits for the fetch and rethrows its failure as it was thrown by the live call.
+     */
+    private static InstagramDataResponse await(CompletableFuture<InstagramDataResponse> fetch, long timeoutMillis)
+            throws TimeoutException {
+        try {
+            return fetch.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new InstagramApiException("Failed to fetch Instagram data", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InstagramApiException("Interrupted while fetching Instagram data", e);
+        }
+    }
+
+    private Optional<InstagramDataResponse> stored(InstagramAccount account, Integer mediaLimit,
+                                                   FieldSelection selection, String reason, Exception failure) {
+        Optional<InstagramDataResponse> response = storedData.load(account.getId(), mediaLimit, selection);
+        if (response.isPresent()) {
+            fallbacks.get(reason).increment();
+            logger.warn("Serving stored data for user {} ({}, last synced {}){}", account.getUserId(), reason,
+                    response.get().getLastSyncedAt(), failure != null ? ": " + failure.getMessage() : "");
+        }
+        return response;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        fallbacks.forEach((reason, count) -> FunctionCounter.builder("data.fallback", count, LongAdder::sum)
+                .description("/data responses served from storage instead of Instagram")
+                .tag("reason", reason)
+                .register(registry));
+    }
+
+    private record FetchKey(String userId, Integer mediaLimit, FieldSelection selection) {
+    }
+}
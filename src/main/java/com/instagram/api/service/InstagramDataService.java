@@ -1,59 +1,76 @@
 package com.instagram.api.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.instagram.api.config.InstagramConfig;
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.client.GraphApiClient;
 import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.dto.InstagramMediaChildDTO;
 import com.instagram.api.dto.InstagramMediaDTO;
 import com.instagram.api.dto.InstagramProfileDTO;
 import com.instagram.api.entity.InstagramAccount;
 import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.InstagramMediaChild;
 import com.instagram.api.exception.InstagramApiException;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaChildRepository;
 import com.instagram.api.repository.InstagramMediaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class InstagramDataService {
 
     private static final Logger logger = LoggerFactory.getLogger(InstagramDataService.class);
 
-    private final WebClient webClient;
-    private final InstagramConfig instagramConfig;
-    private final InstagramMediaRepository mediaRepository;
+    /**
+     * Format of Graph API timestamps, e.g. {@code 2024-01-15T10:30:00+0000}.
+     */
+    private static final DateTimeFormatter GRAPH_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
 
-    private static final String PROFILE_FIELDS = "id,username,name,profile_picture_url,biography,website,followers_count,follows_count,media_count,account_type";
-    private static final String MEDIA_FIELDS = "id,media_type,media_url,thumbnail_url,permalink,caption,timestamp,like_count,comments_count";
+    private final GraphApiClient graphApiClient;
+    private final InstagramMediaRepository mediaRepository;
+    private final InstagramMediaChildRepository childRepository;
+    private final InstagramAccountRepository accountRepository;
+    private final MediaTagIndexer tagIndexer;
 
-    public InstagramDataService(WebClient webClient, InstagramConfig instagramConfig,
-                                 InstagramMediaRepository mediaRepository) {
-        this.webClient = webClient;
-        this.instagramConfig = instagramConfig;
+    public InstagramDataService(GraphApiClient graphApiClient,
+                                 InstagramMediaRepository mediaRepository,
+                                 InstagramMediaChildRepository childRepository,
+                                 InstagramAccountRepository accountRepository,
+                                 MediaTagIndexer tagIndexer) {
+        this.graphApiClient = graphApiClient;
         this.mediaRepository = mediaRepository;
+        this.accountRepository = accountRepository;
+        this.childRepository = childRepository;
+        this.tagIndexer = tagIndexer;
     }
 
     public InstagramProfileDTO fetchProfile(String accessToken, String instagramBusinessAccountId) {
+        return fetchProfile(accessToken, instagramBusinessAccountId, FieldSelection.ALL);
+    }
+
+    public InstagramProfileDTO fetchProfile(String accessToken, String instagramBusinessAccountId,
+                                            FieldSelection selection) {
         logger.info("Fetching Instagram profile for account: {}", instagramBusinessAccountId);
 
         try {
-            return webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .scheme("https")
-                            .host("graph.facebook.com")
-                            .path("/v18.0/" + instagramBusinessAccountId)
-                            .queryParam("fields", PROFILE_FIELDS)
-                            .queryParam("access_token", accessToken)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(InstagramProfileDTO.class)
-                    .block();
+            return graphApiClient.getProfile(instagramBusinessAccountId, accessToken, selection.profileFieldList());
+        } catch (InstagramApiException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to fetch profile: {}", e.getMessage());
             throw new InstagramApiException("Failed to fetch Instagram profile", e);
@@ -64,17 +81,7 @@ public class InstagramDataService {
         logger.info("Fetching Instagram Business Account ID");
 
         try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .scheme("https")
-                            .host("graph.facebook.com")
-                            .path("/v18.0/me/accounts")
-                            .queryParam("fields", "instagram_business_account")
-                            .queryParam("access_token", accessToken)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
+            JsonNode response = graphApiClient.getPages(accessToken);
 
             if (response != null && response.has("data") && response.get("data").isArray()) {
                 for (JsonNode page : response.get("data")) {
@@ -94,92 +101,262 @@ public class InstagramDataService {
     }
 
     public List<InstagramMediaDTO> fetchMedia(String accessToken, String instagramBusinessAccountId, Integer limit) {
+        return fetchMedia(accessToken, instagramBusinessAccountId, limit, FieldSelection.ALL);
+    }
+
+    public List<InstagramMediaDTO> fetchMedia(String accessToken, String instagramBusinessAccountId, Integer limit,
+                                              FieldSelection selection) {
         logger.info("Fetching media for account: {}", instagramBusinessAccountId);
 
         int fetchLimit = limit != null ? limit : 25;
 
         try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .scheme("https")
-                            .host("graph.facebook.com")
-                            .path("/v18.0/" + instagramBusinessAccountId + "/media")
-                            .queryParam("fields", MEDIA_FIELDS)
-                            .queryParam("limit", fetchLimit)
-                            .queryParam("access_token", accessToken)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
+            JsonNode response = graphApiClient.getMediaPage(instagramBusinessAccountId, accessToken, fetchLimit,
+                    selection.mediaFieldList());
 
             List<InstagramMediaDTO> mediaList = new ArrayList<>();
 
             if (response != null && response.has("data")) {
                 for (JsonNode mediaNode : response.get("data")) {
-                    InstagramMediaDTO media = InstagramMediaDTO.builder()
-                            .id(getTextValue(mediaNode, "id"))
-                            .mediaType(getTextValue(mediaNode, "media_type"))
-                            .mediaUrl(getTextValue(mediaNode, "media_url"))
-                            .thumbnailUrl(getTextValue(mediaNode, "thumbnail_url"))
-                            .permalink(getTextValue(mediaNode, "permalink"))
-                            .caption(getTextValue(mediaNode, "caption"))
-                            .timestamp(getTextValue(mediaNode, "timestamp"))
-                            .likeCount(getIntValue(mediaNode, "like_count"))
-                            .commentsCount(getIntValue(mediaNode, "comments_count"))
-                            .build();
-                    mediaList.add(media);
+                    mediaList.add(toMediaDTO(mediaNode));
                 }
             }
 
             return mediaList;
+        } catch (InstagramApiException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to fetch media: {}", e.getMessage());
             throw new InstagramApiException("Failed to fetch Instagram media", e);
         }
     }
 
+    /**
+     * Fetches a single media object, used for targeted updates instead of a full media sync.
+     */
+    public InstagramMediaDTO fetchSingleMedia(String accessToken, String mediaId) {
+        logger.info("Fetching single media: {}", mediaId);
+
+        try {
+            JsonNode response = graphApiClient.getMedia(mediaId, accessToken);
+
+            if (response == null || !response.has("id")) {
+                throw new InstagramApiException("Media not found: " + mediaId, "MEDIA_NOT_FOUND", 404);
+            }
+            return toMediaDTO(response);
+        } catch (InstagramApiException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to fetch media {}: {}", mediaId, e.getMessage());
+            throw new InstagramApiException("Failed to fetch Instagram media", e);
+        }
+    }
+
     public InstagramDataResponse fetchAllData(String accessToken, String instagramBusinessAccountId, Integer mediaLimit) {
-        InstagramProfileDTO profile = fetchProfile(accessToken, instagramBusinessAccountId);
-        List<InstagramMediaDTO> media = fetchMedia(accessToken, instagramBusinessAccountId, mediaLimit);
-
-        return InstagramDataResponse.builder()
-                .profile(profile)
-                .media(media)
-                .paging(InstagramDataResponse.PagingInfo.builder()
-                        .hasMore(media.size() == (mediaLimit != null ? mediaLimit : 25))
-                        .build())
-                .build();
+        return fetchAllData(accessToken, instagramBusinessAccountId, mediaLimit, FieldSelection.ALL);
+    }
+
+    /**
+     * Fetches only the entities in {@code selection}; the profile or media of the response is
+     * null when not included.
+     */
+    public InstagramDataResponse fetchAllData(String accessToken, String instagramBusinessAccountId, Integer mediaLimit,
+                                              FieldSelection selection) {
+        InstagramDataResponse.InstagramDataResponseBuilder response = InstagramDataResponse.builder();
+
+        if (selection.includesProfile()) {
+            response.profile(fetchProfile(accessToken, instagramBusinessAccountId, selection));
+        }
+        if (selection.includesMedia()) {
+            List<InstagramMediaDTO> media = fetchMedia(accessToken, instagramBusinessAccountId, mediaLimit, selection);
+            response.media(media)
+                    .paging(InstagramDataResponse.PagingInfo.builder()
+                            .hasMore(media.size() == (mediaLimit != null ? mediaLimit : 25))
+                            .build());
+        }
+        return response.build();
     }
 
     @Transactional
     public void persistMedia(InstagramAccount account, List<InstagramMediaDTO> mediaList) {
+        persistMedia(account, mediaList, FieldSelection.ALL);
+    }
+
+    /**
+     * Upserts media rows, writing only the fields in {@code selection} so that a narrow fetch
+     * never clears columns it did not request. Carousel children of the whole page are
+     * reconciled afterwards with one lookup and batched writes.
+     * <p>
+     * {@code media_id} is only unique together with {@code timestamp} on PostgreSQL, so the
+     * database cannot reject a second row for the same media. Instead, upserts of one account
+     * are serialized on its account row and existing rows are looked up by account and media ID;
+     * a changed timestamp is updated in place. Nothing is written for an account unlinked in
+     * the meantime.
+     */
+    @Transactional
+    public void persistMedia(InstagramAccount account, List<InstagramMediaDTO> mediaList, FieldSelection selection) {
         logger.info("Persisting {} media items for account: {}", mediaList.size(), account.getUsername());
+        if (mediaList.isEmpty()) {
+            return;
+        }
+        if (accountRepository.findActiveByIdForUpdate(account.getId()).isEmpty()) {
+            logger.info("Account {} was unlinked, not persisting its media", account.getId());
+            return;
+        }
+
+        boolean withChildren = selection.hasMediaField("children");
+        Map<InstagramMedia, List<InstagramMediaChildDTO>> albums = new IdentityHashMap<>();
+        List<InstagramMedia> existingAlbums = new ArrayList<>();
+        Map<String, InstagramMedia> stored = new HashMap<>();
+        for (InstagramMedia media : mediaRepository.findByAccountIdAndMediaIdIn(account.getId(),
+                mediaList.stream().map(InstagramMediaDTO::getId).distinct().toList())) {
+            stored.putIfAbsent(media.getMediaId(), media);
+        }
 
         for (InstagramMediaDTO dto : mediaList) {
-            InstagramMedia media = mediaRepository.findByMediaId(dto.getId())
-                    .orElse(new InstagramMedia());
+            InstagramMedia media = stored.getOrDefault(dto.getId(), new InstagramMedia());
+            boolean isNew = media.getId() == null;
+            LocalDateTime timestamp = parseTimestamp(dto.getTimestamp());
+            if (isNew && timestamp == null) {
+                // Rows are partitioned by posting time; a stand-in would file the media under the wrong month
+                logger.warn("Not storing media {} without a valid timestamp: {}", dto.getId(), dto.getTimestamp());
+                continue;
+            }
+            boolean captionChanged = selection.hasMediaField("caption")
+                    && (isNew || !Objects.equals(media.getCaption(), dto.getCaption()));
 
             media.setMediaId(dto.getId());
             media.setAccount(account);
-            media.setMediaType(dto.getMediaType());
-            media.setMediaUrl(dto.getMediaUrl());
-            media.setThumbnailUrl(dto.getThumbnailUrl());
-            media.setPermalink(dto.getPermalink());
-            media.setCaption(dto.getCaption());
-            media.setLikeCount(dto.getLikeCount());
-            media.setCommentsCount(dto.getCommentsCount());
-
-            if (dto.getTimestamp() != null) {
-                try {
-                    media.setTimestamp(LocalDateTime.parse(dto.getTimestamp(),
-                            DateTimeFormatter.ISO_DATE_TIME));
-                } catch (Exception e) {
-                    logger.warn("Failed to parse timestamp: {}", dto.getTimestamp());
+            if (selection.hasMediaField("media_type")) {
+                media.setMediaType(dto.getMediaType());
+            }
+            if (selection.hasMediaField("media_url")) {
+                media.setMediaUrl(dto.getMediaUrl());
+            }
+            if (selection.hasMediaField("thumbnail_url")) {
+                media.setThumbnailUrl(dto.getThumbnailUrl());
+            }
+            if (selection.hasMediaField("permalink")) {
+                media.setPermalink(dto.getPermalink());
+            }
+            if (selection.hasMediaField("caption")) {
+                media.setCaption(dto.getCaption());
+            }
+            if (selection.hasMediaField("like_count")) {
+                media.setLikeCount(dto.getLikeCount());
+            }
+            if (selection.hasMediaField("comments_count")) {
+                media.setCommentsCount(dto.getCommentsCount());
+            }
+
+            if (timestamp != null) {
+                media.setTimestamp(timestamp);
+            }
+
+            media = mediaRepository.save(media);
+            stored.put(media.getMediaId(), media);
+            if (captionChanged) {
+                tagIndexer.index(media, isNew);
+            }
+            if (withChildren) {
+                albums.put(media, dto.getChildren() != null ? dto.getChildren() : List.of());
+                if (!isNew) {
+                    existingAlbums.add(media);
                 }
             }
+        }
 
-            mediaRepository.save(media);
+        if (!albums.isEmpty()) {
+            persistChildren(albums, existingAlbums);
+        }
+    }
+
+    /**
+     * Replaces the stored children of each media item with {@code albums}, updating rows in
+     * place by child ID and inserting or deleting only the difference.
+     */
+    private void persistChildren(Map<InstagramMedia, List<InstagramMediaChildDTO>> albums,
+                                 List<InstagramMedia> existingAlbums) {
+        Map<Long, Map<String, InstagramMediaChild>> stored = new HashMap<>();
+        if (!existingAlbums.isEmpty()) {
+            for (InstagramMediaChild child : childRepository.findByMediaIn(existingAlbums)) {
+                stored.computeIfAbsent(child.getMedia().getId(), mediaId -> new HashMap<>())
+                        .put(child.getChildMediaId(), child);
+            }
+        }
+
+        List<InstagramMediaChild> stale = new ArrayList<>();
+        List<InstagramMediaChild> changed = new ArrayList<>();
+        albums.forEach((media, children) -> {
+            Map<String, InstagramMediaChild> current = stored.getOrDefault(media.getId(), new HashMap<>());
+            for (int position = 0; position < children.size(); position++) {
+                InstagramMediaChildDTO dto = children.get(position);
+                InstagramMediaChild child = current.remove(dto.getId());
+                if (child == null) {
+                    child = InstagramMediaChild.builder().media(media).childMediaId(dto.getId()).build();
+                } else if (child.getPosition() == position
+                        && Objects.equals(child.getMediaType(), dto.getMediaType())
+                        && Objects.equals(child.getMediaUrl(), dto.getMediaUrl())
+                        && Objects.equals(child.getThumbnailUrl(), dto.getThumbnailUrl())) {
+                    continue;
+                }
+                child.setPosition(position);
+                child.setMediaType(dto.getMediaType());
+                child.setMediaUrl(dto.getMediaUrl());
+                child.setThumbnailUrl(dto.getThumbnailUrl());
+                changed.add(child);
+            }
+            stale.addAll(current.values());
+        });
+
+        childRepository.deleteAllInBatch(stale);
+        childRepository.saveAll(changed);
+    }
+
+    /**
+     * Graph's posting time in UTC, or null if it is missing or unreadable.
+     */
+    private static LocalDateTime parseTimestamp(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value, GRAPH_TIMESTAMP).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            logger.warn("Failed to parse timestamp: {}", value);
+            return null;
+        }
+    }
+
+    private InstagramMediaDTO toMediaDTO(JsonNode mediaNode) {
+        return InstagramMediaDTO.builder()
+                .id(getTextValue(mediaNode, "id"))
+                .mediaType(getTextValue(mediaNode, "media_type"))
+                .mediaUrl(getTextValue(mediaNode, "media_url"))
+                .thumbnailUrl(getTextValue(mediaNode, "thumbnail_url"))
+                .permalink(getTextValue(mediaNode, "permalink"))
+                .caption(getTextValue(mediaNode, "caption"))
+                .timestamp(getTextValue(mediaNode, "timestamp"))
+                .likeCount(getIntValue(mediaNode, "like_count"))
+                .commentsCount(getIntValue(mediaNode, "comments_count"))
+                .children(toChildDTOs(mediaNode.get("children")))
+                .build();
+    }
+
+    private List<InstagramMediaChildDTO> toChildDTOs(JsonNode childrenNode) {
+        if (childrenNode == null || !childrenNode.has("data")) {
+            return null;
+        }
+        List<InstagramMediaChildDTO> children = new ArrayList<>();
+        for (JsonNode childNode : childrenNode.get("data")) {
+            children.add(InstagramMediaChildDTO.builder()
+                    .id(getTextValue(childNode, "id"))
+                    .mediaType(getTextValue(childNode, "media_type"))
+                    .mediaUrl(getTextValue(childNode, "media_url"))
+                    .thumbnailUrl(getTextValue(childNode, "thumbnail_url"))
+                    .build());
         }
+        return children;
     }
 
     private String getTextValue(JsonNode node, String field) {
@@ -1,18 +1,15 @@
 package com.instagram.api.service;
 
-import com.instagram.api.config.InstagramConfig;
+import com.instagram.api.client.GraphApiClient;
 import com.instagram.api.dto.InstagramTokenResponse;
 import com.instagram.api.dto.OAuthUrlResponse;
 import com.instagram.api.exception.InstagramApiException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.Map;
@@ -24,8 +21,7 @@ public class InstagramOAuthService {
 
     private static final Logger logger = LoggerFactory.getLogger(InstagramOAuthService.class);
 
-    private final WebClient webClient;
-    private final InstagramConfig instagramConfig;
+    private final GraphApiClient graphApiClient;
     private final Map<String, String> stateStore = new ConcurrentHashMap<>();
 
     @Value("${spring.security.oauth2.client.registration.instagram.client-id}")
@@ -40,9 +36,8 @@ public class InstagramOAuthService {
     @Value("${spring.security.oauth2.client.registration.instagram.scope}")
     private String scope;
 
-    public InstagramOAuthService(WebClient webClient, InstagramConfig instagramConfig) {
-        this.webClient = webClient;
-        this.instagramConfig = instagramConfig;
+    public InstagramOAuthService(GraphApiClient graphApiClient) {
+        this.graphApiClient = graphApiClient;
     }
 
     public OAuthUrlResponse generateAuthorizationUrl(String userId) {
@@ -50,7 +45,7 @@ public class InstagramOAuthService {
         stateStore.put(state, userId);
 
         String authUrl = UriComponentsBuilder
-                .fromUriString("https://www.facebook.com/v18.0/dialog/oauth")
+                .fromUriString(graphApiClient.getAuthorizationDialogUrl())
                 .queryParam("client_id", clientId)
                 .queryParam("redirect_uri", redirectUri)
                 .queryParam("scope", scope)
@@ -86,13 +81,9 @@ public class InstagramOAuthService {
         formData.add("code", code);
 
         try {
-            return webClient.post()
-                    .uri(instagramConfig.getFacebookGraphUrl() + "/oauth/access_token")
-                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                    .body(BodyInserters.fromFormData(formData))
-                    .retrieve()
-                    .bodyToMono(InstagramTokenResponse.class)
-                    .block();
+            return graphApiClient.exchangeCode(formData);
+        } catch (InstagramApiException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to exchange code for token: {}", e.getMessage());
             throw new InstagramApiException("Failed to exchange authorization code for token", e);
@@ -103,19 +94,9 @@ public class InstagramOAuthService {
         logger.info("Exchanging for long-lived token");
 
         try {
-            return webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .scheme("https")
-                            .host("graph.facebook.com")
-                            .path("/v18.0/oauth/access_token")
-                            .queryParam("grant_type", "fb_exchange_token")
-                            .queryParam("client_id", clientId)
-                            .queryParam("client_secret", clientSecret)
-                            .queryParam("fb_exchange_token", shortLivedToken)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(InstagramTokenResponse.class)
-                    .block();
+            return graphApiClient.exchangeLongLivedToken(clientId, clientSecret, shortLivedToken);
+        } catch (InstagramApiException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to exchange for long-lived token: {}", e.getMessage());
             throw new InstagramApiException("Failed to exchange for long-lived token", e);
@@ -126,17 +107,9 @@ public class InstagramOAuthService {
         logger.info("Refreshing access token");
 
         try {
-            return webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .scheme("https")
-                            .host("graph.instagram.com")
-                            .path("/refresh_access_token")
-                            .queryParam("grant_type", "ig_refresh_token")
-                            .queryParam("access_token", accessToken)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(InstagramTokenResponse.class)
-                    .block();
+            return graphApiClient.refreshToken(accessToken);
+        } catch (InstagramApiException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to refresh token: {}", e.getMessage());
             throw new InstagramApiException("Failed to refresh access token", e);
@@ -0,0 +1,154 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.LinkStatusCacheProperties;
+import com.instagram.api.event.InstagramAccountChangedEvent;
+import com.instagram.api.repository.InstagramAccountRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory set of user IDs with an active linked Instagram account.
+ * <p>
+ * Loaded at startup and kept current by {@link InstagramAccountChangedEvent}s, so link status
+ * checks never touch the database. Until the first load completes, lookups fall back to the
+ * repository. The set holds every linked user, so negative lookups are answered from memory as
+ * well.
+ * <p>
+ * Events only reach other nodes through an
+ * {@link com.instagram.api.event.AccountChangeBroadcaster}, so the set is also reloaded every
+ * {@code refresh-interval}; that bounds how long a link or unlink made elsewhere goes unseen.
+ * Changes applied while a reload query runs win over its result.
+ */
+@Component
+public class LinkStatusCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LinkStatusCache.class);
+
+    private final InstagramAccountRepository accountRepository;
+    private final LinkStatusCacheProperties properties;
+    private final ScheduledExecutorService executor;
+    private final Object lock = new Object();
+    private final Map<String, Boolean> changedDuringLoad = new HashMap<>();
+    private volatile Set<String> linkedUserIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean warm;
+    private boolean loading;
+
+    public LinkStatusCache(InstagramAccountRepository accountRepository, LinkStatusCacheProperties properties) {
+        this.accountRepository = accountRepository;
+        this.properties = properties;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "link-status-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        reload();
+        logger.info("Link status cache warmed with {} linked users in {} ms",
+                linkedUserIds.size(), System.currentTimeMillis() - start);
+
+        long interval = properties.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh link status cache, keeping the current set: {}", e.getMessage());
+        }
+    }
+
+    private void reload() {
+        synchronized (lock) {
+            loading = true;
+            changedDuringLoad.clear();
+        }
+        try {
+            List<String> activeUserIds = accountRepository.findActiveUserIds();
+            Set<String> loaded = ConcurrentHashMap.newKeySet();
+            loaded.addAll(activeUserIds);
+            synchronized (lock) {
+                changedDuringLoad.forEach((userId, linked) -> {
+                    if (linked) {
+                        loaded.add(userId);
+                    } else {
+                        loaded.remove(userId);
+                    }
+                });
+                linkedUserIds = loaded;
+                warm = true;
+            }
+        } finally {
+            synchronized (lock) {
+                loading = false;
+                changedDuringLoad.clear();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(InstagramAccountChangedEvent event) {
+        synchronized (lock) {
+            if (event.isLinked()) {
+                linkedUserIds.add(event.getUserId());
+            } else {
+                linkedUserIds.remove(event.getUserId());
+            }
+            if (loading) {
+                changedDuringLoad.put(event.getUserId(), event.isLinked());
+            }
+        }
+    }
+
+    public boolean isLinked(String userId) {
+        if (!warm) {
+            return accountRepository.existsByUserIdAndIsActiveTrue(userId);
+        }
+        return linkedUserIds.contains(userId);
+    }
+
+    public Map<String, Boolean> areLinked(Collection<String> userIds) {
+        Map<String, Boolean> statuses = new LinkedHashMap<>();
+        if (!warm) {
+            Set<String> active = Set.copyOf(accountRepository.findActiveUserIdsIn(userIds));
+            userIds.forEach(userId -> statuses.put(userId, active.contains(userId)));
+            return statuses;
+        }
+        Set<String> linked = linkedUserIds;
+        userIds.forEach(userId -> statuses.put(userId, linked.contains(userId)));
+        return statuses;
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public int size() {
+        return linkedUserIds.size();
+    }
+}
@@ -0,0 +1,379 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.MediaCacheProperties;
+import com.instagram.api.exception.InstagramApiException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded on-disk cache for media binaries fetched from the Instagram CDN.
+ * <p>
+ * Objects are addressed by the SHA-256 of a stable logical key (for example
+ * {@code media:<mediaId>:thumbnail}) rather than by source URL, because CDN URLs carry
+ * signatures that rotate while the bytes behind them do not. Bodies are streamed straight to
+ * disk, never buffered on the heap, and concurrent misses for the same key share one download.
+ * The least recently served objects are evicted once {@code max-size-bytes} is exceeded.
+ * <p>
+ * Objects are handed out with an open channel, opened under the lock eviction runs under, so an
+ * object evicted while it is being served stays readable until its caller closes it. Large bodies
+ * go out through container sendfile instead, which reopens the file by name after the request has
+ * returned. Evicted objects therefore leave the index at once but stay on disk for
+ * {@code eviction-grace}; one requested again meanwhile is put back instead of downloaded.
+ */
+@Service
+public class MediaBinaryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaBinaryCache.class);
+
+    private static final String META_SUFFIX = ".meta";
+
+    private final WebClient webClient;
+    private final MediaCacheProperties properties;
+
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Long> lruIndex = new LinkedHashMap<>(256, 0.75f, true);
+    // Evicted objects still on disk, oldest eviction first
+    private final LinkedHashMap<String, Evicted> graveyard = new LinkedHashMap<>();
+    private long totalBytes;
+
+    private Path root;
+    private Path tmpDir;
+
+    public MediaBinaryCache(WebClient webClient, MediaCacheProperties properties) {
+        this.webClient = webClient;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(properties.getDirectory()).toAbsolutePath();
+        tmpDir = root.resolve("tmp");
+        Files.createDirectories(tmpDir);
+
+        // Rebuild the LRU order from the previous run, oldest access first
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            List<Path> blobs = files
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !path.startsWith(tmpDir))
+                    .filter(path -> !path.getFileName().toString().endsWith(META_SUFFIX))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .toList();
+            synchronized (lruIndex) {
+                for (Path blob : blobs) {
+                    long size = Files.size(blob);
+                    lruIndex.put(blob.getFileName().toString(), size);
+                    totalBytes += size;
+                }
+            }
+        }
+        logger.info("Media cache at {} holds {} objects ({} bytes)", root, lruIndex.size(), totalBytes);
+    }
+
+    /**
+     * Returns the cached object for {@code key}, downloading it from {@code sourceUrl} on a miss.
+     * The URL supplier is only invoked on a miss. The caller must close the returned object.
+     */
+    public CachedBinary get(String key, Supplier<String> sourceUrl) {
+        String hash = sha256(key);
+        CachedBinary cached = lookup(hash);
+        if (cached == null) {
+            fetch(hash, sourceUrl);
+            cached = lookup(hash);
+        }
+        if (cached == null) {
+            // Evicted again before it could be opened, which takes a cache far too small for its traffic
+            throw new InstagramApiException("Media cache is too busy to serve media", "MEDIA_CACHE_BUSY", 503);
+        }
+        return cached;
+    }
+
+    /**
+     * Downloads the object, or waits for the download another caller already started.
+     */
+    private void fetch(String hash, Supplier<String> sourceUrl) {
+        CompletableFuture<Void> download = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(hash, download);
+        if (existing != null) {
+            join(existing);
+            return;
+        }
+
+        try {
+            // Another caller may have finished the download between lookup and putIfAbsent
+            if (!isCached(hash)) {
+                download(hash, sourceUrl.get());
+            }
+            download.complete(null);
+        } catch (RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(hash, download);
+        }
+    }
+
+    public long getTotalBytes() {
+        synchronized (lruIndex) {
+            return totalBytes;
+        }
+    }
+
+    private boolean isCached(String hash) {
+        synchronized (lruIndex) {
+            return lruIndex.containsKey(hash) || graveyard.containsKey(hash);
+        }
+    }
+
+    private CachedBinary lookup(String hash) {
+        Path blob = blobPath(hash);
+        FileChannel channel;
+        synchronized (lruIndex) {
+            if (lruIndex.get(hash) == null && !revive(hash)) {
+                return null;
+            }
+            try {
+                channel = FileChannel.open(blob, StandardOpenOption.READ);
+            } catch (IOException e) {
+                // Removed underneath us, treat as a miss
+                forget(hash);
+                return null;
+            }
+        }
+        try {
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+            return new CachedBinary(blob, channel.size(), readContentType(hash), hash, channel);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            forget(hash);
+            return null;
+        }
+    }
+
+    private void download(String hash, String sourceUrl) {
+        if (sourceUrl == null || sourceUrl.isBlank()) {
+            throw new InstagramApiException("No source URL available for media", "MEDIA_SOURCE_MISSING", 404);
+        }
+
+        logger.debug("Media cache miss, downloading {}", hash);
+        Path tmp = tmpDir.resolve(hash + "." + UUID.randomUUID());
+        try {
+            String contentType = webClient.get()
+                    .uri(URI.create(sourceUrl))
+                    .exchangeToMono(response -> {
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            return response.releaseBody().then(Mono.error(new InstagramApiException(
+                                    "Media download failed with status " + response.statusCode().value(),
+                                    "MEDIA_DOWNLOAD_FAILED", 502)));
+                        }
+                        String type = response.headers().contentType()
+                                .map(MediaType::toString)
+                                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+                        return DataBufferUtils.write(response.bodyToFlux(DataBuffer.class), tmp)
+                                .then(Mono.just(type));
+                    })
+                    .block(properties.getDownloadTimeout());
+
+            Path blob = blobPath(hash);
+            Files.createDirectories(blob.getParent());
+            Files.writeString(metaPath(hash), contentType, StandardCharsets.UTF_8);
+            moveIntoPlace(tmp, blob);
+
+            admit(hash, Files.size(blob));
+        } catch (InstagramApiException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to download media into cache: {}", e.getMessage());
+            throw new InstagramApiException("Failed to download media", "MEDIA_DOWNLOAD_FAILED", 502);
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                logger.warn("Failed to remove temporary media file {}", tmp);
+            }
+        }
+    }
+
+    private void admit(String hash, long size) {
+        synchronized (lruIndex) {
+            // The download replaced any evicted copy, which must not be deleted later
+            graveyard.remove(hash);
+            Long previous = lruIndex.put(hash, size);
+            totalBytes += size - (previous != null ? previous : 0);
+
+            Iterator<Map.Entry<String, Long>> eldest = lruIndex.entrySet().iterator();
+            while (totalBytes > properties.getMaxSizeBytes() && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(hash)) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= entry.getValue();
+                graveyard.put(entry.getKey(), new Evicted(entry.getValue(), System.nanoTime()));
+            }
+            sweepGraveyard();
+        }
+    }
+
+    /**
+     * Puts an evicted object that is still on disk back into the index. Caller holds the lock.
+     */
+    private boolean revive(String hash) {
+        Evicted evicted = graveyard.remove(hash);
+        if (evicted == null) {
+            return false;
+        }
+        lruIndex.put(hash, evicted.size());
+        totalBytes += evicted.size();
+        return true;
+    }
+
+    /**
+     * Deletes the objects evicted longer than {@code eviction-grace} ago. Caller holds the lock.
+     */
+    private void sweepGraveyard() {
+        long cutoff = System.nanoTime() - properties.getEvictionGrace().toNanos();
+        Iterator<Map.Entry<String, Evicted>> oldest = graveyard.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Evicted> entry = oldest.next();
+            if (entry.getValue().evictedAt() - cutoff > 0) {
+                break;
+            }
+            // Being downloaded again, into the same file
+            if (inFlight.containsKey(entry.getKey())) {
+                continue;
+            }
+            oldest.remove();
+            deleteQuietly(entry.getKey());
+        }
+    }
+
+    private void forget(String hash) {
+        synchronized (lruIndex) {
+            graveyard.remove(hash);
+            Long size = lruIndex.remove(hash);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    private void deleteQuietly(String hash) {
+        try {
+            Files.deleteIfExists(blobPath(hash));
+            Files.deleteIfExists(metaPath(hash));
+            logger.debug("Deleted evicted media {} from cache", hash);
+        } catch (IOException e) {
+            logger.warn("Failed to evict media {}: {}", hash, e.getMessage());
+        }
+    }
+
+    private void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private String readContentType(String hash) {
+        try {
+            return Files.readString(metaPath(hash), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path metaPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + META_SUFFIX);
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing was written through it
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Evicted(long size, long evictedAt) {
+    }
+
+    /**
+     * A cached object on local disk, open for reading. {@code etag} is stable for the lifetime of
+     * the key. The channel keeps the bytes readable even if the file is deleted meanwhile.
+     */
+    public record CachedBinary(Path path, long size, String contentType, String etag, FileChannel channel)
+            implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.instagram.api.client.GraphApiClient;
+import com.instagram.api.config.CommentProperties;
+import com.instagram.api.config.RequestDeadline;
+import com.instagram.api.dto.CommentPageResponse;
+import com.instagram.api.dto.CommentSyncResponse;
+import com.instagram.api.dto.InstagramCommentDTO;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramComment;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.exception.AccountNotFoundException;
+import com.instagram.api.exception.MediaNotFoundException;
+import com.instagram.api.repository.InstagramCommentRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Syncs media comments, with their replies, from Graph and serves them from the database.
+ * <p>
+ * Sync is incremental: Graph lists comments newest first, so each media item is read until the
+ * newest comment already stored shows up. Every item may fetch at most
+ * {@code max-pages-per-media} pages per sync; where that runs out, the Graph cursor is kept
+ * and the next sync continues from it. Items are fetched on a pool of {@code concurrency}
+ * workers shared by all accounts, so one viral post occupies one worker for a bounded time
+ * instead of holding up every other account.
+ * <p>
+ * Replies are taken from the inline {@code replies} expansion of each comment. New replies on a
+ * comment older than the newest stored one are picked up when the backfill passes it again.
+ */
+@Service
+public class MediaCommentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaCommentService.class);
+
+    // Media items read and synced at a time, so a large account is never held in memory whole
+    private static final int MEDIA_CHUNK_SIZE = 500;
+
+    private static final DateTimeFormatter GRAPH_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
+
+    private final AccountCache accountCache;
+    private final InstagramMediaRepository mediaRepository;
+    private final InstagramCommentRepository commentRepository;
+    private final GraphApiClient graphApiClient;
+    private final CommentStore commentStore;
+    private final CommentProperties properties;
+    private final ExecutorService workers;
+
+    public MediaCommentService(AccountCache accountCache,
+                               InstagramMediaRepository mediaRepository,
+                               InstagramCommentRepository commentRepository,
+                               GraphApiClient graphApiClient,
+                               CommentStore commentStore,
+                               CommentProperties properties) {
+        this.accountCache = accountCache;
+        this.mediaRepository = mediaRepository;
+        this.commentRepository = commentRepository;
+        this.graphApiClient = graphApiClient;
+        this.commentStore = commentStore;
+        this.properties = properties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "comment-sync-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Fetches new comments of every stored media item of the user. Items whose stored comments
+     * already cover Graph's {@code comments_count} are skipped without a call. Media is read
+     * {@value #MEDIA_CHUNK_SIZE} items at a time and each chunk is fetched on the shared workers
+     * before the next is read; failures of single items are counted, and only when every item
+     * failed is the first error rethrown.
+     */
+    public CommentSyncResponse syncComments(String userId) {
+        InstagramAccount account = accountCache.findActive(userId)
+                .orElseThrow(() -> new AccountNotFoundException("No active Instagram account found for user: " + userId));
+
+        SyncTally tally = new SyncTally(userId);
+        PageRequest chunk = PageRequest.of(0, MEDIA_CHUNK_SIZE);
+        List<Long> ids;
+        while (!(ids = mediaRepository.findIdsByAccountId(account.getId(), chunk)).isEmpty()) {
+            Map<Long, Long> storedCounts = new HashMap<>();
+            for (Object[] row : commentRepository.countByMediaIdIn(ids)) {
+                storedCounts.put((Long) row[0], (Long) row[1]);
+            }
+            List<CompletableFuture<MediaSyncResult>> futures = new ArrayList<>();
+            for (InstagramMedia media : mediaRepository.findAllById(ids)) {
+                int expected = media.getCommentsCount() != null ? media.getCommentsCount() : 0;
+                if (media.getCommentsBackfillCursor() == null && storedCounts.getOrDefault(media.getId(), 0L) >= expected) {
+                    tally.skipped++;
+                    continue;
+                }
+                futures.add(CompletableFuture.supplyAsync(
+                        RequestDeadline.propagate(() -> syncMedia(media, account.getAccessToken())), workers));
+            }
+            tally.await(futures);
+            if (ids.size() < MEDIA_CHUNK_SIZE) {
+                break;
+            }
+            chunk = chunk.next();
+        }
+        return tally.result();
+    }
+
+    /**
+     * Fetches new comments of the given stored media items of the account, whatever their
+     * stored counts say; used when a webhook reports a comment on them. IDs of media that is not
+     * stored are ignored.
+     */
+    public CommentSyncResponse syncComments(InstagramAccount account, Collection<String> mediaIds) {
+        List<CompletableFuture<MediaSyncResult>> futures = new ArrayList<>();
+        for (InstagramMedia media : mediaRepository.findByAccountIdAndMediaIdIn(account.getId(), mediaIds)) {
+            futures.add(CompletableFuture.supplyAsync(
+                    RequestDeadline.propagate(() -> syncMedia(media, account.getAccessToken())), workers));
+        }
+        SyncTally tally = new SyncTally(account.getUserId());
+        tally.await(futures);
+        return tally.result();
+    }
+
+    /**
+     * Top-level comments of a stored media item, newest first, each with its replies.
+     */
+    @Transactional(readOnly = true)
+    public CommentPageResponse getComments(String mediaId, Integer limit, String cursor) {
+        int pageSize = limit != null ? limit : properties.getDefaultLimit();
+        if (pageSize < 1 || pageSize > properties.getMaxLimit()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + properties.getMaxLimit());
+        }
+        Keyset after = decodeCursor(cursor);
+        InstagramMedia media = mediaRepository.findByMediaId(mediaId)
+                .orElseThrow(() -> new MediaNotFoundException("No stored media found with id: " + mediaId));
+
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<InstagramComment> threads = after == null
+                ? commentRepository.findThreads(media, page)
+                : commentRepository.findThreadsBefore(media, after.timestamp(), after.id(), page);
+        boolean hasMore = threads.size() > pageSize;
+        if (hasMore) {
+            threads = threads.subList(0, pageSize);
+        }
+
+        Map<String, InstagramCommentDTO> byId = new LinkedHashMap<>();
+        for (InstagramComment thread : threads) {
+            InstagramCommentDTO dto = toDTO(thread);
+            dto.setReplies(new ArrayList<>());
+            byId.put(thread.getCommentId(), dto);
+        }
+        if (!byId.isEmpty()) {
+            // One query for the replies of the whole page
+            for (InstagramComment reply : commentRepository
+                    .findByMediaAndParentCommentIdInOrderByTimestampAscIdAsc(media, byId.keySet())) {
+                byId.get(reply.getParentCommentId()).getReplies().add(toDTO(reply));
+            }
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            InstagramComment last = threads.get(threads.size() - 1);
+            nextCursor = encodeCursor(new Keyset(last.getTimestamp(), last.getId()));
+        }
+        return CommentPageResponse.builder()
+                .mediaId(mediaId)
+                .comments(new ArrayList<>(byId.values()))
+                .paging(InstagramDataResponse.PagingInfo.builder()
+                        .nextCursor(nextCursor)
+                        .hasMore(hasMore)
+                        .build())
+                .build();
+    }
+
+    private MediaSyncResult syncMedia(InstagramMedia media, String accessToken) {
+        int budget = properties.getMaxPagesPerMedia();
+        int pages = 0;
+        int stored = 0;
+        LocalDateTime newestStored = commentRepository.findLatestTimestamp(media.getId());
+
+        // Newest comments first, down to the newest one already stored
+        String after = null;
+        while (true) {
+            JsonNode page = graphApiClient.getCommentsPage(media.getMediaId(), accessToken, properties.getPageSize(), after);
+            pages++;
+            List<InstagramComment> comments = parsePage(page);
+            stored += commentStore.store(media.getId(), comments);
+
+            boolean reachedStored = newestStored != null && comments.stream()
+                    .anyMatch(comment -> comment.getParentCommentId() == null
+                            && !comment.getTimestamp().isAfter(newestStored));
+            String next = nextCursor(page);
+            if (reachedStored || next == null) {
+                break;
+            }
+            if (pages >= budget) {
+                // The gap below reaches down to any older backfill, which this cursor therefore replaces
+                commentStore.setBackfillCursor(media.getId(), next);
+                return new MediaSyncResult(pages, stored, true);
+            }
+            after = next;
+        }
+
+        // Then older comments left over from earlier syncs
+        String backfill = media.getCommentsBackfillCursor();
+        while (backfill != null && pages < budget) {
+            JsonNode page = graphApiClient.getCommentsPage(media.getMediaId(), accessToken, properties.getPageSize(), backfill);
+            pages++;
+            stored += commentStore.store(media.getId(), parsePage(page));
+            backfill = nextCursor(page);
+        }
+        if (!Objects.equals(backfill, media.getCommentsBackfillCursor())) {
+            commentStore.setBackfillCursor(media.getId(), backfill);
+        }
+        return new MediaSyncResult(pages, stored, backfill != null);
+    }
+
+    /**
+     * Flattens a Graph page into top-level comments followed by their replies.
+     */
+    private List<InstagramComment> parsePage(JsonNode page) {
+        List<InstagramComment> comments = new ArrayList<>();
+        for (JsonNode node : page.path("data")) {
+            InstagramComment comment = toEntity(node, null);
+            if (comment == null) {
+                continue;
+            }
+            comments.add(comment);
+            for (JsonNode reply : node.path("replies").path("data")) {
+                InstagramComment parsed = toEntity(reply, comment.getCommentId());
+                if (parsed != null) {
+                    comments.add(parsed);
+                }
+            }
+        }
+        return comments;
+    }
+
+    private InstagramComment toEntity(JsonNode node, String parentCommentId) {
+        String id = node.path("id").asText(null);
+        LocalDateTime timestamp = parseTimestamp(node.path("timestamp").asText(null));
+        if (id == null || timestamp == null) {
+            logger.warn("Skipping comment without id or valid timestamp: {}", node);
+            return null;
+        }
+        return InstagramComment.builder()
+                .commentId(id)
+                .parentCommentId(parentCommentId)
+                .username(node.path("username").asText(null))
+                .text(node.path("text").asText(null))
+                .likeCount(node.hasNonNull("like_count") ? node.get("like_count").asInt() : null)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static String nextCursor(JsonNode page) {
+        if (!page.path("paging").hasNonNull("next")) {
+            return null;
+        }
+        return page.path("paging").path("cursors").path("after").asText(null);
+    }
+
+    /**
+     * Graph timestamps look like {@code 2024-01-10T15:30:00+0000}; they are stored as UTC.
+     */
+    private static LocalDateTime parseTimestamp(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value, GRAPH_TIMESTAMP).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static InstagramCommentDTO toDTO(InstagramComment comment) {
+        return InstagramCommentDTO.builder()
+                .id(comment.getCommentId())
+                .username(comment.getUsername())
+                .text(comment.getText())
+                .likeCount(comment.getLikeCount())
+                .timestamp(comment.getTimestamp())
+                .build();
+    }
+
+    static String encodeCursor(Keyset keyset) {
+        String raw = keyset.timestamp() + "|" + keyset.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Keyset decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Keyset(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid comment cursor");
+        }
+    }
+
+    record Keyset(LocalDateTime timestamp, Long id) {
+    }
+
+    /**
+     * Sums up the item syncs of one account sync.
+     */
+    private static final class SyncTally {
+
+        private final String userId;
+        private final List<RuntimeException> failures = new ArrayList<>();
+        private int skipped;
+        private int synced;
+        private int pending;
+        private int pages;
+        private int stored;
+
+        SyncTally(String userId) {
+            this.userId = userId;
+        }
+
+        void await(List<CompletableFuture<MediaSyncResult>> futures) {
+            for (CompletableFuture<MediaSyncResult> future : futures) {
+                try {
+                    MediaSyncResult result = future.join();
+                    synced++;
+                    pages += result.pages();
+                    stored += result.stored();
+                    if (result.pending()) {
+                        pending++;
+                    }
+                } catch (CompletionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtime ? runtime : e;
+                    failures.add(cause);
+                    logger.warn("Comment sync of a media item for user {} failed: {}", userId, cause.getMessage());
+                }
+            }
+        }
+
+        CommentSyncResponse result() {
+            if (!failures.isEmpty() && synced == 0) {
+                throw failures.get(0);
+            }
+            logger.info("Synced comments for user {}: {} media fetched, {} skipped, {} comments stored",
+                    userId, synced, skipped, stored);
+            return CommentSyncResponse.builder()
+                    .userId(userId)
+                    .mediaSynced(synced)
+                    .mediaSkipped(skipped)
+                    .mediaFailed(failures.size())
+                    .mediaPending(pending)
+                    .pagesFetched(pages)
+                    .commentsStored(stored)
+                    .build();
+        }
+    }
+
+    private record MediaSyncResult(int pages, int stored, boolean pending) {
+    }
+}
@@ -0,0 +1,255 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.config.ExportProperties;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.exception.AccountNotFoundException;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Streams persisted media as NDJSON or CSV in constant memory.
+ * <p>
+ * Rows come from a cursor-backed JPA stream with a bounded fetch size, and each entity is
+ * detached as soon as it has been written. Heap use therefore does not depend on how many
+ * rows are exported.
+ * <p>
+ * The cursor keeps its pooled connection until the last row is written, so the stream is
+ * aborted once it has run for {@link ExportProperties#getMaxDuration()}.
+ */
+@Service
+public class MediaExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaExportService.class);
+
+    private static final String[] COLUMNS = {
+            "user_id", "media_id", "media_type", "media_url", "thumbnail_url", "permalink",
+            "caption", "timestamp", "like_count", "comments_count", "updated_at"
+    };
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value + " (expected ndjson or csv)");
+        }
+    }
+
+    private final InstagramMediaRepository mediaRepository;
+    private final InstagramAccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ExportProperties properties;
+
+    public MediaExportService(InstagramMediaRepository mediaRepository,
+                              InstagramAccountRepository accountRepository,
+                              EntityManager entityManager,
+                              ObjectMapper objectMapper,
+                              ExportProperties properties) {
+        this.mediaRepository = mediaRepository;
+        this.accountRepository = accountRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Resolves user IDs to account IDs up front so that unknown users fail the request before
+     * any bytes are streamed.
+     *
+     * @param userIds users to export, or empty for every account
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, String> resolveAccounts(List<String> userIds) {
+        List<Object[]> rows = userIds.isEmpty()
+                ? accountRepository.findAllIdsAndUserIds()
+                : accountRepository.findIdsAndUserIdsByUserIdIn(userIds);
+
+        Map<Long, String> accounts = new HashMap<>();
+        for (Object[] row : rows) {
+            accounts.put((Long) row[0], (String) row[1]);
+        }
+        if (!userIds.isEmpty() && accounts.size() < userIds.size()) {
+            List<String> missing = userIds.stream().filter(id -> !accounts.containsValue(id)).toList();
+            throw new AccountNotFoundException("No Instagram account found for users: " + missing);
+        }
+        return accounts;
+    }
+
+    @Transactional(readOnly = true)
+    public long export(Map<Long, String> accounts, boolean allAccounts, Format format, OutputStream out)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        long deadline = System.nanoTime() + properties.getMaxDuration().toNanos();
+        long rows = 0;
+
+        try (Stream<InstagramMedia> media = allAccounts
+                ? mediaRepository.streamAll()
+                : mediaRepository.streamByAccountIds(accounts.keySet())) {
+            RowWriter writer = format == Format.NDJSON ? new NdjsonRowWriter(out) : new CsvRowWriter(out);
+            Iterator<InstagramMedia> iterator = media.iterator();
+            while (iterator.hasNext()) {
+                if (System.nanoTime() - deadline > 0) {
+                    // Headers are already sent; aborting truncates the body and frees the connection
+                    logger.warn("Aborting media export after {} rows: exceeded {}", rows, properties.getMaxDuration());
+                    throw new IOException("Export exceeded " + properties.getMaxDuration());
+                }
+                InstagramMedia item = iterator.next();
+                // The account proxy's id is available without initializing it
+                writer.write(accounts.get(item.getAccount().getId()), item);
+                entityManager.detach(item);
+                rows++;
+            }
+            writer.finish();
+        }
+
+        logger.info("Exported {} media rows as {} in {} ms", rows, format, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private interface RowWriter {
+        void write(String userId, InstagramMedia media) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+
+        private final OutputStream out;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.out = out;
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(String userId, InstagramMedia media) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("user_id", userId);
+            generator.writeStringField("media_id", media.getMediaId());
+            generator.writeStringField("media_type", media.getMediaType());
+            generator.writeStringField("media_url", media.getMediaUrl());
+            generator.writeStringField("thumbnail_url", media.getThumbnailUrl());
+            generator.writeStringField("permalink", media.getPermalink());
+            generator.writeStringField("caption", media.getCaption());
+            generator.writeStringField("timestamp", format(media.getTimestamp()));
+            writeNumber("like_count", media.getLikeCount());
+            writeNumber("comments_count", media.getCommentsCount());
+            generator.writeStringField("updated_at", format(media.getUpdatedAt()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeNumber(String field, Integer value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+            out.flush();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(String userId, InstagramMedia media) throws IOException {
+            writeCell(userId, true);
+            writeCell(media.getMediaId(), true);
+            writeCell(media.getMediaType(), true);
+            writeCell(media.getMediaUrl(), true);
+            writeCell(media.getThumbnailUrl(), true);
+            writeCell(media.getPermalink(), true);
+            writeCell(media.getCaption(), true);
+            writeCell(format(media.getTimestamp()), true);
+            writeCell(media.getLikeCount(), true);
+            writeCell(media.getCommentsCount(), true);
+            writeCell(format(media.getUpdatedAt()), false);
+            writer.write("\r\n");
+        }
+
+        private void writeCell(Object value, boolean separator) throws IOException {
+            if (value != null) {
+                String text = value.toString();
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                    writer.write('"');
+                    writer.write(text.replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(text);
+                }
+            }
+            if (separator) {
+                writer.write(',');
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static String format(LocalDateTime value) {
+        return Optional.ofNullable(value).map(DateTimeFormatter.ISO_LOCAL_DATE_TIME::format).orElse(null);
+    }
+}
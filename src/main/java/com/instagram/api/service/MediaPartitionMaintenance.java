@@ -0,0 +1,136 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.MediaPartitionProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the range partitions of {@code instagram_media} on PostgreSQL: creates monthly
+ * partitions {@code months-ahead} in advance, so new media never land in the default partition,
+ * and, if a {@code retention} is set, detaches and drops partitions that lie entirely before it.
+ * Does nothing on other databases, where the table is not partitioned.
+ * <p>
+ * Runs every {@code check-interval} on its own thread on every instance, independently of
+ * {@code instagram.sync.enabled}; a session advisory lock makes sure only one instance works on
+ * the partitions at a time.
+ */
+@Component
+public class MediaPartitionMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaPartitionMaintenance.class);
+
+    // instagram_media_p2015 (yearly) or instagram_media_p2026_03 (monthly)
+    private static final Pattern PARTITION_NAME = Pattern.compile("instagram_media_p(\\d{4})(?:_(\\d{2}))?");
+
+    private static final Duration INITIAL_DELAY = Duration.ofMinutes(1);
+
+    // pg_try_advisory_lock key shared by all instances ("igmedpar")
+    static final long LOCK_KEY = 0x69676d6564706172L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MediaPartitionProperties properties;
+    private final ScheduledExecutorService executor;
+
+    public MediaPartitionMaintenance(JdbcTemplate jdbcTemplate, MediaPartitionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "media-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        executor.scheduleWithFixedDelay(this::maintain, INITIAL_DELAY.toMillis(),
+                properties.getCheckInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public void maintain() {
+        try {
+            // One connection for the whole run: the advisory lock belongs to the session
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if ("PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                    maintain(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("instagram_media partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    void maintain(JdbcTemplate session) {
+        if (!Boolean.TRUE.equals(session.queryForObject("select pg_try_advisory_lock(?)", Boolean.class, LOCK_KEY))) {
+            logger.debug("Partition maintenance is running on another instance");
+            return;
+        }
+        try {
+            Integer created = session.queryForObject(
+                    "select instagram_media_create_partitions(date_trunc('month', localtimestamp)::date, ?)",
+                    Integer.class, properties.getMonthsAhead());
+            if (created != null && created > 0) {
+                logger.info("Created {} instagram_media partitions", created);
+            }
+            if (properties.getRetention() != null) {
+                dropExpired(session, LocalDateTime.now().minus(properties.getRetention()));
+            }
+        } finally {
+            session.queryForObject("select pg_advisory_unlock(?)", Boolean.class, LOCK_KEY);
+        }
+    }
+
+    private void dropExpired(JdbcTemplate session, LocalDateTime cutoff) {
+        List<String> partitions = session.queryForList(
+                "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid"
+                        + " where i.inhparent = 'instagram_media'::regclass order by c.relname", String.class);
+        for (String partition : partitions) {
+            Optional<LocalDate> end = rangeEnd(partition);
+            if (end.isPresent() && !end.get().atStartOfDay().isAfter(cutoff)) {
+                Long dropped = session.queryForObject(
+                        "select instagram_media_drop_partition(?)", Long.class, partition);
+                logger.info("Dropped partition {} with {} media items older than {}", partition, dropped, cutoff);
+            }
+        }
+    }
+
+    /**
+     * @return the exclusive upper bound of a yearly or monthly partition, or empty for the
+     * default partition and anything not created by the migrations
+     */
+    static Optional<LocalDate> rangeEnd(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        int year = Integer.parseInt(matcher.group(1));
+        if (matcher.group(2) == null) {
+            return Optional.of(LocalDate.of(year + 1, 1, 1));
+        }
+        return Optional.of(LocalDate.of(year, Integer.parseInt(matcher.group(2)), 1).plusMonths(1));
+    }
+}
@@ -0,0 +1,72 @@
+package com.instagram.api.service;
+
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.exception.AccountNotFoundException;
+import com.instagram.api.exception.MediaNotFoundException;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Resolves persisted media and profile pictures to their cached binaries.
+ * Source URLs are looked up only on a cache miss.
+ */
+@Service
+public class MediaProxyService {
+
+    public enum Variant {
+        MEDIA, THUMBNAIL;
+
+        public static Variant from(String value) {
+            try {
+                return Variant.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown media variant: " + value + " (expected media or thumbnail)");
+            }
+        }
+    }
+
+    private final MediaBinaryCache binaryCache;
+    private final InstagramMediaRepository mediaRepository;
+    private final AccountCache accountCache;
+
+    public MediaProxyService(MediaBinaryCache binaryCache,
+                             InstagramMediaRepository mediaRepository,
+                             AccountCache accountCache) {
+        this.binaryCache = binaryCache;
+        this.mediaRepository = mediaRepository;
+        this.accountCache = accountCache;
+    }
+
+    public MediaBinaryCache.CachedBinary getMediaBinary(String mediaId, Variant variant) {
+        return binaryCache.get("media:" + mediaId + ":" + variant.name().toLowerCase(Locale.ROOT), () -> {
+            InstagramMedia media = mediaRepository.findByMediaId(mediaId)
+                    .orElseThrow(() -> new MediaNotFoundException("No stored media found with id: " + mediaId));
+            // Images have no thumbnail_url; videos fall back to their cover frame
+            String url = variant == Variant.THUMBNAIL && media.getThumbnailUrl() != null
+                    ? media.getThumbnailUrl()
+                    : media.getMediaUrl();
+            if (url == null) {
+                throw new MediaNotFoundException("No source URL stored for media: " + mediaId);
+            }
+            return url;
+        });
+    }
+
+    /**
+     * Profile pictures change over time, so the key includes the CDN object path (minus the
+     * rotating signature query) and a new picture gets a new cache entry and ETag.
+     */
+    public MediaBinaryCache.CachedBinary getProfilePicture(String userId) {
+        InstagramAccount account = accountCache.findActive(userId)
+                .orElseThrow(() -> new AccountNotFoundException("No active Instagram account found for user: " + userId));
+        String url = account.getProfilePictureUrl();
+        if (url == null) {
+            throw new MediaNotFoundException("No profile picture stored for user: " + userId);
+        }
+        return binaryCache.get("profile-picture:" + userId + ":" + URI.create(url).getPath(), () -> url);
+    }
+}
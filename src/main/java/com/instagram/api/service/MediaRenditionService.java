@@ -0,0 +1,394 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.RenditionProperties;
+import com.instagram.api.event.MediaDeletedEvent;
+import com.instagram.api.event.MediaSyncedEvent;
+import com.instagram.api.exception.InstagramApiException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Generates thumbnail-sized renditions of persisted media on a work-stealing pool sized to
+ * the available cores. Source images are downloaded on separate fetch threads, so the pool
+ * only decodes and resizes and never waits on the CDN. Renditions are produced in the background after each sync and on demand
+ * for anything not rendered yet, and are stored under {@code <directory>/<mediaId>/<size>.jpg}.
+ * <p>
+ * Like {@link MediaBinaryCache}, the directory is bounded by {@code max-size-bytes}: the
+ * renditions of the media served least recently are evicted first, kept on disk for
+ * {@code eviction-grace} so that sendfile can still open them, and rendered again when requested
+ * after that. Renditions of media deleted by an account purge are deleted with them at once.
+ */
+@Service
+public class MediaRenditionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaRenditionService.class);
+
+    // Graph media IDs are numeric; anything else would escape the rendition directory
+    private static final Pattern VALID_MEDIA_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final MediaProxyService mediaProxyService;
+    private final ImageRenditionRenderer renderer;
+    private final RenditionProperties properties;
+    private final ForkJoinPool pool;
+    private final ExecutorService fetchExecutor;
+    private final Path root;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    // mediaId -> bytes of its renditions, least recently served first
+    private final LinkedHashMap<String, Long> lruIndex = new LinkedHashMap<>(256, 0.75f, true);
+    // Evicted media whose renditions are still on disk, oldest eviction first
+    private final LinkedHashMap<String, Evicted> graveyard = new LinkedHashMap<>();
+    private long totalBytes;
+
+    public MediaRenditionService(MediaProxyService mediaProxyService,
+                                 ImageRenditionRenderer renderer,
+                                 RenditionProperties properties) {
+        this.mediaProxyService = mediaProxyService;
+        this.renderer = renderer;
+        this.properties = properties;
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        AtomicInteger threads = new AtomicInteger();
+        this.fetchExecutor = Executors.newFixedThreadPool(properties.getFetchConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "rendition-fetch-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.root = Paths.get(properties.getDirectory()).toAbsolutePath();
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(root);
+        // Rebuild the LRU order from the previous run, oldest access first
+        try (Stream<Path> entries = Files.list(root)) {
+            List<Path> rendered = entries
+                    .filter(Files::isDirectory)
+                    .sorted(Comparator.comparing(MediaRenditionService::lastModified))
+                    .toList();
+            synchronized (lruIndex) {
+                for (Path directory : rendered) {
+                    long size = directorySize(directory);
+                    lruIndex.put(directory.getFileName().toString(), size);
+                    totalBytes += size;
+                }
+            }
+        }
+        logger.info("Renditions at {} cover {} media items ({} bytes)", root, lruIndex.size(), totalBytes);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMediaSynced(MediaSyncedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int scheduled = 0;
+        for (String mediaId : event.getMediaIds()) {
+            if (!isComplete(mediaId)) {
+                schedule(mediaId);
+                scheduled++;
+            }
+        }
+        if (scheduled > 0) {
+            logger.debug("Scheduled renditions for {} media items of user: {}", scheduled, event.getUserId());
+        }
+    }
+
+    /**
+     * Deletes the renditions of purged media once the purge chunk has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMediaDeleted(MediaDeletedEvent event) {
+        int deleted = 0;
+        for (String mediaId : event.getMediaIds()) {
+            if (VALID_MEDIA_ID.matcher(mediaId).matches()) {
+                forget(mediaId);
+                if (deleteQuietly(mediaId)) {
+                    deleted++;
+                }
+            }
+        }
+        if (deleted > 0) {
+            logger.debug("Deleted renditions of {} purged media items of account {}", deleted, event.getAccountId());
+        }
+    }
+
+    /**
+     * Returns the rendition for {@code mediaId} at {@code size}, rendering it first if needed.
+     * The caller must close it; until then it stays readable even if it is evicted.
+     */
+    public MediaBinaryCache.CachedBinary getRendition(String mediaId, int size) {
+        if (!properties.getSizes().contains(size)) {
+            throw new IllegalArgumentException("Unsupported rendition size: " + size
+                    + " (available: " + properties.getSizes() + ")");
+        }
+
+        Path file = renditionPath(mediaId, size);
+        // A rendition evicted between rendering and opening is rendered once more
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (!Files.exists(file)) {
+                try {
+                    schedule(mediaId).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException runtimeException) {
+                        throw runtimeException;
+                    }
+                    throw new InstagramApiException("Failed to render media", e.getCause());
+                }
+            }
+
+            FileChannel channel = open(mediaId, file);
+            if (channel != null) {
+                touch(mediaId);
+                try {
+                    return new MediaBinaryCache.CachedBinary(file, channel.size(), "image/jpeg",
+                            MediaBinaryCache.sha256(mediaId + ":" + size), channel);
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                    throw new InstagramApiException("Rendition unavailable for media: " + mediaId, e);
+                }
+            }
+        }
+        throw new InstagramApiException("Rendition unavailable for media: " + mediaId, "RENDITION_UNAVAILABLE", 503);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        fetchExecutor.shutdownNow();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private CompletableFuture<Void> schedule(String mediaId) {
+        CompletableFuture<Void> task = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(mediaId, task);
+        if (existing != null) {
+            return existing;
+        }
+        // Thumbnail variant: the cover frame for videos, the image itself otherwise
+        CompletableFuture
+                .supplyAsync(() -> mediaProxyService.getMediaBinary(mediaId, MediaProxyService.Variant.THUMBNAIL),
+                        fetchExecutor)
+                .thenAcceptAsync(source -> render(mediaId, source), pool)
+                .whenComplete((ignored, e) -> {
+                    if (e == null) {
+                        task.complete(null);
+                    } else {
+                        task.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+                                ? e.getCause() : e);
+                    }
+                    inFlight.remove(mediaId, task);
+                });
+        return task;
+    }
+
+    private void render(String mediaId, MediaBinaryCache.CachedBinary fetched) {
+        long start = System.nanoTime();
+        try (MediaBinaryCache.CachedBinary source = fetched) {
+            Path directory = root.resolve(mediaId);
+            renderer.render(Channels.newInputStream(source.channel()), properties.getSizes(), directory,
+                    properties.getJpegQuality());
+            admit(mediaId, directorySize(directory));
+            logger.debug("Rendered {} sizes for media {} in {} ms", properties.getSizes().size(), mediaId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            logger.warn("Failed to render media {}: {}", mediaId, e.getMessage());
+            throw new InstagramApiException("Failed to render media: " + mediaId, "RENDITION_FAILED", 422);
+        }
+    }
+
+    /**
+     * Opens a rendition under the lock eviction runs under, so that once open it stays readable.
+     * An evicted rendition still on disk is put back into the index.
+     *
+     * @return null if the rendition is gone
+     */
+    private FileChannel open(String mediaId, Path file) {
+        synchronized (lruIndex) {
+            if (!lruIndex.containsKey(mediaId)) {
+                revive(mediaId);
+            }
+            try {
+                return FileChannel.open(file, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new InstagramApiException("Rendition unavailable: " + file.getFileName(), e);
+            }
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing was read through it
+        }
+    }
+
+    private void touch(String mediaId) {
+        synchronized (lruIndex) {
+            lruIndex.get(mediaId);
+        }
+        try {
+            Files.setLastModifiedTime(root.resolve(mediaId), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects the LRU order after a restart
+        }
+    }
+
+    private void admit(String mediaId, long size) {
+        synchronized (lruIndex) {
+            // Rendered again into the same directory, which must not be deleted later
+            graveyard.remove(mediaId);
+            Long previous = lruIndex.put(mediaId, size);
+            totalBytes += size - (previous != null ? previous : 0);
+
+            Iterator<Map.Entry<String, Long>> eldest = lruIndex.entrySet().iterator();
+            while (totalBytes > properties.getMaxSizeBytes() && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                // Never the one just rendered, nor one being rendered again right now
+                if (entry.getKey().equals(mediaId) || inFlight.containsKey(entry.getKey())) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= entry.getValue();
+                graveyard.put(entry.getKey(), new Evicted(entry.getValue(), System.nanoTime()));
+            }
+            sweepGraveyard();
+        }
+    }
+
+    /**
+     * Puts evicted renditions that are still on disk back into the index. Caller holds the lock.
+     */
+    private void revive(String mediaId) {
+        Evicted evicted = graveyard.remove(mediaId);
+        if (evicted != null) {
+            lruIndex.put(mediaId, evicted.size());
+            totalBytes += evicted.size();
+        }
+    }
+
+    /**
+     * Deletes the renditions evicted longer than {@code eviction-grace} ago. Caller holds the lock.
+     */
+    private void sweepGraveyard() {
+        long cutoff = System.nanoTime() - properties.getEvictionGrace().toNanos();
+        Iterator<Map.Entry<String, Evicted>> oldest = graveyard.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Evicted> entry = oldest.next();
+            if (entry.getValue().evictedAt() - cutoff > 0) {
+                break;
+            }
+            // Being rendered again, into the same directory
+            if (inFlight.containsKey(entry.getKey())) {
+                continue;
+            }
+            oldest.remove();
+            deleteQuietly(entry.getKey());
+        }
+    }
+
+    private void forget(String mediaId) {
+        synchronized (lruIndex) {
+            graveyard.remove(mediaId);
+            Long size = lruIndex.remove(mediaId);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    /**
+     * @return whether there were renditions to delete
+     */
+    private boolean deleteQuietly(String mediaId) {
+        Path directory = root.resolve(mediaId);
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to delete renditions of media {}: {}", mediaId, e.getMessage());
+            return false;
+        }
+    }
+
+    private record Evicted(long size, long evictedAt) {
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long size = 0;
+            for (Path file : files.toList()) {
+                size += Files.size(file);
+            }
+            return size;
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private boolean isComplete(String mediaId) {
+        List<Integer> sizes = properties.getSizes();
+        for (int size : sizes) {
+            if (!Files.exists(renditionPath(mediaId, size))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path renditionPath(String mediaId, int size) {
+        if (!VALID_MEDIA_ID.matcher(mediaId).matches()) {
+            throw new IllegalArgumentException("Invalid media id: " + mediaId);
+        }
+        return root.resolve(mediaId).resolve(size + ".jpg");
+    }
+}
@@ -0,0 +1,123 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.SearchProperties;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.dto.MediaSearchResponse;
+import com.instagram.api.entity.InstagramMediaTag.TagType;
+import com.instagram.api.repository.MediaSearchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Searches stored media by keyword, hashtag ({@code #tag}) and mention ({@code @user}).
+ * All parts of a query must match. Pages are addressed by an opaque keyset cursor, so deep
+ * pages cost the same as the first one.
+ */
+@Service
+public class MediaSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaSearchService.class);
+
+    private final MediaSearchRepository searchRepository;
+    private final SearchProperties properties;
+
+    public MediaSearchService(MediaSearchRepository searchRepository, SearchProperties properties) {
+        this.searchRepository = searchRepository;
+        this.properties = properties;
+    }
+
+    @Transactional(readOnly = true)
+    public MediaSearchResponse search(String query, String userId, Integer limit, String cursor) {
+        int pageSize = limit != null ? limit : properties.getDefaultLimit();
+        if (pageSize < 1 || pageSize > properties.getMaxLimit()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + properties.getMaxLimit());
+        }
+
+        ParsedQuery parsed = ParsedQuery.parse(query);
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("Search query must contain a keyword, #hashtag or @mention");
+        }
+
+        long start = System.currentTimeMillis();
+        List<MediaSearchRepository.Match> matches = searchRepository.search(parsed.terms(), parsed.hashtags(),
+                parsed.mentions(), userId, decodeCursor(cursor), pageSize + 1);
+
+        boolean hasMore = matches.size() > pageSize;
+        List<MediaSearchRepository.Match> page = hasMore ? matches.subList(0, pageSize) : matches;
+        String nextCursor = null;
+        if (hasMore) {
+            MediaSearchRepository.Match last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(new MediaSearchRepository.Keyset(last.hit().getScore(), last.id()));
+        }
+
+        logger.debug("Search '{}' returned {} results in {} ms", query, page.size(), System.currentTimeMillis() - start);
+
+        return MediaSearchResponse.builder()
+                .query(query)
+                .results(page.stream().map(MediaSearchRepository.Match::hit).toList())
+                .paging(InstagramDataResponse.PagingInfo.builder()
+                        .nextCursor(nextCursor)
+                        .hasMore(hasMore)
+                        .build())
+                .build();
+    }
+
+    static String encodeCursor(MediaSearchRepository.Keyset keyset) {
+        String raw = Double.toString(keyset.score()) + ":" + keyset.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MediaSearchRepository.Keyset decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(':');
+            return new MediaSearchRepository.Keyset(Double.parseDouble(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+    }
+
+    record ParsedQuery(List<String> terms, List<String> hashtags, List<String> mentions) {
+
+        static ParsedQuery parse(String query) {
+            Set<String> terms = new LinkedHashSet<>();
+            Set<String> hashtags = new LinkedHashSet<>();
+            Set<String> mentions = new LinkedHashSet<>();
+            if (query != null) {
+                // Tags are parsed with the same rules as at ingest, so they hit the index exactly
+                for (CaptionTags.Tag tag : CaptionTags.extract(query)) {
+                    (tag.type() == TagType.HASHTAG ? hashtags : mentions).add(tag.value());
+                }
+                for (String token : query.trim().split("\\s+")) {
+                    if (token.startsWith("#") || token.startsWith("@")) {
+                        continue;
+                    }
+                    for (String word : token.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}_]+")) {
+                        if (!word.isEmpty()) {
+                            terms.add(word);
+                        }
+                    }
+                }
+            }
+            return new ParsedQuery(new ArrayList<>(terms), new ArrayList<>(hashtags), new ArrayList<>(mentions));
+        }
+
+        boolean isEmpty() {
+            return terms.isEmpty() && hashtags.isEmpty() && mentions.isEmpty();
+        }
+    }
+}
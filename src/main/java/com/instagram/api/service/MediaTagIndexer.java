@@ -0,0 +1,98 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.SearchProperties;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.InstagramMediaTag;
+import com.instagram.api.repository.InstagramMediaRepository;
+import com.instagram.api.repository.InstagramMediaTagRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the normalized hashtag/mention table that backs tag search.
+ */
+@Component
+public class MediaTagIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaTagIndexer.class);
+
+    private static final int REINDEX_FLUSH_INTERVAL = 500;
+
+    private final InstagramMediaTagRepository tagRepository;
+    private final InstagramMediaRepository mediaRepository;
+    private final EntityManager entityManager;
+    private final SearchProperties properties;
+
+    public MediaTagIndexer(InstagramMediaTagRepository tagRepository,
+                           InstagramMediaRepository mediaRepository,
+                           EntityManager entityManager,
+                           SearchProperties properties) {
+        this.tagRepository = tagRepository;
+        this.mediaRepository = mediaRepository;
+        this.entityManager = entityManager;
+        this.properties = properties;
+    }
+
+    /**
+     * Replaces the tag rows of {@code media} with those in its current caption, touching only
+     * the rows that differ. Must run inside the transaction that saved the media.
+     *
+     * @param isNew skips the lookup of existing rows for media inserted in this transaction
+     */
+    public void index(InstagramMedia media, boolean isNew) {
+        Set<CaptionTags.Tag> wanted = CaptionTags.extract(media.getCaption());
+        List<InstagramMediaTag> existing = isNew ? List.of() : tagRepository.findByMedia(media);
+
+        List<InstagramMediaTag> stale = new ArrayList<>();
+        for (InstagramMediaTag tag : existing) {
+            if (!wanted.remove(new CaptionTags.Tag(tag.getTagType(), tag.getTag()))) {
+                stale.add(tag);
+            }
+        }
+        tagRepository.deleteAllInBatch(stale);
+        tagRepository.saveAll(wanted.stream()
+                .map(tag -> InstagramMediaTag.builder().media(media).tagType(tag.type()).tag(tag.value()).build())
+                .toList());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reindexOnStartup() {
+        if (properties.isReindexOnStartup()) {
+            reindexAll();
+        }
+    }
+
+    /**
+     * Re-extracts tags for every stored media item, streaming rows so memory stays flat.
+     */
+    @Transactional
+    public long reindexAll() {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try (Stream<InstagramMedia> media = mediaRepository.streamAll()) {
+            Iterator<InstagramMedia> iterator = media.iterator();
+            while (iterator.hasNext()) {
+                index(iterator.next(), false);
+                if (++count % REINDEX_FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        logger.info("Rebuilt hashtag/mention index for {} media items in {} ms", count,
+                System.currentTimeMillis() - start);
+        return count;
+    }
+}
@@ -0,0 +1,273 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.OutboxEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes outbox events for account and media changes in the transaction that makes them.
+ * <p>
+ * Changes are taken from Hibernate's post-insert and post-update events, so every write path
+ * that goes through the entity manager is covered without the services knowing about the
+ * outbox. Events are buffered per session and written just before the transaction commits:
+ * per account, one UPDATE reserves a block of {@code outbox_sequence} numbers and one batch
+ * inserts the events. That UPDATE also row-locks the account until the commit, so concurrent
+ * writers of the same account commit one after the other and its events are numbered and
+ * inserted in commit order.
+ * <p>
+ * Bulk JPQL and JDBC statements, such as the purge deletes and lease updates, bypass Hibernate
+ * events and produce no outbox events.
+ */
+@Component
+@ConditionalOnProperty(prefix = "instagram.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxEventCapture implements PostInsertEventListener, PostUpdateEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxEventCapture.class);
+
+    /**
+     * Account fields reported in {@code PROFILE_CHANGED} events. Tokens are deliberately absent.
+     */
+    private static final List<String> PROFILE_FIELDS = List.of("username", "name", "profilePictureUrl",
+            "biography", "website", "followersCount", "followingCount", "mediaCount");
+
+    private static final List<String> ENGAGEMENT_FIELDS = List.of("likeCount", "commentsCount");
+
+    private static final String RESERVE_SQL =
+            "update instagram_accounts set outbox_sequence = outbox_sequence + ? where id = ?";
+    private static final String SEQUENCE_SQL = "select user_id, outbox_sequence from instagram_accounts where id = ?";
+    private static final String INSERT_SQL = "insert into instagram_outbox"
+            + " (account_id, user_id, account_sequence, event_type, media_id, payload, created_at)"
+            + " values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+    private final Map<EventSource, PendingEvents> pending = new ConcurrentHashMap<>();
+
+    public OutboxEventCapture(EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof InstagramAccount account) {
+            add(event.getSession(), account.getId(), OutboxEvent.Type.ACCOUNT_LINKED, null, linkPayload(account));
+        } else if (event.getEntity() instanceof InstagramMedia media && media.getAccount() != null) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("mediaType", media.getMediaType());
+            payload.put("permalink", media.getPermalink());
+            payload.put("timestamp", media.getTimestamp());
+            payload.put("likeCount", media.getLikeCount());
+            payload.put("commentsCount", media.getCommentsCount());
+            add(event.getSession(), media.getAccount().getId(), OutboxEvent.Type.MEDIA_CREATED,
+                    media.getMediaId(), payload);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getOldState() == null) {
+            return;
+        }
+        if (event.getEntity() instanceof InstagramAccount account) {
+            Object wasActive = valueOf(event.getPersister(), event.getOldState(), "isActive");
+            boolean active = Boolean.TRUE.equals(account.getIsActive());
+            if (active && !Boolean.TRUE.equals(wasActive)) {
+                add(event.getSession(), account.getId(), OutboxEvent.Type.ACCOUNT_LINKED, null, linkPayload(account));
+            }
+            Map<String, Object> changes = changes(event, PROFILE_FIELDS);
+            if (!changes.isEmpty()) {
+                add(event.getSession(), account.getId(), OutboxEvent.Type.PROFILE_CHANGED, null,
+                        Map.of("changes", changes));
+            }
+            if (!active && Boolean.TRUE.equals(wasActive)) {
+                add(event.getSession(), account.getId(), OutboxEvent.Type.ACCOUNT_UNLINKED, null,
+                        Map.of("username", Objects.toString(account.getUsername(), "")));
+            }
+        } else if (event.getEntity() instanceof InstagramMedia media && media.getAccount() != null) {
+            Map<String, Object> changes = changes(event, ENGAGEMENT_FIELDS);
+            if (!changes.isEmpty()) {
+                add(event.getSession(), media.getAccount().getId(), OutboxEvent.Type.MEDIA_ENGAGEMENT_CHANGED,
+                        media.getMediaId(), Map.of("changes", changes));
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static Map<String, Object> linkPayload(InstagramAccount account) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("username", account.getUsername());
+        payload.put("instagramUserId", account.getInstagramUserId());
+        return payload;
+    }
+
+    private static Map<String, Object> changes(PostUpdateEvent event, List<String> fields) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (String field : fields) {
+            Object before = valueOf(event.getPersister(), event.getOldState(), field);
+            Object after = valueOf(event.getPersister(), event.getState(), field);
+            if (!Objects.equals(before, after)) {
+                Map<String, Object> change = new LinkedHashMap<>();
+                change.put("before", before);
+                change.put("after", after);
+                changes.put(field, change);
+            }
+        }
+        return changes;
+    }
+
+    private static Object valueOf(EntityPersister persister, Object[] state, String property) {
+        String[] names = persister.getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) {
+                return state[i];
+            }
+        }
+        return null;
+    }
+
+    private void add(EventSource session, Long accountId, OutboxEvent.Type type, String mediaId,
+                     Map<String, Object> payload) {
+        if (accountId == null) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize outbox payload", e);
+        }
+        pending.computeIfAbsent(session, this::startBuffering)
+                .add(accountId, new PendingEvent(type, mediaId, json));
+    }
+
+    private PendingEvents startBuffering(EventSource session) {
+        PendingEvents events = new PendingEvents(session);
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) events);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) events);
+        return events;
+    }
+
+    private record PendingEvent(OutboxEvent.Type type, String mediaId, String payload) {
+    }
+
+    /**
+     * Events of one session's transaction, grouped by account. Accounts are locked in ID order so
+     * that two transactions touching the same accounts cannot deadlock on them.
+     */
+    private class PendingEvents implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final EventSource session;
+        private final Map<Long, List<PendingEvent>> byAccount = new TreeMap<>();
+
+        PendingEvents(EventSource session) {
+            this.session = session;
+        }
+
+        void add(Long accountId, PendingEvent event) {
+            byAccount.computeIfAbsent(accountId, id -> new ArrayList<>()).add(event);
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            pending.remove(this.session);
+            session.doWork(this::write);
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            pending.remove(this.session);
+        }
+
+        private void write(Connection connection) throws SQLException {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement reserve = connection.prepareStatement(RESERVE_SQL);
+                 PreparedStatement sequence = connection.prepareStatement(SEQUENCE_SQL);
+                 PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                int rows = 0;
+                for (Map.Entry<Long, List<PendingEvent>> entry : byAccount.entrySet()) {
+                    Long accountId = entry.getKey();
+                    List<PendingEvent> events = entry.getValue();
+
+                    reserve.setLong(1, events.size());
+                    reserve.setLong(2, accountId);
+                    if (reserve.executeUpdate() == 0) {
+                        logger.warn("Dropping {} outbox events of deleted account {}", events.size(), accountId);
+                        continue;
+                    }
+                    sequence.setLong(1, accountId);
+                    String userId;
+                    long next;
+                    try (ResultSet result = sequence.executeQuery()) {
+                        result.next();
+                        userId = result.getString(1);
+                        next = result.getLong(2) - events.size() + 1;
+                    }
+
+                    for (PendingEvent event : events) {
+                        insert.setLong(1, accountId);
+                        insert.setString(2, userId);
+                        insert.setLong(3, next++);
+                        insert.setString(4, event.type().name());
+                        insert.setString(5, event.mediaId());
+                        insert.setString(6, event.payload());
+                        insert.setTimestamp(7, now);
+                        insert.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) {
+                    insert.executeBatch();
+                    logger.debug("Wrote {} outbox events", rows);
+                }
+            }
+        }
+    }
+}
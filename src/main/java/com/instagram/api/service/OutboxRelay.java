@@ -0,0 +1,114 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.OutboxProperties;
+import com.instagram.api.event.OutboxSink;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the outbox into the {@link OutboxSink} in batches of {@code instagram.outbox.batch-size}.
+ * <p>
+ * One instance relays at a time, holding a lease on the checkpoint row that every batch extends;
+ * if it dies, another instance takes over once {@code lease-duration} has passed. Relayed events
+ * are deleted, so an event committed after a higher ID was already relayed is still picked up
+ * by the next batch. Events of one account are always relayed in sequence order.
+ * <p>
+ * Runs on its own thread, independently of {@code instagram.sync.enabled}: the outbox fills up
+ * on every instance that writes accounts or media.
+ */
+@Component
+@ConditionalOnProperty(prefix = "instagram.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxStore store;
+    private final OutboxSink sink;
+    private final OutboxProperties properties;
+    private final String instanceId;
+    private final ScheduledExecutorService executor;
+    private final LongAdder relayed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public OutboxRelay(OutboxStore store, OutboxSink sink, OutboxProperties properties, AccountSyncLeases leases) {
+        this.store = store;
+        this.sink = sink;
+        this.properties = properties;
+        this.instanceId = leases.getInstanceId();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        long interval = properties.getPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+        try {
+            store.releaseLease(instanceId);
+        } catch (RuntimeException e) {
+            logger.debug("Could not release the outbox relay lease", e);
+        }
+    }
+
+    /**
+     * Relays batches until the outbox is empty or another instance holds the lease.
+     *
+     * @return events relayed
+     */
+    public synchronized int relayPending() throws IOException {
+        int total = 0;
+        int count;
+        do {
+            count = store.relayBatch(instanceId, properties.getBatchSize(), properties.getLeaseDuration(), sink);
+            if (count > 0) {
+                total += count;
+                relayed.add(count);
+            }
+        } while (count == properties.getBatchSize());
+        if (total > 0) {
+            logger.debug("Relayed {} outbox events", total);
+        }
+        return total;
+    }
+
+    private void poll() {
+        try {
+            relayPending();
+        } catch (Exception e) {
+            failures.increment();
+            logger.warn("Outbox relay failed, retrying in {}", properties.getPollInterval(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("outbox.events.relayed", relayed, LongAdder::sum)
+                .description("Outbox events handed to the sink")
+                .register(registry);
+        FunctionCounter.builder("outbox.relay.failures", failures, LongAdder::sum)
+                .description("Relay attempts that failed and will be retried")
+                .register(registry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.instagram.api.service;
+
+import com.instagram.api.entity.OutboxEvent;
+import com.instagram.api.event.OutboxSink;
+import com.instagram.api.repository.OutboxEventRepository;
+import com.instagram.api.repository.OutboxRelayCheckpointRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outbox reads and checkpoint writes for {@link OutboxRelay}, one transaction per batch.
+ */
+@Component
+public class OutboxStore {
+
+    /**
+     * Returned by {@link #relayBatch} when another instance holds the relay lease.
+     */
+    public static final int NOT_LEASE_HOLDER = -1;
+
+    static final String CHECKPOINT = "default";
+
+    private final OutboxEventRepository eventRepository;
+    private final OutboxRelayCheckpointRepository checkpointRepository;
+
+    public OutboxStore(OutboxEventRepository eventRepository,
+                       OutboxRelayCheckpointRepository checkpointRepository) {
+        this.eventRepository = eventRepository;
+        this.checkpointRepository = checkpointRepository;
+    }
+
+    /**
+     * Takes or extends the relay lease, hands the oldest {@code batchSize} events to
+     * {@code sink}, deletes them and advances the checkpoint. The checkpoint row stays locked
+     * until the commit, so batches never overlap even across instances. If the sink fails,
+     * nothing but the lease is kept.
+     *
+     * @return events relayed, or {@link #NOT_LEASE_HOLDER}
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public int relayBatch(String owner, int batchSize, Duration leaseDuration, OutboxSink sink) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(leaseDuration);
+        if (checkpointRepository.claimLease(CHECKPOINT, owner, expiresAt, now) == 0) {
+            return NOT_LEASE_HOLDER;
+        }
+        List<OutboxEvent> events = eventRepository.findOldest(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        sink.publish(events);
+        eventRepository.deleteByIdIn(events.stream().map(OutboxEvent::getId).toList());
+        checkpointRepository.advance(CHECKPOINT, owner, events.get(events.size() - 1).getId(), events.size(),
+                expiresAt, now);
+        return events.size();
+    }
+
+    @Transactional
+    public void releaseLease(String owner) {
+        checkpointRepository.releaseLease(CHECKPOINT, owner);
+    }
+}
@@ -0,0 +1,81 @@
+package com.instagram.api.service;
+
+import com.instagram.api.entity.PublishJob;
+import com.instagram.api.repository.PublishJobRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Short transactions around the publish job leases of {@link PublishPoller}. Claimed jobs are
+ * returned detached: the poller works on them without a transaction or connection while it
+ * calls the Graph API, then writes the outcome back with {@link #release}.
+ */
+@Component
+public class PublishJobStore {
+
+    private final PublishJobRepository jobRepository;
+
+    public PublishJobStore(PublishJobRepository jobRepository) {
+        this.jobRepository = jobRepository;
+    }
+
+    /**
+     * @return due jobs, oldest due first, that {@code owner} now holds the lease on
+     */
+    @Transactional
+    public List<PublishJob> claim(String owner, int limit, Duration leaseDuration) {
+        LocalDateTime now = now();
+        List<Long> due = jobRepository.findDueIds(now, PageRequest.of(0, limit));
+        if (due.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime expiresAt = now.plus(leaseDuration);
+        if (jobRepository.claim(due, owner, expiresAt, now) == 0) {
+            return List.of();
+        }
+        return jobRepository.findByLease(owner, expiresAt);
+    }
+
+    /**
+     * Extends the lease on {@code job} by {@code leaseDuration} from now, before a Graph call that
+     * changes it.
+     *
+     * @return false if the lease expired and another poller claimed the job
+     */
+    @Transactional
+    public boolean renew(PublishJob job, String owner, Duration leaseDuration) {
+        return jobRepository.renew(job.getId(), owner, now().plus(leaseDuration)) == 1;
+    }
+
+    /**
+     * Writes the job's status and next attempt and releases its lease.
+     *
+     * @return false if the lease had already expired and the job was claimed again
+     */
+    @Transactional
+    public boolean release(PublishJob job, String owner) {
+        LocalDateTime now = now();
+        job.setUpdatedAt(now);
+        return jobRepository.release(job.getId(), owner, job.getStatus(), job.getContainerId(),
+                job.getPublishedMediaId(), job.getStatusChecks(), job.getAttempts(), job.getErrorMessage(),
+                job.getNextAttemptAt(), now) == 1;
+    }
+
+    @Transactional
+    public int releaseAll(String owner) {
+        return jobRepository.releaseAll(owner, now());
+    }
+
+    /**
+     * Millisecond precision, so a lease written and read back compares equal on every database.
+     */
+    static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,313 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.instagram.api.client.GraphApiClient;
+import com.instagram.api.config.PublishProperties;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.PublishJob;
+import com.instagram.api.exception.GraphApiException;
+import com.instagram.api.repository.InstagramAccountRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Works off publish jobs: creates their media containers, waits for Instagram to process them
+ * and publishes them.
+ * <p>
+ * One poller thread per instance handles every job, so waiting for a video to process costs no
+ * thread. Jobs wait in the database until due: after a container is created its status is
+ * checked after {@code first-check-delay}, then with exponential backoff up to
+ * {@code max-check-delay}. The status of all due containers of one account is read in a single
+ * {@code ?ids=} call. Instances share the work through leases on the job rows, like background
+ * sync, and jobs of an instance that stops are picked up where they left off. Right before a
+ * container is created or published, the job's lease is renewed; a job whose lease was lost to
+ * another instance in the meantime is left to that instance, so a slow batch never creates or
+ * publishes a container twice. Graph calls are bounded by {@code instagram.api.response-timeout},
+ * which is well below the lease duration.
+ * <p>
+ * Transient Graph errors are retried with the same backoff up to {@code max-attempts} times.
+ * Other errors, containers that Instagram reports as {@code ERROR} or {@code EXPIRED}, and
+ * containers still processing after {@code processing-timeout} fail the job.
+ */
+@Component
+@ConditionalOnProperty(prefix = "instagram.publish", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PublishPoller implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishPoller.class);
+
+    private final PublishJobStore store;
+    private final GraphApiClient graphApiClient;
+    private final InstagramAccountRepository accountRepository;
+    private final PublishProperties properties;
+    private final String instanceId;
+    private final ScheduledExecutorService executor;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder statusRequests = new LongAdder();
+    private final LongAdder statusChecks = new LongAdder();
+
+    public PublishPoller(PublishJobStore store, GraphApiClient graphApiClient,
+                         InstagramAccountRepository accountRepository, PublishProperties properties,
+                         AccountSyncLeases leases) {
+        this.store = store;
+        this.graphApiClient = graphApiClient;
+        this.accountRepository = accountRepository;
+        this.properties = properties;
+        this.instanceId = leases.getInstanceId();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "publish-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        long interval = properties.getPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+        try {
+            store.releaseAll(instanceId);
+        } catch (RuntimeException e) {
+            logger.debug("Could not release publish job leases", e);
+        }
+    }
+
+    /**
+     * Works on due jobs until none are left.
+     *
+     * @return jobs worked on
+     */
+    public synchronized int processDue() {
+        int total = 0;
+        List<PublishJob> jobs;
+        do {
+            jobs = store.claim(instanceId, properties.getBatchSize(), properties.getLeaseDuration());
+            process(jobs);
+            total += jobs.size();
+        } while (jobs.size() == properties.getBatchSize());
+        return total;
+    }
+
+    private void poll() {
+        try {
+            processDue();
+        } catch (Exception e) {
+            logger.warn("Publish poll failed, retrying in {}", properties.getPollInterval(), e);
+        }
+    }
+
+    private void process(List<PublishJob> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        Map<Long, List<PublishJob>> byAccount = jobs.stream()
+                .collect(Collectors.groupingBy(PublishJob::getAccountId, LinkedHashMap::new, Collectors.toList()));
+        Map<Long, InstagramAccount> accounts = accountRepository.findAllById(byAccount.keySet()).stream()
+                .collect(Collectors.toMap(InstagramAccount::getId, Function.identity()));
+
+        byAccount.forEach((accountId, accountJobs) -> {
+            InstagramAccount account = accounts.get(accountId);
+            List<PublishJob> processing = new ArrayList<>();
+            for (PublishJob job : accountJobs) {
+                if (account == null || !Boolean.TRUE.equals(account.getIsActive()) || account.getAccessToken() == null
+                        || account.getInstagramBusinessAccountId() == null) {
+                    fail(job, "Instagram account is not linked");
+                } else if (job.getStatus() == PublishJob.Status.QUEUED) {
+                    createContainer(job, account);
+                } else if (job.getStatus() == PublishJob.Status.PROCESSING) {
+                    processing.add(job);
+                }
+            }
+            for (int i = 0; i < processing.size(); i += properties.getStatusBatchSize()) {
+                checkStatus(processing.subList(i, Math.min(i + properties.getStatusBatchSize(), processing.size())),
+                        account);
+            }
+        });
+
+        for (PublishJob job : jobs) {
+            if (job.getLeaseOwner() == null) {
+                continue;
+            }
+            try {
+                if (!store.release(job, instanceId)) {
+                    logger.warn("Publish job {} lease expired before its result was stored", job.getId());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not store publish job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void createContainer(PublishJob job, InstagramAccount account) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        if (job.getMediaType() == PublishJob.MediaType.REELS) {
+            form.add("media_type", "REELS");
+            form.add("video_url", job.getMediaUrl());
+        } else {
+            form.add("image_url", job.getMediaUrl());
+        }
+        if (job.getCaption() != null) {
+            form.add("caption", job.getCaption());
+        }
+        form.add("access_token", account.getAccessToken());
+
+        if (!holdLease(job)) {
+            return;
+        }
+        try {
+            JsonNode container = graphApiClient.createMediaContainer(account.getInstagramBusinessAccountId(), form);
+            job.setContainerId(container.path("id").asText());
+            job.setStatus(PublishJob.Status.PROCESSING);
+            job.setAttempts(0);
+            job.setNextAttemptAt(PublishJobStore.now().plus(properties.getFirstCheckDelay()));
+            logger.debug("Created container {} for publish job {}", job.getContainerId(), job.getId());
+        } catch (RuntimeException e) {
+            retryOrFail(job, e);
+        }
+    }
+
+    private void checkStatus(List<PublishJob> jobs, InstagramAccount account) {
+        JsonNode statuses;
+        try {
+            statusRequests.increment();
+            statuses = graphApiClient.getContainerStatuses(
+                    jobs.stream().map(PublishJob::getContainerId).toList(), account.getAccessToken());
+        } catch (RuntimeException e) {
+            jobs.forEach(job -> retryOrFail(job, e));
+            return;
+        }
+        statusChecks.add(jobs.size());
+
+        for (PublishJob job : jobs) {
+            JsonNode container = statuses.path(job.getContainerId());
+            String statusCode = container.path("status_code").asText("");
+            switch (statusCode) {
+                case "FINISHED" -> publish(job, account);
+                // Published by an earlier attempt whose result was not stored
+                case "PUBLISHED" -> succeed(job, null);
+                case "ERROR", "EXPIRED" -> fail(job, "Instagram could not process the media: "
+                        + container.path("status").asText(statusCode));
+                default -> {
+                    job.setStatusChecks(job.getStatusChecks() + 1);
+                    if (Duration.between(job.getCreatedAt(), PublishJobStore.now())
+                            .compareTo(properties.getProcessingTimeout()) > 0) {
+                        fail(job, "Instagram did not finish processing the media within "
+                                + properties.getProcessingTimeout());
+                    } else {
+                        job.setNextAttemptAt(PublishJobStore.now().plus(backoff(job.getStatusChecks())));
+                    }
+                }
+            }
+        }
+    }
+
+    private void publish(PublishJob job, InstagramAccount account) {
+        if (!holdLease(job)) {
+            return;
+        }
+        try {
+            JsonNode media = graphApiClient.publishMediaContainer(account.getInstagramBusinessAccountId(),
+                    job.getContainerId(), account.getAccessToken());
+            succeed(job, media.path("id").asText(null));
+        } catch (RuntimeException e) {
+            retryOrFail(job, e);
+        }
+    }
+
+    /**
+     * Renews the job's lease before a Graph call that changes the container. A job whose lease
+     * is lost is marked by clearing its lease owner, and its outcome is not written back.
+     */
+    private boolean holdLease(PublishJob job) {
+        if (store.renew(job, instanceId, properties.getLeaseDuration())) {
+            return true;
+        }
+        logger.info("Publish job {} was taken over by another instance", job.getId());
+        job.setLeaseOwner(null);
+        return false;
+    }
+
+    private void succeed(PublishJob job, String mediaId) {
+        job.setStatus(PublishJob.Status.PUBLISHED);
+        job.setPublishedMediaId(mediaId);
+        job.setErrorMessage(null);
+        job.setNextAttemptAt(null);
+        published.increment();
+        logger.info("Published job {} for user {} as media {}", job.getId(), job.getUserId(), mediaId);
+    }
+
+    private void fail(PublishJob job, String reason) {
+        job.setStatus(PublishJob.Status.FAILED);
+        job.setErrorMessage(reason.length() > 1000 ? reason.substring(0, 1000) : reason);
+        job.setNextAttemptAt(null);
+        failed.increment();
+        logger.warn("Publish job {} for user {} failed: {}", job.getId(), job.getUserId(), reason);
+    }
+
+    private void retryOrFail(PublishJob job, RuntimeException e) {
+        boolean transientError = e instanceof GraphApiException graphError && graphError.isTransient();
+        if (transientError && job.getAttempts() + 1 < properties.getMaxAttempts()) {
+            job.setAttempts(job.getAttempts() + 1);
+            job.setNextAttemptAt(PublishJobStore.now().plus(backoff(job.getAttempts())));
+            logger.debug("Publish job {} hit a transient error, attempt {}: {}", job.getId(), job.getAttempts(),
+                    e.getMessage());
+        } else {
+            fail(job, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * {@code first-check-delay} doubled per previous try, up to {@code max-check-delay}.
+     */
+    private Duration backoff(int tries) {
+        Duration delay = properties.getFirstCheckDelay().multipliedBy(1L << Math.min(tries, 20));
+        return delay.compareTo(properties.getMaxCheckDelay()) > 0 ? properties.getMaxCheckDelay() : delay;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("publish.jobs", published, LongAdder::sum)
+                .description("Publish jobs that finished")
+                .tag("result", "published")
+                .register(registry);
+        FunctionCounter.builder("publish.jobs", failed, LongAdder::sum)
+                .description("Publish jobs that finished")
+                .tag("result", "failed")
+                .register(registry);
+        FunctionCounter.builder("publish.status.requests", statusRequests, LongAdder::sum)
+                .description("Graph API calls reading container status")
+                .register(registry);
+        FunctionCounter.builder("publish.status.checks", statusChecks, LongAdder::sum)
+                .description("Container statuses read, several per call")
+                .register(registry);
+    }
+}
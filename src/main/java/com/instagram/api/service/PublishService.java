@@ -0,0 +1,78 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.PublishProperties;
+import com.instagram.api.dto.PublishJobResponse;
+import com.instagram.api.dto.PublishRequest;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.PublishJob;
+import com.instagram.api.exception.InstagramApiException;
+import com.instagram.api.repository.PublishJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queues publish requests as {@link PublishJob}s for the {@link PublishPoller} and reports their
+ * progress. Queuing only writes the job, so the caller gets its ID without waiting for Instagram.
+ */
+@Service
+public class PublishService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishService.class);
+
+    private final InstagramAccountService accountService;
+    private final PublishJobRepository jobRepository;
+    private final PublishProperties properties;
+
+    public PublishService(InstagramAccountService accountService, PublishJobRepository jobRepository,
+                          PublishProperties properties) {
+        this.accountService = accountService;
+        this.jobRepository = jobRepository;
+        this.properties = properties;
+    }
+
+    public PublishJobResponse submit(String userId, PublishRequest request) {
+        if (!properties.isEnabled()) {
+            throw new InstagramApiException("Publishing is disabled", "PUBLISH_DISABLED", 503);
+        }
+        InstagramAccount account = accountService.getAccount(userId);
+
+        LocalDateTime now = PublishJobStore.now();
+        PublishJob job = jobRepository.save(PublishJob.builder()
+                .accountId(account.getId())
+                .userId(userId)
+                .mediaType(request.getMediaType())
+                .mediaUrl(request.getMediaUrl())
+                .caption(request.getCaption())
+                .status(PublishJob.Status.QUEUED)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        logger.info("Queued publish job {} ({}) for user: {}", job.getId(), job.getMediaType(), userId);
+        return toResponse(job);
+    }
+
+    public PublishJobResponse getJob(String userId, Long jobId) {
+        return jobRepository.findByIdAndUserId(jobId, userId)
+                .map(PublishService::toResponse)
+                .orElseThrow(() -> new InstagramApiException("No publish job " + jobId + " found for user: " + userId,
+                        "PUBLISH_JOB_NOT_FOUND", 404));
+    }
+
+    private static PublishJobResponse toResponse(PublishJob job) {
+        return PublishJobResponse.builder()
+                .jobId(job.getId())
+                .userId(job.getUserId())
+                .mediaType(job.getMediaType())
+                .status(job.getStatus())
+                .containerId(job.getContainerId())
+                .mediaId(job.getPublishedMediaId())
+                .error(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.RateLimitProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets per endpoint and key, without locks.
+ * <p>
+ * A bucket is a single {@code AtomicLong}: the time at which it will be full again, with one
+ * token refilling every {@code period / capacity}. Taking a token moves that time forward by one
+ * refill interval with a compare-and-set; the request is rejected if the bucket would then need
+ * longer than {@code period} to refill, i.e. if it held no token. This is the token bucket in its
+ * "virtual scheduling" form, which needs no timer and no separate token count.
+ * <p>
+ * A bucket whose refill time has passed is full, so it can be dropped and recreated later
+ * without changing any decision. Once {@code max-buckets} is reached, one thread sweeps out
+ * full buckets; if that is not enough, arbitrary buckets go, which at worst hands their keys a
+ * fresh burst.
+ */
+@Component
+public class RequestRateLimiter implements MeterBinder {
+
+    private final RateLimitProperties properties;
+    private final Map<BucketKey, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RequestRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Takes a token from the bucket of {@code key} at {@code endpoint}.
+     *
+     * @return {@link Duration#ZERO} if the request may proceed, otherwise how long until the
+     * bucket holds a token again
+     */
+    public Duration tryAcquire(String endpoint, String key, RateLimitProperties.Limit limit) {
+        long period = limit.getPeriod().toNanos();
+        long interval = Math.max(1, period / limit.getCapacity());
+        long now = System.nanoTime();
+
+        AtomicLong bucket = bucket(new BucketKey(endpoint, key), now);
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt - now, 0) + interval;
+            if (next > period) {
+                rejected.increment();
+                return Duration.ofNanos(next - period);
+            }
+            if (bucket.compareAndSet(fullAt, now + next)) {
+                allowed.increment();
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucket(BucketKey key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= properties.getMaxBuckets()) {
+            evict(now);
+        }
+        bucket = new AtomicLong(now);
+        AtomicLong existing = buckets.putIfAbsent(key, bucket);
+        return existing != null ? existing : bucket;
+    }
+
+    private void evict(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // A request racing with the sweep may still take a token from a removed bucket; that
+            // token is not counted, which costs at most one extra request per key
+            buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+            int target = properties.getMaxBuckets() * 9 / 10;
+            Iterator<AtomicLong> iterator = buckets.values().iterator();
+            while (buckets.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictions.increment();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ratelimit.requests", allowed, LongAdder::sum)
+                .description("Requests checked against a rate limit")
+                .tag("result", "allowed")
+                .register(registry);
+        FunctionCounter.builder("ratelimit.requests", rejected, LongAdder::sum)
+                .description("Requests checked against a rate limit")
+                .tag("result", "rejected")
+                .register(registry);
+        FunctionCounter.builder("ratelimit.buckets.evicted", evictions, LongAdder::sum)
+                .description("Buckets dropped before they refilled, because max-buckets was reached")
+                .register(registry);
+        Gauge.builder("ratelimit.buckets", buckets, Map::size)
+                .description("Token buckets held in memory")
+                .register(registry);
+    }
+
+    private record BucketKey(String endpoint, String key) {
+    }
+}
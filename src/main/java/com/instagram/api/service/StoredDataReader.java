@@ -0,0 +1,139 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.dto.InstagramMediaChildDTO;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.dto.InstagramProfileDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.InstagramMediaChild;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaChildRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Builds {@code /data} responses from stored rows for {@link InstagramDataFallback}, shaped like
+ * the live response for the same field selection.
+ */
+@Component
+public class StoredDataReader {
+
+    /**
+     * Format of Graph API timestamps, e.g. {@code 2024-01-15T10:30:00+0000}.
+     */
+    private static final DateTimeFormatter GRAPH_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
+
+    private final InstagramAccountRepository accountRepository;
+    private final InstagramMediaRepository mediaRepository;
+    private final InstagramMediaChildRepository childRepository;
+
+    public StoredDataReader(InstagramAccountRepository accountRepository,
+                            InstagramMediaRepository mediaRepository,
+                            InstagramMediaChildRepository childRepository) {
+        this.accountRepository = accountRepository;
+        this.mediaRepository = mediaRepository;
+        this.childRepository = childRepository;
+    }
+
+    /**
+     * @return the stored profile and newest {@code mediaLimit} media, marked stale; empty if the
+     * account was never synced
+     */
+    @Transactional(readOnly = true)
+    public Optional<InstagramDataResponse> load(Long accountId, Integer mediaLimit, FieldSelection selection) {
+        InstagramAccount account = accountRepository.findById(accountId).orElse(null);
+        if (account == null || account.getLastSyncedAt() == null) {
+            return Optional.empty();
+        }
+
+        InstagramDataResponse.InstagramDataResponseBuilder response = InstagramDataResponse.builder()
+                .stale(true)
+                .lastSyncedAt(account.getLastSyncedAt());
+        if (selection.includesProfile()) {
+            response.profile(toProfileDTO(account, selection));
+        }
+        if (selection.includesMedia()) {
+            int limit = mediaLimit != null ? mediaLimit : 25;
+            List<InstagramMedia> media = mediaRepository.findLatestByAccountId(accountId, PageRequest.of(0, limit));
+            response.media(toMediaDTOs(media, selection))
+                    .paging(InstagramDataResponse.PagingInfo.builder()
+                            .hasMore(media.size() == limit)
+                            .build());
+        }
+        return Optional.of(response.build());
+    }
+
+    /**
+     * Records a successful live fetch that started at {@code syncedAt}.
+     */
+    @Transactional
+    public void markSynced(Long accountId, LocalDateTime syncedAt) {
+        accountRepository.markSynced(accountId, syncedAt);
+    }
+
+    private static InstagramProfileDTO toProfileDTO(InstagramAccount account, FieldSelection selection) {
+        return InstagramProfileDTO.builder()
+                .id(account.getInstagramUserId())
+                .username(selection.hasProfileField("username") ? account.getUsername() : null)
+                .name(selection.hasProfileField("name") ? account.getName() : null)
+                .profilePictureUrl(selection.hasProfileField("profile_picture_url")
+                        ? account.getProfilePictureUrl() : null)
+                .biography(selection.hasProfileField("biography") ? account.getBiography() : null)
+                .website(selection.hasProfileField("website") ? account.getWebsite() : null)
+                .followersCount(selection.hasProfileField("followers_count") ? account.getFollowersCount() : null)
+                .followingCount(selection.hasProfileField("follows_count") ? account.getFollowingCount() : null)
+                .mediaCount(selection.hasProfileField("media_count") ? account.getMediaCount() : null)
+                .build();
+    }
+
+    private List<InstagramMediaDTO> toMediaDTOs(List<InstagramMedia> media, FieldSelection selection) {
+        Map<Long, List<InstagramMediaChildDTO>> children = new HashMap<>();
+        if (selection.hasMediaField("children") && !media.isEmpty()) {
+            List<InstagramMediaChild> stored = new ArrayList<>(childRepository.findByMediaIn(media));
+            stored.sort(Comparator.comparingInt(InstagramMediaChild::getPosition));
+            for (InstagramMediaChild child : stored) {
+                children.computeIfAbsent(child.getMedia().getId(), id -> new ArrayList<>())
+                        .add(InstagramMediaChildDTO.builder()
+                                .id(child.getChildMediaId())
+                                .mediaType(child.getMediaType())
+                                .mediaUrl(child.getMediaUrl())
+                                .thumbnailUrl(child.getThumbnailUrl())
+                                .build());
+            }
+        }
+
+        List<InstagramMediaDTO> dtos = new ArrayList<>(media.size());
+        for (InstagramMedia item : media) {
+            dtos.add(InstagramMediaDTO.builder()
+                    .id(item.getMediaId())
+                    .mediaType(selection.hasMediaField("media_type") ? item.getMediaType() : null)
+                    .mediaUrl(selection.hasMediaField("media_url") ? item.getMediaUrl() : null)
+                    .thumbnailUrl(selection.hasMediaField("thumbnail_url") ? item.getThumbnailUrl() : null)
+                    .permalink(selection.hasMediaField("permalink") ? item.getPermalink() : null)
+                    .caption(selection.hasMediaField("caption") ? item.getCaption() : null)
+                    .timestamp(selection.hasMediaField("timestamp") && item.getTimestamp() != null
+                            ? GRAPH_TIMESTAMP.format(item.getTimestamp().atOffset(ZoneOffset.UTC)) : null)
+                    .likeCount(selection.hasMediaField("like_count") ? item.getLikeCount() : null)
+                    .commentsCount(selection.hasMediaField("comments_count") ? item.getCommentsCount() : null)
+                    .children(selection.hasMediaField("children")
+                            && "CAROUSEL_ALBUM".equals(item.getMediaType())
+                            ? children.getOrDefault(item.getId(), List.of()) : null)
+                    .build());
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,80 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.SyncProperties;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Decides when an account is synced next, from the timestamps of its stored posts.
+ * <p>
+ * An account whose newest post is younger than {@code engagement-window} is synced every
+ * {@code min-interval}, since likes and comments on it are still coming in. Otherwise the
+ * expected time until its next post is the longer of its average gap between posts in
+ * {@code activity-window} and the time since its last post, and it is synced
+ * {@code syncs-per-post} times within that, but never more often than {@code min-interval} or
+ * less often than {@code max-interval}. Accounts that have not posted in the window get
+ * {@code max-interval}. Together with the {@code next_sync_at} order in which
+ * {@link AccountSyncLeases} claims due accounts, busy accounts stay fresh while dormant ones
+ * cost a Graph API call every few hours at most.
+ */
+@Component
+public class SyncIntervalPolicy {
+
+    /**
+     * Enough posts to estimate the posting rate of even very busy accounts.
+     */
+    private static final int SAMPLE_SIZE = 50;
+
+    private final InstagramMediaRepository mediaRepository;
+    private final SyncProperties properties;
+
+    public SyncIntervalPolicy(InstagramMediaRepository mediaRepository, SyncProperties properties) {
+        this.mediaRepository = mediaRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * @param now current time in UTC, the zone media timestamps are stored in
+     * @return time from {@code now} until the next sync of an account that just synced
+     */
+    public Duration nextInterval(Long accountId, LocalDateTime now) {
+        if (!properties.isAdaptive()) {
+            return properties.getInterval();
+        }
+        List<LocalDateTime> posted = mediaRepository.findTimestampsSince(accountId,
+                now.minus(properties.getActivityWindow()), PageRequest.of(0, SAMPLE_SIZE));
+        return intervalFor(posted, now);
+    }
+
+    /**
+     * @param posted post times within the activity window, newest first
+     */
+    Duration intervalFor(List<LocalDateTime> posted, LocalDateTime now) {
+        if (posted.isEmpty()) {
+            return properties.getMaxInterval();
+        }
+        Duration sinceNewest = Duration.between(posted.get(0), now);
+        if (sinceNewest.compareTo(properties.getEngagementWindow()) < 0) {
+            return properties.getMinInterval();
+        }
+        // A full sample may cover less than the window, so measure from its oldest post
+        Duration span = posted.size() < SAMPLE_SIZE
+                ? properties.getActivityWindow()
+                : Duration.between(posted.get(posted.size() - 1), now);
+        Duration averageGap = span.dividedBy(posted.size());
+        Duration expected = averageGap.compareTo(sinceNewest) > 0 ? averageGap : sinceNewest;
+        return clamp(expected.dividedBy(Math.max(1, properties.getSyncsPerPost())));
+    }
+
+    private Duration clamp(Duration interval) {
+        if (interval.compareTo(properties.getMinInterval()) < 0) {
+            return properties.getMinInterval();
+        }
+        return interval.compareTo(properties.getMaxInterval()) > 0 ? properties.getMaxInterval() : interval;
+    }
+}
@@ -0,0 +1,276 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.instagram.api.config.WebhookProperties;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.event.MediaSyncedEvent;
+import com.instagram.api.exception.InstagramApiException;
+import com.instagram.api.repository.InstagramAccountRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns Instagram webhook notifications into targeted single-media refreshes.
+ * <p>
+ * Changes of the {@code comments} field also sync the comments of their media through
+ * {@link MediaCommentService}, after the media itself is refreshed.
+ * <p>
+ * Changes are queued by the webhook endpoint and drained by one worker in batches of up to
+ * {@code batch-size} or whatever arrived within {@code batch-window}. Each batch resolves every
+ * account once and fetches every distinct media ID once, however many notifications mention it.
+ */
+@Service
+@ConditionalOnProperty(prefix = "instagram.webhook", name = "enabled", havingValue = "true")
+public class WebhookEventProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookEventProcessor.class);
+
+    private static final String COMMENTS_FIELD = "comments";
+
+    private final InstagramAccountRepository accountRepository;
+    private final InstagramDataService dataService;
+    private final MediaCommentService commentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WebhookProperties properties;
+    private final BlockingQueue<WebhookChange> queue;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong mediaFetched = new AtomicLong();
+    private final AtomicLong commentSyncs = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public WebhookEventProcessor(InstagramAccountRepository accountRepository,
+                                 InstagramDataService dataService,
+                                 MediaCommentService commentService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 WebhookProperties properties) {
+        this.accountRepository = accountRepository;
+        this.dataService = dataService;
+        this.commentService = commentService;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "webhook-processor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Extracts media-related changes from a webhook payload and queues all of them, or none if
+     * the queue has no room for the whole payload. Meta redelivers the whole payload, so queuing
+     * part of it would process those changes twice.
+     * <p>
+     * Synchronized so that the room checked is still there when the changes are offered: only
+     * this method adds to the queue, and the worker only takes from it.
+     *
+     * @return number of changes queued
+     * @throws InstagramApiException with status 503 when the queue is full, so Meta redelivers later
+     */
+    public synchronized int enqueue(JsonNode payload) {
+        List<WebhookChange> changes = parse(payload);
+        if (queue.remainingCapacity() < changes.size()) {
+            logger.warn("Webhook queue full ({} pending), rejecting delivery of {} changes", queue.size(), changes.size());
+            throw new InstagramApiException("Webhook queue is full", "WEBHOOK_BACKPRESSURE", 503);
+        }
+        queue.addAll(changes);
+        received.addAndGet(changes.size());
+        return changes.size();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getMediaFetchedCount() {
+        return mediaFetched.get();
+    }
+
+    public long getCommentSyncCount() {
+        return commentSyncs.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    private void drainLoop() {
+        List<WebhookChange> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                WebhookChange first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + properties.getBatchWindow().toNanos();
+                while (batch.size() < properties.getBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    queue.drainTo(batch, properties.getBatchSize() - batch.size());
+                    if (batch.size() < properties.getBatchSize()) {
+                        WebhookChange next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next != null) {
+                            batch.add(next);
+                        }
+                    }
+                }
+
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Failed to process webhook batch of {} changes", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void processBatch(List<WebhookChange> batch) {
+        batches.incrementAndGet();
+
+        Map<String, Set<String>> mediaByInstagramUser = new LinkedHashMap<>();
+        Map<String, Set<String>> commentedByInstagramUser = new LinkedHashMap<>();
+        for (WebhookChange change : batch) {
+            mediaByInstagramUser
+                    .computeIfAbsent(change.getInstagramUserId(), id -> new LinkedHashSet<>())
+                    .add(change.getMediaId());
+            if (COMMENTS_FIELD.equals(change.getField())) {
+                commentedByInstagramUser
+                        .computeIfAbsent(change.getInstagramUserId(), id -> new LinkedHashSet<>())
+                        .add(change.getMediaId());
+            }
+        }
+
+        logger.debug("Processing webhook batch: {} changes, {} accounts", batch.size(), mediaByInstagramUser.size());
+
+        mediaByInstagramUser.forEach((instagramUserId, mediaIds) -> {
+            Optional<InstagramAccount> account = accountRepository.findByInstagramUserId(instagramUserId)
+                    .filter(a -> Boolean.TRUE.equals(a.getIsActive()) && a.getAccessToken() != null);
+            if (account.isEmpty()) {
+                logger.debug("Ignoring webhook changes for unknown or inactive Instagram user: {}", instagramUserId);
+                return;
+            }
+            refreshMedia(account.get(), mediaIds);
+            Set<String> commented = commentedByInstagramUser.get(instagramUserId);
+            if (commented != null) {
+                syncComments(account.get(), commented);
+            }
+        });
+    }
+
+    private void syncComments(InstagramAccount account, Set<String> mediaIds) {
+        try {
+            commentService.syncComments(account, mediaIds);
+            commentSyncs.addAndGet(mediaIds.size());
+        } catch (Exception e) {
+            logger.warn("Failed to sync comments of {} media for webhook update: {}", mediaIds.size(), e.getMessage());
+        }
+    }
+
+    private void refreshMedia(InstagramAccount account, Set<String> mediaIds) {
+        List<InstagramMediaDTO> fetched = new ArrayList<>();
+        for (String mediaId : mediaIds) {
+            try {
+                fetched.add(dataService.fetchSingleMedia(account.getAccessToken(), mediaId));
+                mediaFetched.incrementAndGet();
+            } catch (Exception e) {
+                logger.warn("Failed to fetch media {} for webhook update: {}", mediaId, e.getMessage());
+            }
+        }
+        if (fetched.isEmpty()) {
+            return;
+        }
+
+        dataService.persistMedia(account, fetched);
+        eventPublisher.publishEvent(new MediaSyncedEvent(account.getUserId(),
+                fetched.stream().map(InstagramMediaDTO::getId).toList()));
+    }
+
+    /**
+     * Pulls (Instagram user, media) pairs out of a notification. Fields that carry no media
+     * reference (story insights, messaging) are ignored.
+     */
+    static List<WebhookChange> parse(JsonNode payload) {
+        List<WebhookChange> changes = new ArrayList<>();
+        if (payload == null || !payload.path("entry").isArray()) {
+            return changes;
+        }
+        for (JsonNode entry : payload.get("entry")) {
+            String instagramUserId = entry.path("id").asText(null);
+            if (instagramUserId == null) {
+                continue;
+            }
+            for (JsonNode change : entry.path("changes")) {
+                String field = change.path("field").asText("");
+                String mediaId = mediaIdOf(field, change.path("value"));
+                if (mediaId != null) {
+                    changes.add(new WebhookChange(instagramUserId, field, mediaId));
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static String mediaIdOf(String field, JsonNode value) {
+        if (value.path("media").hasNonNull("id")) {
+            return value.path("media").get("id").asText();
+        }
+        if (value.hasNonNull("media_id")) {
+            return value.get("media_id").asText();
+        }
+        if ("media".equals(field) && value.hasNonNull("id")) {
+            return value.get("id").asText();
+        }
+        return null;
+    }
+
+    @Value
+    static class WebhookChange {
+        String instagramUserId;
+        String field;
+        String mediaId;
+    }
+}
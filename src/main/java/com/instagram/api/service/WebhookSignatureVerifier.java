@@ -0,0 +1,56 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.WebhookProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Validates the {@code X-Hub-Signature-256} header Meta attaches to webhook deliveries:
+ * {@code sha256=<hex HMAC-SHA256 of the raw body keyed with the app secret>}.
+ */
+@Component
+public class WebhookSignatureVerifier {
+
+    private static final String PREFIX = "sha256=";
+
+    private final WebhookProperties properties;
+
+    public WebhookSignatureVerifier(WebhookProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isValid(byte[] body, String signatureHeader) {
+        if (signatureHeader == null || !signatureHeader.startsWith(PREFIX)
+                || properties.getAppSecret() == null || properties.getAppSecret().isEmpty()) {
+            return false;
+        }
+        byte[] expected = sign(properties.getAppSecret(), body);
+        byte[] provided;
+        try {
+            provided = HexFormat.of().parseHex(signatureHeader.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, provided);
+    }
+
+    public static String signatureHeader(String secret, byte[] body) {
+        return PREFIX + HexFormat.of().formatHex(sign(secret, body));
+    }
+
+    private static byte[] sign(String secret, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+-- Row leases that shard background sync across instances, and the adaptive sync schedule.
+-- V2 adds the index the candidate query uses.
+alter table instagram_accounts add column sync_lease_owner varchar(100);
+alter table instagram_accounts add column sync_lease_expires_at timestamp(6);
+alter table instagram_accounts add column next_sync_at timestamp(6);
+alter table instagram_accounts add column last_synced_at timestamp(6);
@@ -0,0 +1,15 @@
+-- Images and videos of carousel albums, in display order
+create sequence instagram_media_children_seq start with 1 increment by 50;
+
+create table instagram_media_children (
+    id bigint not null,
+    media_id bigint not null,
+    child_media_id varchar(255) not null,
+    position integer not null,
+    media_type varchar(255),
+    media_url varchar(2000),
+    thumbnail_url varchar(2000),
+    constraint pk_instagram_media_children primary key (id),
+    constraint uk_media_child unique (media_id, child_media_id),
+    constraint fk_media_children_media foreign key (media_id) references instagram_media (id) on delete cascade
+);
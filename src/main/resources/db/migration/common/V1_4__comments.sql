@@ -0,0 +1,21 @@
+-- Synced comments with their replies, and where an unfinished backfill of a post resumes
+create sequence instagram_comments_seq start with 1 increment by 50;
+
+create table instagram_comments (
+    id bigint not null,
+    comment_id varchar(255) not null,
+    media_id bigint not null,
+    parent_comment_id varchar(255),
+    username varchar(255),
+    text varchar(2200),
+    like_count integer,
+    timestamp timestamp(6) not null,
+    created_at timestamp(6),
+    constraint pk_instagram_comments primary key (id),
+    constraint uk_comments_comment_id unique (comment_id),
+    constraint fk_comments_media foreign key (media_id) references instagram_media (id) on delete cascade
+);
+
+create index idx_comments_media_thread on instagram_comments (media_id, parent_comment_id, timestamp, id);
+
+alter table instagram_media add column comments_backfill_cursor varchar(500);
@@ -0,0 +1,2 @@
+-- Media IDs of an account in chunks, for the purge and comment sync
+create index idx_media_account on instagram_media (account_id, id);
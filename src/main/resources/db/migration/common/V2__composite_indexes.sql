@@ -0,0 +1,6 @@
+-- Sync candidate query: active accounts due for sync, oldest first, ties by id
+drop index if exists idx_accounts_next_sync;
+create index idx_accounts_sync_due on instagram_accounts (is_active, next_sync_at, id);
+
+-- Recent media of an account, newest first
+create index idx_media_account_timestamp on instagram_media (account_id, timestamp desc, id);
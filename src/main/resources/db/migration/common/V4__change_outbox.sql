@@ -0,0 +1,31 @@
+-- Change events written in the same transaction as the account or media change they describe,
+-- deleted once the relay has handed them to the sink. No foreign key: events of an account
+-- outlive its purge.
+create table instagram_outbox (
+    id bigint generated by default as identity,
+    account_id bigint not null,
+    user_id varchar(255) not null,
+    account_sequence bigint not null,
+    event_type varchar(32) not null,
+    media_id varchar(255),
+    payload varchar(16000) not null,
+    created_at timestamp(6) not null,
+    constraint pk_instagram_outbox primary key (id)
+);
+
+-- Last sequence number handed out per account; taking the next one locks the account row, so
+-- writers of one account commit their events in sequence order
+alter table instagram_accounts add column outbox_sequence bigint default 0 not null;
+
+-- Relay checkpoint and the lease that keeps a single instance relaying at a time
+create table instagram_outbox_relay (
+    name varchar(64) not null,
+    last_event_id bigint,
+    relayed_count bigint default 0 not null,
+    lease_owner varchar(100),
+    lease_expires_at timestamp(6),
+    updated_at timestamp(6),
+    constraint pk_instagram_outbox_relay primary key (name)
+);
+
+insert into instagram_outbox_relay (name, relayed_count) values ('default', 0);
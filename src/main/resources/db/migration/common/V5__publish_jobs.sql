@@ -0,0 +1,25 @@
+-- Content publishing requests, worked off by the publish poller. next_attempt_at is when the
+-- job is next due and, while an instance works on it, when its lease expires; it is null once
+-- the job has finished. No foreign key: jobs are deleted together with their purged account.
+create table instagram_publish_jobs (
+    id bigint generated by default as identity,
+    account_id bigint not null,
+    user_id varchar(255) not null,
+    media_type varchar(16) not null,
+    media_url varchar(2048) not null,
+    caption varchar(2200),
+    status varchar(16) not null,
+    container_id varchar(255),
+    published_media_id varchar(255),
+    status_checks integer default 0 not null,
+    attempts integer default 0 not null,
+    error_message varchar(1000),
+    next_attempt_at timestamp(6),
+    lease_owner varchar(100),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    constraint pk_instagram_publish_jobs primary key (id)
+);
+
+create index idx_publish_jobs_due on instagram_publish_jobs (next_attempt_at, id);
+create index idx_publish_jobs_account on instagram_publish_jobs (account_id, id);
@@ -0,0 +1,12 @@
+-- Hashtags and mentions extracted from captions, for tag search
+create table instagram_media_tags (
+    id bigint generated by default as identity,
+    media_id bigint not null,
+    tag_type enum ('HASHTAG', 'MENTION') not null,
+    tag varchar(150) not null,
+    constraint pk_instagram_media_tags primary key (id),
+    constraint uk_media_tag unique (media_id, tag_type, tag),
+    constraint fk_media_tags_media foreign key (media_id) references instagram_media (id) on delete cascade
+);
+
+create index idx_media_tags_lookup on instagram_media_tags (tag_type, tag, media_id);
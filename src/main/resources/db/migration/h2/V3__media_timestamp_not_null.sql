@@ -0,0 +1,3 @@
+-- Matches the PostgreSQL branch, where timestamp is the partition key of instagram_media
+update instagram_media set timestamp = coalesce(created_at, localtimestamp) where timestamp is null;
+alter table instagram_media alter column timestamp set not null;
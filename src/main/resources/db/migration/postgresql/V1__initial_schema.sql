@@ -0,0 +1,46 @@
+-- Schema of the last release, which hibernate.ddl-auto created from its entities. Databases that
+-- ddl-auto already created are baselined at this version (spring.flyway.baseline-on-migrate) and
+-- skip it; everything added since comes in later migrations that run on both.
+
+create table instagram_accounts (
+    id bigint generated by default as identity,
+    user_id varchar(255) not null,
+    instagram_user_id varchar(255),
+    instagram_business_account_id varchar(255),
+    username varchar(255),
+    name varchar(255),
+    profile_picture_url varchar(1000),
+    biography varchar(2000),
+    website varchar(255),
+    followers_count integer,
+    following_count integer,
+    media_count integer,
+    access_token varchar(500),
+    token_type varchar(255),
+    token_expires_at timestamp(6),
+    is_active boolean,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    constraint pk_instagram_accounts primary key (id),
+    constraint uk_accounts_user_id unique (user_id),
+    constraint uk_accounts_instagram_user_id unique (instagram_user_id)
+);
+
+create table instagram_media (
+    id bigint generated by default as identity,
+    media_id varchar(255) not null,
+    account_id bigint not null,
+    media_type varchar(255),
+    media_url varchar(2000),
+    thumbnail_url varchar(2000),
+    permalink varchar(1000),
+    caption varchar(5000),
+    timestamp timestamp(6),
+    like_count integer,
+    comments_count integer,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    constraint pk_instagram_media primary key (id),
+    constraint uk_media_media_id unique (media_id),
+    constraint fk_media_account foreign key (account_id) references instagram_accounts (id)
+);
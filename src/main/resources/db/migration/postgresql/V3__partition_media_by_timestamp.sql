@@ -0,0 +1,115 @@
+-- Range-partitions instagram_media by publish timestamp: yearly partitions from 2010 (Instagram's
+-- launch) to the end of last year, monthly ones from this year on. MediaPartitionMaintenance
+-- keeps creating monthly partitions ahead and detaches and drops expired ones.
+--
+-- Unique constraints of a partitioned table must include the partition key, so:
+--   * the primary key becomes (id, timestamp); ids still come from one sequence and stay unique,
+--   * media_id is unique together with timestamp, which Instagram never changes for a media item,
+--   * tags, children and comments can no longer reference instagram_media by id. Their rows are
+--     deleted with their media by AccountPurgeStore and instagram_media_drop_partition instead
+--     of by ON DELETE CASCADE.
+-- timestamp becomes NOT NULL; media stored without a publish time use their creation time.
+
+do $$
+declare
+    fk record;
+begin
+    for fk in select conrelid::regclass as child, conname
+              from pg_constraint
+              where contype = 'f' and confrelid = 'instagram_media'::regclass
+    loop
+        execute format('alter table %s drop constraint %I', fk.child, fk.conname);
+    end loop;
+end $$;
+
+alter table instagram_media rename to instagram_media_unpartitioned;
+
+-- Own sequence instead of an identity column, whose sequence the old table still holds
+create sequence instagram_media_seq;
+
+create table instagram_media (
+    id bigint not null default nextval('instagram_media_seq'),
+    media_id varchar(255) not null,
+    account_id bigint not null,
+    media_type varchar(255),
+    media_url varchar(2000),
+    thumbnail_url varchar(2000),
+    permalink varchar(1000),
+    caption varchar(5000),
+    "timestamp" timestamp(6) not null,
+    like_count integer,
+    comments_count integer,
+    comments_backfill_cursor varchar(500),
+    created_at timestamp(6),
+    updated_at timestamp(6)
+) partition by range ("timestamp");
+
+alter sequence instagram_media_seq owned by instagram_media.id;
+
+-- Creates the monthly partitions from from_month through months_ahead months after the current
+-- one that do not exist yet, and returns how many it created.
+create function instagram_media_create_partitions(from_month date, months_ahead integer) returns integer
+language plpgsql as $$
+declare
+    month date := date_trunc('month', from_month)::date;
+    partition_name text;
+    created integer := 0;
+begin
+    while month <= date_trunc('month', localtimestamp)::date + make_interval(months => months_ahead) loop
+        partition_name := 'instagram_media_p' || to_char(month, 'YYYY_MM');
+        if to_regclass(partition_name) is null then
+            -- if not exists: another instance may be running this at the same time
+            execute format('create table if not exists %I partition of instagram_media for values from (%L) to (%L)',
+                           partition_name, month, month + interval '1 month');
+            created := created + 1;
+        end if;
+        month := month + interval '1 month';
+    end loop;
+    return created;
+end $$;
+
+do $$
+begin
+    for year in 2010 .. extract(year from localtimestamp)::integer - 1 loop
+        execute format('create table %I partition of instagram_media for values from (%L) to (%L)',
+                       'instagram_media_p' || year, make_date(year, 1, 1), make_date(year + 1, 1, 1));
+    end loop;
+end $$;
+
+select instagram_media_create_partitions(date_trunc('year', localtimestamp)::date, 3);
+
+-- Anything outside the ranges above (clock skew, bogus timestamps)
+create table instagram_media_default partition of instagram_media default;
+
+insert into instagram_media (id, media_id, account_id, media_type, media_url, thumbnail_url, permalink, caption,
+                             "timestamp", like_count, comments_count, comments_backfill_cursor, created_at, updated_at)
+select id, media_id, account_id, media_type, media_url, thumbnail_url, permalink, caption,
+       coalesce("timestamp", created_at, localtimestamp), like_count, comments_count, comments_backfill_cursor,
+       created_at, updated_at
+from instagram_media_unpartitioned;
+
+select setval('instagram_media_seq', coalesce((select max(id) from instagram_media), 0) + 1, false);
+
+drop table instagram_media_unpartitioned;
+
+alter table instagram_media add constraint pk_instagram_media primary key (id, "timestamp");
+alter table instagram_media add constraint uk_media_media_id unique (media_id, "timestamp");
+alter table instagram_media add constraint fk_media_account foreign key (account_id) references instagram_accounts (id);
+create index idx_media_account on instagram_media (account_id, id);
+create index idx_media_account_timestamp on instagram_media (account_id, "timestamp" desc, id);
+
+-- Detaches a partition, deletes the tags, children and comments of its media and drops it.
+-- Returns the number of media rows dropped.
+create function instagram_media_drop_partition(partition_name text) returns bigint
+language plpgsql as $$
+declare
+    dropped bigint;
+begin
+    execute format('alter table instagram_media detach partition %I', partition_name);
+    execute format('delete from instagram_media_tags where media_id in (select id from %I)', partition_name);
+    execute format('delete from instagram_media_children where media_id in (select id from %I)', partition_name);
+    execute format('delete from instagram_comments where media_id in (select id from %I)', partition_name);
+    execute format('select count(*) from %I', partition_name) into dropped;
+    execute format('drop table %I', partition_name);
+    return dropped;
+end $$;
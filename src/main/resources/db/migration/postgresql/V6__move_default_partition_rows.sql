@@ -0,0 +1,29 @@
+-- A partition cannot be created while the default partition holds rows in its range, which
+-- happens once media with a timestamp beyond the created months (clock skew, bogus timestamps)
+-- come within months_ahead. The rows are now moved out of the default partition into the new
+-- one, in the same transaction.
+create or replace function instagram_media_create_partitions(from_month date, months_ahead integer) returns integer
+language plpgsql as $$
+declare
+    month date := date_trunc('month', from_month)::date;
+    partition_name text;
+    created integer := 0;
+begin
+    while month <= date_trunc('month', localtimestamp)::date + make_interval(months => months_ahead) loop
+        partition_name := 'instagram_media_p' || to_char(month, 'YYYY_MM');
+        if to_regclass(partition_name) is null then
+            execute 'create temp table instagram_media_moved (like instagram_media) on commit drop';
+            execute 'with moved as (delete from instagram_media_default where "timestamp" >= $1 and "timestamp" < $2 returning *)'
+                    || ' insert into instagram_media_moved select * from moved'
+                using month, month + interval '1 month';
+            -- if not exists: another instance may be running this at the same time
+            execute format('create table if not exists %I partition of instagram_media for values from (%L) to (%L)',
+                           partition_name, month, month + interval '1 month');
+            execute 'insert into instagram_media select * from instagram_media_moved';
+            execute 'drop table instagram_media_moved';
+            created := created + 1;
+        end if;
+        month := month + interval '1 month';
+    end loop;
+    return created;
+end $$;
@@ -0,0 +1,5 @@
+-- GIN index for caption keyword search, built with instagram.search.text-search-config, which
+-- the search queries use as well. Created on the partitioned table, so every partition, including
+-- those created later by instagram_media_create_partitions, gets its own index.
+create index if not exists idx_instagram_media_caption_fts
+    on instagram_media using gin (to_tsvector('${textSearchConfig}', coalesce(caption, '')));
@@ -0,0 +1,80 @@
+package com.instagram.api;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.service.ServiceRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import jakarta.persistence.Entity;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upgrades a database the way the last release before Flyway left it: created by
+ * {@code ddl-auto} from that release's entities, holding data. Flyway must baseline it at
+ * version 1, apply every later migration, and end up with the schema the current entities
+ * validate against.
+ */
+class SchemaMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:baseline;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void databaseCreatedByTheLastReleaseShouldMigrateToTheCurrentSchema() {
+        MetadataSources baseline = new MetadataSources(registry("update"))
+                .addAnnotatedClass(com.instagram.baseline.InstagramAccount.class)
+                .addAnnotatedClass(com.instagram.baseline.InstagramMedia.class);
+        try (SessionFactory ignored = baseline.buildMetadata().buildSessionFactory()) {
+            // ddl-auto ran while the session factory was built
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        jdbcTemplate.update("insert into instagram_accounts (user_id, is_active) values ('user123', true)");
+        jdbcTemplate.update("insert into instagram_media (media_id, account_id, created_at)"
+                + " select 'media1', id, timestamp '2024-01-15 10:30:00' from instagram_accounts");
+
+        Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        MetadataSources current = new MetadataSources(registry("validate"));
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        scanner.findCandidateComponents("com.instagram.api.entity")
+                .forEach(entity -> current.addAnnotatedClassName(entity.getBeanClassName()));
+        // Throws if a table or column of the current entities is missing or of the wrong type
+        current.buildMetadata().buildSessionFactory().close();
+
+        Map<String, Object> media = jdbcTemplate.queryForMap("select media_id, timestamp, comments_backfill_cursor"
+                + " from instagram_media");
+        assertEquals("media1", media.get("MEDIA_ID"));
+        assertNotNull(media.get("TIMESTAMP"));
+        assertNull(media.get("COMMENTS_BACKFILL_CURSOR"));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from instagram_accounts where next_sync_at is null",
+                Integer.class));
+    }
+
+    private static ServiceRegistry registry(String ddlAuto) {
+        return new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.hbm2ddl.auto", ddlAuto)
+                // Entity listeners are Spring beans; the schema checks do not need them
+                .applySetting("hibernate.jpa_callbacks.enabled", false)
+                .applySetting("hibernate.connection.url", URL)
+                .applySetting("hibernate.connection.username", "sa")
+                .applySetting("hibernate.connection.password", "")
+                .applySetting("hibernate.physical_naming_strategy",
+                        "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy")
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.instagram.api.benchmark;
+
+import com.instagram.api.config.RateLimitProperties;
+import com.instagram.api.service.RequestRateLimiter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of a rate limit check per request, next to a plain {@code ConcurrentHashMap} lookup of
+ * the same keys as baseline. Run with {@code mvn test -Pbenchmark -Dtest=RateLimiterOverheadBenchmark}.
+ * <p>
+ * Two key distributions per thread count: many users (every check its own bucket, mostly
+ * uncontended) and a single hot user (every thread CASing the same bucket). Limits are set high
+ * enough that no request is rejected, so all checks take the full path.
+ * <p>
+ * Tunables (system properties): {@code benchmark.ratelimit.users} (default 10000) and
+ * {@code benchmark.ratelimit.seconds} (measured seconds per run, default 2).
+ */
+@Tag("benchmark")
+class RateLimiterOverheadBenchmark {
+
+    @Test
+    void checksPerSecondAcrossThreads() throws Exception {
+        int users = Integer.getInteger("benchmark.ratelimit.users", 10_000);
+        long seconds = Long.getLong("benchmark.ratelimit.seconds", 2);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(Integer.MAX_VALUE);
+        limit.setPeriod(Duration.ofSeconds(1));
+        RequestRateLimiter limiter = new RequestRateLimiter(properties);
+        String[] userIds = new String[users];
+        ConcurrentHashMap<String, String> baselineMap = new ConcurrentHashMap<>();
+        for (int i = 0; i < users; i++) {
+            userIds[i] = "user-" + i;
+            baselineMap.put(userIds[i], userIds[i]);
+        }
+
+        Check baseline = index -> baselineMap.get(userIds[Math.floorMod(index, users)]) != null;
+        Check manyUsers = index ->
+                limiter.tryAcquire("/api/instagram/data", userIds[Math.floorMod(index, users)], limit).isZero();
+        Check hotUser = index -> limiter.tryAcquire("/api/instagram/data", userIds[0], limit).isZero();
+
+        // Warm up JIT
+        for (Check check : List.of(baseline, manyUsers, hotUser)) {
+            run(check, 2, 1);
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int t = 1; t < cores; t *= 2) {
+            threadCounts.add(t);
+        }
+        threadCounts.add(cores);
+
+        System.out.printf("%nRate limit check overhead: %d users, %ds per run, %d cores%n", users, seconds, cores);
+        System.out.printf("%-9s %-20s %-20s %-20s%n", "threads", "map lookup ns/op", "many users ns/op", "hot user ns/op");
+        for (int threads : threadCounts) {
+            double baselineNanos = run(baseline, threads, seconds);
+            double manyUsersNanos = run(manyUsers, threads, seconds);
+            double hotUserNanos = run(hotUser, threads, seconds);
+            System.out.printf("%-9d %-20.1f %-20.1f %-20.1f%n", threads, baselineNanos, manyUsersNanos, hotUserNanos);
+        }
+        System.out.printf("(ns/op is wall time per check per thread; Graph API calls take tens of milliseconds)%n");
+    }
+
+    /**
+     * Runs {@code check} on {@code threads} threads for {@code seconds} and returns the average
+     * nanoseconds per check on one thread.
+     */
+    private double run(Check check, int threads, long seconds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            LongAdder operations = new LongAdder();
+            CountDownLatch start = new CountDownLatch(1);
+            long deadline = TimeUnit.SECONDS.toNanos(seconds);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * 7919;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    long count = 0;
+                    boolean sink = false;
+                    while (System.nanoTime() - begin < deadline) {
+                        for (int i = 0; i < 1024; i++) {
+                            sink ^= check.run(offset + (int) count + i);
+                        }
+                        count += 1024;
+                    }
+                    operations.add(count);
+                    return sink;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (double) TimeUnit.SECONDS.toNanos(seconds) * threads / operations.sum();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        boolean run(int index);
+    }
+}
@@ -0,0 +1,108 @@
+package com.instagram.api.benchmark;
+
+import com.instagram.api.config.RenditionProperties;
+import com.instagram.api.service.ImageRenditionRenderer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendition throughput across pool sizes. Run with {@code mvn test -Pbenchmark}.
+ * <p>
+ * Tunables (system properties): {@code benchmark.renditions.images} (default 48) and
+ * {@code benchmark.renditions.edge} (source image edge in px, default 1080).
+ */
+@Tag("benchmark")
+class RenditionThroughputBenchmark {
+
+    private static final List<Integer> SIZES = List.of(150, 320, 640);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void throughputAcrossCoreCounts() throws Exception {
+        int imageCount = Integer.getInteger("benchmark.renditions.images", 48);
+        int edge = Integer.getInteger("benchmark.renditions.edge", 1080);
+        List<Path> sources = createSources(imageCount, edge);
+        ImageRenditionRenderer renderer = new ImageRenditionRenderer(new RenditionProperties());
+        // As in the application, see StartupConfig
+        ImageIO.setUseCache(false);
+
+        // Warm up JIT and ImageIO codecs
+        runOnce(renderer, sources.subList(0, Math.min(4, sources.size())), 1, "warmup");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> parallelisms = new ArrayList<>();
+        for (int p = 1; p < cores; p *= 2) {
+            parallelisms.add(p);
+        }
+        parallelisms.add(cores);
+
+        System.out.printf("%nRendition throughput: %d images of %dx%d px -> %s, %d cores%n",
+                imageCount, edge, edge, SIZES, cores);
+        System.out.printf("%-12s %-12s %-14s %-10s%n", "parallelism", "elapsed ms", "images/sec", "speedup");
+
+        double baseline = 0;
+        for (int parallelism : parallelisms) {
+            double imagesPerSecond = runOnce(renderer, sources, parallelism, "p" + parallelism);
+            if (baseline == 0) {
+                baseline = imagesPerSecond;
+            }
+            System.out.printf("%-12d %-12d %-14.1f %-10.2f%n", parallelism,
+                    Math.round(imageCount / imagesPerSecond * 1000), imagesPerSecond, imagesPerSecond / baseline);
+        }
+    }
+
+    private double runOnce(ImageRenditionRenderer renderer, List<Path> sources, int parallelism, String label)
+            throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i++) {
+                Path source = sources.get(i);
+                Path target = tempDir.resolve(label).resolve(String.valueOf(i));
+                futures.add(pool.submit(() -> {
+                    renderer.render(source, SIZES, target, 0.85f);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            return sources.size() / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private List<Path> createSources(int count, int edge) throws Exception {
+        List<Path> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(edge, edge, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setPaint(new GradientPaint(0, 0, new Color(i * 5 % 255, 80, 160),
+                    edge, edge, new Color(240, i * 11 % 255, 40)));
+            graphics.fillRect(0, 0, edge, edge);
+            graphics.dispose();
+            Path file = tempDir.resolve("source-" + i + ".jpg");
+            ImageIO.write(image, "jpeg", file.toFile());
+            sources.add(file);
+        }
+        return sources;
+    }
+}
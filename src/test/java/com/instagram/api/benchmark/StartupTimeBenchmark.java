@@ -0,0 +1,242 @@
+package com.instagram.api.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.InstagramApiIntegrationApplication;
+import com.instagram.api.loadtest.GraphApiStub;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Time from JVM launch to the first successful requests, per run mode. Run with
+ * {@code mvn test -Pbenchmark -Dtest=StartupTimeBenchmark}.
+ * <p>
+ * Every run starts the application in a fresh JVM against an in-memory H2 database and a
+ * {@link GraphApiStub}, then polls {@code /link} until it answers 200 ("first request") and
+ * completes the OAuth {@code /callback}, which needs the Graph API and the database ("first
+ * linked account"). Modes:
+ * <ul>
+ *     <li>{@code full} - the default configuration, every bean created during startup</li>
+ *     <li>{@code startup} - the startup profile (lazy initialization, no JMX, deferred repositories)</li>
+ *     <li>{@code startup+aot} - plus the AOT initializers, if {@code mvn -Pstartup package} ran</li>
+ *     <li>{@code startup+aot+cds} - plus the class data sharing archive in {@code target/startup}</li>
+ * </ul>
+ * Tunables (system properties): {@code benchmark.startup.runs} (default 3, the median is
+ * reported) and {@code benchmark.startup.timeout} (seconds per launch, default 120).
+ */
+@Tag("benchmark")
+class StartupTimeBenchmark {
+
+    private static final String AOT_INITIALIZER =
+            InstagramApiIntegrationApplication.class.getName() + "__ApplicationContextInitializer";
+    private static final Path STARTUP_DIR = Paths.get("target", "startup");
+    private static final String CDS_ARCHIVE = "application.jsa";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static GraphApiStub stub;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        stub = GraphApiStub.start(new GraphApiStub.Options());
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void timeToFirstSuccessfulRequest() throws Exception {
+        int runs = Integer.getInteger("benchmark.startup.runs", 3);
+
+        List<Mode> modes = new ArrayList<>();
+        modes.add(new Mode("full", List.of(), testClasspath(), List.of()));
+        modes.add(new Mode("startup", List.of(), testClasspath(), List.of("--spring.profiles.active=startup")));
+        if (hasAotInitializer()) {
+            modes.add(new Mode("startup+aot", List.of("-Dspring.aot.enabled=true"), testClasspath(),
+                    List.of("--spring.profiles.active=startup")));
+        }
+        Path extractedJar = extractedJar();
+        if (extractedJar != null && Files.exists(STARTUP_DIR.resolve(CDS_ARCHIVE))) {
+            // The archive was recorded with the extracted jar alone; H2 is appended, which CDS allows
+            String classpath = extractedJar.toAbsolutePath() + java.io.File.pathSeparator + h2Jar();
+            modes.add(new Mode("startup+aot+cds",
+                    List.of("-XX:SharedArchiveFile=" + STARTUP_DIR.resolve(CDS_ARCHIVE).toAbsolutePath(),
+                            "-Xlog:cds=error", "-Dspring.aot.enabled=true"),
+                    classpath, List.of("--spring.profiles.active=startup")));
+        }
+
+        System.out.printf("%nStartup time to first successful request, median of %d runs, %d cores%n",
+                runs, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-18s %-20s %-22s%n", "mode", "first request ms", "first linked account ms");
+        for (Mode mode : modes) {
+            long[] firstRequest = new long[runs];
+            long[] firstLink = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] result = launch(mode, run);
+                firstRequest[run] = result[0];
+                firstLink[run] = result[1];
+            }
+            System.out.printf("%-18s %-20d %-22d%n", mode.name(), median(firstRequest), median(firstLink));
+        }
+        if (modes.size() < 4) {
+            System.out.println("Run mvn -Pstartup package -DskipTests first to include the AOT and CDS modes.");
+        }
+    }
+
+    /**
+     * @return milliseconds from launch to the first 200 from {@code /link} and to the completed
+     * {@code /callback}
+     */
+    private long[] launch(Mode mode, int run) throws Exception {
+        int port = freePort();
+        Path log = tempDir.resolve(mode.name() + "-" + run + ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.jvmArgs());
+        command.add("-cp");
+        command.add(mode.classpath());
+        command.add(InstagramApiIntegrationApplication.class.getName());
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.flyway.locations=classpath:db/migration/common,classpath:db/migration/h2",
+                "--instagram.renditions.enabled=false",
+                "--instagram.media-cache.directory=" + tempDir.resolve("media-cache-" + mode.name() + "-" + run),
+                "--instagram.api.base-url=" + stub.baseUri(),
+                "--instagram.api.facebook-graph-url=" + stub.baseUri()));
+        command.addAll(mode.appArgs());
+
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("benchmark.startup.timeout", 120));
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            String userId = "startup-" + mode.name() + "-" + run;
+            URI base = URI.create("http://localhost:" + port);
+            JsonNode link = null;
+            while (link == null) {
+                assertTrue(process.isAlive(), () -> mode.name() + " exited early:\n" + tail(log));
+                assertTrue(System.nanoTime() - start < timeoutNanos, () -> mode.name() + " timed out:\n" + tail(log));
+                link = tryGet(base.resolve("/api/instagram/link?userId=" + userId));
+                if (link == null) {
+                    Thread.sleep(10);
+                }
+            }
+            long firstRequest = System.nanoTime() - start;
+
+            String state = link.path("data").path("state").asText();
+            JsonNode callback = tryGet(base.resolve("/api/instagram/callback?code=startup-code&state=" + state));
+            assertTrue(callback != null, () -> mode.name() + " callback failed:\n" + tail(log));
+            long firstLink = System.nanoTime() - start;
+
+            return new long[]{TimeUnit.NANOSECONDS.toMillis(firstRequest), TimeUnit.NANOSECONDS.toMillis(firstLink)};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * @return the parsed body of a 200 response, or {@code null} while the server is not up yet
+     * or answered with any other status
+     */
+    private JsonNode tryGet(URI uri) throws IOException, InterruptedException {
+        try {
+            HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? objectMapper.readTree(response.body()) : null;
+        } catch (ConnectException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasAotInitializer() {
+        try {
+            Class.forName(AOT_INITIALIZER, false, StartupTimeBenchmark.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Path extractedJar() throws IOException {
+        if (!Files.isDirectory(STARTUP_DIR)) {
+            return null;
+        }
+        try (var files = Files.list(STARTUP_DIR)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar")).findFirst().orElse(null);
+        }
+    }
+
+    private static String h2Jar() throws Exception {
+        return Paths.get(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    private static String testClasspath() {
+        return System.getProperty("java.class.path");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static String tail(Path log) {
+        try {
+            List<String> lines = Files.readAllLines(log);
+            return String.join("\n", lines.subList(Math.max(0, lines.size() - 40), lines.size()));
+        } catch (IOException e) {
+            return "(no log: " + e.getMessage() + ")";
+        }
+    }
+
+    private record Mode(String name, List<String> jvmArgs, String classpath, List<String> appArgs) {
+    }
+}
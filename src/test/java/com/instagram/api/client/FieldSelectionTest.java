@@ -0,0 +1,51 @@
+package com.instagram.api.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldSelectionTest {
+
+    @Test
+    void parse_ShouldDefaultToEverything() {
+        assertEquals(FieldSelection.ALL, FieldSelection.parse(null, null, " "));
+        assertEquals(GraphApiClient.PROFILE_FIELDS, FieldSelection.ALL.profileFieldList());
+        assertEquals(GraphApiClient.MEDIA_FIELDS, FieldSelection.ALL.mediaFieldList());
+    }
+
+    @Test
+    void parse_ShouldCanonicalizeFieldsAndAlwaysIncludeId() {
+        FieldSelection selection = FieldSelection.parse("Media", null, "timestamp, PERMALINK,permalink");
+
+        assertFalse(selection.includesProfile());
+        assertTrue(selection.includesMedia());
+        assertEquals(List.of("id", "permalink", "timestamp"), selection.mediaFields());
+        assertEquals(selection, FieldSelection.parse("media", "", "permalink,timestamp"));
+    }
+
+    @Test
+    void parse_ShouldAlwaysSelectTheMediaTimestamp() {
+        FieldSelection selection = FieldSelection.parse(null, "username", "like_count");
+
+        assertEquals(List.of("id", "username"), selection.profileFields());
+        assertEquals(List.of("id", "timestamp", "like_count"), selection.mediaFields());
+    }
+
+    @Test
+    void parse_ShouldRejectValuesOutsideTheAllowList() {
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.parse("profile,insights", null, null));
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.parse(null, "access_token", null));
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.parse("profile", null, "permalink"));
+    }
+
+    @Test
+    void mediaFieldList_ShouldExpandNestedFieldsByName() {
+        FieldSelection selection = FieldSelection.parse("media", null, "children,caption");
+
+        assertEquals(List.of("id", "caption", "timestamp", "children"), selection.mediaFields());
+        assertEquals("id,caption,timestamp,children{" + GraphApiClient.CHILD_FIELDS + "}", selection.mediaFieldList());
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.parse("media", null, "children{id}"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.instagram.api.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.config.InstagramConfig;
+import com.instagram.api.config.RequestDeadline;
+import com.instagram.api.dto.InstagramProfileDTO;
+import com.instagram.api.exception.DeadlineExceededException;
+import com.instagram.api.exception.GraphApiException;
+import com.instagram.api.loadtest.GraphApiStub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphApiClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GraphApiStub stub;
+
+    @AfterEach
+    void tearDown() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void templateShouldEncodeValuesAsSingleComponents() {
+        GraphRequestTemplate template = GraphRequestTemplate.compile(
+                "https://graph.facebook.com/v18.0/{id}?fields=id%2Cusername&access_token={token}");
+
+        assertEquals("https://graph.facebook.com/v18.0/17841%2F..?fields=id%2Cusername&access_token=a%2Bb%26c%3Dd",
+                template.expand("17841/..", "a+b&c=d").toString());
+        assertThrows(IllegalArgumentException.class, () -> template.expand("only-id"));
+    }
+
+    @Test
+    void shouldFetchPagesProfileAndMediaFromConfiguredHosts() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options().mediaPerAccount(4));
+        GraphApiClient client = client(config(stub.baseUri().toString()));
+
+        assertEquals("long-a+b&c=d", client.exchangeLongLivedToken("app", "secret", "a+b&c=d").getAccessToken());
+
+        String accountId = client.getPages("token").at("/data/0/instagram_business_account/id").asText();
+        InstagramProfileDTO profile = client.getProfile(accountId, "token");
+        assertEquals(accountId, profile.getId());
+        assertEquals(4, profile.getMediaCount());
+
+        JsonNode page = client.getMediaPage(accountId, "token", 3);
+        assertEquals(3, page.get("data").size());
+        String mediaId = page.at("/data/0/id").asText();
+        assertEquals(mediaId, client.getMedia(mediaId, "token").get("id").asText());
+
+        assertEquals(1L, stub.getRequestsByEndpoint().get("media"));
+    }
+
+    @Test
+    void narrowFieldSelectionShouldShrinkUpstreamPayload() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options().mediaPerAccount(25));
+        GraphApiClient client = client(config(stub.baseUri().toString()));
+
+        JsonNode full = client.getMediaPage("17841", "token", 25);
+        long fullBytes = stub.getResponseBytes();
+
+        FieldSelection selection = FieldSelection.parse("media", null, "permalink");
+        JsonNode narrow = client.getMediaPage("17841", "token", 25, selection.mediaFieldList());
+        long narrowBytes = stub.getResponseBytes() - fullBytes;
+
+        assertEquals(25, narrow.get("data").size());
+        List<String> fields = new ArrayList<>();
+        narrow.at("/data/0").fieldNames().forEachRemaining(fields::add);
+        assertEquals(List.of("id", "permalink", "timestamp"), fields);
+        assertTrue(full.at("/data/0").has("caption"));
+        assertTrue(narrowBytes * 3 < fullBytes, "narrow " + narrowBytes + " vs full " + fullBytes + " bytes");
+
+        InstagramProfileDTO counts = client.getProfile("17841", "token", "id,followers_count");
+        assertNotNull(counts.getFollowersCount());
+        assertNull(counts.getUsername());
+    }
+
+    @Test
+    void shouldAcceptVersionedGraphUrlAndBuildVersionedDialogUrl() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options());
+        InstagramConfig config = config(stub.baseUri() + "/v19.0/");
+        config.setGraphApiVersion("v19.0");
+        GraphApiClient client = client(config);
+
+        assertTrue(client.getPages("token").has("data"));
+        assertEquals("https://www.facebook.com/v19.0/dialog/oauth", client.getAuthorizationDialogUrl());
+    }
+
+    @Test
+    void shouldDecodeGraphErrors() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options().errorRate(1.0));
+        GraphApiException unavailable = assertThrows(GraphApiException.class,
+                () -> client(config(stub.baseUri().toString())).getPages("token"));
+        assertEquals(502, unavailable.getStatusCode());
+        assertEquals("GRAPH_UNAVAILABLE", unavailable.getErrorCode());
+        assertTrue(unavailable.isTransient());
+        stub.close();
+
+        stub = GraphApiStub.start(new GraphApiStub.Options().callQuota(2, Duration.ofHours(1)));
+        GraphApiClient limited = client(config(stub.baseUri().toString()));
+        limited.getPages("token");
+        GraphApiException throttled = assertThrows(GraphApiException.class, () -> limited.getPages("token"));
+        assertTrue(throttled.isRateLimited());
+        assertEquals(4, throttled.getGraphErrorCode());
+
+        GraphApiClient client = client(config("http://127.0.0.1:1"));
+        assertEquals("GRAPH_INVALID_TOKEN", client.decodeError(HttpStatus.BAD_REQUEST,
+                "{\"error\":{\"message\":\"expired\",\"code\":190,\"error_subcode\":463}}", "test").getErrorCode());
+        assertEquals(404, client.decodeError(HttpStatus.BAD_REQUEST,
+                "{\"error\":{\"code\":100,\"error_subcode\":33}}", "test").getStatusCode());
+        assertEquals("GRAPH_ERROR", client.decodeError(HttpStatus.BAD_REQUEST, "not json", "test").getErrorCode());
+
+        GraphApiException unreachable = assertThrows(GraphApiException.class, () -> client.getPages("token"));
+        assertEquals(502, unreachable.getStatusCode());
+    }
+
+    @Test
+    void shouldStopGraphCallsAtTheRequestDeadline() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options().latency(GraphApiStub.LatencyModel.fixed(2000)));
+        GraphApiClient client = client(config(stub.baseUri().toString()));
+        List<String> exceeded = new ArrayList<>();
+
+        RequestDeadline deadline = new RequestDeadline(Duration.ofMillis(200), exceeded::add);
+        try (RequestDeadline.Scope scope = RequestDeadline.attach(deadline)) {
+            long started = System.nanoTime();
+            DeadlineExceededException slow = assertThrows(DeadlineExceededException.class,
+                    () -> client.getPages("token"));
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1500);
+            assertEquals(504, slow.getStatusCode());
+            assertEquals("graph me/accounts", slow.getStage());
+
+            assertThrows(DeadlineExceededException.class, () -> client.refreshToken("token"));
+        }
+        assertNull(RequestDeadline.current());
+        assertEquals(List.of("graph me/accounts", "graph token refresh"), exceeded);
+        assertEquals(1L, stub.getRequestCount());
+    }
+
+    @Test
+    void shouldGiveUpOnSlowResponsesWithoutADeadline() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options().latency(GraphApiStub.LatencyModel.fixed(2000)));
+        InstagramConfig config = config(stub.baseUri().toString());
+        config.setResponseTimeout(Duration.ofMillis(200));
+        GraphApiClient client = client(config);
+
+        long started = System.nanoTime();
+        GraphApiException slow = assertThrows(GraphApiException.class, () -> client.getPages("token"));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1500);
+        assertTrue(slow.isTransient());
+        assertEquals("GRAPH_UNAVAILABLE", slow.getErrorCode());
+    }
+
+    private GraphApiClient client(InstagramConfig config) {
+        return new GraphApiClient(WebClient.create(), objectMapper, config);
+    }
+
+    private static InstagramConfig config(String graphUrl) {
+        InstagramConfig config = new InstagramConfig();
+        config.setBaseUrl(graphUrl);
+        config.setFacebookGraphUrl(graphUrl);
+        return config;
+    }
+}
@@ -0,0 +1,84 @@
+package com.instagram.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "instagram.rate-limit.default-limit.capacity=3",
+        "instagram.rate-limit.default-limit.period=1h",
+        "instagram.rate-limit.endpoints[0].path=/api/instagram/refresh",
+        "instagram.rate-limit.endpoints[0].capacity=2",
+        "instagram.rate-limit.endpoints[0].period=1h",
+        "instagram.rate-limit.endpoints[1].path=/api/instagram/link",
+        "instagram.rate-limit.endpoints[1].capacity=2",
+        "instagram.rate-limit.endpoints[1].period=1h",
+        "instagram.rate-limit.endpoints[1].key=client-ip"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitInterceptorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void endpointLimit_ShouldRejectWith429AndRetryAfter_PerUser() throws Exception {
+        // Unknown users get 404 without touching the Graph API, which is all the limit needs
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/instagram/refresh").param("userId", "refresh-user"))
+                    .andExpect(status().isNotFound());
+        }
+
+        mockMvc.perform(post("/api/instagram/refresh").param("userId", "refresh-user"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1800"))
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value(containsString("/api/instagram/refresh")));
+        mockMvc.perform(post("/api/instagram/refresh").param("userId", "other-refresh-user"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void defaultLimit_ShouldApplyPerEndpoint() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/instagram/status").param("userId", "status-user"))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/instagram/status").param("userId", "status-user"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+        mockMvc.perform(get("/api/instagram/media/search").param("q", "sunset").param("userId", "status-user"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void link_ShouldBeLimitedPerClientAddress_WhateverTheUserId() throws Exception {
+        mockMvc.perform(link("link-user-1", "192.0.2.1")).andExpect(status().isOk());
+        mockMvc.perform(link("link-user-2", "192.0.2.1")).andExpect(status().isOk());
+
+        mockMvc.perform(link("link-user-3", "192.0.2.1")).andExpect(status().isTooManyRequests());
+        mockMvc.perform(link("link-user-3", "192.0.2.2")).andExpect(status().isOk());
+    }
+
+    private static MockHttpServletRequestBuilder link(String userId, String clientAddress) {
+        return get("/api/instagram/link")
+                .param("userId", userId)
+                .with(request -> {
+                    request.setRemoteAddr(clientAddress);
+                    return request;
+                });
+    }
+}
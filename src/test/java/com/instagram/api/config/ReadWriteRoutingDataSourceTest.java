@@ -0,0 +1,171 @@
+package com.instagram.api.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.event.InstagramAccountChangedEvent;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Routing between two embedded databases: the primary, migrated by the application, and a
+ * "replica" that the test migrates and fills itself. Nothing replicates between them, so where
+ * a row is visible shows which database served the read.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "instagram.datasource.replicas[0].url=" + ReadWriteRoutingDataSourceTest.REPLICA_URL,
+        "instagram.datasource.lag-query=select lag_seconds from replica_lag",
+        "instagram.datasource.max-replica-lag=5s",
+        "instagram.datasource.lag-check-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadWriteRoutingDataSourceTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = createReplica();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @AfterEach
+    void tearDown() {
+        mediaRepository.deleteAll();
+        accountRepository.deleteAll();
+        replica.update("delete from instagram_accounts");
+        setReplicaLag(0);
+    }
+
+    @Test
+    void readOnlyWork_ShouldGoToReplica_AndEverythingElseToPrimary() {
+        routingDataSource.checkReplicas();
+        replica.update("insert into instagram_accounts (user_id, is_active) values ('replica-user', true)");
+        saveAccount("primary-user");
+
+        assertTrue(existsReadOnly("replica-user"));
+        assertFalse(existsReadOnly("primary-user"));
+
+        assertEquals(Boolean.TRUE,
+                transactionTemplate.execute(status -> accountRepository.existsByUserIdAndIsActiveTrue("primary-user")));
+        assertTrue(accountRepository.existsByUserIdAndIsActiveTrue("primary-user"));
+        assertEquals(Boolean.TRUE, ReadWriteRoutingDataSource.callOnPrimary(() -> existsReadOnly("primary-user")));
+    }
+
+    @Test
+    void laggingReplica_ShouldBeSkippedUntilItCatchesUp() {
+        saveAccount("primary-user");
+
+        setReplicaLag(60);
+        routingDataSource.checkReplicas();
+        assertFalse(routingDataSource.isReplicaAvailable("replica-0"));
+        assertTrue(existsReadOnly("primary-user"));
+
+        setReplicaLag(1.5);
+        routingDataSource.checkReplicas();
+        assertTrue(routingDataSource.isReplicaAvailable("replica-0"));
+        assertFalse(existsReadOnly("primary-user"));
+    }
+
+    @Test
+    void requestsOfJustLinkedUser_ShouldReadTheirOwnWrites() throws Exception {
+        routingDataSource.checkReplicas();
+        for (String userId : new String[]{"linked-user", "other-user"}) {
+            InstagramAccount account = saveAccount(userId);
+            mediaRepository.save(InstagramMedia.builder()
+                    .account(account)
+                    .mediaId(userId + "-media")
+                    .caption("Sunset over the bay")
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+        eventPublisher.publishEvent(InstagramAccountChangedEvent.linked("linked-user"));
+
+        assertEquals(1, searchHits("linked-user"));
+        // Not changed recently, so served by the replica, which has not seen the media
+        assertEquals(0, searchHits("other-user"));
+    }
+
+    private boolean existsReadOnly(String userId) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return Boolean.TRUE.equals(readOnly.execute(status -> accountRepository.existsByUserIdAndIsActiveTrue(userId)));
+    }
+
+    private int searchHits(String userId) throws Exception {
+        JsonNode response = objectMapper.readTree(mockMvc.perform(get("/api/instagram/media/search")
+                        .param("q", "sunset")
+                        .param("userId", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        return response.at("/data/results").size();
+    }
+
+    private InstagramAccount saveAccount(String userId) {
+        return accountRepository.save(InstagramAccount.builder()
+                .userId(userId)
+                .instagramUserId(userId + "-ig")
+                .accessToken("token")
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build());
+    }
+
+    private static void setReplicaLag(double seconds) {
+        replica.update("update replica_lag set lag_seconds = ?", seconds);
+    }
+
+    private static JdbcTemplate createReplica() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists replica_lag (lag_seconds double precision)");
+        jdbcTemplate.update("insert into replica_lag values (0)");
+        return jdbcTemplate;
+    }
+}
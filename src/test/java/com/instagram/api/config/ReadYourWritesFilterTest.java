@@ -0,0 +1,70 @@
+package com.instagram.api.config;
+
+import com.instagram.api.event.InstagramAccountChangedEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesFilterTest {
+
+    private DataSourceRoutingProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DataSourceRoutingProperties();
+        DataSourceRoutingProperties.Replica replica = new DataSourceRoutingProperties.Replica();
+        replica.setUrl("jdbc:postgresql://replica-1:5432/instagram_db");
+        properties.getReplicas().add(replica);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readsAfterAChangeOnAnotherNodeShouldGoToThePrimary() throws Exception {
+        MockHttpServletRequest unlink = new MockHttpServletRequest("DELETE", "/api/instagram/unlink");
+        MockHttpServletResponse unlinkResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(unlink, unlinkResponse));
+        new ReadYourWritesFilter(properties).onAccountChanged(InstagramAccountChangedEvent.unlinked("user123"));
+        RequestContextHolder.resetRequestAttributes();
+        Cookie cookie = unlinkResponse.getCookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+
+        ReadYourWritesFilter otherNode = new ReadYourWritesFilter(properties);
+        MockHttpServletRequest status = new MockHttpServletRequest("GET", "/api/instagram/status");
+        status.setParameter("userId", "user123");
+        assertFalse(readsFromPrimary(otherNode, status));
+
+        status.setCookies(cookie);
+        assertTrue(readsFromPrimary(otherNode, status));
+    }
+
+    @Test
+    void cookieShouldNotPinReadsBeyondOneWindow() throws Exception {
+        long farFuture = System.currentTimeMillis() + properties.getReadYourWritesWindow().toMillis() * 100;
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/instagram/status");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, String.valueOf(farFuture)));
+
+        assertFalse(readsFromPrimary(new ReadYourWritesFilter(properties), request));
+    }
+
+    private static boolean readsFromPrimary(ReadYourWritesFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        AtomicBoolean pinned = new AtomicBoolean();
+        FilterChain chain = (req, res) -> pinned.set(ReadWriteRoutingDataSource.isPinnedToPrimary());
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return pinned.get();
+    }
+}
@@ -0,0 +1,105 @@
+package com.instagram.api.config;
+
+import com.instagram.api.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RequestDeadlineFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RequestDeadlineFilter filter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        filter.bindTo(registry);
+    }
+
+    @Test
+    void exhaustedBudget_ShouldAnswer504WithoutStartingDatabaseWork() throws Exception {
+        // Unknown users get 404 after one lookup, which is all the deadline needs
+        mockMvc.perform(get("/api/instagram/data").param("userId", "deadline-user"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/instagram/data").param("userId", "expired-deadline-user")
+                        .header("X-Request-Timeout", "0"))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.success").value(false));
+
+        assertEquals(1.0, registry.find("request.deadline.exceeded").counters().stream()
+                .filter(counter -> counter.getId().getTag("stage").startsWith("db "))
+                .mapToDouble(counter -> counter.count())
+                .sum());
+    }
+
+    @Test
+    void timeoutHeader_ShouldBeCappedAndFallBackToTheDefault() {
+        assertEquals(Duration.ofMillis(1500), filter.timeoutOf(request("1500")));
+        assertEquals(Duration.ofSeconds(3), filter.timeoutOf(request("3s")));
+        assertEquals(Duration.ofSeconds(60), filter.timeoutOf(request("10m")));
+        assertEquals(Duration.ofSeconds(15), filter.timeoutOf(request("soon")));
+        assertEquals(Duration.ofSeconds(15), filter.timeoutOf(request(null)));
+    }
+
+    @Test
+    void deadline_ShouldFollowWorkToOtherThreadsAndBoundTransactions() {
+        List<String> exceeded = new ArrayList<>();
+
+        try (RequestDeadline.Scope scope = RequestDeadline.attach(new RequestDeadline(Duration.ofSeconds(5), exceeded::add))) {
+            assertSame(RequestDeadline.current(),
+                    CompletableFuture.supplyAsync(RequestDeadline.propagate(RequestDeadline::current)).join());
+            int timeToLive = transactionTemplate.execute(status -> ((EntityManagerHolder)
+                    TransactionSynchronizationManager.getResource(entityManagerFactory)).getTimeToLiveInSeconds());
+            assertTrue(timeToLive > 0 && timeToLive <= 5, "transaction timeout " + timeToLive);
+        }
+        assertNull(CompletableFuture.supplyAsync(RequestDeadline.propagate(RequestDeadline::current)).join());
+
+        try (RequestDeadline.Scope scope = RequestDeadline.attach(new RequestDeadline(Duration.ZERO, exceeded::add))) {
+            assertThrows(DeadlineExceededException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            }));
+        }
+        assertEquals(List.of("db"), exceeded);
+    }
+
+    private static MockHttpServletRequest request(String timeout) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/instagram/data");
+        if (timeout != null) {
+            request.addHeader("X-Request-Timeout", timeout);
+        }
+        return request;
+    }
+}
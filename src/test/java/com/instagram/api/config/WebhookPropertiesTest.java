@@ -0,0 +1,30 @@
+package com.instagram.api.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookPropertiesTest {
+
+    @Test
+    void enabledWebhooksShouldRequireVerifyTokenAndAppSecret() {
+        WebhookProperties properties = new WebhookProperties();
+        properties.setEnabled(true);
+        properties.setVerifyToken("verify-me");
+        properties.setAppSecret(" ");
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, properties::afterPropertiesSet);
+        assertTrue(ex.getMessage().contains("app-secret"));
+
+        properties.setAppSecret("app-secret");
+        assertDoesNotThrow(properties::afterPropertiesSet);
+    }
+
+    @Test
+    void webhooksShouldBeOffByDefaultAndNeedNoSecrets() {
+        WebhookProperties properties = new WebhookProperties();
+
+        assertFalse(properties.isEnabled());
+        assertDoesNotThrow(properties::afterPropertiesSet);
+    }
+}
@@ -0,0 +1,106 @@
+package com.instagram.api.controller;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.dto.DataBatchResult;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.service.DataBatchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(DataBatchController.class)
+class DataBatchControllerTest {
+
+    private static final String BODY = "{\"userIds\":[\"user123\",\"user456\"],\"include\":\"profile\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DataBatchService batchService;
+
+    @Test
+    @WithMockUser
+    void fetchBatch_ShouldReturnResultPerUser() throws Exception {
+        when(batchService.fetchData(eq(List.of("user123", "user456")), eq(25), any()))
+                .thenReturn(List.of(success("user123"), notFound("user456")));
+
+        mockMvc.perform(post("/api/instagram/data/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY)
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Instagram data fetched for 1 of 2 users"))
+                .andExpect(jsonPath("$.data[0].status").value(200))
+                .andExpect(jsonPath("$.data[1].errorCode").value("ACCOUNT_NOT_FOUND"));
+
+        verify(batchService).fetchData(any(), eq(25), eq(FieldSelection.parse("profile", null, null)));
+    }
+
+    @Test
+    @WithMockUser
+    @SuppressWarnings("unchecked")
+    void fetchBatch_ShouldStreamOneLinePerUser() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<DataBatchResult> sink = invocation.getArgument(3);
+            sink.accept(notFound("user456"));
+            sink.accept(success("user123"));
+            return null;
+        }).when(batchService).fetchData(anyList(), any(), any(), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(post("/api/instagram/data/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-ndjson")
+                        .content(BODY)
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(org.hamcrest.Matchers.matchesPattern(
+                        "\\{\"userId\":\"user456\".*}\n\\{\"userId\":\"user123\".*}\n")));
+    }
+
+    @Test
+    @WithMockUser
+    void fetchBatch_ShouldRejectTooManyUsers() throws Exception {
+        StringBuilder body = new StringBuilder("{\"userIds\":[");
+        for (int i = 0; i <= 200; i++) {
+            body.append(i == 0 ? "" : ",").append("\"user").append(i).append('"');
+        }
+
+        mockMvc.perform(post("/api/instagram/data/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body.append("]}").toString())
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(batchService);
+    }
+
+    private static DataBatchResult success(String userId) {
+        return DataBatchResult.builder().userId(userId).success(true).status(200)
+                .data(new InstagramDataResponse()).build();
+    }
+
+    private static DataBatchResult notFound(String userId) {
+        return DataBatchResult.builder().userId(userId).success(false).status(404)
+                .errorCode("ACCOUNT_NOT_FOUND").error("No active Instagram account found for user: " + userId).build();
+    }
+}
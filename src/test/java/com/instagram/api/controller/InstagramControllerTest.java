@@ -1,17 +1,22 @@
 package com.instagram.api.controller;
 
+import com.instagram.api.client.FieldSelection;
 import com.instagram.api.dto.*;
 import com.instagram.api.service.InstagramAccountService;
+import com.instagram.api.service.InstagramDataFallback;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +33,9 @@ class InstagramControllerTest {
     @MockBean
     private InstagramAccountService accountService;
 
+    @MockBean
+    private InstagramDataFallback dataFallback;
+
     private OAuthUrlResponse oAuthUrlResponse;
     private LinkAccountResponse linkAccountResponse;
     private InstagramDataResponse dataResponse;
@@ -100,7 +108,7 @@ class InstagramControllerTest {
     @Test
     @WithMockUser
     void fetchData_ShouldReturnInstagramData() throws Exception {
-        when(accountService.fetchData(anyString(), anyInt())).thenReturn(dataResponse);
+        when(dataFallback.fetchData(anyString(), anyInt(), any())).thenReturn(dataResponse);
 
         mockMvc.perform(get("/api/instagram/data")
                         .param("userId", "user123")
@@ -110,7 +118,50 @@ class InstagramControllerTest {
                 .andExpect(jsonPath("$.data.profile.username").value("testuser"))
                 .andExpect(jsonPath("$.data.profile.followersCount").value(1000));
 
-        verify(accountService).fetchData("user123", 25);
+        verify(dataFallback).fetchData("user123", 25, FieldSelection.ALL);
+    }
+
+    @Test
+    @WithMockUser
+    void fetchData_ShouldMarkStoredDataAsStale() throws Exception {
+        dataResponse.setStale(true);
+        dataResponse.setLastSyncedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        when(dataFallback.fetchData(anyString(), anyInt(), any())).thenReturn(dataResponse);
+
+        mockMvc.perform(get("/api/instagram/data")
+                        .param("userId", "user123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Instagram is slow or unavailable; returning stored data"))
+                .andExpect(jsonPath("$.data.stale").value(true))
+                .andExpect(jsonPath("$.data.lastSyncedAt").value("2024-01-15T10:30:00"))
+                .andExpect(jsonPath("$.data.profile.username").value("testuser"));
+    }
+
+    @Test
+    @WithMockUser
+    void fetchData_ShouldPassFieldSelection() throws Exception {
+        when(dataFallback.fetchData(anyString(), anyInt(), any())).thenReturn(dataResponse);
+
+        mockMvc.perform(get("/api/instagram/data")
+                        .param("userId", "user123")
+                        .param("include", "profile")
+                        .param("profileFields", "followers_count, media_count"))
+                .andExpect(status().isOk());
+
+        verify(dataFallback).fetchData("user123", 25,
+                new FieldSelection(List.of("id", "followers_count", "media_count"), List.of()));
+    }
+
+    @Test
+    @WithMockUser
+    void fetchData_ShouldRejectUnknownField() throws Exception {
+        mockMvc.perform(get("/api/instagram/data")
+                        .param("userId", "user123")
+                        .param("mediaFields", "permalink,access_token"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.containsString("access_token")));
+
+        verifyNoInteractions(accountService);
     }
 
     @Test
@@ -156,4 +207,32 @@ class InstagramControllerTest {
 
         verify(accountService).isAccountLinked("user123");
     }
+
+    @Test
+    @WithMockUser
+    void checkStatusBulk_ShouldReturnStatusPerUser() throws Exception {
+        when(accountService.getLinkStatuses(List.of("user123", "user456")))
+                .thenReturn(Map.of("user123", true, "user456", false));
+
+        mockMvc.perform(post("/api/instagram/status/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[\"user123\",\"user456\"]}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.user123").value(true))
+                .andExpect(jsonPath("$.data.user456").value(false));
+    }
+
+    @Test
+    @WithMockUser
+    void checkStatusBulk_ShouldRejectEmptyList() throws Exception {
+        mockMvc.perform(post("/api/instagram/status/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[]}")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verifyNoInteractions(accountService);
+    }
 }
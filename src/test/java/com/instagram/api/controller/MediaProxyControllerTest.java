@@ -0,0 +1,170 @@
+package com.instagram.api.controller;
+
+import com.instagram.api.config.MediaCacheProperties;
+import com.instagram.api.exception.MediaNotFoundException;
+import com.instagram.api.service.MediaBinaryCache;
+import com.instagram.api.service.MediaProxyService;
+import com.instagram.api.service.MediaRenditionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
+
+@WebMvcTest(MediaProxyController.class)
+@Import(MediaCacheProperties.class)
+class MediaProxyControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private MediaProxyService mediaProxyService;
+
+    @MockBean
+    private MediaRenditionService renditionService;
+
+    @TempDir
+    Path tempDir;
+
+    private MediaBinaryCache.CachedBinary binary;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = tempDir.resolve("blob");
+        Files.writeString(file, "0123456789", StandardCharsets.UTF_8);
+        binary = new MediaBinaryCache.CachedBinary(file, 10, "image/jpeg", "abc123",
+                FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaContent_ShouldStreamFullBodyWithCacheHeaders() throws Exception {
+        when(mediaProxyService.getMediaBinary("m1", MediaProxyService.Variant.MEDIA)).thenReturn(binary);
+
+        mockMvc.perform(get("/api/instagram/media/m1/content"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().string("0123456789"))
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().string("Cache-Control", containsString("immutable")));
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaContent_ShouldHandLargeBodiesToSendfile() throws Exception {
+        Path file = Files.write(tempDir.resolve("large"), new byte[64 * 1024]);
+        when(mediaProxyService.getMediaBinary("m1", MediaProxyService.Variant.MEDIA))
+                .thenReturn(new MediaBinaryCache.CachedBinary(file, 64 * 1024, "image/jpeg", "large",
+                        FileChannel.open(file, StandardOpenOption.READ)));
+
+        mockMvc.perform(get("/api/instagram/media/m1/content")
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 64L * 1024))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaContent_ShouldCopySmallBodiesEvenWithSendfile() throws Exception {
+        when(mediaProxyService.getMediaBinary("m1", MediaProxyService.Variant.MEDIA)).thenReturn(binary);
+
+        mockMvc.perform(get("/api/instagram/media/m1/content")
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaContent_ShouldServeSingleRange() throws Exception {
+        when(mediaProxyService.getMediaBinary("m1", MediaProxyService.Variant.THUMBNAIL)).thenReturn(binary);
+
+        mockMvc.perform(get("/api/instagram/media/m1/content")
+                        .param("variant", "thumbnail")
+                        .header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaContent_ShouldRejectUnsatisfiableRange() throws Exception {
+        when(mediaProxyService.getMediaBinary(anyString(), any())).thenReturn(binary);
+
+        mockMvc.perform(get("/api/instagram/media/m1/content").header("Range", "bytes=50-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaContent_ShouldReturnNotModified_WhenEtagMatches() throws Exception {
+        when(mediaProxyService.getMediaBinary(anyString(), any())).thenReturn(binary);
+
+        mockMvc.perform(get("/api/instagram/media/m1/content").header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaContent_ShouldReturnNotFound_WhenMediaUnknown() throws Exception {
+        when(mediaProxyService.getMediaBinary(anyString(), any()))
+                .thenThrow(new MediaNotFoundException("No stored media found with id: nope"));
+
+        mockMvc.perform(get("/api/instagram/media/nope/content"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    @WithMockUser
+    void getProfilePicture_ShouldRevalidateRatherThanCacheForever() throws Exception {
+        when(mediaProxyService.getProfilePicture("user123")).thenReturn(binary);
+
+        mockMvc.perform(get("/api/instagram/profile-picture").param("userId", "user123"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=3600, public"));
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaRendition_ShouldStreamRendition() throws Exception {
+        when(renditionService.getRendition("m1", 320)).thenReturn(binary);
+
+        mockMvc.perform(get("/api/instagram/media/m1/renditions/320"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @WithMockUser
+    void getMediaRendition_ShouldRejectUnsupportedSize() throws Exception {
+        when(renditionService.getRendition("m1", 999))
+                .thenThrow(new IllegalArgumentException("Unsupported rendition size: 999"));
+
+        mockMvc.perform(get("/api/instagram/media/m1/renditions/999"))
+                .andExpect(status().isBadRequest());
+    }
+}
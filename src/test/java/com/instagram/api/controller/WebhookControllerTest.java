@@ -0,0 +1,111 @@
+package com.instagram.api.controller;
+
+import com.instagram.api.config.WebhookProperties;
+import com.instagram.api.service.WebhookEventProcessor;
+import com.instagram.api.service.WebhookSignatureVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(WebhookController.class)
+@Import({WebhookProperties.class, WebhookSignatureVerifier.class})
+@TestPropertySource(properties = {
+        "instagram.webhook.enabled=true",
+        "instagram.webhook.verify-token=verify-me",
+        "instagram.webhook.app-secret=app-secret"
+})
+class WebhookControllerTest {
+
+    private static final String PAYLOAD = """
+            {"object":"instagram","entry":[{"id":"ig123","time":1700000000,
+             "changes":[{"field":"comments","value":{"id":"c1","text":"hi","media":{"id":"m1"}}}]}]}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private WebhookEventProcessor eventProcessor;
+
+    @Test
+    @WithMockUser
+    void verifySubscription_ShouldEchoChallenge_WhenTokenMatches() throws Exception {
+        mockMvc.perform(get("/api/instagram/webhook")
+                        .param("hub.mode", "subscribe")
+                        .param("hub.verify_token", "verify-me")
+                        .param("hub.challenge", "1158201444"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1158201444"));
+    }
+
+    @Test
+    @WithMockUser
+    void verifySubscription_ShouldRejectWrongToken() throws Exception {
+        mockMvc.perform(get("/api/instagram/webhook")
+                        .param("hub.mode", "subscribe")
+                        .param("hub.verify_token", "wrong")
+                        .param("hub.challenge", "1158201444"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser
+    void receiveNotification_ShouldQueueSignedPayload() throws Exception {
+        byte[] body = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+        when(eventProcessor.enqueue(any())).thenReturn(1);
+
+        mockMvc.perform(post("/api/instagram/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Hub-Signature-256", WebhookSignatureVerifier.signatureHeader("app-secret", body))
+                        .content(body)
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").value(1));
+
+        verify(eventProcessor).enqueue(argThat(node -> node.path("entry").size() == 1));
+    }
+
+    @Test
+    @WithMockUser
+    void receiveNotification_ShouldRejectBadSignature() throws Exception {
+        byte[] body = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/instagram/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Hub-Signature-256", WebhookSignatureVerifier.signatureHeader("other-secret", body))
+                        .content(body)
+                        .with(csrf()))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Invalid webhook signature"));
+
+        verifyNoInteractions(eventProcessor);
+    }
+
+    @Test
+    @WithMockUser
+    void receiveNotification_ShouldRejectMissingSignature() throws Exception {
+        mockMvc.perform(post("/api/instagram/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(PAYLOAD)
+                        .with(csrf()))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Invalid webhook signature"));
+
+        verifyNoInteractions(eventProcessor);
+    }
+}
@@ -0,0 +1,40 @@
+package com.instagram.api.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal {@code --key=value} parser for the load-test tools. Falls back to system properties
+ * ({@code -Dkey=value}) so the same knobs work from Maven.
+ */
+final class Arguments {
+
+    private final Map<String, String> values;
+
+    private Arguments(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static Arguments parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return new Arguments(values);
+    }
+
+    boolean has(String key) {
+        return values.containsKey(key) || System.getProperty(key) != null;
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, System.getProperty(key, defaultValue));
+    }
+
+    int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,41 @@
+package com.instagram.api.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Offline load test of the account lifecycle endpoints against the Graph stub. Run with
+ * {@code mvn test -Pload-test}; tune with the {@link GraphLoadDriver} options as system
+ * properties, e.g. {@code -Dusers=500 -Dconcurrency=64 -Dstub.error-rate=0.02}.
+ */
+@Tag("load")
+class GraphApiLoadTest {
+
+    @Test
+    void accountLifecycleUnderLoad() throws Exception {
+        Arguments arguments = Arguments.parse(new String[0]);
+        GraphLoadDriver.Settings settings = GraphLoadDriver.Settings.from(arguments);
+
+        try (GraphApiStub stub = GraphApiStub.start(GraphApiStub.Options.from(arguments));
+             ConfigurableApplicationContext context = GraphLoadDriver.startApplication(stub)) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            URI url = URI.create("http://127.0.0.1:" + port);
+
+            List<GraphLoadDriver.PhaseResult> results = new GraphLoadDriver(url, settings).run();
+            GraphLoadDriver.print(url, settings, results, stub);
+
+            for (GraphLoadDriver.PhaseResult result : results) {
+                assertEquals(0, result.failed(), "transport failures in phase " + result.name());
+                assertTrue(result.count(200) > 0, "no successful requests in phase " + result.name());
+            }
+            assertEquals(settings.users(), results.get(0).count(200), "every /link call should succeed");
+        }
+    }
+}
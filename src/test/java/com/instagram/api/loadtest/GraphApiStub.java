@@ -0,0 +1,686 @@
+package com.instagram.api.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the Graph API endpoints this service calls: the OAuth token
+ * exchanges, {@code me/accounts}, business profiles, paginated media and single media objects.
+ * <p>
+ * Every response is delayed according to a {@link LatencyModel}. A configurable share of calls
+ * fails with a transient Graph error, and another share is throttled. Every response carries
+ * {@code X-App-Usage} and {@code X-Business-Use-Case-Usage} headers computed against a call quota
+ * per window, and calls beyond the quota are throttled the way Graph does (error code 4).
+ * Paths are accepted with or without a {@code /vNN.N} version prefix, and profile and media
+ * objects honour the {@code fields} parameter, including nested {@code children{...}} expansion
+ * of the carousel albums among the generated media. Media comments are served newest first with
+ * stable cursors and inline replies; {@link #addComments} simulates new activity on a post.
+ * Media containers can be created, their status read in batches with {@code ?ids=}, and
+ * published; each container reports {@code IN_PROGRESS} for its first
+ * {@link Options#containerProcessingChecks} status reads, or {@code ERROR} if its media URL
+ * contains {@code broken}.
+ */
+public class GraphApiStub implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Pattern VERSION_PREFIX = Pattern.compile("^/v\\d+\\.\\d+");
+    private static final LocalDateTime COMMENTS_START = LocalDateTime.of(2024, 2, 1, 0, 0);
+    private static final DateTimeFormatter GRAPH_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'+0000'");
+    public static final int CAROUSEL_SIZE = 3;
+    public static final int REPLIES_PER_THREAD = 2;
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final Map<String, LongAdder> requestsByEndpoint = new ConcurrentHashMap<>();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong windowCalls = new AtomicLong();
+    private final Map<String, Integer> addedComments = new ConcurrentHashMap<>();
+    private final Map<String, Container> containers = new ConcurrentHashMap<>();
+    private final AtomicLong nextContainer = new AtomicLong();
+
+    private GraphApiStub(Options options) throws IOException {
+        this.options = options;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", options.port), 1024);
+        this.executor = Executors.newFixedThreadPool(options.threads, runnable -> {
+            Thread thread = new Thread(runnable, "graph-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public static GraphApiStub start(Options options) throws IOException {
+        GraphApiStub stub = new GraphApiStub(options);
+        stub.server.start();
+        return stub;
+    }
+
+    public URI baseUri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.sum();
+    }
+
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * Total size of all response bodies sent so far.
+     */
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    /**
+     * Posts {@code count} new top-level comments on a media item; they become its newest comments
+     * and are included in its {@code comments_count}.
+     */
+    public void addComments(String mediaId, int count) {
+        addedComments.merge(mediaId, count, Integer::sum);
+    }
+
+    /**
+     * IDs of the media published so far.
+     */
+    public List<String> getPublishedMediaIds() {
+        return containers.values().stream()
+                .map(container -> {
+                    synchronized (container) {
+                        return container.publishedMediaId;
+                    }
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public Map<String, Long> getRequestsByEndpoint() {
+        Map<String, Long> counts = new HashMap<>();
+        requestsByEndpoint.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            String path = VERSION_PREFIX.matcher(exchange.getRequestURI().getPath()).replaceFirst("");
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if ("POST".equals(exchange.getRequestMethod())) {
+                query.putAll(parseQuery(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+            }
+
+            sleep(options.latency.sample());
+
+            int usagePercent = recordUsage();
+            exchange.getResponseHeaders().add("X-App-Usage",
+                    "{\"call_count\":%d,\"total_cputime\":%d,\"total_time\":%d}"
+                            .formatted(usagePercent, usagePercent / 2, usagePercent / 2));
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (usagePercent >= 100 || random.nextDouble() < options.rateLimitRate) {
+                throttled.increment();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(options.window.toSeconds()));
+                send(exchange, 400, error("Application request limit reached", "OAuthException", 4, true));
+                return;
+            }
+            if (random.nextDouble() < options.errorRate) {
+                injectedErrors.increment();
+                send(exchange, 500, error("An unexpected error has occurred. Please retry your request later.",
+                        "OAuthException", 2, true));
+                return;
+            }
+
+            route(exchange, path, query);
+        }
+    }
+
+    private void route(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        String token = query.getOrDefault("access_token", "");
+        String[] segments = path.replaceFirst("^/", "").split("/");
+
+        if (path.equals("/oauth/access_token") && query.containsKey("fb_exchange_token")) {
+            count("oauth/long_lived");
+            send(exchange, 200, token("long-" + query.get("fb_exchange_token"), 5_184_000));
+        } else if (path.equals("/oauth/access_token")) {
+            count("oauth/code");
+            send(exchange, 200, token("short-" + query.getOrDefault("code", "none"), 3600));
+        } else if (path.equals("/refresh_access_token")) {
+            count("oauth/refresh");
+            send(exchange, 200, token(token.startsWith("refreshed-") ? token : "refreshed-" + token, 5_184_000));
+        } else if (path.equals("/me/accounts")) {
+            count("me/accounts");
+            send(exchange, 200, """
+                    {"data":[{"id":"page-%s","instagram_business_account":{"id":"%s"}}]}"""
+                    .formatted(accountIdFor(token), accountIdFor(token)));
+        } else if (segments.length == 2 && segments[1].equals("media")
+                && "POST".equals(exchange.getRequestMethod())) {
+            count("account/media container");
+            String containerId = "container" + nextContainer.incrementAndGet();
+            String mediaUrl = query.getOrDefault("image_url", query.getOrDefault("video_url", ""));
+            containers.put(containerId, new Container(mediaUrl.contains("broken")));
+            send(exchange, 200, "{\"id\":\"" + containerId + "\"}");
+        } else if (segments.length == 2 && segments[1].equals("media_publish")) {
+            count("account/media_publish");
+            Container container = containers.get(query.getOrDefault("creation_id", ""));
+            String mediaId = segments[0] + "_" + (1_000_000 + nextContainer.incrementAndGet());
+            if (container == null || !container.publish(mediaId)) {
+                send(exchange, 400, error("The media is not ready for publishing, please wait for a moment",
+                        "OAuthException", 9007, false));
+                return;
+            }
+            send(exchange, 200, "{\"id\":\"" + mediaId + "\"}");
+        } else if (path.equals("/") && query.containsKey("ids")) {
+            count("container status");
+            StringBuilder body = new StringBuilder("{");
+            for (String id : query.get("ids").split(",")) {
+                Container container = containers.get(id);
+                if (container != null) {
+                    body.append(body.length() > 1 ? "," : "").append("\"").append(id).append("\":{\"status_code\":\"")
+                            .append(container.readStatus(options.containerProcessingChecks)).append("\",\"id\":\"")
+                            .append(id).append("\"}");
+                }
+            }
+            send(exchange, 200, body.append('}').toString());
+        } else if (segments.length == 2 && segments[1].equals("media")) {
+            count("account/media");
+            businessUsage(exchange, segments[0]);
+            send(exchange, 200, mediaPage(segments[0], token, query));
+        } else if (segments.length == 2 && segments[1].equals("comments")) {
+            count("media/comments");
+            send(exchange, 200, commentsPage(segments[0], query));
+        } else if (segments.length == 1 && segments[0].contains("_")) {
+            count("media");
+            send(exchange, 200, select(media(segments[0]), query.get("fields")));
+        } else if (segments.length == 1 && !segments[0].isEmpty()) {
+            count("account");
+            businessUsage(exchange, segments[0]);
+            send(exchange, 200, select(profile(segments[0]), query.get("fields")));
+        } else {
+            count("unknown");
+            send(exchange, 404, error("Unknown path components: " + path, "OAuthException", 2500, false));
+        }
+    }
+
+    /**
+     * Derives a stable business account ID from the token, so each linked user maps to its own
+     * account. Refreshed and long-lived forms of the same token resolve to the same account.
+     */
+    static String accountIdFor(String token) {
+        String root = token.replaceFirst("^(refreshed-)*(long-)?(short-)?", "");
+        return "1784" + Math.floorMod(root.hashCode(), 1_000_000_000L);
+    }
+
+    private String profile(String accountId) {
+        return """
+                {"id":"%1$s","username":"stub_%1$s","name":"Stub %1$s",\
+                "profile_picture_url":"https://cdn.example.invalid/%1$s.jpg","biography":"Load-test account",\
+                "website":"https://example.invalid","followers_count":%2$d,"follows_count":%3$d,\
+                "media_count":%4$d,"account_type":"BUSINESS"}"""
+                .formatted(accountId, 1000 + Math.floorMod(accountId.hashCode(), 100_000),
+                        100 + Math.floorMod(accountId.hashCode(), 500), options.mediaPerAccount);
+    }
+
+    private String mediaPage(String accountId, String token, Map<String, String> query) throws IOException {
+        int limit = Math.min(parseInt(query.get("limit"), 25), options.maxPageSize);
+        int offset = parseInt(query.get("after"), 0);
+        int end = Math.min(offset + limit, options.mediaPerAccount);
+
+        StringBuilder body = new StringBuilder("{\"data\":[");
+        for (int i = offset; i < end; i++) {
+            if (i > offset) {
+                body.append(',');
+            }
+            body.append(select(media(accountId + "_" + i), query.get("fields")));
+        }
+        body.append("],\"paging\":{\"cursors\":{\"before\":\"").append(offset)
+                .append("\",\"after\":\"").append(end).append("\"}");
+        if (end < options.mediaPerAccount) {
+            body.append(",\"next\":\"").append(baseUri()).append('/').append(accountId)
+                    .append("/media?limit=").append(limit).append("&after=").append(end)
+                    .append("&access_token=").append(token);
+            if (query.containsKey("fields")) {
+                body.append("&fields=").append(URLEncoder.encode(query.get("fields"), StandardCharsets.UTF_8));
+            }
+            body.append('"');
+        }
+        return body.append("}}").toString();
+    }
+
+    /**
+     * Every fifth item is a video and every fifth, offset by three, a carousel album with
+     * {@link #CAROUSEL_SIZE} children.
+     */
+    private String media(String mediaId) {
+        int index = parseInt(mediaId.substring(mediaId.indexOf('_') + 1), 0);
+        boolean album = index % 5 == 3;
+        String json = """
+                {"id":"%1$s","media_type":"%2$s","media_url":"https://cdn.example.invalid/%1$s.jpg",\
+                "permalink":"https://www.instagram.com/p/%1$s/","caption":"Stub post %3$d #loadtest #stub%4$d",\
+                "timestamp":"2024-01-%5$02dT12:00:00+0000","like_count":%6$d,"comments_count":%7$d"""
+                .formatted(mediaId, index % 5 == 0 ? "VIDEO" : album ? "CAROUSEL_ALBUM" : "IMAGE", index, index % 10,
+                        1 + index % 28, index * 7 % 1000, commentCount(mediaId));
+        if (!album) {
+            return json + "}";
+        }
+        StringBuilder children = new StringBuilder(",\"children\":{\"data\":[");
+        for (int i = 0; i < CAROUSEL_SIZE; i++) {
+            String childId = mediaId + "-c" + i;
+            children.append(i > 0 ? "," : "").append(i == 1
+                    ? """
+                    {"id":"%1$s","media_type":"VIDEO","media_url":"https://cdn.example.invalid/%1$s.mp4",\
+                    "thumbnail_url":"https://cdn.example.invalid/%1$s.jpg"}""".formatted(childId)
+                    : """
+                    {"id":"%1$s","media_type":"IMAGE","media_url":"https://cdn.example.invalid/%1$s.jpg"}"""
+                    .formatted(childId));
+        }
+        return json + children.append("]}}");
+    }
+
+    /**
+     * Top-level comments of a media item, {@code index % 50} unless overridden, plus any added.
+     */
+    private int topLevelComments(String mediaId) {
+        int index = parseInt(mediaId.substring(mediaId.indexOf('_') + 1), 0);
+        int generated = options.commentsPerMedia >= 0 ? options.commentsPerMedia : index % 50;
+        return generated + addedComments.getOrDefault(mediaId, 0);
+    }
+
+    /**
+     * Comments plus replies, like Graph's {@code comments_count}. Every fourth comment, starting
+     * with the second oldest, has {@link #REPLIES_PER_THREAD} replies.
+     */
+    private int commentCount(String mediaId) {
+        int topLevel = topLevelComments(mediaId);
+        return topLevel + REPLIES_PER_THREAD * ((topLevel + 2) / 4);
+    }
+
+    /**
+     * Comment {@code k} is the k-th oldest; pages run newest first and the {@code after} cursor is
+     * the index below which the next page starts, so cursors stay valid as comments are added.
+     */
+    private String commentsPage(String mediaId, Map<String, String> query) throws IOException {
+        int limit = Math.min(parseInt(query.get("limit"), 25), options.maxPageSize);
+        int total = topLevelComments(mediaId);
+        int from = Math.min(parseInt(query.get("after"), total), total);
+        int to = Math.max(from - limit, 0);
+
+        StringBuilder body = new StringBuilder("{\"data\":[");
+        for (int k = from - 1; k >= to; k--) {
+            if (k < from - 1) {
+                body.append(',');
+            }
+            body.append(select(comment(mediaId, k), query.get("fields")));
+        }
+        body.append("],\"paging\":{\"cursors\":{\"before\":\"").append(from)
+                .append("\",\"after\":\"").append(to).append("\"}");
+        if (to > 0) {
+            body.append(",\"next\":\"").append(baseUri()).append('/').append(mediaId)
+                    .append("/comments?limit=").append(limit).append("&after=").append(to).append('"');
+        }
+        return body.append("}}").toString();
+    }
+
+    private static String comment(String mediaId, int k) {
+        String id = mediaId + "-k" + k;
+        LocalDateTime posted = COMMENTS_START.plusMinutes(k);
+        String json = """
+                {"id":"%s","text":"Stub comment %d on %s","username":"fan_%d","timestamp":"%s","like_count":%d"""
+                .formatted(id, k, mediaId, k % 97, GRAPH_TIMESTAMP.format(posted), k % 13);
+        if (k % 4 != 1) {
+            return json + "}";
+        }
+        StringBuilder replies = new StringBuilder(",\"replies\":{\"data\":[");
+        for (int r = 0; r < REPLIES_PER_THREAD; r++) {
+            replies.append(r > 0 ? "," : "").append("""
+                    {"id":"%1$s-r%2$d","text":"Reply %2$d","username":"creator","timestamp":"%3$s","like_count":0}"""
+                    .formatted(id, r, GRAPH_TIMESTAMP.format(posted.plusSeconds(r + 1))));
+        }
+        return json + replies.append("]}}");
+    }
+
+    /**
+     * Keeps only the requested fields of an object, the way Graph does; no list means all.
+     * Connections such as {@code children} are only returned when requested, and a nested
+     * {@code name{a,b}} list is applied to each of their items.
+     */
+    private static String select(String json, String fields) throws IOException {
+        ObjectNode node = (ObjectNode) JSON.readTree(json);
+        if (fields == null || fields.isBlank()) {
+            node.remove(List.of("children", "replies"));
+            return node.toString();
+        }
+        select(node, fields);
+        return node.toString();
+    }
+
+    private static void select(ObjectNode node, String fields) {
+        Map<String, String> nested = new HashMap<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= fields.length(); i++) {
+            char c = i < fields.length() ? fields.charAt(i) : ',';
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                String field = fields.substring(start, i);
+                int brace = field.indexOf('{');
+                nested.put(brace < 0 ? field : field.substring(0, brace),
+                        brace < 0 ? null : field.substring(brace + 1, field.length() - 1));
+                start = i + 1;
+            }
+        }
+        node.retain(nested.keySet());
+        nested.forEach((name, subFields) -> {
+            if (subFields != null && node.path(name).path("data").isArray()) {
+                node.path(name).path("data").forEach(item -> select((ObjectNode) item, subFields));
+            }
+        });
+    }
+
+    private static String token(String accessToken, long expiresIn) {
+        return """
+                {"access_token":"%s","token_type":"bearer","expires_in":%d}""".formatted(accessToken, expiresIn);
+    }
+
+    private static String error(String message, String type, int code, boolean transientError) {
+        return """
+                {"error":{"message":"%s","type":"%s","code":%d,"is_transient":%b,"fbtrace_id":"stub"}}"""
+                .formatted(message, type, code, transientError);
+    }
+
+    private void businessUsage(HttpExchange exchange, String accountId) {
+        int usage = options.callQuota <= 0 ? 0 : (int) Math.min(100, windowCalls.get() * 100 / options.callQuota);
+        exchange.getResponseHeaders().add("X-Business-Use-Case-Usage",
+                "{\"%s\":[{\"type\":\"instagram\",\"call_count\":%d,\"total_cputime\":%d,\"total_time\":%d,\"estimated_time_to_regain_access\":0}]}"
+                        .formatted(accountId, usage, usage / 2, usage / 2));
+    }
+
+    /**
+     * Counts the call against the current quota window and returns its usage in percent.
+     */
+    private int recordUsage() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start > options.window.toNanos() && windowStart.compareAndSet(start, now)) {
+            windowCalls.set(0);
+        }
+        long calls = windowCalls.incrementAndGet();
+        if (options.callQuota <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, calls * 100 / options.callQuota);
+    }
+
+    private void count(String endpoint) {
+        requestsByEndpoint.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        responseBytes.add(bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> values = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return values;
+        }
+        for (String pair : raw.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static final class Container {
+
+        private final boolean broken;
+        private int statusReads;
+        private boolean finished;
+        private String publishedMediaId;
+
+        Container(boolean broken) {
+            this.broken = broken;
+        }
+
+        synchronized String readStatus(int processingChecks) {
+            if (++statusReads > processingChecks) {
+                finished = true;
+            }
+            return statusCode();
+        }
+
+        synchronized String statusCode() {
+            if (broken) {
+                return "ERROR";
+            }
+            if (publishedMediaId != null) {
+                return "PUBLISHED";
+            }
+            return finished ? "FINISHED" : "IN_PROGRESS";
+        }
+
+        /**
+         * @return false unless the container was finished and not yet published
+         */
+        synchronized boolean publish(String mediaId) {
+            if (!"FINISHED".equals(statusCode())) {
+                return false;
+            }
+            publishedMediaId = mediaId;
+            return true;
+        }
+    }
+
+    /**
+     * Stub behaviour. All fields have offline-friendly defaults: no latency, no errors, no quota.
+     */
+    public static final class Options {
+
+        private int port = 0;
+        private int threads = 256;
+        private LatencyModel latency = LatencyModel.fixed(0);
+        private double errorRate = 0;
+        private double rateLimitRate = 0;
+        private long callQuota = 0;
+        private Duration window = Duration.ofHours(1);
+        private int mediaPerAccount = 100;
+        private int maxPageSize = 100;
+        private int commentsPerMedia = -1;
+        private int containerProcessingChecks = 2;
+
+        public Options port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Options threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Options latency(LatencyModel latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        public Options errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Options rateLimitRate(double rateLimitRate) {
+            this.rateLimitRate = rateLimitRate;
+            return this;
+        }
+
+        /**
+         * Calls allowed per {@code window} before every call is throttled; zero disables the quota.
+         */
+        public Options callQuota(long callQuota, Duration window) {
+            this.callQuota = callQuota;
+            this.window = window;
+            return this;
+        }
+
+        public Options mediaPerAccount(int mediaPerAccount) {
+            this.mediaPerAccount = mediaPerAccount;
+            return this;
+        }
+
+        public Options maxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+            return this;
+        }
+
+        /**
+         * Top-level comments on every media item; by default it varies with the item's index.
+         */
+        public Options commentsPerMedia(int commentsPerMedia) {
+            this.commentsPerMedia = commentsPerMedia;
+            return this;
+        }
+
+        /**
+         * Status reads a new media container answers with {@code IN_PROGRESS} before it is
+         * {@code FINISHED}.
+         */
+        public Options containerProcessingChecks(int containerProcessingChecks) {
+            this.containerProcessingChecks = containerProcessingChecks;
+            return this;
+        }
+
+        static Options from(Arguments arguments) {
+            return new Options()
+                    .port(arguments.getInt("stub.port", 0))
+                    .threads(arguments.getInt("stub.threads", 256))
+                    .latency(LatencyModel.parse(arguments.get("stub.latency", "lognormal:40,250")))
+                    .errorRate(Double.parseDouble(arguments.get("stub.error-rate", "0")))
+                    .rateLimitRate(Double.parseDouble(arguments.get("stub.rate-limit-rate", "0")))
+                    .callQuota(arguments.getInt("stub.call-quota", 0),
+                            Duration.ofSeconds(arguments.getInt("stub.window-seconds", 3600)))
+                    .mediaPerAccount(arguments.getInt("stub.media-per-account", 100));
+        }
+    }
+
+    /**
+     * Response delay distribution, parsed from {@code fixed:MS}, {@code uniform:MIN-MAX} or
+     * {@code lognormal:MEDIAN,P99} (milliseconds).
+     */
+    @FunctionalInterface
+    public interface LatencyModel {
+
+        /**
+         * z-score of the 99th percentile of a standard normal distribution.
+         */
+        double Z_99 = 2.3263;
+
+        long sample();
+
+        static LatencyModel fixed(long millis) {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+            return () -> nanos;
+        }
+
+        static LatencyModel uniform(long minMillis, long maxMillis) {
+            long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+            long max = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+            return () -> min + (max > min ? ThreadLocalRandom.current().nextLong(max - min) : 0);
+        }
+
+        /**
+         * Long-tailed latency typical of remote APIs: half the calls finish within
+         * {@code medianMillis}, 99% within {@code p99Millis}.
+         */
+        static LatencyModel logNormal(double medianMillis, double p99Millis) {
+            double mu = Math.log(medianMillis);
+            double sigma = Math.log(p99Millis / medianMillis) / Z_99;
+            return () -> (long) (Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian())
+                    * TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        static LatencyModel parse(String spec) {
+            String[] parts = spec.split(":", 2);
+            String[] values = parts.length > 1 ? parts[1].split("[-,]") : new String[0];
+            return switch (parts[0]) {
+                case "fixed" -> fixed(Long.parseLong(values[0]));
+                case "uniform" -> uniform(Long.parseLong(values[0]), Long.parseLong(values[1]));
+                case "lognormal" -> logNormal(Double.parseDouble(values[0]), Double.parseDouble(values[1]));
+                default -> throw new IllegalArgumentException("Unknown latency model: " + spec);
+            };
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.instagram.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphApiStubTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GraphApiStub stub;
+
+    @AfterEach
+    void tearDown() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void shouldServeTokenAccountAndPaginatedMediaFlow() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options().mediaPerAccount(5));
+
+        JsonNode token = getJson("/v18.0/oauth/access_token?fb_exchange_token=short-abc").body();
+        assertEquals("long-short-abc", token.get("access_token").asText());
+
+        String accountId = getJson("/v18.0/me/accounts?access_token=long-short-abc").body()
+                .at("/data/0/instagram_business_account/id").asText();
+        assertEquals(GraphApiStub.accountIdFor("refreshed-long-short-abc"), accountId);
+
+        JsonNode firstPage = getJson("/v18.0/" + accountId + "/media?limit=3&access_token=t").body();
+        assertEquals(3, firstPage.get("data").size());
+        assertEquals("3", firstPage.at("/paging/cursors/after").asText());
+
+        Reply next = get(URI.create(firstPage.at("/paging/next").asText()));
+        assertEquals(2, next.body().get("data").size());
+        assertTrue(next.body().at("/paging/next").isMissingNode());
+
+        JsonNode profile = getJson("/v18.0/" + accountId + "?fields=id,username,media_count").body();
+        assertEquals(5, profile.get("media_count").asInt());
+        assertFalse(profile.has("biography"));
+    }
+
+    @Test
+    void shouldInjectErrorsAndThrottleBeyondQuota() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options().errorRate(1.0));
+        Reply failure = getJson("/v18.0/me/accounts");
+        assertEquals(500, failure.statusCode());
+        assertTrue(failure.body().at("/error/is_transient").asBoolean());
+        stub.close();
+
+        stub = GraphApiStub.start(new GraphApiStub.Options().callQuota(2, Duration.ofHours(1)));
+        assertEquals(200, getJson("/v18.0/me/accounts").statusCode());
+        Reply throttled = getJson("/v18.0/me/accounts");
+        assertEquals(400, throttled.statusCode());
+        assertEquals(4, throttled.body().at("/error/code").asInt());
+        assertTrue(throttled.headers().firstValue("X-App-Usage").orElseThrow().contains("\"call_count\":100"));
+        assertEquals(1, stub.getThrottledCount());
+    }
+
+    @Test
+    void latencyModelsShouldMatchTheirSpecification() {
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(25), GraphApiStub.LatencyModel.parse("fixed:25").sample());
+
+        GraphApiStub.LatencyModel uniform = GraphApiStub.LatencyModel.parse("uniform:10-20");
+        GraphApiStub.LatencyModel logNormal = GraphApiStub.LatencyModel.parse("lognormal:40,250");
+        long[] samples = new long[20_000];
+        for (int i = 0; i < samples.length; i++) {
+            long value = uniform.sample();
+            assertTrue(value >= TimeUnit.MILLISECONDS.toNanos(10) && value < TimeUnit.MILLISECONDS.toNanos(20));
+            samples[i] = logNormal.sample();
+        }
+        LatencyStats stats = LatencyStats.of(samples);
+        assertEquals(40, stats.p50Millis(), 4);
+        assertEquals(250, stats.p99Millis(), 50);
+    }
+
+    private Reply getJson(String path) throws Exception {
+        return get(stub.baseUri().resolve(path));
+    }
+
+    private Reply get(URI uri) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new Reply(response.statusCode(), response.headers(), objectMapper.readTree(response.body()));
+    }
+
+    private record Reply(int statusCode, HttpHeaders headers, JsonNode body) {
+    }
+}
@@ -0,0 +1,244 @@
+package com.instagram.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.InstagramApiIntegrationApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Drives the account lifecycle endpoints against an instance wired to a {@link GraphApiStub}.
+ * <p>
+ * Phases run in order: {@code /link} and {@code /callback} once per user, then {@code /data}
+ * and {@code /refresh} for random linked users. Each phase reports throughput, the HTTP status
+ * mix and p50/p95/p99 latency. With no {@code --url}, the stub and the application (H2, test
+ * profile) are started in-process, so a run needs no network.
+ * <pre>
+ * java -cp ... com.instagram.api.loadtest.GraphLoadDriver [--url=http://localhost:8080] \
+ *     [--users=200] [--concurrency=32] [--data-requests=2000] [--refresh-requests=500] \
+ *     [--media-limit=25] [--stub.latency=lognormal:40,250] [--stub.error-rate=0.01] \
+ *     [--stub.rate-limit-rate=0] [--stub.call-quota=0] [--stub.window-seconds=3600]
+ * </pre>
+ * All options can also be given as {@code -D} system properties, which is how
+ * {@code mvn test -Pload-test} passes them.
+ */
+public class GraphLoadDriver {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final URI baseUri;
+    private final Settings settings;
+
+    public GraphLoadDriver(URI baseUri, Settings settings) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+    }
+
+    public List<PhaseResult> run() throws InterruptedException {
+        List<PhaseResult> results = new ArrayList<>();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        String[] userIds = new String[settings.users()];
+        String[] states = new String[settings.users()];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = "load-" + runId + "-" + i;
+        }
+
+        results.add(runPhase("link", userIds.length, index -> get("/api/instagram/link?userId=" + encode(userIds[index])),
+                (index, body) -> states[index] = body.path("data").path("state").asText(null)));
+
+        results.add(runPhase("callback", userIds.length, index -> states[index] == null ? null
+                : get("/api/instagram/callback?code=" + encode("code-" + userIds[index]) + "&state=" + encode(states[index])),
+                null));
+
+        results.add(runPhase("data", settings.dataRequests(),
+                index -> get("/api/instagram/data?userId=" + encode(randomUser(userIds)) + "&mediaLimit=" + settings.mediaLimit()),
+                null));
+
+        results.add(runPhase("refresh", settings.refreshRequests(),
+                index -> HttpRequest.newBuilder(baseUri.resolve("/api/instagram/refresh?userId=" + encode(randomUser(userIds))))
+                        .timeout(Duration.ofSeconds(30))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                null));
+
+        return results;
+    }
+
+    private PhaseResult runPhase(String name, int count, IntFunction<HttpRequest> requests,
+                                 BodyConsumer onSuccess) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(settings.concurrency());
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        long[] latenciesNanos = new long[count];
+        AtomicInteger sent = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                HttpRequest request = requests.apply(index);
+                if (request == null) {
+                    skipped.incrementAndGet();
+                    return;
+                }
+                long begin = System.nanoTime();
+                try {
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    latenciesNanos[sent.getAndIncrement()] = System.nanoTime() - begin;
+                    statuses.computeIfAbsent(response.statusCode(), status -> new AtomicInteger()).incrementAndGet();
+                    if (response.statusCode() == 200 && onSuccess != null) {
+                        onSuccess.accept(index, objectMapper.readTree(response.body()));
+                    }
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+            }
+        }
+        executor.shutdown();
+        long elapsed = System.nanoTime() - start;
+
+        Map<Integer, Integer> statusCounts = new TreeMap<>();
+        statuses.forEach((status, counter) -> statusCounts.put(status, counter.get()));
+        long[] recorded = new long[Math.min(sent.get(), count)];
+        System.arraycopy(latenciesNanos, 0, recorded, 0, recorded.length);
+        return new PhaseResult(name, recorded.length, statusCounts, failed.get(), skipped.get(), elapsed,
+                LatencyStats.of(recorded));
+    }
+
+    private HttpRequest get(String pathAndQuery) {
+        return HttpRequest.newBuilder(baseUri.resolve(pathAndQuery))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private static String randomUser(String[] userIds) {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Starts the application on a random port with its Graph API hosts pointed at {@code stub}.
+     *
+     * @param properties additional {@code --name=value} arguments
+     */
+    public static ConfigurableApplicationContext startApplication(GraphApiStub stub, String... properties) {
+        // Command-line arguments, so they take precedence over application.yml
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.instagram.api=WARN",
+                "--instagram.renditions.enabled=false",
+                // All simulated users share one client address and would trip the per-address limits
+                "--instagram.rate-limit.enabled=false",
+                "--instagram.api.base-url=" + stub.baseUri(),
+                "--instagram.api.facebook-graph-url=" + stub.baseUri()));
+        args.addAll(List.of(properties));
+        return new SpringApplicationBuilder(InstagramApiIntegrationApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = Arguments.parse(args);
+        Settings settings = Settings.from(arguments);
+
+        if (arguments.has("url")) {
+            URI url = URI.create(arguments.get("url", null));
+            print(url, settings, new GraphLoadDriver(url, settings).run(), null);
+            return;
+        }
+
+        try (GraphApiStub stub = GraphApiStub.start(GraphApiStub.Options.from(arguments));
+             ConfigurableApplicationContext context = startApplication(stub)) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            URI url = URI.create("http://127.0.0.1:" + port);
+            print(url, settings, new GraphLoadDriver(url, settings).run(), stub);
+        }
+    }
+
+    static void print(URI url, Settings settings, List<PhaseResult> results, GraphApiStub stub) {
+        System.out.printf("%nLoad test against %s: %s%n", url, settings);
+        System.out.printf("%-10s %8s %8s %8s %10s  %-36s %s%n",
+                "phase", "requests", "failed", "skipped", "req/sec", "latency", "statuses");
+        for (PhaseResult result : results) {
+            System.out.printf("%-10s %8d %8d %8d %10.1f  %-36s %s%n", result.name(), result.requests(),
+                    result.failed(), result.skipped(), result.throughputPerSecond(), result.latency(),
+                    result.statusCounts());
+        }
+        if (stub != null) {
+            System.out.printf("Graph stub: %d calls (%d injected errors, %d throttled) %s%n",
+                    stub.getRequestCount(), stub.getInjectedErrorCount(), stub.getThrottledCount(),
+                    new TreeMap<>(stub.getRequestsByEndpoint()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyConsumer {
+        void accept(int index, JsonNode body);
+    }
+
+    public record Settings(int users, int concurrency, int dataRequests, int refreshRequests, int mediaLimit) {
+
+        static Settings from(Arguments arguments) {
+            return new Settings(
+                    arguments.getInt("users", 200),
+                    arguments.getInt("concurrency", 32),
+                    arguments.getInt("data-requests", 2000),
+                    arguments.getInt("refresh-requests", 500),
+                    arguments.getInt("media-limit", 25));
+        }
+    }
+
+    public record PhaseResult(String name, int requests, Map<Integer, Integer> statusCounts, int failed,
+                              int skipped, long elapsedNanos, LatencyStats latency) {
+
+        public int count(int status) {
+            return statusCounts.getOrDefault(status, 0);
+        }
+
+        public double throughputPerSecond() {
+            return requests / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+}
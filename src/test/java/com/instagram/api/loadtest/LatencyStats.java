@@ -0,0 +1,37 @@
+package com.instagram.api.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Percentile summary of a set of latency samples.
+ */
+public record LatencyStats(int samples, double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+
+    public static LatencyStats of(long[] latenciesNanos) {
+        if (latenciesNanos.length == 0) {
+            return new LatencyStats(0, 0, 0, 0, 0);
+        }
+        long[] sorted = latenciesNanos.clone();
+        Arrays.sort(sorted);
+        return new LatencyStats(sorted.length,
+                millis(percentile(sorted, 0.50)),
+                millis(percentile(sorted, 0.95)),
+                millis(percentile(sorted, 0.99)),
+                millis(sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms", p50Millis, p95Millis, p99Millis, maxMillis);
+    }
+}
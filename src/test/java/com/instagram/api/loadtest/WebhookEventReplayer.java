@@ -0,0 +1,171 @@
+package com.instagram.api.loadtest;
+
+import com.instagram.api.service.WebhookSignatureVerifier;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays signed webhook deliveries against a running instance for load testing.
+ * <p>
+ * Payloads come from an NDJSON file (one delivery per line, as captured from Meta) or are
+ * synthesized for a range of Instagram user and media IDs. Each body is signed exactly like Meta
+ * does, so the full validation path is exercised.
+ * <pre>
+ * java -cp ... com.instagram.api.loadtest.WebhookEventReplayer \
+ *     --url=http://localhost:8080/api/instagram/webhook --secret=app-secret \
+ *     [--file=deliveries.ndjson] [--count=10000] [--concurrency=16] \
+ *     [--accounts=50] [--media-per-account=20] [--rate=0]
+ * </pre>
+ * {@code --rate} caps deliveries per second (0 = as fast as possible).
+ */
+public class WebhookEventReplayer {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final URI target;
+    private final String secret;
+    private final int concurrency;
+    private final int ratePerSecond;
+
+    public WebhookEventReplayer(URI target, String secret, int concurrency, int ratePerSecond) {
+        this.target = target;
+        this.secret = secret;
+        this.concurrency = concurrency;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public Result replay(List<String> payloads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long[] latenciesNanos = new long[payloads.size()];
+        long intervalNanos = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < payloads.size(); i++) {
+            int index = i;
+            long notBefore = start + intervalNanos * i;
+            futures.add(executor.submit(() -> {
+                pace(notBefore);
+                long sent = System.nanoTime();
+                try {
+                    int status = send(payloads.get(index));
+                    if (status == 200) {
+                        accepted.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latenciesNanos[index] = System.nanoTime() - sent;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+            }
+        }
+        executor.shutdown();
+
+        return new Result(payloads.size(), accepted.get(), rejected.get(), failed.get(),
+                System.nanoTime() - start, LatencyStats.of(latenciesNanos));
+    }
+
+    private int send(String payload) throws IOException, InterruptedException {
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .header("Content-Type", "application/json")
+                .header("X-Hub-Signature-256", WebhookSignatureVerifier.signatureHeader(secret, body))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static void pace(long notBefore) {
+        long wait = notBefore - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Builds comment notifications spread over {@code accounts} Instagram users, each
+     * referencing one of {@code mediaPerAccount} posts. Repeats are intentional: real traffic
+     * mentions the same viral post many times, and the processor should collapse them.
+     */
+    public static List<String> syntheticPayloads(int count, int accounts, int mediaPerAccount) {
+        List<String> payloads = new ArrayList<>(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            int account = random.nextInt(accounts);
+            int media = random.nextInt(mediaPerAccount);
+            payloads.add("""
+                    {"object":"instagram","entry":[{"id":"%s","time":%d,"changes":[{"field":"comments",\
+                    "value":{"id":"replay-comment-%d","text":"replayed","media":{"id":"%s"}}}]}]}"""
+                    .formatted("replay-ig-" + account, System.currentTimeMillis() / 1000, i,
+                            "replay-media-" + account + "-" + media));
+        }
+        return payloads;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = Arguments.parse(args);
+        URI url = URI.create(arguments.get("url", "http://localhost:8080/api/instagram/webhook"));
+        String secret = arguments.get("secret", "test-app-secret");
+
+        List<String> payloads = arguments.has("file")
+                ? Files.readAllLines(Path.of(arguments.get("file", null))).stream().filter(line -> !line.isBlank()).toList()
+                : syntheticPayloads(arguments.getInt("count", 10_000), arguments.getInt("accounts", 50),
+                arguments.getInt("media-per-account", 20));
+
+        WebhookEventReplayer replayer = new WebhookEventReplayer(url, secret,
+                arguments.getInt("concurrency", 16), arguments.getInt("rate", 0));
+
+        System.out.printf("Replaying %d webhook deliveries to %s%n", payloads.size(), url);
+        System.out.println(replayer.replay(payloads));
+    }
+
+    public record Result(int sent, int accepted, int rejected, int failed, long elapsedNanos, LatencyStats latency) {
+
+        public double throughputPerSecond() {
+            return sent / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("sent=%d accepted=%d rejected=%d failed=%d elapsed=%dms throughput=%.1f/s %s",
+                    sent, accepted, rejected, failed, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    throughputPerSecond(), latency);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.AccountCacheProperties;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.event.InstagramAccountChangedEvent;
+import com.instagram.api.repository.InstagramAccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountCacheTest {
+
+    @Mock
+    private InstagramAccountRepository accountRepository;
+
+    private AccountCacheProperties properties;
+    private AccountCache accountCache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AccountCacheProperties();
+        accountCache = new AccountCache(accountRepository, properties);
+    }
+
+    @Test
+    void findActive_ShouldServeCopiesFromMemory_AfterFirstLookup() {
+        when(accountRepository.findByUserIdAndIsActiveTrue("user123")).thenReturn(Optional.of(account("user123")));
+
+        InstagramAccount first = accountCache.findActive("user123").orElseThrow();
+        first.setAccessToken("modified-by-caller");
+        InstagramAccount second = accountCache.findActive("user123").orElseThrow();
+
+        assertEquals("token-user123", second.getAccessToken());
+        assertNotSame(first, second);
+        verify(accountRepository, times(1)).findByUserIdAndIsActiveTrue("user123");
+        assertEquals(1, accountCache.getHitCount());
+        assertEquals(1, accountCache.getMissCount());
+        assertEquals(0.5, accountCache.getHitRatio());
+    }
+
+    @Test
+    void findActive_ShouldNotCacheMissingAccounts() {
+        when(accountRepository.findByUserIdAndIsActiveTrue("unknown")).thenReturn(Optional.empty());
+
+        assertTrue(accountCache.findActive("unknown").isEmpty());
+        assertTrue(accountCache.findActive("unknown").isEmpty());
+
+        verify(accountRepository, times(2)).findByUserIdAndIsActiveTrue("unknown");
+        assertEquals(0, accountCache.size());
+    }
+
+    @Test
+    void findActiveMany_ShouldLoadOnlyUncachedAccountsInOneQuery() {
+        when(accountRepository.findByUserIdAndIsActiveTrue("user1")).thenReturn(Optional.of(account("user1")));
+        when(accountRepository.findByUserIdInAndIsActiveTrue(Set.of("user2", "unknown")))
+                .thenReturn(List.of(account("user2")));
+
+        accountCache.findActive("user1");
+        Map<String, InstagramAccount> found = accountCache.findActive(List.of("user1", "user2", "unknown"));
+
+        assertEquals(Set.of("user1", "user2"), found.keySet());
+        assertEquals("token-user2", found.get("user2").getAccessToken());
+        assertEquals(1, accountCache.getHitCount());
+        assertEquals(2, accountCache.size());
+        accountCache.findActive("user2");
+        verify(accountRepository, never()).findByUserIdAndIsActiveTrue("user2");
+    }
+
+    @Test
+    void evictionAndAccountChanges_ShouldForceReload() {
+        when(accountRepository.findByUserIdAndIsActiveTrue("user123")).thenReturn(Optional.of(account("user123")));
+
+        accountCache.findActive("user123");
+        accountCache.evict("user123");
+        accountCache.findActive("user123");
+        accountCache.onAccountChanged(InstagramAccountChangedEvent.unlinked("user123").asRemote());
+        accountCache.findActive("user123");
+
+        verify(accountRepository, times(3)).findByUserIdAndIsActiveTrue("user123");
+    }
+
+    @Test
+    void loadRacingWithWrite_ShouldNotBeCached() {
+        when(accountRepository.findByUserIdAndIsActiveTrue("user123")).thenAnswer(invocation -> {
+            // A save of the same account commits while the old row is being read
+            accountCache.evict("user123");
+            return Optional.of(account("user123"));
+        });
+
+        accountCache.findActive("user123");
+
+        assertEquals(0, accountCache.size());
+    }
+
+    @Test
+    void cache_ShouldBeBoundedAndExpireEntries() {
+        properties.setMaxSize(2);
+        properties.setTtl(Duration.ZERO);
+        for (String userId : new String[]{"a", "b", "c"}) {
+            when(accountRepository.findByUserIdAndIsActiveTrue(userId)).thenReturn(Optional.of(account(userId)));
+            accountCache.findActive(userId);
+        }
+        assertEquals(2, accountCache.size());
+
+        accountCache.findActive("c");
+        verify(accountRepository, times(2)).findByUserIdAndIsActiveTrue("c");
+    }
+
+    @Test
+    void bindTo_ShouldPublishHitAndMissCounts() {
+        when(accountRepository.findByUserIdAndIsActiveTrue("user123")).thenReturn(Optional.of(account("user123")));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        accountCache.bindTo(registry);
+
+        accountCache.findActive("user123");
+        accountCache.findActive("user123");
+        accountCache.findActive("user123");
+
+        assertEquals(2.0, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(2.0 / 3, registry.get("cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    private static InstagramAccount account(String userId) {
+        return InstagramAccount.builder()
+                .id((long) userId.hashCode())
+                .userId(userId)
+                .accessToken("token-" + userId)
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.dto.AccountPurgeResponse;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramComment;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.InstagramMediaChild;
+import com.instagram.api.entity.InstagramMediaTag;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramCommentRepository;
+import com.instagram.api.repository.InstagramMediaChildRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import com.instagram.api.repository.InstagramMediaTagRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Purge of an account with 7 media items, each with a tag, a carousel child and a comment, in
+ * chunks of 3.
+ */
+@SpringBootTest(properties = "instagram.purge.chunk-size=3")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AccountPurgeServiceTest {
+
+    private static final int MEDIA = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InstagramAccountService accountService;
+
+    @Autowired
+    private AccountPurgeService purgeService;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @Autowired
+    private InstagramMediaTagRepository tagRepository;
+
+    @Autowired
+    private InstagramMediaChildRepository childRepository;
+
+    @Autowired
+    private InstagramCommentRepository commentRepository;
+
+    private InstagramAccount other;
+
+    @BeforeEach
+    void setUp() {
+        createAccountWithData("purge-user");
+        other = createAccountWithData("purge-other");
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        childRepository.deleteAll();
+        tagRepository.deleteAll();
+        mediaRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void unlinkWithDeleteData_ShouldPurgeInChunksAndKeepOtherAccounts() {
+        accountService.unlinkAccount("purge-user", true);
+
+        assertTrue(accountRepository.findByUserId("purge-user").isEmpty());
+        assertEquals(MEDIA, mediaRepository.count());
+        assertEquals(MEDIA, tagRepository.count());
+        assertEquals(MEDIA, childRepository.count());
+        assertEquals(MEDIA, commentRepository.count());
+        assertEquals(MEDIA, mediaRepository.countByAccountId(other.getId()));
+    }
+
+    @Test
+    void asyncUnlink_ShouldReturnJobAndReportProgress() throws Exception {
+        JsonNode accepted = objectMapper.readTree(mockMvc.perform(delete("/api/instagram/unlink")
+                        .param("userId", "purge-user")
+                        .param("deleteData", "true")
+                        .param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString());
+        String jobId = accepted.at("/data/jobId").asText();
+        assertFalse(accountService.isAccountLinked("purge-user"));
+
+        JsonNode job = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            job = objectMapper.readTree(mockMvc.perform(get("/api/instagram/unlink/jobs/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).path("data");
+            if (!job.path("finishedAt").isNull()) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+
+        assertEquals(AccountPurgeResponse.State.COMPLETED.name(), job.path("state").asText());
+        assertEquals(MEDIA, job.path("mediaTotal").asLong());
+        assertEquals(MEDIA, job.path("mediaDeleted").asLong());
+        assertEquals(3, job.path("chunksCompleted").asInt());
+        assertTrue(accountRepository.findByUserId("purge-user").isEmpty());
+
+        mockMvc.perform(get("/api/instagram/unlink/jobs/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void purgeOfRelinkedAccount_ShouldStopAndKeepData() {
+        accountService.unlinkAccount("purge-user", false);
+        InstagramAccount account = accountRepository.findByUserId("purge-user").orElseThrow();
+        // Linked again before the purge got to run
+        account.setIsActive(true);
+        accountRepository.save(account);
+
+        AccountPurgeResponse purge = purgeService.purge(account.getId(), "purge-user");
+
+        assertEquals(AccountPurgeResponse.State.CANCELLED, purge.getState());
+        assertTrue(accountRepository.findByUserId("purge-user").isPresent());
+        assertEquals(MEDIA, mediaRepository.countByAccountId(account.getId()));
+    }
+
+    private InstagramAccount createAccountWithData(String userId) {
+        InstagramAccount account = accountRepository.save(InstagramAccount.builder()
+                .userId(userId)
+                .instagramUserId(userId + "-ig")
+                .accessToken("token")
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build());
+        for (int i = 0; i < MEDIA; i++) {
+            InstagramMedia media = mediaRepository.save(InstagramMedia.builder()
+                    .account(account)
+                    .mediaId(userId + "_" + i)
+                    .mediaType("CAROUSEL_ALBUM")
+                    .caption("#purge")
+                    .build());
+            tagRepository.save(InstagramMediaTag.builder()
+                    .media(media).tagType(InstagramMediaTag.TagType.HASHTAG).tag("purge").build());
+            childRepository.save(InstagramMediaChild.builder()
+                    .media(media).childMediaId(media.getMediaId() + "-c0").position(0).build());
+            commentRepository.save(InstagramComment.builder()
+                    .media(media).commentId(media.getMediaId() + "-k0").text("nice")
+                    .timestamp(LocalDateTime.now()).build());
+        }
+        return account;
+    }
+}
@@ -0,0 +1,86 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.dto.InstagramProfileDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.repository.InstagramAccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes after a Graph call never undo an unlink made from an older cached snapshot.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountStoreTest {
+
+    @Autowired
+    private AccountStore accountStore;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    private InstagramAccount account;
+
+    @BeforeEach
+    void setUp() {
+        account = accountRepository.save(InstagramAccount.builder()
+                .userId("store-user")
+                .instagramUserId("store-ig")
+                .username("before")
+                .followersCount(10)
+                .accessToken("old-token")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void writesShouldOnlyTouchTheirOwnFields() {
+        InstagramAccount snapshot = accountCache.findActive("store-user").orElseThrow();
+        LocalDateTime expiresAt = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertTrue(accountStore.updateToken(snapshot.getId(), "new-token", expiresAt));
+        assertTrue(accountStore.updateProfile(snapshot.getId(),
+                InstagramProfileDTO.builder().followersCount(20).username("ignored").build(),
+                FieldSelection.parse("profile", "followers_count", null)));
+
+        InstagramAccount stored = accountRepository.findById(account.getId()).orElseThrow();
+        assertEquals("new-token", stored.getAccessToken());
+        assertEquals(expiresAt, stored.getTokenExpiresAt());
+        assertEquals(20, stored.getFollowersCount());
+        assertEquals("before", stored.getUsername());
+    }
+
+    @Test
+    void writesShouldNotReactivateAnAccountUnlinkedAfterTheSnapshot() {
+        InstagramAccount snapshot = accountCache.findActive("store-user").orElseThrow();
+        InstagramAccount unlinked = accountRepository.findById(account.getId()).orElseThrow();
+        unlinked.setIsActive(false);
+        unlinked.setAccessToken(null);
+        accountRepository.save(unlinked);
+
+        assertFalse(accountStore.updateToken(snapshot.getId(), "new-token", LocalDateTime.now()));
+        assertFalse(accountStore.updateProfile(snapshot.getId(),
+                InstagramProfileDTO.builder().username("after").build(), FieldSelection.ALL));
+
+        InstagramAccount stored = accountRepository.findById(account.getId()).orElseThrow();
+        assertFalse(stored.getIsActive());
+        assertNull(stored.getAccessToken());
+        assertEquals("before", stored.getUsername());
+    }
+}
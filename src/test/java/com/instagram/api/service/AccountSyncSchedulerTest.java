@@ -0,0 +1,115 @@
+package com.instagram.api.service;
+
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.loadtest.GraphApiStub;
+import com.instagram.api.loadtest.GraphLoadDriver;
+import com.instagram.api.repository.InstagramAccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application instances sharing one database, each running the background scheduler.
+ */
+class AccountSyncSchedulerTest {
+
+    private static final int ACCOUNTS = 40;
+    private static final int ORPHANED = 5;
+
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+    private GraphApiStub stub;
+
+    @AfterEach
+    void tearDown() {
+        instances.forEach(ConfigurableApplicationContext::close);
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void instancesShouldShareSyncWorkWithoutDuplicatesAndTakeOverExpiredLeases() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options()
+                .latency(GraphApiStub.LatencyModel.parse("fixed:50"))
+                .mediaPerAccount(3));
+        String database = "jdbc:h2:mem:account-sync-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        ConfigurableApplicationContext first = startInstance(database, "node-a");
+        ConfigurableApplicationContext second = startInstance(database, "node-b");
+
+        InstagramAccountRepository accounts = first.getBean(InstagramAccountRepository.class);
+        LocalDateTime orphanLeaseExpiry = LocalDateTime.now(ZoneOffset.UTC).plusSeconds(2);
+        new TransactionTemplate(first.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            List<InstagramAccount> created = new ArrayList<>();
+            for (int i = 0; i < ACCOUNTS + ORPHANED; i++) {
+                created.add(account(i < ACCOUNTS ? "sync-user-" + i : "orphan-user-" + i, "biz" + i));
+            }
+            accounts.saveAll(created);
+            // Leases left behind by an instance that died mid-sync
+            first.getBean(JdbcTemplate.class).update(
+                    "update instagram_accounts set sync_lease_owner = 'dead-node', sync_lease_expires_at = ?"
+                            + " where user_id like 'orphan-user-%'", Timestamp.valueOf(orphanLeaseExpiry));
+        });
+
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (accounts.findAll().stream().anyMatch(account -> account.getLastSyncedAt() == null)) {
+            assertTrue(System.nanoTime() < deadline, "accounts were not all synced in time");
+            Thread.sleep(100);
+        }
+
+        AccountSyncScheduler a = first.getBean(AccountSyncScheduler.class);
+        AccountSyncScheduler b = second.getBean(AccountSyncScheduler.class);
+        assertEquals(ACCOUNTS + ORPHANED, a.getSyncedCount() + b.getSyncedCount());
+        assertTrue(a.getSyncedCount() > 0 && b.getSyncedCount() > 0,
+                "expected both instances to sync, got " + a.getSyncedCount() + " and " + b.getSyncedCount());
+        assertEquals(0, a.getLeasesLostCount() + b.getLeasesLostCount());
+
+        // Exactly one media sync per account across both instances
+        assertEquals((long) ACCOUNTS + ORPHANED, stub.getRequestsByEndpoint().get("account/media"));
+
+        for (InstagramAccount account : accounts.findAll()) {
+            assertNull(account.getSyncLeaseOwner());
+            assertTrue(account.getNextSyncAt().isAfter(LocalDateTime.now(ZoneOffset.UTC).plusMinutes(30)));
+            if (account.getUserId().startsWith("orphan-user-")) {
+                assertFalse(account.getLastSyncedAt().isBefore(orphanLeaseExpiry),
+                        "orphaned account synced before its lease expired");
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startInstance(String database, String instanceId) {
+        ConfigurableApplicationContext context = GraphLoadDriver.startApplication(stub,
+                "--spring.datasource.url=" + database,
+                "--instagram.sync.enabled=true",
+                "--instagram.sync.instance-id=" + instanceId,
+                "--instagram.sync.poll-interval=100ms",
+                "--instagram.sync.heartbeat-interval=500ms",
+                "--instagram.sync.lease-duration=5s",
+                "--instagram.sync.concurrency=4",
+                "--instagram.sync.batch-size=4",
+                "--instagram.sync.media-limit=3");
+        instances.add(context);
+        return context;
+    }
+
+    private static InstagramAccount account(String userId, String businessAccountId) {
+        return InstagramAccount.builder()
+                .userId(userId)
+                .instagramUserId(userId + "-ig")
+                .instagramBusinessAccountId(businessAccountId)
+                .accessToken("token-" + userId)
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.instagram.api.service;
+
+import com.instagram.api.entity.InstagramMediaTag.TagType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptionTagsTest {
+
+    @Test
+    void extract_ShouldNormalizeHashtagsAndMentions() {
+        Set<CaptionTags.Tag> tags = CaptionTags.extract("Sunset at the #Beach with @Jane.Doe. #beach #Été2024!");
+
+        assertEquals(Set.of(
+                new CaptionTags.Tag(TagType.HASHTAG, "beach"),
+                new CaptionTags.Tag(TagType.HASHTAG, "été2024"),
+                new CaptionTags.Tag(TagType.MENTION, "jane.doe")), tags);
+    }
+
+    @Test
+    void extract_ShouldIgnoreEmailsAndEntities() {
+        Set<CaptionTags.Tag> tags = CaptionTags.extract("mail me at shop@example.com &#39; or call #1");
+
+        assertEquals(Set.of(new CaptionTags.Tag(TagType.HASHTAG, "1")), tags);
+    }
+
+    @Test
+    void extract_ShouldReturnEmptyForMissingCaption() {
+        assertTrue(CaptionTags.extract(null).isEmpty());
+        assertTrue(CaptionTags.extract("no tags here").isEmpty());
+    }
+}
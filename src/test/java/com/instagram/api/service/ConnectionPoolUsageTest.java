@@ -0,0 +1,181 @@
+package com.instagram.api.service;
+
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.dto.InstagramProfileDTO;
+import com.instagram.api.dto.InstagramTokenResponse;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies that requests parked on a slow Graph API call do not hold pooled connections.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConnectionPoolUsageTest {
+
+    private static final int CONCURRENCY = 24;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @SpyBean
+    private InstagramDataService dataService;
+
+    @MockBean
+    private InstagramOAuthService oAuthService;
+
+    private final AtomicInteger peakActiveDuringUpstreamWait = new AtomicInteger(-1);
+
+    @AfterEach
+    void tearDown() {
+        mediaRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void fetchData_ShouldNotHoldConnectionsWhileWaitingOnGraph() throws Exception {
+        for (int i = 0; i < CONCURRENCY; i++) {
+            accountRepository.save(InstagramAccount.builder()
+                    .userId("pool-user-" + i)
+                    .instagramUserId("pool-ig-" + i)
+                    .instagramBusinessAccountId("pool-business-" + i)
+                    .accessToken("token-" + i)
+                    .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                    .build());
+        }
+
+        CountDownLatch allInsideUpstream = new CountDownLatch(CONCURRENCY);
+        doAnswer(invocation -> {
+            String businessId = invocation.getArgument(1);
+            awaitAllThenSample(allInsideUpstream);
+            return InstagramDataResponse.builder()
+                    .profile(InstagramProfileDTO.builder().id(businessId).username(businessId).build())
+                    .media(List.of(InstagramMediaDTO.builder().id("media-" + businessId)
+                            .timestamp("2024-01-15T10:30:00+0000").build()))
+                    .paging(InstagramDataResponse.PagingInfo.builder().build())
+                    .build();
+        }).when(dataService).fetchAllData(anyString(), anyString(), anyInt(), any());
+
+        runConcurrently(i -> get("/api/instagram/data").param("userId", "pool-user-" + i));
+
+        assertEquals(0, allInsideUpstream.getCount(), "all requests should reach the Graph stub concurrently");
+        assertTrue(peakActiveDuringUpstreamWait.get() <= 2,
+                "connections held during upstream wait: " + peakActiveDuringUpstreamWait.get());
+        assertEquals(CONCURRENCY, mediaRepository.count());
+    }
+
+    @Test
+    void handleCallback_ShouldNotHoldConnectionsWhileWaitingOnGraph() throws Exception {
+        CountDownLatch allInsideUpstream = new CountDownLatch(CONCURRENCY);
+        when(oAuthService.validateStateAndGetUserId(anyString()))
+                .thenAnswer(invocation -> "callback-user-" + invocation.getArgument(0));
+        when(oAuthService.exchangeCodeForToken(anyString()))
+                .thenAnswer(invocation -> InstagramTokenResponse.builder()
+                        .accessToken("short-" + invocation.getArgument(0)).build());
+        when(oAuthService.exchangeLongLivedToken(anyString()))
+                .thenAnswer(invocation -> {
+                    awaitAllThenSample(allInsideUpstream);
+                    return InstagramTokenResponse.builder()
+                            .accessToken("long-" + invocation.getArgument(0))
+                            .expiresIn(5184000L)
+                            .build();
+                });
+        doAnswer(invocation -> "business-" + invocation.getArgument(0))
+                .when(dataService).getInstagramBusinessAccountId(anyString());
+        doAnswer(invocation -> InstagramProfileDTO.builder()
+                .id("ig-" + invocation.getArgument(1))
+                .username("name-" + invocation.getArgument(1))
+                .build())
+                .when(dataService).fetchProfile(anyString(), anyString());
+
+        // One client address per callback, as in production; the callback is rate limited per address
+        runConcurrently(i -> get("/api/instagram/callback")
+                .param("code", "code-" + i)
+                .param("state", String.valueOf(i))
+                .with(request -> {
+                    request.setRemoteAddr("10.0.0." + i);
+                    return request;
+                }));
+
+        assertEquals(0, allInsideUpstream.getCount(), "all callbacks should reach the Graph stub concurrently");
+        assertTrue(peakActiveDuringUpstreamWait.get() <= 2,
+                "connections held during upstream wait: " + peakActiveDuringUpstreamWait.get());
+        assertEquals(CONCURRENCY, accountRepository.count());
+    }
+
+    /**
+     * Simulates a slow Graph response: once every request is parked inside the stub, the pool
+     * should be (nearly) idle because no caller holds a connection across the HTTP wait.
+     */
+    private void awaitAllThenSample(CountDownLatch allInsideUpstream) throws InterruptedException {
+        allInsideUpstream.countDown();
+        if (allInsideUpstream.await(10, TimeUnit.SECONDS)) {
+            int active = dataSource.getHikariPoolMXBean().getActiveConnections();
+            peakActiveDuringUpstreamWait.accumulateAndGet(active, Math::max);
+        }
+        Thread.sleep(100);
+    }
+
+    private void runConcurrently(RequestFactory requestFactory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    mockMvc.perform(requestFactory.create(index)).andExpect(status().isOk());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        RequestBuilder create(int index);
+    }
+}
@@ -0,0 +1,153 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.config.DataBatchProperties;
+import com.instagram.api.config.RateLimitProperties;
+import com.instagram.api.dto.DataBatchResult;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.exception.GraphApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataBatchServiceTest {
+
+    @Mock
+    private InstagramAccountService accountService;
+
+    @Mock
+    private InstagramDataFallback dataFallback;
+
+    private DataBatchProperties properties;
+    private RateLimitProperties rateLimitProperties;
+    private RequestRateLimiter rateLimiter;
+    private DataBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DataBatchProperties();
+        properties.setParallelism(2);
+        RateLimitProperties.Endpoint dataLimit = new RateLimitProperties.Endpoint();
+        dataLimit.setPath("/api/instagram/data");
+        dataLimit.setCapacity(1);
+        rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.getEndpoints().add(dataLimit);
+        rateLimiter = new RequestRateLimiter(rateLimitProperties);
+        batchService = new DataBatchService(accountService, dataFallback, properties, rateLimiter, rateLimitProperties);
+
+        lenient().when(accountService.getAccounts(anyCollection())).thenAnswer(invocation -> {
+            Map<String, InstagramAccount> accounts = new HashMap<>();
+            for (String userId : invocation.<Collection<String>>getArgument(0)) {
+                if (!userId.startsWith("unlinked")) {
+                    accounts.put(userId, InstagramAccount.builder().userId(userId).build());
+                }
+            }
+            return accounts;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchService.stop();
+    }
+
+    @Test
+    void fetchData_ShouldReportErrorsPerUserInRequestOrder() {
+        when(dataFallback.fetchData(any(InstagramAccount.class), eq(25), eq(FieldSelection.ALL)))
+                .thenAnswer(invocation -> {
+                    if (invocation.<InstagramAccount>getArgument(0).getUserId().equals("failing")) {
+                        throw new GraphApiException("Graph API unreachable", new IOException("connection reset"));
+                    }
+                    return new InstagramDataResponse();
+                });
+
+        List<DataBatchResult> results = batchService.fetchData(
+                List.of("failing", "user1", "unlinked", "user1"), 25, FieldSelection.ALL);
+
+        assertEquals(List.of("failing", "user1", "unlinked"), results.stream().map(DataBatchResult::getUserId).toList());
+        assertFalse(results.get(0).isSuccess());
+        assertEquals(502, results.get(0).getStatus());
+        assertEquals("GRAPH_UNAVAILABLE", results.get(0).getErrorCode());
+        assertTrue(results.get(1).isSuccess());
+        assertNotNull(results.get(1).getData());
+        assertEquals(404, results.get(2).getStatus());
+        assertEquals("ACCOUNT_NOT_FOUND", results.get(2).getErrorCode());
+        verify(accountService, times(1)).getAccounts(anyCollection());
+        verify(dataFallback, times(2)).fetchData(any(InstagramAccount.class), any(), any());
+    }
+
+    @Test
+    void fetchData_ShouldChargeEveryUserAgainstTheDataRateLimit() {
+        when(dataFallback.fetchData(any(InstagramAccount.class), any(), any())).thenReturn(new InstagramDataResponse());
+        rateLimiter.tryAcquire("/api/instagram/data", "user1", rateLimitProperties.limitOf("/api/instagram/data"));
+
+        List<DataBatchResult> results = batchService.fetchData(List.of("user1", "user2"), 25, FieldSelection.ALL);
+
+        assertEquals(429, results.get(0).getStatus());
+        assertEquals("RATE_LIMITED", results.get(0).getErrorCode());
+        assertNotNull(results.get(0).getRetryAfter());
+        assertTrue(results.get(1).isSuccess());
+        verify(accountService).getAccounts(Set.of("user2"));
+
+        List<DataBatchResult> again = batchService.fetchData(List.of("user2"), 25, FieldSelection.ALL);
+        assertEquals(429, again.get(0).getStatus());
+        verifyNoMoreInteractions(accountService);
+    }
+
+    @Test
+    void fetchData_ShouldBoundParallelismAndStreamResultsAsTheyComplete() {
+        rateLimitProperties.setEnabled(false);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch slowUserMayFinish = new CountDownLatch(1);
+        when(dataFallback.fetchData(any(InstagramAccount.class), any(), any())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                if (invocation.<InstagramAccount>getArgument(0).getUserId().equals("slow")) {
+                    slowUserMayFinish.await(5, TimeUnit.SECONDS);
+                } else {
+                    Thread.sleep(20);
+                }
+                return new InstagramDataResponse();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        List<String> users = new ArrayList<>(List.of("slow"));
+        for (int i = 0; i < 6; i++) {
+            users.add("user" + i);
+        }
+        List<String> streamed = new ArrayList<>();
+        batchService.fetchData(users, 25, FieldSelection.ALL, result -> {
+            streamed.add(result.getUserId());
+            if (streamed.size() == 6) {
+                slowUserMayFinish.countDown();
+            }
+        });
+
+        assertEquals(7, streamed.size());
+        assertEquals("slow", streamed.get(6));
+        assertEquals(2, maxRunning.get());
+    }
+}
@@ -0,0 +1,82 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.RenditionProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageRenditionRendererTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ImageRenditionRenderer renderer = new ImageRenditionRenderer(new RenditionProperties());
+
+    @Test
+    void render_ShouldBoundLongestEdgeAndKeepAspectRatio() throws IOException {
+        Path source = writeImage(1080, 1350, BufferedImage.TYPE_INT_ARGB);
+
+        renderer.render(source, List.of(150, 320, 640), tempDir.resolve("out"), 0.85f);
+
+        assertDimensions(tempDir.resolve("out/640.jpg"), 512, 640);
+        assertDimensions(tempDir.resolve("out/320.jpg"), 256, 320);
+        assertDimensions(tempDir.resolve("out/150.jpg"), 120, 150);
+    }
+
+    @Test
+    void render_ShouldNotUpscaleSmallImages() throws IOException {
+        Path source = writeImage(200, 100, BufferedImage.TYPE_INT_RGB);
+
+        renderer.render(source, List.of(150, 320), tempDir.resolve("small"), 0.85f);
+
+        assertDimensions(tempDir.resolve("small/320.jpg"), 200, 100);
+        assertDimensions(tempDir.resolve("small/150.jpg"), 150, 75);
+    }
+
+    @Test
+    void render_ShouldRejectNonImageInput() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("video.mp4"), "not an image");
+
+        assertThrows(IOException.class,
+                () -> renderer.render(source, List.of(150), tempDir.resolve("bad"), 0.85f));
+    }
+
+    @Test
+    void render_ShouldRejectImagesAboveMaxSourcePixels() throws IOException {
+        RenditionProperties properties = new RenditionProperties();
+        properties.setMaxSourcePixels(1080L * 1350 - 1);
+        Path source = writeImage(1080, 1350, BufferedImage.TYPE_INT_RGB);
+
+        IOException ex = assertThrows(IOException.class, () -> new ImageRenditionRenderer(properties)
+                .render(source, List.of(150), tempDir.resolve("huge"), 0.85f));
+        assertTrue(ex.getMessage().contains("1080x1350"));
+        assertFalse(Files.exists(tempDir.resolve("huge")));
+    }
+
+    private Path writeImage(int width, int height, int type) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int x = 0; x < width; x += 10) {
+            for (int y = 0; y < height; y += 10) {
+                image.setRGB(x, y, 0xFF000000 | (x * 31 + y * 17));
+            }
+        }
+        Path file = tempDir.resolve("source-" + width + "x" + height + ".png");
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    private void assertDimensions(Path file, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(file.toFile());
+        assertNotNull(image, "missing rendition " + file);
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+}
@@ -1,19 +1,23 @@
 package com.instagram.api.service;
 
+import com.instagram.api.client.FieldSelection;
 import com.instagram.api.dto.*;
 import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.event.InstagramAccountChangedEvent;
 import com.instagram.api.exception.AccountNotFoundException;
 import com.instagram.api.repository.InstagramAccountRepository;
-import com.instagram.api.repository.InstagramMediaRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,15 +30,27 @@ class InstagramAccountServiceTest {
     @Mock
     private InstagramAccountRepository accountRepository;
 
-    @Mock
-    private InstagramMediaRepository mediaRepository;
-
     @Mock
     private InstagramOAuthService oAuthService;
 
     @Mock
     private InstagramDataService dataService;
 
+    @Mock
+    private LinkStatusCache linkStatusCache;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private AccountStore accountStore;
+
+    @Mock
+    private AccountPurgeService purgeService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private InstagramAccountService accountService;
 
@@ -109,6 +125,7 @@ class InstagramAccountServiceTest {
         assertTrue(result.isSuccess());
         assertEquals("testuser", result.getUsername());
         verify(accountRepository).save(any(InstagramAccount.class));
+        verify(eventPublisher).publishEvent(InstagramAccountChangedEvent.linked(userId));
     }
 
     @Test
@@ -118,22 +135,42 @@ class InstagramAccountServiceTest {
                 .media(Collections.emptyList())
                 .build();
 
-        when(accountRepository.findByUserIdAndIsActiveTrue("user123"))
+        when(accountCache.findActive("user123"))
                 .thenReturn(Optional.of(testAccount));
-        when(dataService.fetchAllData(anyString(), anyString(), anyInt()))
+        when(dataService.fetchAllData(anyString(), anyString(), anyInt(), any()))
                 .thenReturn(expectedData);
-        when(accountRepository.save(any(InstagramAccount.class))).thenReturn(testAccount);
+        when(accountStore.updateProfile(1L, testProfile, FieldSelection.ALL)).thenReturn(true);
 
         InstagramDataResponse result = accountService.fetchData("user123", 25);
 
         assertNotNull(result);
         assertEquals("testuser", result.getProfile().getUsername());
-        verify(dataService).persistMedia(any(InstagramAccount.class), anyList());
+        verify(dataService).persistMedia(any(InstagramAccount.class), anyList(), eq(FieldSelection.ALL));
+    }
+
+    @Test
+    void fetchData_ShouldOnlyUpdateSelectedProfileFields() {
+        FieldSelection selection = FieldSelection.parse("profile", "followers_count", null);
+        InstagramProfileDTO counts = InstagramProfileDTO.builder().id("ig123").followersCount(5000).build();
+
+        when(accountCache.findActive("user123"))
+                .thenReturn(Optional.of(testAccount));
+        when(dataService.fetchAllData(anyString(), anyString(), anyInt(), eq(selection)))
+                .thenReturn(InstagramDataResponse.builder().profile(counts).build());
+
+        accountService.fetchData("user123", 25, selection);
+
+        assertEquals(5000, testAccount.getFollowersCount());
+        assertEquals("testuser", testAccount.getUsername());
+        verify(accountStore).updateProfile(1L, counts, selection);
+        verify(accountRepository, never()).save(any());
+        verify(dataService, never()).persistMedia(any(), anyList(), any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
     void fetchData_ShouldThrowWhenAccountNotFound() {
-        when(accountRepository.findByUserIdAndIsActiveTrue("unknown"))
+        when(accountCache.findActive("unknown"))
                 .thenReturn(Optional.empty());
 
         assertThrows(AccountNotFoundException.class,
@@ -147,28 +184,54 @@ class InstagramAccountServiceTest {
                 .expiresIn(5184000L)
                 .build();
 
-        when(accountRepository.findByUserIdAndIsActiveTrue("user123"))
+        when(accountCache.findActive("user123"))
                 .thenReturn(Optional.of(testAccount));
         when(oAuthService.refreshToken(anyString())).thenReturn(refreshedToken);
-        when(accountRepository.save(any(InstagramAccount.class))).thenReturn(testAccount);
+        when(accountStore.updateToken(eq(1L), eq("new-token"), any())).thenReturn(true);
 
         LinkAccountResponse result = accountService.refreshToken("user123");
 
         assertTrue(result.isSuccess());
-        verify(accountRepository, times(1)).save(any(InstagramAccount.class));
+        verify(accountStore, times(1)).updateToken(eq(1L), eq("new-token"), any());
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void refreshToken_ShouldNotRestoreTokenOfAccountUnlinkedMeanwhile() {
+        when(accountCache.findActive("user123"))
+                .thenReturn(Optional.of(testAccount));
+        when(oAuthService.refreshToken(anyString())).thenReturn(InstagramTokenResponse.builder()
+                .accessToken("new-token")
+                .build());
+        when(accountStore.updateToken(eq(1L), eq("new-token"), any())).thenReturn(false);
+
+        assertThrows(AccountNotFoundException.class, () -> accountService.refreshToken("user123"));
     }
 
     @Test
-    void unlinkAccount_WithDeleteData_ShouldDeleteAllData() {
+    void unlinkAccount_WithDeleteData_ShouldDeactivateThenPurgeAllData() {
         when(accountRepository.findByUserId("user123"))
                 .thenReturn(Optional.of(testAccount));
-        doNothing().when(mediaRepository).deleteByAccount(any(InstagramAccount.class));
-        doNothing().when(accountRepository).delete(any(InstagramAccount.class));
 
         accountService.unlinkAccount("user123", true);
 
-        verify(mediaRepository).deleteByAccount(testAccount);
-        verify(accountRepository).delete(testAccount);
+        verify(accountRepository).save(argThat(account -> !account.getIsActive()));
+        verify(purgeService).purge(1L, "user123");
+        verify(eventPublisher).publishEvent(InstagramAccountChangedEvent.unlinked("user123"));
+    }
+
+    @Test
+    void unlinkAccountAndPurgeAsync_ShouldReturnPurgeJob() {
+        when(accountRepository.findByUserId("user123"))
+                .thenReturn(Optional.of(testAccount));
+        when(purgeService.submit(1L, "user123")).thenReturn(AccountPurgeResponse.builder()
+                .jobId("job-1").state(AccountPurgeResponse.State.PENDING).build());
+
+        AccountPurgeResponse purge = accountService.unlinkAccountAndPurgeAsync("user123");
+
+        assertEquals("job-1", purge.getJobId());
+        verify(purgeService, never()).purge(anyLong(), anyString());
+        verify(eventPublisher).publishEvent(InstagramAccountChangedEvent.unlinked("user123"));
     }
 
     @Test
@@ -181,22 +244,33 @@ class InstagramAccountServiceTest {
 
         verify(accountRepository).save(argThat(account ->
                 !account.getIsActive() && account.getAccessToken() == null));
-        verify(mediaRepository, never()).deleteByAccount(any());
+        verifyNoInteractions(purgeService);
+        verify(eventPublisher).publishEvent(InstagramAccountChangedEvent.unlinked("user123"));
     }
 
     @Test
     void isAccountLinked_ShouldReturnTrue_WhenActiveAccountExists() {
-        when(accountRepository.existsByUserIdAndIsActiveTrue("user123"))
-                .thenReturn(true);
+        when(linkStatusCache.isLinked("user123")).thenReturn(true);
 
         assertTrue(accountService.isAccountLinked("user123"));
     }
 
     @Test
     void isAccountLinked_ShouldReturnFalse_WhenNoActiveAccount() {
-        when(accountRepository.existsByUserIdAndIsActiveTrue("user123"))
-                .thenReturn(false);
+        when(linkStatusCache.isLinked("user123")).thenReturn(false);
 
         assertFalse(accountService.isAccountLinked("user123"));
     }
+
+    @Test
+    void getLinkStatuses_ShouldDelegateToCache() {
+        when(linkStatusCache.areLinked(List.of("user123", "other")))
+                .thenReturn(Map.of("user123", true, "other", false));
+
+        Map<String, Boolean> statuses = accountService.getLinkStatuses(List.of("user123", "other"));
+
+        assertTrue(statuses.get("user123"));
+        assertFalse(statuses.get("other"));
+        verifyNoInteractions(accountRepository);
+    }
 }
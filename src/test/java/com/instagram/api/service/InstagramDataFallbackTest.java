@@ -0,0 +1,166 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.config.DataFallbackProperties;
+import com.instagram.api.config.RequestDeadline;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.exception.GraphApiException;
+import com.instagram.api.exception.InstagramApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InstagramDataFallbackTest {
+
+    private static final LocalDateTime LAST_SYNC = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+    @Mock
+    private InstagramAccountService accountService;
+
+    @Mock
+    private StoredDataReader storedData;
+
+    private final InstagramAccount account = InstagramAccount.builder()
+            .id(1L)
+            .userId("user123")
+            .build();
+    private InstagramDataFallback fallback;
+    private final CountDownLatch graphResponds = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        DataFallbackProperties properties = new DataFallbackProperties();
+        properties.setLatencyBudget(Duration.ofMillis(100));
+        fallback = new InstagramDataFallback(accountService, storedData, properties);
+
+        when(accountService.getAccount("user123")).thenReturn(account);
+    }
+
+    @AfterEach
+    void tearDown() {
+        graphResponds.countDown();
+        fallback.stop();
+    }
+
+    @Test
+    void fetchData_ShouldReturnLiveDataWithinBudget() {
+        when(accountService.fetchData(account, 25, FieldSelection.ALL)).thenReturn(new InstagramDataResponse());
+
+        InstagramDataResponse result = fallback.fetchData("user123", 25, FieldSelection.ALL);
+
+        assertFalse(result.isStale());
+        assertNotNull(result.getLastSyncedAt());
+        verify(storedData).markSynced(eq(1L), any());
+        verify(storedData, never()).load(any(), any(), any());
+    }
+
+    @Test
+    void fetchData_ShouldServeStoredDataWhenGraphIsSlowAndFinishInBackground() {
+        when(accountService.fetchData(account, 25, FieldSelection.ALL)).thenAnswer(invocation -> {
+            graphResponds.await();
+            return new InstagramDataResponse();
+        });
+        when(storedData.load(1L, 25, FieldSelection.ALL)).thenReturn(Optional.of(stored()));
+
+        InstagramDataResponse result = fallback.fetchData("user123", 25, FieldSelection.ALL);
+
+        assertTrue(result.isStale());
+        assertEquals(LAST_SYNC, result.getLastSyncedAt());
+        verify(storedData, never()).markSynced(any(), any());
+
+        graphResponds.countDown();
+        verify(storedData, timeout(5000)).markSynced(eq(1L), any());
+    }
+
+    @Test
+    void fetchData_ShouldKeepFetchingAfterTheDeadlineOfTheRequestThatStartedIt() throws Exception {
+        AtomicReference<Duration> fetchDeadline = new AtomicReference<>();
+        when(accountService.fetchData(account, 25, FieldSelection.ALL)).thenAnswer(invocation -> {
+            graphResponds.await();
+            fetchDeadline.set(RequestDeadline.current().remaining());
+            return new InstagramDataResponse();
+        });
+        when(storedData.load(1L, 25, FieldSelection.ALL)).thenReturn(Optional.of(stored()));
+
+        try (RequestDeadline.Scope scope = RequestDeadline.attach(new RequestDeadline(Duration.ofMillis(50), stage -> { }))) {
+            assertTrue(fallback.fetchData("user123", 25, FieldSelection.ALL).isStale());
+        }
+        Thread.sleep(100);
+        graphResponds.countDown();
+
+        verify(storedData, timeout(5000)).markSynced(eq(1L), any());
+        assertTrue(fetchDeadline.get().compareTo(Duration.ofSeconds(20)) > 0);
+    }
+
+    @Test
+    void fetchData_ShouldShareOneLiveCallBetweenIdenticalRequests() {
+        when(accountService.fetchData(account, 25, FieldSelection.ALL)).thenAnswer(invocation -> {
+            graphResponds.await();
+            return new InstagramDataResponse();
+        });
+        when(storedData.load(1L, 25, FieldSelection.ALL)).thenReturn(Optional.of(stored()));
+
+        assertTrue(fallback.fetchData("user123", 25, FieldSelection.ALL).isStale());
+        assertTrue(fallback.fetchData("user123", 25, FieldSelection.ALL).isStale());
+
+        verify(accountService, times(1)).fetchData(account, 25, FieldSelection.ALL);
+    }
+
+    @Test
+    void fetchData_ShouldServeStoredDataWhenGraphFails() {
+        when(accountService.fetchData(account, 25, FieldSelection.ALL))
+                .thenThrow(new GraphApiException("Graph API unreachable", new IOException("connection reset")));
+        when(storedData.load(1L, 25, FieldSelection.ALL)).thenReturn(Optional.of(stored()));
+
+        assertTrue(fallback.fetchData("user123", 25, FieldSelection.ALL).isStale());
+    }
+
+    @Test
+    void fetchData_ShouldRethrowClientErrors() {
+        when(accountService.fetchData(account, 25, FieldSelection.ALL))
+                .thenThrow(new InstagramApiException("Token expired", "GRAPH_INVALID_TOKEN", 401));
+
+        InstagramApiException error = assertThrows(InstagramApiException.class,
+                () -> fallback.fetchData("user123", 25, FieldSelection.ALL));
+
+        assertEquals("GRAPH_INVALID_TOKEN", error.getErrorCode());
+        verify(storedData, never()).load(any(), any(), any());
+    }
+
+    @Test
+    void fetchData_ShouldWaitForLiveDataWhenNothingIsStored() {
+        when(accountService.fetchData(account, 25, FieldSelection.ALL)).thenAnswer(invocation -> {
+            graphResponds.await(300, TimeUnit.MILLISECONDS);
+            return new InstagramDataResponse();
+        });
+        when(storedData.load(1L, 25, FieldSelection.ALL)).thenReturn(Optional.empty());
+
+        InstagramDataResponse result = fallback.fetchData("user123", 25, FieldSelection.ALL);
+
+        assertFalse(result.isStale());
+    }
+
+    private static InstagramDataResponse stored() {
+        return InstagramDataResponse.builder()
+                .stale(true)
+                .lastSyncedAt(LAST_SYNC)
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.client.GraphApiClient;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaChildRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InstagramDataServiceTest {
+
+    @Mock
+    private GraphApiClient graphApiClient;
+
+    @Mock
+    private InstagramMediaRepository mediaRepository;
+
+    @Mock
+    private InstagramMediaChildRepository childRepository;
+
+    @Mock
+    private InstagramAccountRepository accountRepository;
+
+    @Mock
+    private MediaTagIndexer tagIndexer;
+
+    @InjectMocks
+    private InstagramDataService dataService;
+
+    @Test
+    void fetchAllData_ShouldSkipEntitiesThatAreNotIncluded() {
+        FieldSelection selection = FieldSelection.parse("profile", "followers_count", null);
+
+        InstagramDataResponse response = dataService.fetchAllData("token", "business123", 25, selection);
+
+        verify(graphApiClient).getProfile("business123", "token", "id,followers_count");
+        verifyNoMoreInteractions(graphApiClient);
+        assertNull(response.getMedia());
+        assertNull(response.getPaging());
+    }
+
+    @Test
+    void persistMedia_ShouldOnlyWriteSelectedFields() {
+        InstagramAccount account = InstagramAccount.builder().id(1L).userId("user123").build();
+        InstagramMedia stored = InstagramMedia.builder()
+                .id(10L)
+                .mediaId("media1")
+                .account(account)
+                .mediaType("IMAGE")
+                .caption("Sunset #travel")
+                .likeCount(3)
+                .build();
+        when(accountRepository.findActiveByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(mediaRepository.findByAccountIdAndMediaIdIn(1L, List.of("media1"))).thenReturn(List.of(stored));
+        when(mediaRepository.save(any(InstagramMedia.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        InstagramMediaDTO counts = InstagramMediaDTO.builder().id("media1").likeCount(42).build();
+        dataService.persistMedia(account, List.of(counts), FieldSelection.parse("media", null, "like_count"));
+
+        assertEquals(42, stored.getLikeCount());
+        assertEquals("Sunset #travel", stored.getCaption());
+        assertEquals("IMAGE", stored.getMediaType());
+        verifyNoInteractions(tagIndexer, childRepository);
+    }
+
+    @Test
+    void persistMedia_ShouldMoveAStoredMediaItemToItsNewTimestamp() {
+        InstagramAccount account = InstagramAccount.builder().id(1L).userId("user123").build();
+        InstagramMedia stored = InstagramMedia.builder()
+                .id(10L)
+                .mediaId("media1")
+                .account(account)
+                .timestamp(LocalDateTime.of(2024, 1, 15, 10, 30))
+                .build();
+        when(accountRepository.findActiveByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(mediaRepository.findByAccountIdAndMediaIdIn(1L, List.of("media1"))).thenReturn(List.of(stored));
+        when(mediaRepository.save(any(InstagramMedia.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        InstagramMediaDTO moved = InstagramMediaDTO.builder().id("media1").timestamp("2024-01-16T08:00:00+0000").build();
+        dataService.persistMedia(account, List.of(moved, moved), FieldSelection.parse("media", null, "timestamp"));
+
+        assertEquals(LocalDateTime.of(2024, 1, 16, 8, 0), stored.getTimestamp());
+        verify(mediaRepository, times(2)).save(same(stored));
+    }
+
+    @Test
+    void persistMedia_ShouldNotCreateRowsWithoutATimestamp() {
+        InstagramAccount account = InstagramAccount.builder().id(1L).userId("user123").build();
+        when(accountRepository.findActiveByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(mediaRepository.findByAccountIdAndMediaIdIn(1L, List.of("media1", "media2"))).thenReturn(List.of());
+        when(mediaRepository.save(any(InstagramMedia.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        dataService.persistMedia(account, List.of(
+                InstagramMediaDTO.builder().id("media1").likeCount(5).build(),
+                InstagramMediaDTO.builder().id("media2").likeCount(7).timestamp("2024-01-16T08:00:00+0000").build()),
+                FieldSelection.ALL);
+
+        verify(mediaRepository).save(argThat(media -> media.getMediaId().equals("media2")
+                && LocalDateTime.of(2024, 1, 16, 8, 0).equals(media.getTimestamp())));
+        verify(mediaRepository, times(1)).save(any(InstagramMedia.class));
+    }
+
+    @Test
+    void persistMedia_ShouldNotWriteMediaOfAnUnlinkedAccount() {
+        InstagramAccount account = InstagramAccount.builder().id(1L).userId("user123").build();
+        when(accountRepository.findActiveByIdForUpdate(1L)).thenReturn(Optional.empty());
+
+        dataService.persistMedia(account, List.of(InstagramMediaDTO.builder().id("media1").build()), FieldSelection.ALL);
+
+        verifyNoInteractions(mediaRepository, childRepository, tagIndexer);
+    }
+}
@@ -0,0 +1,126 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.LinkStatusCacheProperties;
+import com.instagram.api.event.InstagramAccountChangedEvent;
+import com.instagram.api.repository.InstagramAccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LinkStatusCacheTest {
+
+    @Mock
+    private InstagramAccountRepository accountRepository;
+
+    private LinkStatusCache linkStatusCache;
+
+    @BeforeEach
+    void setUp() {
+        linkStatusCache = new LinkStatusCache(accountRepository, new LinkStatusCacheProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        linkStatusCache.stop();
+    }
+
+    @Test
+    void isLinked_ShouldFallBackToRepository_BeforeWarmUp() {
+        when(accountRepository.existsByUserIdAndIsActiveTrue("user123")).thenReturn(true);
+
+        assertTrue(linkStatusCache.isLinked("user123"));
+        verify(accountRepository).existsByUserIdAndIsActiveTrue("user123");
+    }
+
+    @Test
+    void isLinked_ShouldAnswerFromMemory_AfterWarmUp() {
+        when(accountRepository.findActiveUserIds()).thenReturn(List.of("user123"));
+
+        linkStatusCache.warmUp();
+
+        assertTrue(linkStatusCache.isLinked("user123"));
+        assertFalse(linkStatusCache.isLinked("unknown"));
+        verify(accountRepository, never()).existsByUserIdAndIsActiveTrue(anyString());
+    }
+
+    @Test
+    void onAccountChanged_ShouldUpdateMembership() {
+        when(accountRepository.findActiveUserIds()).thenReturn(List.of("user123"));
+        linkStatusCache.warmUp();
+
+        linkStatusCache.onAccountChanged(InstagramAccountChangedEvent.linked("user456"));
+        linkStatusCache.onAccountChanged(InstagramAccountChangedEvent.unlinked("user123").asRemote());
+
+        assertTrue(linkStatusCache.isLinked("user456"));
+        assertFalse(linkStatusCache.isLinked("user123"));
+    }
+
+    @Test
+    void warmUp_ShouldNotResurrectUsersUnlinkedWhileLoading() {
+        when(accountRepository.findActiveUserIds()).thenAnswer(invocation -> {
+            linkStatusCache.onAccountChanged(InstagramAccountChangedEvent.unlinked("user123"));
+            return List.of("user123", "user456");
+        });
+
+        linkStatusCache.warmUp();
+
+        assertFalse(linkStatusCache.isLinked("user123"));
+        assertTrue(linkStatusCache.isLinked("user456"));
+    }
+
+    @Test
+    void refresh_ShouldPickUpChangesMadeOnOtherNodes() {
+        when(accountRepository.findActiveUserIds()).thenReturn(List.of("user123"), List.of("user456"));
+        linkStatusCache.warmUp();
+
+        linkStatusCache.refresh();
+
+        assertFalse(linkStatusCache.isLinked("user123"));
+        assertTrue(linkStatusCache.isLinked("user456"));
+    }
+
+    @Test
+    void refresh_ShouldKeepChangesAppliedWhileLoading() {
+        when(accountRepository.findActiveUserIds()).thenReturn(List.of("user123")).thenAnswer(invocation -> {
+            linkStatusCache.onAccountChanged(InstagramAccountChangedEvent.linked("user456"));
+            return List.of("user123");
+        });
+        linkStatusCache.warmUp();
+
+        linkStatusCache.refresh();
+
+        assertTrue(linkStatusCache.isLinked("user456"));
+    }
+
+    @Test
+    void refresh_ShouldKeepTheCurrentSetWhenTheDatabaseFails() {
+        when(accountRepository.findActiveUserIds()).thenReturn(List.of("user123"))
+                .thenThrow(new IllegalStateException("connection refused"));
+        linkStatusCache.warmUp();
+
+        linkStatusCache.refresh();
+
+        assertTrue(linkStatusCache.isLinked("user123"));
+    }
+
+    @Test
+    void areLinked_ShouldAnswerForEveryRequestedUser() {
+        when(accountRepository.findActiveUserIds()).thenReturn(List.of("a", "c"));
+        linkStatusCache.warmUp();
+
+        Map<String, Boolean> statuses = linkStatusCache.areLinked(List.of("a", "b", "c"));
+
+        assertEquals(Map.of("a", true, "b", false, "c", true), statuses);
+    }
+}
@@ -0,0 +1,175 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.MediaCacheProperties;
+import com.instagram.api.exception.InstagramApiException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaBinaryCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer cdn;
+    private final AtomicInteger downloads = new AtomicInteger();
+    private volatile CountDownLatch releaseDownloads = new CountDownLatch(0);
+    private MediaBinaryCache cache;
+    private MediaCacheProperties properties;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cdn = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        cdn.setExecutor(Executors.newCachedThreadPool());
+        cdn.createContext("/", exchange -> {
+            downloads.incrementAndGet();
+            try {
+                releaseDownloads.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (exchange.getRequestURI().getPath().startsWith("/missing")) {
+                exchange.sendResponseHeaders(403, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = new byte[1024];
+            Arrays.fill(body, (byte) exchange.getRequestURI().getPath().length());
+            exchange.getResponseHeaders().add("Content-Type", "image/jpeg");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        cdn.start();
+
+        properties = new MediaCacheProperties();
+        properties.setDirectory(cacheDir.toString());
+        cache = newCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cdn.stop(0);
+    }
+
+    @Test
+    void get_ShouldDownloadOnceAndServeFromDisk() {
+        MediaBinaryCache.CachedBinary first = cache.get("media:1:media", () -> url("/a.jpg"));
+        MediaBinaryCache.CachedBinary second = cache.get("media:1:media", () -> fail("URL should not be resolved on a hit"));
+
+        assertEquals(1, downloads.get());
+        assertEquals(first.path(), second.path());
+        assertEquals(1024, second.size());
+        assertEquals("image/jpeg", second.contentType());
+        assertTrue(Files.exists(second.path()));
+    }
+
+    @Test
+    void get_ShouldCollapseConcurrentMissesIntoOneDownload() throws Exception {
+        releaseDownloads = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<MediaBinaryCache.CachedBinary>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cache.get("media:2:media", () -> url("/b.jpg"))));
+            }
+            Thread.sleep(200);
+            releaseDownloads.countDown();
+            for (Future<MediaBinaryCache.CachedBinary> future : futures) {
+                assertEquals(1024, future.get(10, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    void get_ShouldEvictLeastRecentlyUsedWhenOverBudget() throws IOException {
+        properties.setMaxSizeBytes(2048);
+        properties.setEvictionGrace(Duration.ZERO);
+        cache = newCache();
+
+        MediaBinaryCache.CachedBinary a = cache.get("a", () -> url("/a.jpg"));
+        MediaBinaryCache.CachedBinary b = cache.get("b", () -> url("/b.jpg"));
+        cache.get("a", () -> fail("a should still be cached"));
+        MediaBinaryCache.CachedBinary c = cache.get("c", () -> url("/c.jpg"));
+
+        assertTrue(Files.exists(a.path()));
+        assertFalse(Files.exists(b.path()));
+        assertTrue(Files.exists(c.path()));
+        assertEquals(2048, cache.getTotalBytes());
+        // Whoever still serves b keeps reading it through the channel it was handed
+        assertEquals(1024, b.channel().read(ByteBuffer.allocate(2048), 0));
+    }
+
+    @Test
+    void get_ShouldKeepEvictedObjectsOnDiskForTheGracePeriod() throws IOException {
+        properties.setMaxSizeBytes(1024);
+        properties.setEvictionGrace(Duration.ofHours(1));
+        cache = newCache();
+
+        MediaBinaryCache.CachedBinary a = cache.get("a", () -> url("/a.jpg"));
+        cache.get("b", () -> url("/b.jpg"));
+
+        // Evicted, but a sendfile that has yet to open it by name still finds it
+        assertTrue(Files.exists(a.path()));
+        assertEquals(1024, cache.getTotalBytes());
+
+        cache.get("a", () -> fail("an evicted object still on disk should be put back, not downloaded"));
+        assertEquals(2, downloads.get());
+    }
+
+    @Test
+    void init_ShouldRestoreIndexFromDisk() throws IOException {
+        cache.get("media:3:media", () -> url("/c.jpg"));
+
+        MediaBinaryCache restarted = newCache();
+
+        assertEquals(1024, restarted.getTotalBytes());
+        restarted.get("media:3:media", () -> fail("cache should survive a restart"));
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    void get_ShouldFailWithBadGateway_WhenCdnRejects() {
+        InstagramApiException ex = assertThrows(InstagramApiException.class,
+                () -> cache.get("missing", () -> url("/missing.jpg")));
+
+        assertEquals(502, ex.getStatusCode());
+    }
+
+    private MediaBinaryCache newCache() throws IOException {
+        MediaBinaryCache created = new MediaBinaryCache(WebClient.create(), properties);
+        created.init();
+        return created;
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + cdn.getAddress().getPort() + path;
+    }
+}
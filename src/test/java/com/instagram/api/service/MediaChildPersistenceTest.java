@@ -0,0 +1,146 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.InstagramMediaChild;
+import com.instagram.api.loadtest.GraphApiStub;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaChildRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Carousel children arrive inline with the media page and are stored without extra Graph calls.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MediaChildPersistenceTest {
+
+    private static final String BUSINESS_ACCOUNT = "17841000";
+
+    private static final GraphApiStub stub = startStub();
+
+    @Autowired
+    private InstagramDataService dataService;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @Autowired
+    private InstagramMediaChildRepository childRepository;
+
+    private InstagramAccount account;
+
+    @DynamicPropertySource
+    static void graphApi(DynamicPropertyRegistry registry) {
+        registry.add("instagram.api.base-url", () -> stub.baseUri().toString());
+        registry.add("instagram.api.facebook-graph-url", () -> stub.baseUri().toString());
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        account = accountRepository.save(InstagramAccount.builder()
+                .userId("carousel-user")
+                .instagramUserId("carousel-ig")
+                .instagramBusinessAccountId(BUSINESS_ACCOUNT)
+                .accessToken("token")
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        childRepository.deleteAll();
+        mediaRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void mediaPageShouldPersistAlbumChildrenWithoutPerAlbumCalls() {
+        long requestsBefore = stub.getRequestCount();
+        List<InstagramMediaDTO> media = dataService.fetchMedia("token", BUSINESS_ACCOUNT, 10);
+        dataService.persistMedia(account, media);
+
+        // Items 3 and 8 are albums; neither needed a call of its own
+        assertEquals(1L, stub.getRequestCount() - requestsBefore);
+        assertNull(stub.getRequestsByEndpoint().get("media"));
+        assertEquals(2 * GraphApiStub.CAROUSEL_SIZE, childRepository.count());
+
+        List<InstagramMediaChild> children = childrenOf(BUSINESS_ACCOUNT + "_3");
+        assertEquals(List.of(0, 1, 2), children.stream().map(InstagramMediaChild::getPosition).toList());
+        assertEquals(BUSINESS_ACCOUNT + "_3-c0", children.get(0).getChildMediaId());
+        assertEquals("VIDEO", children.get(1).getMediaType());
+        assertNotNull(children.get(1).getThumbnailUrl());
+        assertTrue(childrenOf(BUSINESS_ACCOUNT + "_4").isEmpty());
+        assertNull(media.get(4).getChildren());
+    }
+
+    @Test
+    void resyncShouldReconcileStoredChildren() {
+        dataService.persistMedia(account, dataService.fetchMedia("token", BUSINESS_ACCOUNT, 10));
+
+        InstagramMedia album = mediaRepository.findByMediaId(BUSINESS_ACCOUNT + "_3").orElseThrow();
+        List<InstagramMediaChild> children = childrenOf(BUSINESS_ACCOUNT + "_3");
+        childRepository.delete(children.get(0));
+        children.get(2).setMediaUrl("https://cdn.example.invalid/outdated.jpg");
+        childRepository.save(children.get(2));
+        childRepository.save(InstagramMediaChild.builder()
+                .media(album).childMediaId("removed-from-album").position(3).build());
+
+        dataService.persistMedia(account, dataService.fetchMedia("token", BUSINESS_ACCOUNT, 10));
+
+        List<InstagramMediaChild> reconciled = childrenOf(BUSINESS_ACCOUNT + "_3");
+        assertEquals(List.of(BUSINESS_ACCOUNT + "_3-c0", BUSINESS_ACCOUNT + "_3-c1", BUSINESS_ACCOUNT + "_3-c2"),
+                reconciled.stream().map(InstagramMediaChild::getChildMediaId).toList());
+        assertEquals(children.get(1).getId(), reconciled.get(1).getId());
+        assertEquals("https://cdn.example.invalid/" + BUSINESS_ACCOUNT + "_3-c2.jpg", reconciled.get(2).getMediaUrl());
+        assertEquals(2 * GraphApiStub.CAROUSEL_SIZE, childRepository.count());
+    }
+
+    @Test
+    void selectionWithoutChildrenShouldLeaveStoredChildrenAlone() {
+        dataService.persistMedia(account, dataService.fetchMedia("token", BUSINESS_ACCOUNT, 10));
+
+        FieldSelection counts = FieldSelection.parse("media", null, "like_count");
+        dataService.persistMedia(account, dataService.fetchMedia("token", BUSINESS_ACCOUNT, 10, counts), counts);
+
+        assertEquals(2 * GraphApiStub.CAROUSEL_SIZE, childRepository.count());
+    }
+
+    private List<InstagramMediaChild> childrenOf(String mediaId) {
+        return childRepository.findByMediaOrderByPositionAsc(mediaRepository.findByMediaId(mediaId).orElseThrow());
+    }
+
+    private static GraphApiStub startStub() {
+        try {
+            return GraphApiStub.start(new GraphApiStub.Options().mediaPerAccount(10));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
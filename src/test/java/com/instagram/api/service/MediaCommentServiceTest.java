@@ -0,0 +1,183 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.dto.CommentSyncResponse;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.loadtest.GraphApiStub;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramCommentRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comment sync against the Graph stub with a small page budget: 12 comments per post, pages of 5
+ * and at most 2 pages per post and sync.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MediaCommentServiceTest {
+
+    private static final String BUSINESS_ACCOUNT = "17842000";
+    private static final int COMMENTS = 12;
+    // Comments plus the replies on every fourth of them, as the stub reports in comments_count
+    private static final int COMMENTS_WITH_REPLIES = 18;
+
+    private static final GraphApiStub stub = startStub();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MediaCommentService commentService;
+
+    @Autowired
+    private InstagramDataService dataService;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @Autowired
+    private InstagramCommentRepository commentRepository;
+
+    private InstagramAccount account;
+
+    @DynamicPropertySource
+    static void graphApi(DynamicPropertyRegistry registry) {
+        registry.add("instagram.api.base-url", () -> stub.baseUri().toString());
+        registry.add("instagram.api.facebook-graph-url", () -> stub.baseUri().toString());
+        registry.add("instagram.comments.page-size", () -> "5");
+        registry.add("instagram.comments.max-pages-per-media", () -> "2");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        account = accountRepository.save(InstagramAccount.builder()
+                .userId("comments-user")
+                .instagramUserId("comments-ig")
+                .instagramBusinessAccountId(BUSINESS_ACCOUNT)
+                .accessToken("token")
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build());
+        syncMedia();
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        mediaRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void syncShouldBackfillWithinPageBudgetThenFetchOnlyNewComments() {
+        CommentSyncResponse first = commentService.syncComments("comments-user");
+        assertEquals(3, first.getMediaSynced());
+        assertEquals(3, first.getMediaPending());
+        assertEquals(6, first.getPagesFetched());
+
+        // One page down to the stored comments, then the rest of the backfill
+        CommentSyncResponse second = commentService.syncComments("comments-user");
+        assertEquals(0, second.getMediaPending());
+        assertEquals(6, second.getPagesFetched());
+        assertEquals(3L * COMMENTS_WITH_REPLIES, commentRepository.count());
+
+        long callsBefore = commentCalls();
+        CommentSyncResponse third = commentService.syncComments("comments-user");
+        assertEquals(3, third.getMediaSkipped());
+        assertEquals(callsBefore, commentCalls());
+
+        stub.addComments(BUSINESS_ACCOUNT + "_0", 3);
+        syncMedia();
+        CommentSyncResponse fourth = commentService.syncComments("comments-user");
+        assertEquals(1, fourth.getMediaSynced());
+        assertEquals(2, fourth.getMediaSkipped());
+        assertEquals(1, fourth.getPagesFetched());
+        // Three comments, one of which has two replies
+        assertEquals(5, fourth.getCommentsStored());
+    }
+
+    @Test
+    void commentsShouldBeListedNewestFirstWithKeysetCursor() throws Exception {
+        commentService.syncComments("comments-user");
+        commentService.syncComments("comments-user");
+        String mediaId = BUSINESS_ACCOUNT + "_1";
+
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            String url = "/api/instagram/media/" + mediaId + "/comments?limit=5"
+                    + (cursor != null ? "&cursor=" + cursor : "");
+            JsonNode page = objectMapper.readTree(mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).path("data");
+            for (JsonNode comment : page.path("comments")) {
+                ids.add(comment.path("id").asText());
+                if (comment.path("id").asText().equals(mediaId + "-k9")) {
+                    assertEquals(GraphApiStub.REPLIES_PER_THREAD, comment.path("replies").size());
+                    assertEquals(mediaId + "-k9-r0", comment.at("/replies/0/id").asText());
+                }
+            }
+            cursor = page.at("/paging/nextCursor").asText(null);
+        } while (cursor != null);
+
+        List<String> expected = new ArrayList<>();
+        for (int k = COMMENTS - 1; k >= 0; k--) {
+            expected.add(mediaId + "-k" + k);
+        }
+        assertEquals(expected, ids);
+
+        mockMvc.perform(get("/api/instagram/media/" + mediaId + "/comments?cursor=garbage"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/instagram/media/unknown/comments"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void syncMedia() {
+        dataService.persistMedia(account, dataService.fetchMedia("token", BUSINESS_ACCOUNT, 3));
+    }
+
+    private long commentCalls() {
+        return stub.getRequestsByEndpoint().getOrDefault("media/comments", 0L);
+    }
+
+    private static GraphApiStub startStub() {
+        try {
+            return GraphApiStub.start(new GraphApiStub.Options().mediaPerAccount(3).commentsPerMedia(COMMENTS));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
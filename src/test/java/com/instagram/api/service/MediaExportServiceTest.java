@@ -0,0 +1,213 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.config.ExportProperties;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MediaExportServiceTest {
+
+    private static final int MEDIA_PER_ACCOUNT = 600;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MediaExportService exportService;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        InstagramAccount first = saveAccount("export-user-1");
+        InstagramAccount second = saveAccount("export-user-2");
+
+        List<InstagramMedia> media = new ArrayList<>();
+        for (int i = 0; i < MEDIA_PER_ACCOUNT; i++) {
+            media.add(media(first, "export-1-" + i, "caption " + i));
+        }
+        media.add(media(second, "export-2-0", "Hello, \"world\"\nsecond line"));
+        mediaRepository.saveAll(media);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mediaRepository.deleteAllInBatch();
+        accountRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void export_ShouldDetachRowsAsItStreams() {
+        Map<Long, String> accounts = exportService.resolveAccounts(List.of("export-user-1"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long[] managedAfterExport = new long[1];
+        long rows = new TransactionTemplate(transactionManager).execute(status -> {
+            try {
+                long exported = exportService.export(accounts, false, MediaExportService.Format.NDJSON, out);
+                managedAfterExport[0] = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+                return exported;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(MEDIA_PER_ACCOUNT, rows);
+        assertEquals(0, managedAfterExport[0]);
+        assertEquals(MEDIA_PER_ACCOUNT, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void export_ShouldAbortOnceMaxDurationHasPassed() {
+        ExportProperties properties = new ExportProperties();
+        properties.setMaxDuration(Duration.ZERO);
+        MediaExportService service = new MediaExportService(mediaRepository, accountRepository, entityManager,
+                objectMapper, properties);
+        Map<Long, String> accounts = exportService.resolveAccounts(List.of("export-user-1"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    try {
+                        service.export(accounts, false, MediaExportService.Format.NDJSON, new ByteArrayOutputStream());
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        assertTrue(ex.getCause().getMessage().contains("Export exceeded"));
+    }
+
+    @Test
+    void exportMedia_ShouldStreamNdjsonForSelectedUsers() throws Exception {
+        String body = export("/api/instagram/export/media?userIds=export-user-2&format=ndjson");
+
+        List<String> lines = body.lines().toList();
+        assertEquals(1, lines.size());
+        JsonNode row = objectMapper.readTree(lines.get(0));
+        assertEquals("export-user-2", row.get("user_id").asText());
+        assertEquals("export-2-0", row.get("media_id").asText());
+        assertEquals("Hello, \"world\"\nsecond line", row.get("caption").asText());
+        assertEquals(7, row.get("like_count").asInt());
+    }
+
+    @Test
+    void exportMedia_ShouldEscapeCsvCells() throws Exception {
+        String body = export("/api/instagram/export/media?userIds=export-user-2&format=csv");
+
+        assertTrue(body.startsWith("user_id,media_id,media_type,"));
+        assertTrue(body.contains("export-user-2,export-2-0,IMAGE,"));
+        assertTrue(body.contains(",\"Hello, \"\"world\"\"\nsecond line\","));
+    }
+
+    @Test
+    void exportMedia_ShouldGzipAllAccounts() throws Exception {
+        MvcResult pending = mockMvc.perform(get("/api/instagram/export/media?all=true&gzip=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] compressed = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Content-Disposition", containsString("instagram-media.ndjson.gz")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(MEDIA_PER_ACCOUNT + 1, body.lines().count());
+    }
+
+    @Test
+    void exportMedia_ShouldRejectMissingSelection() throws Exception {
+        mockMvc.perform(get("/api/instagram/export/media"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportMedia_ShouldReturn404ForUnknownUser() throws Exception {
+        mockMvc.perform(get("/api/instagram/export/media?userIds=export-user-1,nobody"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String export(String url) throws Exception {
+        MvcResult pending = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private InstagramAccount saveAccount(String userId) {
+        return accountRepository.save(InstagramAccount.builder()
+                .userId(userId)
+                .instagramUserId(userId + "-ig")
+                .instagramBusinessAccountId(userId + "-business")
+                .accessToken("token")
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build());
+    }
+
+    private InstagramMedia media(InstagramAccount account, String mediaId, String caption) {
+        return InstagramMedia.builder()
+                .account(account)
+                .mediaId(mediaId)
+                .mediaType("IMAGE")
+                .mediaUrl("https://cdn.example.com/" + mediaId + ".jpg")
+                .caption(caption)
+                .timestamp(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .likeCount(7)
+                .commentsCount(1)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.MediaPartitionProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaPartitionMaintenanceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rangeEnd_ShouldCoverYearlyAndMonthlyPartitionsOnly() {
+        assertEquals(Optional.of(LocalDate.of(2016, 1, 1)), MediaPartitionMaintenance.rangeEnd("instagram_media_p2015"));
+        assertEquals(Optional.of(LocalDate.of(2026, 4, 1)), MediaPartitionMaintenance.rangeEnd("instagram_media_p2026_03"));
+        assertEquals(Optional.of(LocalDate.of(2027, 1, 1)), MediaPartitionMaintenance.rangeEnd("instagram_media_p2026_12"));
+        assertEquals(Optional.empty(), MediaPartitionMaintenance.rangeEnd("instagram_media_default"));
+    }
+
+    @Test
+    void maintain_ShouldCreateAheadAndDropOnlyExpiredPartitions() {
+        MediaPartitionProperties properties = new MediaPartitionProperties();
+        properties.setRetention(Duration.ofDays(365 * 3));
+        int lastYear = LocalDate.now().getYear() - 1;
+        when(jdbcTemplate.queryForObject("select pg_try_advisory_lock(?)", Boolean.class, MediaPartitionMaintenance.LOCK_KEY))
+                .thenReturn(true);
+        when(jdbcTemplate.queryForObject(startsWith("select instagram_media_create_partitions"), eq(Integer.class), eq(3)))
+                .thenReturn(1);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "instagram_media_default", "instagram_media_p2010", "instagram_media_p" + lastYear));
+
+        new MediaPartitionMaintenance(jdbcTemplate, properties).maintain(jdbcTemplate);
+
+        verify(jdbcTemplate).queryForObject("select instagram_media_drop_partition(?)", Long.class, "instagram_media_p2010");
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class), eq("instagram_media_p" + lastYear));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class), eq("instagram_media_default"));
+        verify(jdbcTemplate).queryForObject("select pg_advisory_unlock(?)", Boolean.class, MediaPartitionMaintenance.LOCK_KEY);
+    }
+
+    @Test
+    void maintain_ShouldLeavePartitionsToTheInstanceHoldingTheLock() {
+        when(jdbcTemplate.queryForObject("select pg_try_advisory_lock(?)", Boolean.class, MediaPartitionMaintenance.LOCK_KEY))
+                .thenReturn(false);
+
+        new MediaPartitionMaintenance(jdbcTemplate, new MediaPartitionProperties()).maintain(jdbcTemplate);
+
+        verify(jdbcTemplate).queryForObject("select pg_try_advisory_lock(?)", Boolean.class, MediaPartitionMaintenance.LOCK_KEY);
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void maintain_ShouldDoNothingOnOtherDatabases() throws Exception {
+        Connection connection = mock(Connection.class, RETURNS_DEEP_STUBS);
+        when(connection.getMetaData().getDatabaseProductName()).thenReturn("H2");
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<Void>>getArgument(0).doInConnection(connection));
+
+        new MediaPartitionMaintenance(jdbcTemplate, new MediaPartitionProperties()).maintain();
+
+        verify(jdbcTemplate).execute(any(ConnectionCallback.class));
+        verifyNoMoreInteractions(jdbcTemplate);
+        verify(connection, never()).prepareStatement(anyString());
+    }
+}
@@ -0,0 +1,135 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.RenditionProperties;
+import com.instagram.api.event.MediaDeletedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MediaRenditionServiceTest {
+
+    @TempDir
+    Path renditionDir;
+
+    @TempDir
+    Path sourceDir;
+
+    private final MediaProxyService mediaProxyService = mock(MediaProxyService.class);
+    private final ImageRenditionRenderer renderer = mock(ImageRenditionRenderer.class);
+    private MediaRenditionService renditionService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RenditionProperties properties = new RenditionProperties();
+        properties.setDirectory(renditionDir.toString());
+        properties.setSizes(List.of(150, 320));
+        // Room for the renditions of two media items: 2 x (100 + 100) bytes
+        properties.setMaxSizeBytes(400);
+        properties.setEvictionGrace(Duration.ZERO);
+        renditionService = new MediaRenditionService(mediaProxyService, renderer, properties);
+        renditionService.init();
+
+        Path source = Files.write(sourceDir.resolve("source.jpg"), new byte[10]);
+        when(mediaProxyService.getMediaBinary(anyString(), eq(MediaProxyService.Variant.THUMBNAIL)))
+                .thenAnswer(invocation -> new MediaBinaryCache.CachedBinary(source, 10, "image/jpeg", "etag",
+                        FileChannel.open(source, StandardOpenOption.READ)));
+        doAnswer(invocation -> {
+            Path target = invocation.getArgument(2);
+            Files.createDirectories(target);
+            for (int size : invocation.<List<Integer>>getArgument(1)) {
+                Files.write(target.resolve(size + ".jpg"), new byte[100]);
+            }
+            return null;
+        }).when(renderer).render(any(InputStream.class), anyList(), any(), anyFloat());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        renditionService.shutdown();
+    }
+
+    @Test
+    void getRendition_ShouldDeleteTheLeastRecentlyServedMediaBeyondMaxSize() throws IOException {
+        renditionService.getRendition("1", 150);
+        renditionService.getRendition("2", 150);
+        renditionService.getRendition("1", 320);
+
+        renditionService.getRendition("3", 150);
+
+        assertTrue(Files.exists(renditionDir.resolve("1").resolve("320.jpg")));
+        assertFalse(Files.exists(renditionDir.resolve("2")));
+        assertTrue(Files.exists(renditionDir.resolve("3").resolve("150.jpg")));
+        verify(renderer, times(3)).render(any(InputStream.class), anyList(), any(), anyFloat());
+    }
+
+    @Test
+    void getRendition_ShouldDownloadOffTheRenderPool() throws IOException {
+        List<String> fetchThreads = new CopyOnWriteArrayList<>();
+        List<String> renderThreads = new CopyOnWriteArrayList<>();
+        Path source = Files.write(sourceDir.resolve("tracked.jpg"), new byte[10]);
+        when(mediaProxyService.getMediaBinary(anyString(), eq(MediaProxyService.Variant.THUMBNAIL)))
+                .thenAnswer(invocation -> {
+                    fetchThreads.add(Thread.currentThread().getName());
+                    return new MediaBinaryCache.CachedBinary(source, 10, "image/jpeg", "etag",
+                            FileChannel.open(source, StandardOpenOption.READ));
+                });
+        doAnswer(invocation -> {
+            renderThreads.add(Thread.currentThread().getName());
+            Path target = Files.createDirectories(invocation.getArgument(2));
+            Files.write(target.resolve("150.jpg"), new byte[100]);
+            Files.write(target.resolve("320.jpg"), new byte[100]);
+            return null;
+        }).when(renderer).render(any(InputStream.class), anyList(), any(), anyFloat());
+
+        renditionService.getRendition("1", 150).close();
+
+        assertTrue(fetchThreads.get(0).startsWith("rendition-fetch-"), fetchThreads.get(0));
+        assertTrue(renderThreads.get(0).contains("ForkJoinPool"), renderThreads.get(0));
+    }
+
+    @Test
+    void getRendition_ShouldServeEvictedRenditionsAgainWithinTheGracePeriod() throws Exception {
+        RenditionProperties properties = new RenditionProperties();
+        properties.setDirectory(renditionDir.toString());
+        properties.setSizes(List.of(150, 320));
+        properties.setMaxSizeBytes(200);
+        properties.setEvictionGrace(Duration.ofHours(1));
+        renditionService.shutdown();
+        renditionService = new MediaRenditionService(mediaProxyService, renderer, properties);
+        renditionService.init();
+
+        renditionService.getRendition("1", 150).close();
+        renditionService.getRendition("2", 150).close();
+        assertTrue(Files.exists(renditionDir.resolve("1").resolve("150.jpg")));
+
+        renditionService.getRendition("1", 150).close();
+
+        verify(renderer, times(2)).render(any(InputStream.class), anyList(), any(), anyFloat());
+    }
+
+    @Test
+    void onMediaDeleted_ShouldDeleteRenditionsOfPurgedMedia() {
+        renditionService.getRendition("1", 150);
+        renditionService.getRendition("2", 150);
+
+        renditionService.onMediaDeleted(new MediaDeletedEvent(7L, List.of("1", "../escape")));
+
+        assertFalse(Files.exists(renditionDir.resolve("1")));
+        assertTrue(Files.exists(renditionDir.resolve("2")));
+    }
+}
@@ -0,0 +1,152 @@
+package com.instagram.api.service;
+
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.dto.MediaSearchResponse;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMediaTag;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import com.instagram.api.repository.InstagramMediaTagRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MediaSearchServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MediaSearchService searchService;
+
+    @Autowired
+    private InstagramDataService dataService;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @Autowired
+    private InstagramMediaTagRepository tagRepository;
+
+    private InstagramAccount account;
+
+    @BeforeEach
+    void setUp() {
+        account = accountRepository.save(InstagramAccount.builder()
+                .userId("search-user")
+                .instagramUserId("search-ig")
+                .instagramBusinessAccountId("search-business")
+                .accessToken("token")
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build());
+
+        dataService.persistMedia(account, List.of(
+                media("s-1", "Sunset at the beach #travel #Beach with @jane", 10),
+                media("s-2", "Beach beach beach! #travel", 5),
+                media("s-3", "Mountain hike #travel @jane", 50),
+                media("s-4", "Coffee time", 1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tagRepository.deleteAllInBatch();
+        mediaRepository.deleteAllInBatch();
+        accountRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void persistMedia_ShouldIndexTagsAndReplaceThemWhenCaptionChanges() {
+        assertEquals(6, tagRepository.count());
+
+        dataService.persistMedia(account, List.of(media("s-1", "Sunset #golden", 10)));
+
+        List<String> tags = tagRepository.findAll().stream()
+                .filter(tag -> tag.getMedia().getId().equals(mediaRepository.findByMediaId("s-1").get().getId()))
+                .map(InstagramMediaTag::getTag)
+                .toList();
+        assertEquals(List.of("golden"), tags);
+    }
+
+    @Test
+    void search_ShouldRankKeywordMatchesByRelevance() {
+        MediaSearchResponse response = searchService.search("beach", null, null, null);
+
+        assertEquals(List.of("s-2", "s-1"), mediaIds(response));
+        assertEquals("search-user", response.getResults().get(0).getUserId());
+        assertFalse(response.getPaging().isHasMore());
+    }
+
+    @Test
+    void search_ShouldCombineHashtagsMentionsAndKeywords() {
+        assertEquals(List.of("s-3", "s-1"), mediaIds(searchService.search("#travel @jane", null, null, null)));
+        assertEquals(List.of("s-1"), mediaIds(searchService.search("sunset #TRAVEL", null, null, null)));
+        assertEquals(List.of(), mediaIds(searchService.search("#travel", "someone-else", null, null)));
+    }
+
+    @Test
+    void search_ShouldPageWithKeysetCursor() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            MediaSearchResponse page = searchService.search("#travel", null, 1, cursor);
+            seen.addAll(mediaIds(page));
+            cursor = page.getPaging().getNextCursor();
+        } while (cursor != null);
+
+        // Tag-only queries rank by engagement
+        assertEquals(List.of("s-3", "s-1", "s-2"), seen);
+    }
+
+    @Test
+    void searchEndpoint_ShouldRejectEmptyQueriesAndBadCursors() throws Exception {
+        mockMvc.perform(get("/api/instagram/media/search").param("q", "  "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/instagram/media/search").param("q", "beach").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/instagram/media/search").param("q", "beach").param("limit", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchEndpoint_ShouldReturnResults() throws Exception {
+        mockMvc.perform(get("/api/instagram/media/search").param("q", "#beach"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.results[0].media.id").value("s-1"))
+                .andExpect(jsonPath("$.data.paging.hasMore").value(false));
+    }
+
+    private static List<String> mediaIds(MediaSearchResponse response) {
+        return response.getResults().stream().map(hit -> hit.getMedia().getId()).toList();
+    }
+
+    private static InstagramMediaDTO media(String id, String caption, int likes) {
+        return InstagramMediaDTO.builder()
+                .id(id)
+                .mediaType("IMAGE")
+                .caption(caption)
+                .timestamp("2024-01-01T12:00:00+0000")
+                .likeCount(likes)
+                .commentsCount(0)
+                .build();
+    }
+}
@@ -0,0 +1,222 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.OutboxEvent;
+import com.instagram.api.entity.OutboxRelayCheckpoint;
+import com.instagram.api.event.OutboxSink;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import com.instagram.api.repository.OutboxEventRepository;
+import com.instagram.api.repository.OutboxRelayCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Account and media changes land in the outbox with the transaction that made them, numbered
+ * per account, and are relayed to the local file sink in batches.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxRelayTest {
+
+    private static final Path OUTBOX_FILE = tempDirectory().resolve("outbox.ndjson");
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private OutboxStore store;
+
+    @Autowired
+    private OutboxSink sink;
+
+    @Autowired
+    private InstagramDataService dataService;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @Autowired
+    private OutboxEventRepository eventRepository;
+
+    @Autowired
+    private OutboxRelayCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private InstagramAccount account;
+
+    @DynamicPropertySource
+    static void outbox(DynamicPropertyRegistry registry) {
+        registry.add("instagram.outbox.file", OUTBOX_FILE::toString);
+        registry.add("instagram.outbox.batch-size", () -> "2");
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        eventRepository.deleteAll();
+        Files.deleteIfExists(OUTBOX_FILE);
+        account = accountRepository.save(InstagramAccount.builder()
+                .userId("outbox-user")
+                .instagramUserId("outbox-ig")
+                .username("before")
+                .accessToken("token")
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        mediaRepository.deleteAll();
+        accountRepository.deleteAll();
+        eventRepository.deleteAll();
+    }
+
+    @Test
+    void changesAreWrittenWithTheirTransactionAndNumberedPerAccount() throws IOException {
+        dataService.persistMedia(account, List.of(media("m1", 10), media("m2", 20)));
+        dataService.persistMedia(account, List.of(media("m1", 11), media("m2", 20)));
+        account.setUsername("after");
+        account.setFollowersCount(5);
+        accountRepository.save(account);
+
+        List<OutboxEvent> events = outbox();
+        assertEquals(List.of(OutboxEvent.Type.ACCOUNT_LINKED, OutboxEvent.Type.MEDIA_CREATED,
+                        OutboxEvent.Type.MEDIA_CREATED, OutboxEvent.Type.MEDIA_ENGAGEMENT_CHANGED,
+                        OutboxEvent.Type.PROFILE_CHANGED),
+                events.stream().map(OutboxEvent::getType).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), events.stream().map(OutboxEvent::getAccountSequence).toList());
+        assertTrue(events.stream().allMatch(event -> "outbox-user".equals(event.getUserId())));
+
+        OutboxEvent engagement = events.get(3);
+        assertEquals("m1", engagement.getMediaId());
+        JsonNode likes = objectMapper.readTree(engagement.getPayload()).path("changes").path("likeCount");
+        assertEquals(10, likes.path("before").asInt());
+        assertEquals(11, likes.path("after").asInt());
+
+        JsonNode profile = objectMapper.readTree(events.get(4).getPayload()).path("changes");
+        assertEquals("after", profile.path("username").path("after").asText());
+        assertTrue(profile.has("followersCount"));
+        assertFalse(profile.has("accessToken"));
+    }
+
+    @Test
+    void rolledBackChangesLeaveNoEvents() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            InstagramAccount loaded = accountRepository.findById(account.getId()).orElseThrow();
+            loaded.setIsActive(false);
+            accountRepository.flush();
+            status.setRollbackOnly();
+        });
+        account.setIsActive(false);
+        accountRepository.save(account);
+
+        List<OutboxEvent> events = outbox();
+        assertEquals(List.of(OutboxEvent.Type.ACCOUNT_LINKED, OutboxEvent.Type.ACCOUNT_UNLINKED),
+                events.stream().map(OutboxEvent::getType).toList());
+        assertEquals(2L, events.get(1).getAccountSequence());
+    }
+
+    @Test
+    void relayAppendsEventsInBatchesAndAdvancesTheCheckpoint() throws IOException {
+        dataService.persistMedia(account, List.of(media("m1", 1), media("m2", 2), media("m3", 3), media("m4", 4)));
+        List<OutboxEvent> events = outbox();
+        long relayedBefore = checkpoint().getRelayedCount();
+
+        assertEquals(5, relay.relayPending());
+
+        List<String> lines = Files.readAllLines(OUTBOX_FILE);
+        assertEquals(5, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode line = objectMapper.readTree(lines.get(i));
+            assertEquals(events.get(i).getId().longValue(), line.path("id").asLong());
+            assertEquals(i + 1, line.path("sequence").asLong());
+            assertEquals("outbox-user", line.path("userId").asText());
+        }
+        assertEquals("MEDIA_CREATED", objectMapper.readTree(lines.get(4)).path("type").asText());
+        assertEquals(4, objectMapper.readTree(lines.get(4)).path("data").path("likeCount").asInt());
+
+        assertEquals(0, eventRepository.count());
+        OutboxRelayCheckpoint checkpoint = checkpoint();
+        assertEquals(events.get(4).getId(), checkpoint.getLastEventId());
+        assertEquals(relayedBefore + 5, checkpoint.getRelayedCount());
+        assertEquals(0, relay.relayPending());
+    }
+
+    @Test
+    void onlyTheLeaseHolderRelays() throws IOException {
+        OutboxRelayCheckpoint checkpoint = checkpoint();
+        checkpoint.setLeaseOwner("other-instance");
+        checkpoint.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(1));
+        checkpointRepository.save(checkpoint);
+        try {
+            assertEquals(OutboxStore.NOT_LEASE_HOLDER, store.relayBatch("this-instance", 10, Duration.ofSeconds(30), sink));
+            assertEquals(0, relay.relayPending());
+            assertEquals(1, eventRepository.count());
+            assertFalse(Files.exists(OUTBOX_FILE));
+        } finally {
+            checkpoint = checkpoint();
+            checkpoint.setLeaseOwner(null);
+            checkpoint.setLeaseExpiresAt(null);
+            checkpointRepository.save(checkpoint);
+        }
+    }
+
+    private List<OutboxEvent> outbox() {
+        return eventRepository.findAll().stream()
+                .sorted(Comparator.comparing(OutboxEvent::getId))
+                .toList();
+    }
+
+    private OutboxRelayCheckpoint checkpoint() {
+        return checkpointRepository.findById(OutboxStore.CHECKPOINT).orElseThrow();
+    }
+
+    private static InstagramMediaDTO media(String id, int likes) {
+        return InstagramMediaDTO.builder()
+                .id(id)
+                .mediaType("IMAGE")
+                .timestamp("2024-05-01T10:00:00+0000")
+                .likeCount(likes)
+                .commentsCount(0)
+                .build();
+    }
+
+    private static Path tempDirectory() {
+        try {
+            return Files.createTempDirectory("outbox-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.client.GraphApiClient;
+import com.instagram.api.config.PublishProperties;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.PublishJob;
+import com.instagram.api.loadtest.GraphApiStub;
+import com.instagram.api.loadtest.GraphLoadDriver;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.PublishJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Publishing against the Graph API stub, with the application restarted while containers are
+ * still processing, and lease handling of a poller that falls behind.
+ */
+class PublishPollerTest {
+
+    private static final int REELS = 6;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+    private GraphApiStub stub;
+
+    @AfterEach
+    void tearDown() {
+        instances.forEach(ConfigurableApplicationContext::close);
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void jobsShouldSurviveRestartAndShareStatusChecks() throws Exception {
+        stub = GraphApiStub.start(new GraphApiStub.Options().containerProcessingChecks(3));
+        String database = "jdbc:h2:mem:publish-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        ConfigurableApplicationContext first = startInstance(database);
+        first.getBean(InstagramAccountRepository.class).save(InstagramAccount.builder()
+                .userId("publisher")
+                .instagramUserId("publisher-ig")
+                .instagramBusinessAccountId("17841400000000001")
+                .accessToken("token-publisher")
+                .tokenExpiresAt(LocalDateTime.now().plusDays(30))
+                .build());
+
+        List<Long> jobIds = new ArrayList<>();
+        for (int i = 0; i < REELS; i++) {
+            jobIds.add(submit(first, "https://cdn.example.invalid/reel-" + i + ".mp4", "REELS"));
+        }
+        long broken = submit(first, "https://cdn.example.invalid/broken.mp4", "REELS");
+        assertEquals(400, post(first, "{\"mediaType\":\"REELS\",\"mediaUrl\":\"not a url\"}").statusCode());
+
+        assertEquals(REELS + 1, first.getBean(PublishPoller.class).processDue());
+        assertEquals((long) REELS + 1, stub.getRequestsByEndpoint().get("account/media container"));
+        first.close();
+
+        ConfigurableApplicationContext second = startInstance(database);
+        PublishPoller poller = second.getBean(PublishPoller.class);
+        PublishJobRepository jobs = second.getBean(PublishJobRepository.class);
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (jobs.findAll().stream().anyMatch(job -> !job.isFinished())) {
+            assertTrue(System.nanoTime() < deadline, "jobs did not finish in time");
+            poller.processDue();
+            Thread.sleep(20);
+        }
+
+        for (Long jobId : jobIds) {
+            JsonNode job = get(second, jobId);
+            assertEquals("PUBLISHED", job.at("/data/status").asText());
+            assertTrue(stub.getPublishedMediaIds().contains(job.at("/data/mediaId").asText()));
+        }
+        JsonNode failed = get(second, broken);
+        assertEquals("FAILED", failed.at("/data/status").asText());
+        assertTrue(failed.at("/data/error").asText().contains("ERROR"));
+        assertEquals(PublishJob.Status.FAILED, jobs.findById(broken).orElseThrow().getStatus());
+
+        // Every container needs 4 status reads; one call reads all of them
+        assertEquals(REELS, stub.getPublishedMediaIds().size());
+        assertTrue(stub.getRequestsByEndpoint().get("container status") <= 6,
+                "status calls: " + stub.getRequestsByEndpoint().get("container status"));
+    }
+
+    @Test
+    void jobTakenOverByAnotherInstanceShouldNotBePublishedAgain() {
+        PublishJobStore store = mock(PublishJobStore.class);
+        GraphApiClient graphApiClient = mock(GraphApiClient.class);
+        InstagramAccountRepository accounts = mock(InstagramAccountRepository.class);
+        AccountSyncLeases leases = mock(AccountSyncLeases.class);
+        when(leases.getInstanceId()).thenReturn("slow-instance");
+        PublishProperties properties = new PublishProperties();
+        PublishJob job = PublishJob.builder()
+                .id(1L).accountId(7L).userId("publisher").mediaType(PublishJob.MediaType.IMAGE)
+                .mediaUrl("https://cdn.example.invalid/a.jpg").status(PublishJob.Status.PROCESSING)
+                .containerId("container1").leaseOwner("slow-instance").createdAt(LocalDateTime.now())
+                .build();
+        when(store.claim(eq("slow-instance"), anyInt(), any())).thenReturn(List.of(job), List.of());
+        when(accounts.findAllById(any())).thenReturn(List.of(InstagramAccount.builder()
+                .id(7L).isActive(true).accessToken("token").instagramBusinessAccountId("17841400000000001")
+                .build()));
+        when(graphApiClient.getContainerStatuses(any(), eq("token"))).thenReturn(new ObjectMapper()
+                .createObjectNode().set("container1", new ObjectMapper().createObjectNode()
+                        .put("status_code", "FINISHED")));
+        // The status call outlived the lease and another instance claimed the job
+        when(store.renew(job, "slow-instance", properties.getLeaseDuration())).thenReturn(false);
+
+        new PublishPoller(store, graphApiClient, accounts, properties, leases).processDue();
+
+        verify(graphApiClient, never()).publishMediaContainer(any(), any(), any());
+        verify(store, never()).release(any(), any());
+    }
+
+    private ConfigurableApplicationContext startInstance(String database) {
+        ConfigurableApplicationContext context = GraphLoadDriver.startApplication(stub,
+                "--spring.datasource.url=" + database,
+                "--instagram.publish.first-check-delay=10ms",
+                "--instagram.publish.max-check-delay=50ms");
+        instances.add(context);
+        return context;
+    }
+
+    private long submit(ConfigurableApplicationContext instance, String mediaUrl, String mediaType) throws Exception {
+        HttpResponse<String> response = post(instance,
+                "{\"mediaType\":\"" + mediaType + "\",\"mediaUrl\":\"" + mediaUrl + "\",\"caption\":\"New #reel\"}");
+        assertEquals(202, response.statusCode(), response.body());
+        JsonNode job = objectMapper.readTree(response.body()).path("data");
+        assertEquals("QUEUED", job.path("status").asText());
+        return job.path("jobId").asLong();
+    }
+
+    private HttpResponse<String> post(ConfigurableApplicationContext instance, String body) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri(instance, "/api/instagram/publish?userId=publisher"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode get(ConfigurableApplicationContext instance, long jobId) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                uri(instance, "/api/instagram/publish/" + jobId + "?userId=publisher")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private static URI uri(ConfigurableApplicationContext instance, String path) {
+        int port = ((ServletWebServerApplicationContext) instance).getWebServer().getPort();
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+}
@@ -0,0 +1,99 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestRateLimiterTest {
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final RequestRateLimiter limiter = new RequestRateLimiter(properties);
+
+    @Test
+    void tryAcquire_ShouldAllowBurstOfCapacity_ThenReportWaitForNextToken() {
+        RateLimitProperties.Limit limit = limit(3, Duration.ofHours(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Duration.ZERO, limiter.tryAcquire("/data", "user-1", limit));
+        }
+        Duration retryAfter = limiter.tryAcquire("/data", "user-1", limit);
+
+        // One token refills every 20 minutes
+        assertTrue(retryAfter.compareTo(Duration.ofMinutes(19)) > 0, retryAfter.toString());
+        assertTrue(retryAfter.compareTo(Duration.ofMinutes(20)) <= 0, retryAfter.toString());
+        // Other keys and endpoints have buckets of their own
+        assertEquals(Duration.ZERO, limiter.tryAcquire("/data", "user-2", limit));
+        assertEquals(Duration.ZERO, limiter.tryAcquire("/refresh", "user-1", limit));
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillOverTime() throws InterruptedException {
+        RateLimitProperties.Limit limit = limit(2, Duration.ofMillis(200));
+        limiter.tryAcquire("/data", "user-1", limit);
+        limiter.tryAcquire("/data", "user-1", limit);
+        assertFalse(limiter.tryAcquire("/data", "user-1", limit).isZero());
+
+        Thread.sleep(150);
+
+        assertEquals(Duration.ZERO, limiter.tryAcquire("/data", "user-1", limit));
+    }
+
+    @Test
+    void tryAcquire_ShouldNeverGrantMoreThanCapacityUnderContention() throws InterruptedException {
+        RateLimitProperties.Limit limit = limit(100, Duration.ofHours(1));
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                if (limiter.tryAcquire("/data", "hot-user", limit).isZero()) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    void buckets_ShouldStayWithinMaxBuckets() {
+        properties.setMaxBuckets(10);
+        RateLimitProperties.Limit limit = limit(2, Duration.ofHours(1));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("/data", "user-" + i, limit);
+        }
+
+        assertTrue(limiter.getBucketCount() <= 10, "buckets: " + limiter.getBucketCount());
+    }
+
+    @Test
+    void buckets_ShouldDropRefilledBucketsFirst() throws InterruptedException {
+        properties.setMaxBuckets(2);
+        RateLimitProperties.Limit limit = limit(1, Duration.ofHours(1));
+        limiter.tryAcquire("/data", "idle-user", limit(1, Duration.ofMillis(1)));
+        limiter.tryAcquire("/data", "busy-user", limit);
+        Thread.sleep(5);
+
+        limiter.tryAcquire("/data", "new-user", limit);
+
+        assertEquals(2, limiter.getBucketCount());
+        // The drained bucket survived the sweep, so its user is still limited
+        assertFalse(limiter.tryAcquire("/data", "busy-user", limit).isZero());
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity, Duration period) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setPeriod(period);
+        return limit;
+    }
+}
@@ -0,0 +1,120 @@
+package com.instagram.api.service;
+
+import com.instagram.api.client.FieldSelection;
+import com.instagram.api.dto.InstagramDataResponse;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.entity.InstagramMedia;
+import com.instagram.api.entity.InstagramMediaChild;
+import com.instagram.api.repository.InstagramAccountRepository;
+import com.instagram.api.repository.InstagramMediaChildRepository;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The stored fallback for {@code /data} has the shape of the live response.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StoredDataReaderTest {
+
+    private static final LocalDateTime SYNCED_AT = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+    @Autowired
+    private StoredDataReader storedData;
+
+    @Autowired
+    private InstagramAccountRepository accountRepository;
+
+    @Autowired
+    private InstagramMediaRepository mediaRepository;
+
+    @Autowired
+    private InstagramMediaChildRepository childRepository;
+
+    private InstagramAccount account;
+
+    @BeforeEach
+    void setUp() {
+        account = accountRepository.save(InstagramAccount.builder()
+                .userId("stored-user")
+                .instagramUserId("stored-ig")
+                .username("stored")
+                .followersCount(42)
+                .accessToken("token")
+                .build());
+        for (int day = 1; day <= 3; day++) {
+            InstagramMedia media = mediaRepository.save(InstagramMedia.builder()
+                    .account(account)
+                    .mediaId("stored-" + day)
+                    .mediaType(day == 3 ? "CAROUSEL_ALBUM" : "IMAGE")
+                    .caption("day " + day)
+                    .likeCount(day)
+                    .timestamp(LocalDateTime.of(2024, 2, day, 12, 0))
+                    .build());
+            if (day == 3) {
+                childRepository.save(InstagramMediaChild.builder()
+                        .media(media).childMediaId("stored-3-c1").position(1).build());
+                childRepository.save(InstagramMediaChild.builder()
+                        .media(media).childMediaId("stored-3-c0").position(0).build());
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        childRepository.deleteAll();
+        mediaRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void neverSyncedAccountHasNothingToServe() {
+        assertTrue(storedData.load(account.getId(), 25, FieldSelection.ALL).isEmpty());
+    }
+
+    @Test
+    void storedDataIsNewestFirstAndMarkedStale() {
+        storedData.markSynced(account.getId(), SYNCED_AT);
+        storedData.markSynced(account.getId(), SYNCED_AT.minusDays(1));
+
+        InstagramDataResponse response = storedData.load(account.getId(), 2, FieldSelection.ALL).orElseThrow();
+
+        assertTrue(response.isStale());
+        assertEquals(SYNCED_AT, response.getLastSyncedAt());
+        assertEquals("stored", response.getProfile().getUsername());
+        assertEquals(42, response.getProfile().getFollowersCount());
+        assertTrue(response.getPaging().isHasMore());
+
+        List<InstagramMediaDTO> media = response.getMedia();
+        assertEquals(List.of("stored-3", "stored-2"), media.stream().map(InstagramMediaDTO::getId).toList());
+        assertEquals("2024-02-03T12:00:00+0000", media.get(0).getTimestamp());
+        assertEquals(List.of("stored-3-c0", "stored-3-c1"),
+                media.get(0).getChildren().stream().map(child -> child.getId()).toList());
+        assertNull(media.get(1).getChildren());
+    }
+
+    @Test
+    void storedDataOnlyHasTheSelectedFields() {
+        storedData.markSynced(account.getId(), SYNCED_AT);
+
+        InstagramDataResponse response = storedData.load(account.getId(), 25,
+                FieldSelection.parse("media", null, "like_count")).orElseThrow();
+
+        assertNull(response.getProfile());
+        InstagramMediaDTO newest = response.getMedia().get(0);
+        assertEquals(3, newest.getLikeCount());
+        assertNull(newest.getCaption());
+        assertNull(newest.getChildren());
+    }
+}
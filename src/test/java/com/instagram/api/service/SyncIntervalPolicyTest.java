@@ -0,0 +1,64 @@
+package com.instagram.api.service;
+
+import com.instagram.api.config.SyncProperties;
+import com.instagram.api.repository.InstagramMediaRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SyncIntervalPolicyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final InstagramMediaRepository mediaRepository = mock(InstagramMediaRepository.class);
+    private final SyncProperties properties = new SyncProperties();
+    private final SyncIntervalPolicy policy = new SyncIntervalPolicy(mediaRepository, properties);
+
+    @Test
+    void dormantAccountsBackOffToTheMaximum() {
+        assertEquals(Duration.ofDays(1), policy.intervalFor(List.of(), NOW));
+    }
+
+    @Test
+    void freshPostsAreFollowedAtTheMinimum() {
+        assertEquals(Duration.ofMinutes(15), policy.intervalFor(postedEvery(Duration.ofDays(1), 30), NOW));
+        assertEquals(Duration.ofMinutes(15), policy.intervalFor(List.of(NOW.minusHours(3)), NOW));
+    }
+
+    @Test
+    void intervalFollowsTheGapBetweenPosts() {
+        // Every 3 days, the newest 3 days old: expect the next post now, sync 4 times per 3 days
+        assertEquals(Duration.ofHours(18), policy.intervalFor(postedEvery(Duration.ofDays(3), 10), NOW));
+
+        // Every 12 hours, but silent for the last 60 hours: the expected gap is the silence
+        List<LocalDateTime> busyThenQuiet = postedEvery(Duration.ofHours(12), 50).stream()
+                .map(time -> time.minusDays(2))
+                .toList();
+        assertEquals(Duration.ofHours(15), policy.intervalFor(busyThenQuiet, NOW));
+    }
+
+    @Test
+    void fixedIntervalWhenAdaptiveSchedulingIsOff() {
+        properties.setAdaptive(false);
+
+        assertEquals(Duration.ofHours(1), policy.nextInterval(1L, NOW));
+        verifyNoInteractions(mediaRepository);
+    }
+
+    /**
+     * {@code count} posts, newest first, the newest {@code gap} ago.
+     */
+    private static List<LocalDateTime> postedEvery(Duration gap, int count) {
+        List<LocalDateTime> posted = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            posted.add(NOW.minus(gap.multipliedBy(i)));
+        }
+        return posted;
+    }
+}
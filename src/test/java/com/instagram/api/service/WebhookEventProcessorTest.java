@@ -0,0 +1,141 @@
+package com.instagram.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.api.config.WebhookProperties;
+import com.instagram.api.dto.InstagramMediaDTO;
+import com.instagram.api.entity.InstagramAccount;
+import com.instagram.api.event.MediaSyncedEvent;
+import com.instagram.api.exception.InstagramApiException;
+import com.instagram.api.repository.InstagramAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookEventProcessorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private InstagramAccountRepository accountRepository;
+
+    @Mock
+    private InstagramDataService dataService;
+
+    @Mock
+    private MediaCommentService commentService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private WebhookProperties properties;
+    private WebhookEventProcessor processor;
+    private InstagramAccount account;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WebhookProperties();
+        properties.setQueueCapacity(2);
+        processor = new WebhookEventProcessor(accountRepository, dataService, commentService, eventPublisher, properties);
+        account = InstagramAccount.builder()
+                .id(1L)
+                .userId("user123")
+                .instagramUserId("ig123")
+                .accessToken("token")
+                .isActive(true)
+                .build();
+    }
+
+    @Test
+    void parse_ShouldExtractMediaReferencesAndSkipOthers() throws Exception {
+        JsonNode payload = objectMapper.readTree("""
+                {"object":"instagram","entry":[{"id":"ig123","changes":[
+                  {"field":"comments","value":{"id":"c1","media":{"id":"m1"}}},
+                  {"field":"mentions","value":{"media_id":"m2","comment_id":"c2"}},
+                  {"field":"story_insights","value":{"reach":10}}
+                ]}]}
+                """);
+
+        List<WebhookEventProcessor.WebhookChange> changes = WebhookEventProcessor.parse(payload);
+
+        assertEquals(2, changes.size());
+        assertEquals("m1", changes.get(0).getMediaId());
+        assertEquals("m2", changes.get(1).getMediaId());
+        assertEquals("ig123", changes.get(1).getInstagramUserId());
+    }
+
+    @Test
+    void processBatch_ShouldResolveAccountOnceAndFetchEachMediaOnce() {
+        when(accountRepository.findByInstagramUserId("ig123")).thenReturn(Optional.of(account));
+        when(dataService.fetchSingleMedia("token", "m1")).thenReturn(InstagramMediaDTO.builder().id("m1").build());
+        when(dataService.fetchSingleMedia("token", "m2")).thenReturn(InstagramMediaDTO.builder().id("m2").build());
+
+        processor.processBatch(List.of(
+                new WebhookEventProcessor.WebhookChange("ig123", "comments", "m1"),
+                new WebhookEventProcessor.WebhookChange("ig123", "comments", "m1"),
+                new WebhookEventProcessor.WebhookChange("ig123", "mentions", "m2")));
+
+        verify(accountRepository, times(1)).findByInstagramUserId("ig123");
+        verify(dataService, times(1)).fetchSingleMedia("token", "m1");
+        verify(dataService, times(1)).fetchSingleMedia("token", "m2");
+        verify(dataService).persistMedia(eq(account), argThat(list -> list.size() == 2));
+        verify(eventPublisher).publishEvent(new MediaSyncedEvent("user123", List.of("m1", "m2")));
+        verify(dataService, never()).fetchAllData(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void processBatch_ShouldSyncCommentsOfCommentedMediaAfterRefreshingIt() {
+        when(accountRepository.findByInstagramUserId("ig123")).thenReturn(Optional.of(account));
+        when(dataService.fetchSingleMedia(eq("token"), anyString()))
+                .thenAnswer(invocation -> InstagramMediaDTO.builder().id(invocation.getArgument(1)).build());
+
+        processor.processBatch(List.of(
+                new WebhookEventProcessor.WebhookChange("ig123", "comments", "m1"),
+                new WebhookEventProcessor.WebhookChange("ig123", "mentions", "m2"),
+                new WebhookEventProcessor.WebhookChange("ig123", "comments", "m1")));
+
+        InOrder inOrder = inOrder(dataService, commentService);
+        inOrder.verify(dataService).persistMedia(eq(account), anyList());
+        inOrder.verify(commentService).syncComments(account, Set.of("m1"));
+        assertEquals(1, processor.getCommentSyncCount());
+    }
+
+    @Test
+    void processBatch_ShouldIgnoreUnknownAccounts() {
+        when(accountRepository.findByInstagramUserId("unknown")).thenReturn(Optional.empty());
+
+        processor.processBatch(List.of(new WebhookEventProcessor.WebhookChange("unknown", "comments", "m1")));
+
+        verifyNoInteractions(dataService, commentService, eventPublisher);
+    }
+
+    @Test
+    void enqueue_ShouldApplyBackpressure_WhenQueueFull() throws Exception {
+        JsonNode payload = objectMapper.readTree("""
+                {"entry":[{"id":"ig123","changes":[
+                  {"field":"comments","value":{"media":{"id":"m1"}}},
+                  {"field":"comments","value":{"media":{"id":"m2"}}},
+                  {"field":"comments","value":{"media":{"id":"m3"}}}
+                ]}]}
+                """);
+
+        InstagramApiException ex = assertThrows(InstagramApiException.class, () -> processor.enqueue(payload));
+
+        assertEquals(503, ex.getStatusCode());
+        // Nothing of the rejected delivery is queued; Meta redelivers all of it
+        assertEquals(0, processor.getPendingCount());
+    }
+}